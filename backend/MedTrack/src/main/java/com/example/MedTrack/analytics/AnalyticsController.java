@@ -0,0 +1,33 @@
+package com.example.MedTrack.analytics;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/analytics")
+@Tag(name = "Analytics", description = "API for ad-hoc group-by queries over order and sample facts")
+public class AnalyticsController {
+    private final AnalyticsService analyticsService;
+
+    public AnalyticsController(AnalyticsService analyticsService) {
+        this.analyticsService = analyticsService;
+    }
+
+    @PostMapping("/query")
+    @Operation(summary = "Aggregate order lines or samples",
+        description = "Groups order lines or samples by up to three dimensions, with optional date range and value filters, " +
+            "and returns fact count, quantity and revenue per group, largest revenue first (ADMIN only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<AnalyticsRowDto>> query(@Valid @RequestBody AnalyticsQueryRequest request) {
+        return ResponseEntity.ok(analyticsService.query(request));
+    }
+}
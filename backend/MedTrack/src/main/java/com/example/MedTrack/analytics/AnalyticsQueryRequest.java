@@ -0,0 +1,32 @@
+package com.example.MedTrack.analytics;
+
+import lombok.Data;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+public class AnalyticsQueryRequest {
+    
+    @NotNull(message = "Fact type is required")
+    private FactType fact;
+    
+    // Up to three dimensions; none gives a single total
+    private List<Dimension> groupBy = new ArrayList<>();
+    
+    private LocalDate startDate; // Optional
+    
+    private LocalDate endDate; // Optional
+    
+    // Values a fact must have, per dimension: ids for entity dimensions, yyyy-MM for MONTH
+    private Map<Dimension, List<String>> filters = new EnumMap<>(Dimension.class);
+    
+    @Min(value = 1, message = "Limit must be at least 1")
+    @Max(value = 10000, message = "Limit must be at most 10000")
+    private Integer limit = 1000;
+}
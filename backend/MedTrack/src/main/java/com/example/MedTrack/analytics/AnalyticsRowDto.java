@@ -0,0 +1,19 @@
+package com.example.MedTrack.analytics;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsRowDto {
+    // Value of each grouped dimension; null where the facts have none
+    private Map<Dimension, String> group;
+    private Long facts;
+    private Long quantity;
+    private BigDecimal revenue;
+}
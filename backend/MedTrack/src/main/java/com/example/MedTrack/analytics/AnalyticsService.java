@@ -0,0 +1,117 @@
+package com.example.MedTrack.analytics;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import com.example.MedTrack.exceptions.BadRequestException;
+
+@Service
+public class AnalyticsService {
+    private final ObjectProvider<FactStore> factStoreProvider;
+
+    public AnalyticsService(ObjectProvider<FactStore> factStoreProvider) {
+        this.factStoreProvider = factStoreProvider;
+    }
+
+    public List<AnalyticsRowDto> query(AnalyticsQueryRequest request) {
+        FactStore factStore = factStoreProvider.getIfAvailable();
+        if (factStore == null) {
+            throw new BadRequestException("Analytics is disabled");
+        }
+        if (!factStore.isLoaded()) {
+            throw new IllegalStateException("Analytics store is still loading, try again shortly");
+        }
+
+        List<Dimension> groupBy = request.getGroupBy() != null ? request.getGroupBy() : List.of();
+        if (groupBy.size() > FactTable.MAX_GROUP_BY) {
+            throw new BadRequestException("Group by at most " + FactTable.MAX_GROUP_BY + " dimensions");
+        }
+        if (new HashSet<>(groupBy).size() != groupBy.size()) {
+            throw new BadRequestException("Group by dimensions must not repeat");
+        }
+        LocalDate startDate = request.getStartDate();
+        LocalDate endDate = request.getEndDate();
+        if (startDate != null && endDate != null && startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date cannot be after end date");
+        }
+
+        Map<Dimension, int[]> filters = new EnumMap<>(Dimension.class);
+        if (request.getFilters() != null) {
+            request.getFilters().forEach((dimension, values) -> filters.put(dimension, encode(factStore, dimension, values)));
+        }
+
+        FactTable.Query query = new FactTable.Query(groupBy,
+            startDate != null ? Math.toIntExact(startDate.toEpochDay()) : Integer.MIN_VALUE,
+            endDate != null ? Math.toIntExact(endDate.toEpochDay()) : Integer.MAX_VALUE,
+            filters);
+
+        return factStore.aggregate(request.getFact(), query).entrySet().stream()
+            .map(group -> toDto(factStore, groupBy, group.getKey(), group.getValue()))
+            .sorted(Comparator.comparing(AnalyticsRowDto::getRevenue)
+                .thenComparing(AnalyticsRowDto::getQuantity)
+                .thenComparing(AnalyticsRowDto::getFacts)
+                .reversed())
+            .limit(request.getLimit() != null ? request.getLimit() : 1000)
+            .collect(Collectors.toList());
+    }
+
+    // Filter values as sorted column values; unknown dictionary values match nothing
+    private int[] encode(FactStore factStore, Dimension dimension, List<String> values) {
+        if (values == null || values.isEmpty()) {
+            throw new BadRequestException("Filter on " + dimension + " needs at least one value");
+        }
+        int[] codes = new int[values.size()];
+        for (int i = 0; i < codes.length; i++) {
+            String value = values.get(i);
+            if (dimension.isDictionaryEncoded()) {
+                codes[i] = factStore.lookup(dimension, value);
+            } else if (dimension == Dimension.MONTH) {
+                try {
+                    YearMonth month = YearMonth.parse(value);
+                    codes[i] = FactLoader.monthIndex(month.atDay(1));
+                } catch (DateTimeParseException e) {
+                    throw new BadRequestException("MONTH filter values must be yyyy-MM, got: " + value);
+                }
+            } else {
+                try {
+                    codes[i] = Math.toIntExact(Long.parseLong(value));
+                } catch (NumberFormatException | ArithmeticException e) {
+                    throw new BadRequestException(dimension + " filter values must be ids, got: " + value);
+                }
+            }
+        }
+        Arrays.sort(codes);
+        return codes;
+    }
+
+    private AnalyticsRowDto toDto(FactStore factStore, List<Dimension> groupBy, FactTable.GroupKey key, FactTable.Totals totals) {
+        int[] values = {key.first(), key.second(), key.third()};
+        Map<Dimension, String> group = new LinkedHashMap<>();
+        for (int i = 0; i < groupBy.size(); i++) {
+            group.put(groupBy.get(i), decode(factStore, groupBy.get(i), values[i]));
+        }
+        return new AnalyticsRowDto(group, totals.facts, totals.quantity, BigDecimal.valueOf(totals.cents, 2));
+    }
+
+    private String decode(FactStore factStore, Dimension dimension, int value) {
+        if (dimension.isDictionaryEncoded()) {
+            return factStore.decode(dimension, value);
+        }
+        if (dimension == Dimension.MONTH) {
+            return YearMonth.of(Math.floorDiv(value, 12), Math.floorMod(value, 12) + 1).toString();
+        }
+        return value != 0 ? String.valueOf(value) : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.MedTrack.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps the distinct values of a string dimension to dense int codes, so fact columns hold
+ * ints instead of strings. Code 0 stands for no value. Codes are only ever added, so a
+ * code read by a running query keeps its meaning.
+ */
+final class Dictionary {
+    static final int NONE = 0;
+
+    private final Map<String, Integer> codes = new HashMap<>();
+    private volatile String[] values = new String[] {null};
+
+    synchronized int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        int next = values.length;
+        String[] grown = Arrays.copyOf(values, next + 1);
+        grown[next] = value;
+        codes.put(value, next);
+        values = grown;
+        return next;
+    }
+
+    // The code of a known value, or -1, which no fact has
+    synchronized int lookup(String value) {
+        return codes.getOrDefault(value, -1);
+    }
+
+    String decode(int code) {
+        String[] current = values;
+        return code > NONE && code < current.length ? current[code] : null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.MedTrack.analytics;
+
+/**
+ * What facts can be grouped and filtered by. Entity dimensions hold the entity's id; the
+ * others are dictionary-encoded strings. A fact without a value, such as a sample's order
+ * status or an order taken without a visit, has code 0.
+ */
+public enum Dimension {
+    PRODUCT(false),
+    PRODUCT_CATEGORY(true),
+    DOCTOR(false),
+    DOCTOR_SPECIALTY(true),
+    // The rep of the visit the order or sample was taken on
+    REP(false),
+    // City of the visit's location
+    CITY(true),
+    // yyyy-MM
+    MONTH(false),
+    ORDER_STATUS(true);
+
+    private final boolean dictionaryEncoded;
+
+    Dimension(boolean dictionaryEncoded) {
+        this.dictionaryEncoded = dictionaryEncoded;
+    }
+
+    public boolean isDictionaryEncoded() {
+        return dictionaryEncoded;
+    }
+}
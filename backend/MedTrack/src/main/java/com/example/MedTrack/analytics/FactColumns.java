@@ -0,0 +1,102 @@
+package com.example.MedTrack.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Growable primitive columns, one slot per fact. The entity column holds the order id of an
+ * order line or the sample id, so all facts of an entity can be replaced together. Days are
+ * epoch days, months are year * 12 + month - 1 and amounts are in cents.
+ */
+final class FactColumns {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    int size;
+    int[] entity;
+    int[] day;
+    int[] month;
+    int[] product;
+    int[] category;
+    int[] doctor;
+    int[] specialty;
+    int[] rep;
+    int[] city;
+    int[] status;
+    int[] quantity;
+    long[] cents;
+
+    FactColumns() {
+        this(INITIAL_CAPACITY);
+    }
+
+    FactColumns(int capacity) {
+        int initial = Math.max(capacity, 16);
+        entity = new int[initial];
+        day = new int[initial];
+        month = new int[initial];
+        product = new int[initial];
+        category = new int[initial];
+        doctor = new int[initial];
+        specialty = new int[initial];
+        rep = new int[initial];
+        city = new int[initial];
+        status = new int[initial];
+        quantity = new int[initial];
+        cents = new long[initial];
+    }
+
+    void add(int entityId, int epochDay, int monthIndex, int productId, int categoryCode, int doctorId,
+             int specialtyCode, int repId, int cityCode, int statusCode, int units, long amountCents) {
+        ensureCapacity(size + 1);
+        int row = size++;
+        entity[row] = entityId;
+        day[row] = epochDay;
+        month[row] = monthIndex;
+        product[row] = productId;
+        category[row] = categoryCode;
+        doctor[row] = doctorId;
+        specialty[row] = specialtyCode;
+        rep[row] = repId;
+        city[row] = cityCode;
+        status[row] = statusCode;
+        quantity[row] = units;
+        cents[row] = amountCents;
+    }
+
+    void copyRow(FactColumns from, int row) {
+        add(from.entity[row], from.day[row], from.month[row], from.product[row], from.category[row],
+            from.doctor[row], from.specialty[row], from.rep[row], from.city[row], from.status[row],
+            from.quantity[row], from.cents[row]);
+    }
+
+    int[] column(Dimension dimension) {
+        return switch (dimension) {
+            case PRODUCT -> product;
+            case PRODUCT_CATEGORY -> category;
+            case DOCTOR -> doctor;
+            case DOCTOR_SPECIALTY -> specialty;
+            case REP -> rep;
+            case CITY -> city;
+            case MONTH -> month;
+            case ORDER_STATUS -> status;
+        };
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= entity.length) {
+            return;
+        }
+        int capacity = Math.max(needed, entity.length + (entity.length >> 1));
+        entity = Arrays.copyOf(entity, capacity);
+        day = Arrays.copyOf(day, capacity);
+        month = Arrays.copyOf(month, capacity);
+        product = Arrays.copyOf(product, capacity);
+        category = Arrays.copyOf(category, capacity);
+        doctor = Arrays.copyOf(doctor, capacity);
+        specialty = Arrays.copyOf(specialty, capacity);
+        rep = Arrays.copyOf(rep, capacity);
+        city = Arrays.copyOf(city, capacity);
+        status = Arrays.copyOf(status, capacity);
+        quantity = Arrays.copyOf(quantity, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.MedTrack.analytics;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Reads order line and sample facts straight into columns, without entities. Full loads
+ * cover the hot and archive tables in one statement, so rows the archiver is moving are
+ * read exactly once, and stream the result set instead of buffering it.
+ */
+@Repository
+public class FactLoader {
+
+    public record Changed(Long id, LocalDateTime updatedAt) {
+    }
+
+    private static final String ORDER_ITEM_COLUMNS =
+        "o.id AS entity_id, o.order_date AS fact_date, i.product_id, p.category, o.doctor_id, d.specialty, " +
+        "o.status, i.quantity, i.subtotal AS amount, ";
+    private static final String HOT_ORDER_ITEMS =
+        "SELECT " + ORDER_ITEM_COLUMNS + "v.user_id AS rep_id, l.city FROM orders o " +
+        "JOIN order_item i ON i.order_id = o.id JOIN product p ON p.id = i.product_id JOIN doctor d ON d.id = o.doctor_id " +
+        "LEFT JOIN visit v ON v.id = o.visit_id LEFT JOIN locations l ON l.id = v.location_id";
+    private static final String ARCHIVED_ORDER_ITEMS =
+        "SELECT " + ORDER_ITEM_COLUMNS + "COALESCE(v.user_id, va.user_id) AS rep_id, l.city FROM orders_archive o " +
+        "JOIN order_item_archive i ON i.order_id = o.id JOIN product p ON p.id = i.product_id JOIN doctor d ON d.id = o.doctor_id " +
+        "LEFT JOIN visit v ON v.id = o.visit_id LEFT JOIN visit_archive va ON va.id = o.visit_id " +
+        "LEFT JOIN locations l ON l.id = COALESCE(v.location_id, va.location_id)";
+
+    private static final String SAMPLE_COLUMNS =
+        "s.id AS entity_id, s.date_issued AS fact_date, s.product_id, p.category, s.doctor_id, d.specialty, " +
+        "NULL AS status, s.quantity, 0 AS amount, ";
+    private static final String HOT_SAMPLES =
+        "SELECT " + SAMPLE_COLUMNS + "v.user_id AS rep_id, l.city FROM sample s " +
+        "JOIN product p ON p.id = s.product_id JOIN doctor d ON d.id = s.doctor_id " +
+        "LEFT JOIN visit v ON v.id = s.visit_id LEFT JOIN locations l ON l.id = v.location_id";
+    private static final String ARCHIVED_SAMPLES =
+        "SELECT " + SAMPLE_COLUMNS + "COALESCE(v.user_id, va.user_id) AS rep_id, l.city FROM sample_archive s " +
+        "JOIN product p ON p.id = s.product_id JOIN doctor d ON d.id = s.doctor_id " +
+        "LEFT JOIN visit v ON v.id = s.visit_id LEFT JOIN visit_archive va ON va.id = s.visit_id " +
+        "LEFT JOIN locations l ON l.id = COALESCE(v.location_id, va.location_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingJdbcTemplate;
+
+    public FactLoader(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        // Makes MySQL Connector/J stream rows one at a time instead of reading the whole result
+        this.streamingJdbcTemplate.setFetchSize(Integer.MIN_VALUE);
+    }
+
+    FactColumns loadAll(FactType type, Map<Dimension, Dictionary> dictionaries) {
+        String sql = switch (type) {
+            case ORDER_ITEMS -> HOT_ORDER_ITEMS + " UNION ALL " + ARCHIVED_ORDER_ITEMS;
+            case SAMPLES -> HOT_SAMPLES + " UNION ALL " + ARCHIVED_SAMPLES;
+        };
+        FactColumns facts = new FactColumns();
+        streamingJdbcTemplate.query(sql, factRow(facts, dictionaries));
+        return facts;
+    }
+
+    // Current facts of the given orders or samples; archived rows never change, so only hot ones are read
+    FactColumns load(FactType type, Collection<Long> ids, Map<Dimension, Dictionary> dictionaries) {
+        FactColumns facts = new FactColumns(ids.size());
+        if (ids.isEmpty()) {
+            return facts;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        String sql = switch (type) {
+            case ORDER_ITEMS -> HOT_ORDER_ITEMS + " WHERE o.id IN (" + placeholders + ")";
+            case SAMPLES -> HOT_SAMPLES + " WHERE s.id IN (" + placeholders + ")";
+        };
+        jdbcTemplate.query(sql, factRow(facts, dictionaries), ids.toArray());
+        return facts;
+    }
+
+    // Keyset page over idx_orders_updated / idx_sample_updated, as the sync change feed reads it
+    List<Changed> findChangedSince(FactType type, LocalDateTime afterTime, long afterId,
+                                   LocalDateTime upTo, int limit) {
+        String table = type == FactType.ORDER_ITEMS ? "orders" : "sample";
+        return jdbcTemplate.query(
+            "SELECT id, updated_at FROM " + table + " WHERE updated_at <= ? " +
+            "AND (updated_at > ? OR (updated_at = ? AND id > ?)) ORDER BY updated_at, id LIMIT ?",
+            (rs, rowNum) -> new Changed(rs.getLong("id"), rs.getObject("updated_at", LocalDateTime.class)),
+            upTo, afterTime, afterTime, afterId, limit);
+    }
+
+    private static RowCallbackHandler factRow(FactColumns facts, Map<Dimension, Dictionary> dictionaries) {
+        Dictionary categories = dictionaries.get(Dimension.PRODUCT_CATEGORY);
+        Dictionary specialties = dictionaries.get(Dimension.DOCTOR_SPECIALTY);
+        Dictionary cities = dictionaries.get(Dimension.CITY);
+        Dictionary statuses = dictionaries.get(Dimension.ORDER_STATUS);
+        return rs -> {
+            LocalDate date = rs.getObject("fact_date", LocalDate.class);
+            facts.add(
+                intId(rs, "entity_id"),
+                Math.toIntExact(date.toEpochDay()),
+                monthIndex(date),
+                intId(rs, "product_id"),
+                categories.encode(rs.getString("category")),
+                intId(rs, "doctor_id"),
+                specialties.encode(rs.getString("specialty")),
+                intId(rs, "rep_id"),
+                cities.encode(rs.getString("city")),
+                statuses.encode(rs.getString("status")),
+                rs.getInt("quantity"),
+                cents(rs.getBigDecimal("amount")));
+        };
+    }
+
+    static int monthIndex(LocalDate date) {
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    // Ids are stored as ints; 0 when the column is null
+    private static int intId(ResultSet rs, String column) throws SQLException {
+        return Math.toIntExact(rs.getLong(column));
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+}
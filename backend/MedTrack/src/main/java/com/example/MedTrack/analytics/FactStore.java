@@ -0,0 +1,168 @@
+package com.example.MedTrack.analytics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.datasource.ReplicaRoutingDataSource;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstone;
+import com.example.MedTrack.sync.SyncTombstoneRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Holds every order line and sample, hot and archived, as in-memory columns for ad-hoc
+ * group-by queries. The tables are loaded once the application is ready and rebuilt
+ * nightly, which also picks up renamed categories, specialties and cities. In between,
+ * writes are applied by following the same change feed as offline sync: orders and
+ * samples whose updated_at moved have their facts replaced, and sync tombstones drop
+ * deleted ones. The feed stops a safety lag short of now, like sync does, so a slow
+ * transaction can't commit behind the cursor.
+ */
+@Component
+@ConditionalOnProperty(name = "medtrack.analytics.enabled", havingValue = "true", matchIfMissing = true)
+public class FactStore {
+    private static final Logger log = LoggerFactory.getLogger(FactStore.class);
+
+    private record Cursor(LocalDateTime changedAt, long changedId, long deletedId) {
+    }
+
+    private final FactLoader factLoader;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Duration safetyLag;
+    private final int batchSize;
+    private final Map<Dimension, Dictionary> dictionaries = new EnumMap<>(Dimension.class);
+    private final Map<FactType, FactTable> tables = new ConcurrentHashMap<>();
+    private final Map<FactType, Cursor> cursors = new EnumMap<>(FactType.class);
+    private volatile boolean loaded;
+
+    public FactStore(FactLoader factLoader,
+                     SyncTombstoneRepository syncTombstoneRepository,
+                     PlatformTransactionManager transactionManager,
+                     MeterRegistry meterRegistry,
+                     @Value("${medtrack.analytics.safety-lag:PT10S}") Duration safetyLag,
+                     @Value("${medtrack.analytics.batch-size:500}") int batchSize) {
+        this.factLoader = factLoader;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.safetyLag = safetyLag;
+        this.batchSize = batchSize;
+        for (Dimension dimension : Dimension.values()) {
+            if (dimension.isDictionaryEncoded()) {
+                dictionaries.put(dimension, new Dictionary());
+            }
+        }
+        for (FactType type : FactType.values()) {
+            Gauge.builder("medtrack.analytics.facts", this, store -> store.size(type))
+                .description("Facts held in the in-memory analytics store")
+                .tag("type", type.name())
+                .register(meterRegistry);
+        }
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    Map<FactTable.GroupKey, FactTable.Totals> aggregate(FactType type, FactTable.Query query) {
+        return tables.get(type).aggregate(query);
+    }
+
+    // Code of a dictionary value, or -1 when no fact has it
+    int lookup(Dimension dimension, String value) {
+        return dictionaries.get(dimension).lookup(value);
+    }
+
+    String decode(Dimension dimension, int code) {
+        return dictionaries.get(dimension).decode(code);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${medtrack.analytics.rebuild-cron:0 0 4 * * *}")
+    public synchronized void rebuild() {
+        for (FactType type : FactType.values()) {
+            long started = System.nanoTime();
+            // Changes after this point are re-read by the next refresh; applying one twice is harmless
+            LocalDateTime upTo = LocalDateTime.now().minus(safetyLag);
+            long deletedId = syncTombstoneRepository.findMaxId();
+            // From the primary, so nothing up to the cursor is missing from what was loaded
+            FactColumns facts = ReplicaRoutingDataSource.onPrimary(
+                () -> readOnlyTransaction.execute(status -> factLoader.loadAll(type, dictionaries)));
+            tables.put(type, new FactTable(facts));
+            cursors.put(type, new Cursor(upTo, 0, deletedId));
+            log.info("Loaded {} {} facts in {} ms", facts.size, type,
+                Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+        loaded = true;
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.analytics.refresh-interval:PT15S}")
+    public synchronized void refresh() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime upTo = LocalDateTime.now().minus(safetyLag);
+        for (FactType type : FactType.values()) {
+            FactTable table = tables.get(type);
+            Cursor cursor = cursors.get(type);
+            LocalDateTime changedAt = cursor.changedAt();
+            long changedId = cursor.changedId();
+            long deletedId = cursor.deletedId();
+
+            List<FactLoader.Changed> changed;
+            do {
+                changed = factLoader.findChangedSince(type, changedAt, changedId, upTo, batchSize);
+                if (changed.isEmpty()) {
+                    break;
+                }
+                List<Long> ids = changed.stream().map(FactLoader.Changed::id).collect(Collectors.toList());
+                table.replace(toIntIds(ids), factLoader.load(type, ids, dictionaries));
+                FactLoader.Changed last = changed.get(changed.size() - 1);
+                changedAt = last.updatedAt();
+                changedId = last.id();
+            } while (changed.size() == batchSize);
+
+            SyncEntityType tombstoneType = type == FactType.ORDER_ITEMS ? SyncEntityType.ORDERS : SyncEntityType.SAMPLES;
+            List<SyncTombstone> tombstones;
+            do {
+                tombstones = syncTombstoneRepository.findAfter(tombstoneType, deletedId, upTo, PageRequest.of(0, batchSize));
+                if (tombstones.isEmpty()) {
+                    break;
+                }
+                table.remove(toIntIds(tombstones.stream().map(SyncTombstone::getEntityId).collect(Collectors.toList())));
+                deletedId = tombstones.get(tombstones.size() - 1).getId();
+            } while (tombstones.size() == batchSize);
+
+            cursors.put(type, new Cursor(changedAt, changedId, deletedId));
+        }
+    }
+
+    private double size(FactType type) {
+        FactTable table = tables.get(type);
+        return table != null ? table.size() : 0;
+    }
+
+    private static List<Integer> toIntIds(List<Long> ids) {
+        return ids.stream().map(Math::toIntExact).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.MedTrack.analytics;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Facts of one type held column by column. Changes mark the entity's old rows deleted and
+ * append its new ones; once a quarter of the rows are dead the columns are compacted.
+ * Queries scan the columns in fixed-size chunks on the common fork-join pool: each chunk
+ * narrows a selection vector one filter column at a time, then groups what is left.
+ */
+final class FactTable {
+    static final int MAX_GROUP_BY = 3;
+    private static final int CHUNK_SIZE = 16_384;
+    private static final int MIN_COMPACT_ROWS = 1024;
+
+    record Query(List<Dimension> groupBy, int fromDay, int toDay, Map<Dimension, int[]> filters) {
+    }
+
+    // Values of the grouped dimensions in groupBy order, 0 where fewer are grouped
+    record GroupKey(int first, int second, int third) {
+    }
+
+    static final class Totals {
+        long facts;
+        long quantity;
+        long cents;
+
+        void add(Totals other) {
+            facts += other.facts;
+            quantity += other.quantity;
+            cents += other.cents;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Integer, int[]> rowsByEntity = new HashMap<>();
+    private FactColumns columns;
+    private BitSet deleted = new BitSet();
+    private int deletedCount;
+
+    FactTable(FactColumns loaded) {
+        this.columns = loaded;
+        index(loaded);
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Drops the current facts of the entities and appends the new ones, which may be none
+    void replace(Collection<Integer> entityIds, FactColumns facts) {
+        lock.writeLock().lock();
+        try {
+            for (Integer entityId : entityIds) {
+                markDeleted(entityId);
+            }
+            int first = columns.size;
+            for (int row = 0; row < facts.size; row++) {
+                columns.copyRow(facts, row);
+            }
+            indexFrom(columns, first);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(Collection<Integer> entityIds) {
+        replace(entityIds, new FactColumns(0));
+    }
+
+    Map<GroupKey, Totals> aggregate(Query query) {
+        lock.readLock().lock();
+        try {
+            FactColumns scanned = columns;
+            BitSet dead = deleted;
+            int size = scanned.size;
+            int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            // Workers only read; writers wait for the read lock held here
+            return IntStream.range(0, chunks)
+                .parallel()
+                .mapToObj(chunk -> scan(scanned, dead, query, chunk * CHUNK_SIZE, Math.min(size, (chunk + 1) * CHUNK_SIZE)))
+                .reduce(FactTable::merge)
+                .orElseGet(HashMap::new);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static Map<GroupKey, Totals> scan(FactColumns c, BitSet dead, Query query, int from, int to) {
+        int[] selection = new int[to - from];
+        int selected = 0;
+        int[] day = c.day;
+        for (int row = from; row < to; row++) {
+            int d = day[row];
+            if (d >= query.fromDay() && d <= query.toDay() && !dead.get(row)) {
+                selection[selected++] = row;
+            }
+        }
+        for (Map.Entry<Dimension, int[]> filter : query.filters().entrySet()) {
+            selected = retain(selection, selected, c.column(filter.getKey()), filter.getValue());
+        }
+
+        List<Dimension> groupBy = query.groupBy();
+        int[] first = groupBy.size() > 0 ? c.column(groupBy.get(0)) : null;
+        int[] second = groupBy.size() > 1 ? c.column(groupBy.get(1)) : null;
+        int[] third = groupBy.size() > 2 ? c.column(groupBy.get(2)) : null;
+        int[] quantity = c.quantity;
+        long[] cents = c.cents;
+
+        Map<GroupKey, Totals> groups = new HashMap<>();
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            GroupKey key = new GroupKey(
+                first != null ? first[row] : 0,
+                second != null ? second[row] : 0,
+                third != null ? third[row] : 0);
+            Totals totals = groups.computeIfAbsent(key, k -> new Totals());
+            totals.facts++;
+            totals.quantity += quantity[row];
+            totals.cents += cents[row];
+        }
+        return groups;
+    }
+
+    // Keeps the selected rows whose value is in the sorted allowed values
+    private static int retain(int[] selection, int selected, int[] column, int[] allowed) {
+        int kept = 0;
+        for (int i = 0; i < selected; i++) {
+            int row = selection[i];
+            if (Arrays.binarySearch(allowed, column[row]) >= 0) {
+                selection[kept++] = row;
+            }
+        }
+        return kept;
+    }
+
+    private static Map<GroupKey, Totals> merge(Map<GroupKey, Totals> into, Map<GroupKey, Totals> from) {
+        from.forEach((key, totals) -> into.merge(key, totals, (a, b) -> {
+            a.add(b);
+            return a;
+        }));
+        return into;
+    }
+
+    private void markDeleted(Integer entityId) {
+        int[] rows = rowsByEntity.remove(entityId);
+        if (rows == null) {
+            return;
+        }
+        for (int row : rows) {
+            deleted.set(row);
+        }
+        deletedCount += rows.length;
+    }
+
+    private void compactIfNeeded() {
+        if (deletedCount < MIN_COMPACT_ROWS || deletedCount * 4 < columns.size) {
+            return;
+        }
+        FactColumns live = new FactColumns(columns.size - deletedCount);
+        for (int row = 0; row < columns.size; row++) {
+            if (!deleted.get(row)) {
+                live.copyRow(columns, row);
+            }
+        }
+        columns = live;
+        deleted = new BitSet();
+        deletedCount = 0;
+        rowsByEntity.clear();
+        index(live);
+    }
+
+    private void index(FactColumns facts) {
+        indexFrom(facts, 0);
+    }
+
+    private void indexFrom(FactColumns facts, int first) {
+        for (int row = first; row < facts.size; row++) {
+            int entityId = facts.entity[row];
+            int[] rows = rowsByEntity.get(entityId);
+            if (rows == null) {
+                rowsByEntity.put(entityId, new int[] {row});
+            } else {
+                int[] grown = Arrays.copyOf(rows, rows.length + 1);
+                grown[rows.length] = row;
+                rowsByEntity.put(entityId, grown);
+            }
+        }
+    }
+}
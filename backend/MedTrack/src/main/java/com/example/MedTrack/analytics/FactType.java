@@ -0,0 +1,8 @@
+package com.example.MedTrack.analytics;
+
+public enum FactType {
+    // One fact per order line, dated by its order
+    ORDER_ITEMS,
+    // One fact per sample issued
+    SAMPLES
+}
@@ -0,0 +1,28 @@
+package com.example.MedTrack.archive;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+public interface ArchiveMoveRepository {
+    
+    // Earliest date still in the hot table
+    Optional<LocalDate> findOldestDate(ArchiveTable table);
+    
+    /**
+     * Splits monthly partitions off the archive's p_future partition for every month from
+     * fromMonth up to, not including, beforeMonth that is newer than its last partition.
+     * DDL, so it commits on its own and must run outside a transaction.
+     */
+    void addMonthlyPartitions(ArchiveTable table, LocalDate fromMonth, LocalDate beforeMonth);
+    
+    // Keyset page of ids dated before the cutoff that may be archived
+    List<Long> findIdsToArchive(ArchiveTable table, LocalDate before, long afterId, int limit);
+    
+    /**
+     * Copies the rows, with their visit notes or order items, into the archive and deletes
+     * them from the hot table. Rows that no longer qualify are left alone. Returns the number
+     * of rows moved; call it in a transaction so the copy and delete commit together.
+     */
+    int moveToArchive(ArchiveTable table, List<Long> ids, LocalDate before);
+}
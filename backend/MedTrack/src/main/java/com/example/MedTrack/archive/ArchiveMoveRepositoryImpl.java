@@ -0,0 +1,96 @@
+package com.example.MedTrack.archive;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Picked up by Spring Data as the implementation of ArchiveWatermarkRepository's ArchiveMoveRepository fragment
+public class ArchiveMoveRepositoryImpl implements ArchiveMoveRepository {
+    
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    
+    // Visits still referenced by hot orders or samples stay until those are archived
+    private static final String VISIT_UNREFERENCED =
+        " AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.visit_id = visit.id)" +
+        " AND NOT EXISTS (SELECT 1 FROM sample s WHERE s.visit_id = visit.id)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public ArchiveMoveRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @Override
+    public Optional<LocalDate> findOldestDate(ArchiveTable table) {
+        return Optional.ofNullable(jdbcTemplate.queryForObject(
+            "SELECT MIN(" + table.getDateColumn() + ") FROM " + table.getTable(), LocalDate.class));
+    }
+    
+    @Override
+    public void addMonthlyPartitions(ArchiveTable table, LocalDate fromMonth, LocalDate beforeMonth) {
+        List<String> existing = jdbcTemplate.queryForList(
+            "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+            "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME <> ?",
+            String.class, table.getArchiveTable(), FUTURE_PARTITION);
+        
+        // Older months fall into the first partition, so only months after the last one are added
+        YearMonth month = YearMonth.from(fromMonth);
+        for (String name : existing) {
+            YearMonth partitionMonth = YearMonth.parse(name.substring(1), PARTITION_MONTH);
+            if (!partitionMonth.isBefore(month)) {
+                month = partitionMonth.plusMonths(1);
+            }
+        }
+        
+        StringBuilder partitions = new StringBuilder();
+        for (; month.isBefore(YearMonth.from(beforeMonth)); month = month.plusMonths(1)) {
+            partitions.append("PARTITION p").append(month.format(PARTITION_MONTH))
+                .append(" VALUES LESS THAN ('").append(month.plusMonths(1).atDay(1)).append("'), ");
+        }
+        if (partitions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE " + table.getArchiveTable() + " REORGANIZE PARTITION " + FUTURE_PARTITION +
+            " INTO (" + partitions + "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+    }
+    
+    @Override
+    public List<Long> findIdsToArchive(ArchiveTable table, LocalDate before, long afterId, int limit) {
+        return jdbcTemplate.queryForList(
+            "SELECT id FROM " + table.getTable() + " WHERE id > ? AND " + table.getDateColumn() + " < ?" +
+            (table == ArchiveTable.VISITS ? VISIT_UNREFERENCED : "") + " ORDER BY id LIMIT ?",
+            Long.class, afterId, before, limit);
+    }
+    
+    @Override
+    public int moveToArchive(ArchiveTable table, List<Long> ids, LocalDate before) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids);
+        args.add(before);
+        jdbcTemplate.update("INSERT IGNORE INTO " + table.getArchiveTable() + " SELECT * FROM " + table.getTable() +
+            " WHERE id IN (" + placeholders + ") AND " + table.getDateColumn() + " < ?" +
+            (table == ArchiveTable.VISITS ? VISIT_UNREFERENCED : ""), args.toArray());
+        
+        // Children and the delete follow what actually reached the archive
+        String archivedIds = "SELECT id FROM " + table.getArchiveTable() + " WHERE id IN (" + placeholders + ")";
+        if (table == ArchiveTable.VISITS) {
+            jdbcTemplate.update("INSERT IGNORE INTO visit_note_archive SELECT * FROM visit_note " +
+                "WHERE visit_id IN (" + archivedIds + ")", ids.toArray());
+        } else if (table == ArchiveTable.ORDERS) {
+            jdbcTemplate.update("INSERT IGNORE INTO order_item_archive SELECT * FROM order_item " +
+                "WHERE order_id IN (" + archivedIds + ")", ids.toArray());
+        }
+        // Notes and items go with their parent through ON DELETE CASCADE
+        return jdbcTemplate.update("DELETE FROM " + table.getTable() + " WHERE id IN (" + archivedIds + ")", ids.toArray());
+    }
+}
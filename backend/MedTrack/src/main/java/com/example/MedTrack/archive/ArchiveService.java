@@ -0,0 +1,42 @@
+package com.example.MedTrack.archive;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * Read side of the archive. Services run their query against the hot table as before and
+ * only add the archived rows when the requested range starts before the table's watermark,
+ * so recent ranges never touch the archive tables.
+ */
+@Service
+public class ArchiveService {
+    private final ArchiveWatermarkRepository archiveWatermarkRepository;
+
+    public ArchiveService(ArchiveWatermarkRepository archiveWatermarkRepository) {
+        this.archiveWatermarkRepository = archiveWatermarkRepository;
+    }
+
+    public boolean reachesArchive(ArchiveTable table, LocalDate startDate) {
+        return archiveWatermarkRepository.findById(table.name())
+            .map(watermark -> startDate.isBefore(watermark.getArchivedBefore()))
+            .orElse(false);
+    }
+
+    /**
+     * Returns the hot rows, plus the archived ones when the range reaches the archive. Call it
+     * in the same transaction as the hot query: its snapshot then sees a row that the archiver
+     * is moving in exactly one of the two tables.
+     */
+    public <T> List<T> withArchived(ArchiveTable table, LocalDate startDate, List<T> hot, Supplier<List<T>> archived) {
+        if (!reachesArchive(table, startDate)) {
+            return hot;
+        }
+        List<T> all = new ArrayList<>(hot);
+        all.addAll(archived.get());
+        return all;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.MedTrack.archive;
+
+// Hot tables that are moved to a monthly partitioned archive once past the retention window
+public enum ArchiveTable {
+    ORDERS("orders", "order_date"),
+    SAMPLES("sample", "date_issued"),
+    VISITS("visit", "visit_date");
+
+    private final String table;
+    private final String dateColumn;
+
+    ArchiveTable(String table, String dateColumn) {
+        this.table = table;
+        this.dateColumn = dateColumn;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public String getArchiveTable() {
+        return table + "_archive";
+    }
+
+    public String getDateColumn() {
+        return dateColumn;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.MedTrack.archive;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "archive_watermark")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveWatermark {
+    
+    // ArchiveTable name
+    @Id
+    @Column(name = "table_name", length = 20)
+    private String tableName;
+    
+    // Rows dated before this may have been moved to the archive table
+    @Column(name = "archived_before", nullable = false)
+    private LocalDate archivedBefore;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof ArchiveWatermark other && tableName != null && tableName.equals(other.getTableName());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(tableName);
+    }
+}
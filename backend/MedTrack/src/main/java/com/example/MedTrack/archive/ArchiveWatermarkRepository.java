@@ -0,0 +1,6 @@
+package com.example.MedTrack.archive;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface ArchiveWatermarkRepository extends JpaRepository<ArchiveWatermark, String>, ArchiveMoveRepository {
+}
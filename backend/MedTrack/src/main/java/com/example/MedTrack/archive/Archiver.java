@@ -0,0 +1,149 @@
+package com.example.MedTrack.archive;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Moves orders, samples and visits dated before the retention window into their archive
+ * tables, oldest month first. The watermark is advanced before any row moves, so readers
+ * already look in the archive for rows that are about to arrive there. Rows move in id
+ * chunks, each copy and delete in its own short transaction. Orders and samples go first
+ * because a visit is only archived once nothing in the hot tables points at it.
+ *
+ * Every instance schedules the job, but only the one holding a MySQL named lock runs it;
+ * the others skip that run, so two instances never reorganize the same partitions at once.
+ *
+ * Archived rows are not recorded as sync tombstones: clients keep what they already have.
+ */
+@Component
+@ConditionalOnProperty(name = "medtrack.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class Archiver {
+    private static final Logger log = LoggerFactory.getLogger(Archiver.class);
+
+    private static final String LOCK_NAME = "medtrack.archiver";
+
+    private final ArchiveWatermarkRepository archiveWatermarkRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int retentionMonths;
+    private final int batchSize;
+
+    public Archiver(ArchiveWatermarkRepository archiveWatermarkRepository,
+                    JdbcTemplate jdbcTemplate,
+                    PlatformTransactionManager transactionManager,
+                    MeterRegistry meterRegistry,
+                    @Value("${medtrack.archive.retention-months:24}") int retentionMonths,
+                    @Value("${medtrack.archive.batch-size:1000}") int batchSize) {
+        this.archiveWatermarkRepository = archiveWatermarkRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.retentionMonths = retentionMonths;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(cron = "${medtrack.archive.cron:0 0 3 2 * *}")
+    public void archiveExpired() {
+        LocalDate cutoff = LocalDate.now().withDayOfMonth(1).minusMonths(retentionMonths);
+        boolean ran = withLock(() -> {
+            for (ArchiveTable table : List.of(ArchiveTable.ORDERS, ArchiveTable.SAMPLES, ArchiveTable.VISITS)) {
+                int moved = archive(table, cutoff);
+                if (moved > 0) {
+                    log.info("Archived {} rows from {} dated before {}", moved, table.getTable(), cutoff);
+                }
+            }
+        });
+        if (!ran) {
+            log.info("Archiving skipped, another instance is running it");
+        }
+    }
+
+    /**
+     * Runs the action while holding the archiver's named lock, or returns false without
+     * running it when another instance holds the lock. The lock belongs to the connection
+     * that took it, so that connection is kept for the whole run; the work uses its own.
+     */
+    private boolean withLock(Runnable action) {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (PreparedStatement acquire = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                acquire.setString(1, LOCK_NAME);
+                try (ResultSet result = acquire.executeQuery()) {
+                    if (!result.next() || result.getInt(1) != 1) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                action.run();
+                return true;
+            } finally {
+                try (PreparedStatement release = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    release.setString(1, LOCK_NAME);
+                    release.execute();
+                }
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    /**
+     * Moves the table's rows dated before the cutoff, which must be the first of a month.
+     * Returns the number of rows moved.
+     */
+    public int archive(ArchiveTable table, LocalDate cutoff) {
+        Optional<LocalDate> oldest = archiveWatermarkRepository.findOldestDate(table);
+        if (oldest.isEmpty() || !oldest.get().isBefore(cutoff)) {
+            return 0;
+        }
+        archiveWatermarkRepository.addMonthlyPartitions(table, oldest.get(), cutoff);
+        advanceWatermark(table, cutoff);
+
+        Counter moved = Counter.builder("medtrack.archive.moved")
+            .description("Rows moved from a hot table to its archive")
+            .tag("table", table.getTable())
+            .register(meterRegistry);
+        int total = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Long> ids = archiveWatermarkRepository.findIdsToArchive(table, cutoff, afterId, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            Integer count = transactionTemplate.execute(status -> archiveWatermarkRepository.moveToArchive(table, ids, cutoff));
+            moved.increment(count);
+            total += count;
+            if (ids.size() < batchSize) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        return total;
+    }
+
+    private void advanceWatermark(ArchiveTable table, LocalDate cutoff) {
+        ArchiveWatermark watermark = archiveWatermarkRepository.findById(table.name())
+            .orElseGet(() -> new ArchiveWatermark(table.name(), cutoff, null));
+        if (watermark.getArchivedBefore().isBefore(cutoff)) {
+            watermark.setArchivedBefore(cutoff);
+        }
+        archiveWatermarkRepository.save(watermark);
+    }
+}
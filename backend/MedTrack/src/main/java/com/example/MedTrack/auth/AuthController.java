@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
 import com.example.MedTrack.users.User;
+import com.example.MedTrack.users.UserCredentialsRepository;
 import com.example.MedTrack.users.UserRepository;
 import com.example.MedTrack.users.UserService;
 import com.example.MedTrack.users.UserDto;
@@ -21,12 +22,15 @@ import com.example.MedTrack.users.RegisterRequest;
 @Tag(name = "Authentication", description = "API for user authentication and registration")
 public class AuthController {
     private final UserRepository userRepository;
+    private final UserCredentialsRepository userCredentialsRepository;
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
 
-    public AuthController(UserRepository userRepository, UserService userService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
+    public AuthController(UserRepository userRepository, UserCredentialsRepository userCredentialsRepository,
+                          UserService userService, PasswordEncoder passwordEncoder, JwtUtil jwtUtil) {
         this.userRepository = userRepository;
+        this.userCredentialsRepository = userCredentialsRepository;
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
         this.jwtUtil = jwtUtil;
@@ -42,7 +46,10 @@ public class AuthController {
             throw new RuntimeException("Account is deactivated");
         }
         
-        if (!passwordEncoder.matches(request.getPassword(), user.getPasswordHash())) {
+        String passwordHash = userCredentialsRepository.findById(user.getId())
+            .map(credentials -> credentials.getPasswordHash())
+            .orElseThrow(() -> new RuntimeException("Invalid email or password"));
+        if (!passwordEncoder.matches(request.getPassword(), passwordHash)) {
             throw new RuntimeException("Invalid email or password");
         }
         
@@ -12,20 +12,50 @@ import org.springframework.stereotype.Component;
 public class AuthenticationHelper {
     
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
     
-    public AuthenticationHelper(UserRepository userRepository) {
+    public AuthenticationHelper(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
     
     /**
      * Gets the currently authenticated user ID from the security context
      */
     public Long getCurrentUserId() {
+        Long userId = authenticatedUserId();
+        if (userId == null) {
+            throw new UnauthorizedException("No authenticated user found");
+        }
+        return userId;
+    }
+    
+    /**
+     * The user ID the JWT filter put in the security context, or null when the request is not
+     * authenticated. Static so filters and the datasource routing can use it outside beans
+     */
+    public static Long authenticatedUserId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null && authentication.getPrincipal() instanceof String) {
-            return Long.parseLong((String) authentication.getPrincipal());
+        if (authentication != null && authentication.getPrincipal() instanceof String principal) {
+            try {
+                return Long.parseLong(principal);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Gets the currently authenticated user's role, active flag and locations from the principal cache
+     */
+    public UserPrincipal getCurrentPrincipal() {
+        Long userId = getCurrentUserId();
+        UserPrincipal principal = principalCache.get(userId);
+        if (principal == null) {
+            throw new ResourceNotFoundException("User", "id", userId);
         }
-        throw new UnauthorizedException("No authenticated user found");
+        return principal;
     }
     
     /**
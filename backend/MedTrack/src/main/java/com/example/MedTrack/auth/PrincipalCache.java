@@ -0,0 +1,113 @@
+package com.example.MedTrack.auth;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.MedTrack.users.UserRepository;
+import com.example.MedTrack.users.UserRole;
+
+/**
+ * Principals by user id, each loaded with one query and kept for a short time. UserService
+ * invalidates a user when their role, active flag or locations change, and other instances
+ * hear of it through the InvalidationBus; the expiry is a backstop should that fail.
+ */
+@Component
+public class PrincipalCache {
+
+    private record Entry(UserPrincipal principal, long expiresAtNanos) {
+    }
+
+    private final UserRepository userRepository;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped on every invalidation, so a load that raced one isn't cached
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public PrincipalCache(UserRepository userRepository,
+                          @Value("${medtrack.auth.principal-ttl:PT30S}") Duration ttl,
+                          @Value("${medtrack.auth.principal-cache-size:10000}") int maxEntries) {
+        this.userRepository = userRepository;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+    }
+
+    // Null when the user doesn't exist
+    public UserPrincipal get(Long userId) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(userId);
+        if (entry != null && now - entry.expiresAtNanos() < 0) {
+            return entry.principal();
+        }
+        long invalidationsBefore = invalidations.get();
+        UserPrincipal principal = load(userId);
+        if (principal != null && invalidations.get() == invalidationsBefore) {
+            if (entries.size() >= maxEntries) {
+                evictExpired();
+            }
+            entries.put(userId, new Entry(principal, now + ttlNanos));
+        }
+        return principal;
+    }
+
+    // Drops the user now and again once the transaction commits, so no load in between sticks
+    public void invalidate(Long userId) {
+        invalidations.incrementAndGet();
+        entries.remove(userId);
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            entries.remove(userId);
+        });
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+        afterCommit(() -> {
+            invalidations.incrementAndGet();
+            entries.clear();
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.auth.principal-ttl:PT30S}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+    }
+
+    private UserPrincipal load(Long userId) {
+        List<Object[]> rows = userRepository.findPrincipalRows(userId);
+        if (rows.isEmpty()) {
+            return null;
+        }
+        long[] locationIds = rows.stream()
+            .filter(row -> row[2] != null)
+            .mapToLong(row -> (Long) row[2])
+            .sorted()
+            .distinct()
+            .toArray();
+        return new UserPrincipal(userId, (UserRole) rows.get(0)[0], Boolean.TRUE.equals(rows.get(0)[1]), locationIds);
+    }
+
+    // Outside a transaction the write has already committed
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
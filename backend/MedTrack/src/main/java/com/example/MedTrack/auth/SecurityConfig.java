@@ -7,12 +7,15 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
+import com.example.MedTrack.idempotency.IdempotencyFilter;
+import com.example.MedTrack.ratelimit.RateLimitFilter;
 
 import java.util.Arrays;
 
@@ -20,8 +23,12 @@ import java.util.Arrays;
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
     private final JwtFilter jwtFilter;
-    public SecurityConfig(JwtFilter jwtFilter) {
+    private final IdempotencyFilter idempotencyFilter;
+    private final RateLimitFilter rateLimitFilter;
+    public SecurityConfig(JwtFilter jwtFilter, IdempotencyFilter idempotencyFilter, RateLimitFilter rateLimitFilter) {
         this.jwtFilter = jwtFilter;
+        this.idempotencyFilter = idempotencyFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
    @Bean
@@ -57,6 +64,8 @@ public class SecurityConfig {
                   .requestMatchers("/swagger-ui/**").permitAll()
                   .requestMatchers("/swagger-ui.html").permitAll()
                   .requestMatchers("/v3/api-docs/**").permitAll()
+                  .requestMatchers("/actuator/health").permitAll()
+                  .requestMatchers("/actuator/**").hasRole("ADMIN")
                   // User location access - Users can view their own locations
                   .requestMatchers("GET", "/api/users/*/locations").hasAnyRole("ADMIN", "MANAGER", "REP")
                   .requestMatchers("GET", "/api/users/by-location/*").hasAnyRole("ADMIN", "MANAGER")
@@ -94,10 +103,19 @@ public class SecurityConfig {
                    .requestMatchers("DELETE", "/api/samples/**").hasRole("ADMIN")
                    // Dashboard - Role-specific access
                    .requestMatchers("/api/dashboard/admin/**").hasRole("ADMIN")
+                   .requestMatchers("/api/dashboard/manager/**").hasAnyRole("ADMIN", "MANAGER")
+                   .requestMatchers("/api/dashboard/rep/**").hasAnyRole("ADMIN", "MANAGER", "REP")
+                   // Sync - Offline clients pull changes, scoped per role in the service
+                   .requestMatchers("GET", "/api/sync/**").hasAnyRole("ADMIN", "MANAGER", "REP")
+                   .requestMatchers("POST", "/api/sync/**").hasAnyRole("ADMIN", "REP")
                    .anyRequest().authenticated()
            )
            .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
-           .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+           .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+           // Right after the token is read, so limits apply per user before any work is done
+           .addFilterAfter(rateLimitFilter, JwtFilter.class)
+           // After authorization, so replays are only served to requests allowed to make the call
+           .addFilterAfter(idempotencyFilter, AuthorizationFilter.class);
 
        return http.build();
    }
@@ -0,0 +1,41 @@
+package com.example.MedTrack.auth;
+
+import java.util.Arrays;
+
+import com.example.MedTrack.users.UserRole;
+
+/**
+ * What requests need to know about the signed-in user, without loading the entity: role,
+ * active flag and the assigned location ids, sorted so a lookup is a binary search. An array
+ * rather than a bitmap indexed by id: rows inserted by hand get ids from 1.5 billion up, and
+ * one of those would cost every principal assigned to it a bitmap of that many bits.
+ */
+public final class UserPrincipal {
+    private final Long id;
+    private final UserRole role;
+    private final boolean active;
+    private final long[] locationIds;
+
+    UserPrincipal(Long id, UserRole role, boolean active, long[] locationIds) {
+        this.id = id;
+        this.role = role;
+        this.active = active;
+        this.locationIds = locationIds;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public boolean hasLocation(Long locationId) {
+        return locationId != null && Arrays.binarySearch(locationIds, locationId) >= 0;
+    }
+}
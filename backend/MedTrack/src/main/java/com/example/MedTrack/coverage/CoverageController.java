@@ -0,0 +1,61 @@
+package com.example.MedTrack.coverage;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.MedTrack.auth.AuthenticationHelper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/coverage")
+@Tag(name = "Coverage", description = "API for doctor visit coverage by rep and location")
+public class CoverageController {
+    private final CoverageService coverageService;
+    private final AuthenticationHelper authenticationHelper;
+
+    public CoverageController(CoverageService coverageService, AuthenticationHelper authenticationHelper) {
+        this.coverageService = coverageService;
+        this.authenticationHelper = authenticationHelper;
+    }
+
+    @GetMapping("/not-visited")
+    @Operation(summary = "Get doctors not visited since a date",
+        description = "Lists doctors with no visit since the date, with their last visit before it, optionally for one rep " +
+            "or location. Managers see their own locations (ADMIN, MANAGER)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<NotVisitedDoctorDto>> getNotVisited(
+            @Parameter(description = "Date (YYYY-MM-DD) from which a visit counts") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate since,
+            @Parameter(description = "Only count visits by this rep") @RequestParam(required = false) Long userId,
+            @Parameter(description = "Only count visits at this location") @RequestParam(required = false) Long locationId) {
+        return ResponseEntity.ok(coverageService.getNotVisited(authenticationHelper.getCurrentUserId(), since, userId, locationId));
+    }
+
+    @GetMapping("/reps")
+    @Operation(summary = "Get coverage by rep",
+        description = "Share of all doctors each rep visited within a date range. Managers see reps in their locations (ADMIN, MANAGER)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<RepCoverageDto>> getCoverageByRep(
+            @Parameter(description = "Start date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(coverageService.getCoverageByRep(authenticationHelper.getCurrentUserId(), startDate, endDate));
+    }
+
+    @GetMapping("/locations")
+    @Operation(summary = "Get coverage by location",
+        description = "Share of all doctors visited at each location within a date range. Managers see their own locations (ADMIN, MANAGER)")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<List<LocationCoverageDto>> getCoverageByLocation(
+            @Parameter(description = "Start date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @Parameter(description = "End date (YYYY-MM-DD)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(coverageService.getCoverageByLocation(authenticationHelper.getCurrentUserId(), startDate, endDate));
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.MedTrack.coverage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.datasource.ReplicaRoutingDataSource;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstone;
+import com.example.MedTrack.sync.SyncTombstoneRepository;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitRepository;
+
+/**
+ * Which doctors were visited on which day, as one compressed bitmap of doctor ids per day
+ * for all reps together, per rep and per location. "Not visited since" and coverage over a
+ * range are ORs of the range's day bitmaps, subtracted from or counted against the bitmap
+ * of all doctors, instead of anti-joins over visit.
+ *
+ * Days older than the window are not kept. The index is loaded once the application is
+ * ready, rebuilt nightly, and kept current by VisitService and DoctorService after their
+ * transactions commit. A removed or moved visit only clears a bit once no other visit of
+ * that doctor on that day still sets it. Like the KPI counters, all visits count whatever
+ * their status.
+ *
+ * Each instance keeps its own index. Doctors added or removed on another instance reach it
+ * through the InvalidationBus. Visits made, changed or deleted there are picked up by
+ * following visit.updated_at and the visit tombstones, as FactStore does for its facts, so
+ * they show up within the refresh interval plus the safety lag. {@link VisitKeys} remembers
+ * what each visit set, so a visit moved or deleted elsewhere can have its old bits cleared.
+ */
+@Component
+public class CoverageIndex {
+    private static final Logger log = LoggerFactory.getLogger(CoverageIndex.class);
+
+    public enum ScopeType {
+        ALL,
+        REP,
+        LOCATION
+    }
+
+    public record Scope(ScopeType type, long id) {
+        public static final Scope ALL = new Scope(ScopeType.ALL, 0);
+
+        public static Scope rep(Long userId) {
+            return new Scope(ScopeType.REP, userId);
+        }
+
+        public static Scope location(Long locationId) {
+            return new Scope(ScopeType.LOCATION, locationId);
+        }
+    }
+
+    /**
+     * What a visit sets in the index: its doctor on its day, for all reps, for its rep and
+     * for its location if it has one.
+     */
+    public record VisitKey(Long userId, Long locationId, Long doctorId, LocalDate visitDate) {
+
+        public static VisitKey of(Visit visit) {
+            return new VisitKey(visit.getUser().getId(),
+                visit.getLocation() != null ? visit.getLocation().getId() : null,
+                visit.getDoctor().getId(),
+                visit.getVisitDate());
+        }
+
+        List<Scope> scopes() {
+            List<Scope> scopes = new ArrayList<>(3);
+            scopes.add(Scope.ALL);
+            scopes.add(Scope.rep(userId));
+            if (locationId != null) {
+                scopes.add(Scope.location(locationId));
+            }
+            return scopes;
+        }
+    }
+
+    private final VisitRepository visitRepository;
+    private final DoctorRepository doctorRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int windowDays;
+    private final Duration safetyLag;
+    private final int batchSize;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Map<Scope, NavigableMap<Integer, RoaringBitmap>> visitedByDay = new HashMap<>();
+    private RoaringBitmap doctors = new RoaringBitmap();
+    // Changes made while a rebuild is reading, applied again to the rebuilt index
+    private List<Runnable> replay;
+    private volatile boolean loaded;
+    // Only used by rebuild and refresh, which don't run at the same time
+    private VisitKeys visitKeys = new VisitKeys();
+    private LocalDateTime changedAt;
+    private long changedId;
+    private long deletedId;
+
+    public CoverageIndex(VisitRepository visitRepository,
+                         DoctorRepository doctorRepository,
+                         SyncTombstoneRepository syncTombstoneRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${medtrack.coverage.window-days:400}") int windowDays,
+                         @Value("${medtrack.coverage.safety-lag:PT10S}") Duration safetyLag,
+                         @Value("${medtrack.coverage.batch-size:500}") int batchSize) {
+        this.visitRepository = visitRepository;
+        this.doctorRepository = doctorRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.windowDays = windowDays;
+        this.safetyLag = safetyLag;
+        this.batchSize = batchSize;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // First day the index covers
+    public LocalDate windowStart() {
+        return LocalDate.now().minusDays(windowDays);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${medtrack.coverage.rebuild-cron:0 15 4 * * *}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        withWriteLock(() -> replay = new ArrayList<>());
+        LocalDate from = windowStart();
+        Map<Scope, NavigableMap<Integer, RoaringBitmap>> rebuilt = new HashMap<>();
+        RoaringBitmap allDoctors = new RoaringBitmap();
+        VisitKeys rebuiltKeys = new VisitKeys();
+        // Changes after this point are read again by the next refresh; applying one twice is harmless
+        LocalDateTime upTo = LocalDateTime.now().minus(safetyLag);
+        // From the primary, so nothing up to the cursor is missing from what was loaded
+        long lastDeletedId = ReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.execute(status -> {
+            long maxTombstoneId = syncTombstoneRepository.findMaxId();
+            doctorRepository.findAllIds().forEach(id -> allDoctors.add(Math.toIntExact(id)));
+            try (Stream<Object[]> visits = visitRepository.streamCoverageSince(from)) {
+                visits.forEach(row -> {
+                    VisitKey key = new VisitKey((Long) row[1], (Long) row[2], (Long) row[3], (LocalDate) row[4]);
+                    set(rebuilt, key);
+                    rebuiltKeys.load((Long) row[0], key);
+                });
+            }
+            return maxTombstoneId;
+        }));
+        rebuilt.values().forEach(days -> days.values().forEach(RoaringBitmap::runOptimize));
+        allDoctors.runOptimize();
+
+        lock.writeLock().lock();
+        try {
+            visitedByDay = rebuilt;
+            doctors = allDoctors;
+            replay.forEach(Runnable::run);
+            replay = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        visitKeys = rebuiltKeys;
+        changedAt = upTo;
+        changedId = 0;
+        deletedId = lastDeletedId;
+        loaded = true;
+        log.info("Loaded doctor coverage for {} scopes since {} in {} ms", rebuilt.size(), from,
+            Duration.ofNanos(System.nanoTime() - started).toMillis());
+    }
+
+    /**
+     * Applies visits changed and deleted since the last refresh, on this instance or any
+     * other. Those made here are already in the index, so for them this changes nothing.
+     */
+    @Scheduled(fixedDelayString = "${medtrack.coverage.refresh-interval:PT15S}")
+    public synchronized void refresh() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime upTo = LocalDateTime.now().minus(safetyLag);
+        // From the primary: a lagging replica would let the cursor pass visits it hasn't received
+        ReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> {
+            List<Object[]> changed;
+            do {
+                changed = visitRepository.findCoverageChangedSince(changedAt, changedId, upTo, PageRequest.of(0, batchSize));
+                for (Object[] row : changed) {
+                    Long visitId = (Long) row[0];
+                    VisitKey key = new VisitKey((Long) row[2], (Long) row[3], (Long) row[4], (LocalDate) row[5]);
+                    VisitKey before = visitKeys.get(visitId);
+                    if (!key.equals(before)) {
+                        add(List.of(key));
+                        if (before != null) {
+                            clearIfUnvisited(before);
+                        }
+                        visitKeys.put(visitId, key);
+                    }
+                    changedAt = (LocalDateTime) row[1];
+                    changedId = visitId;
+                }
+            } while (changed.size() == batchSize);
+
+            List<SyncTombstone> tombstones;
+            do {
+                tombstones = syncTombstoneRepository.findAfter(SyncEntityType.VISITS, deletedId, upTo, PageRequest.of(0, batchSize));
+                for (SyncTombstone tombstone : tombstones) {
+                    VisitKey before = visitKeys.get(tombstone.getEntityId());
+                    if (before != null) {
+                        clearIfUnvisited(before);
+                        visitKeys.remove(tombstone.getEntityId());
+                    }
+                    deletedId = tombstone.getId();
+                }
+            } while (tombstones.size() == batchSize);
+        }));
+    }
+
+    public void recordVisitAdded(Visit visit) {
+        VisitKey key = VisitKey.of(visit);
+        afterCommit(() -> add(List.of(key)));
+    }
+
+    public void recordVisitsAdded(Collection<Visit> visits) {
+        List<VisitKey> keys = visits.stream().map(VisitKey::of).toList();
+        afterCommit(() -> add(keys));
+    }
+
+    public void recordVisitRemoved(Visit visit) {
+        VisitKey key = VisitKey.of(visit);
+        afterCommit(() -> clearIfUnvisited(key));
+    }
+
+    // Capture the key before the visit is changed
+    public void recordVisitChanged(VisitKey before, Visit visit) {
+        VisitKey after = VisitKey.of(visit);
+        if (before.equals(after)) {
+            return;
+        }
+        afterCommit(() -> {
+            add(List.of(after));
+            clearIfUnvisited(before);
+        });
+    }
+
+    public void recordDoctorAdded(Long doctorId) {
+        afterCommit(() -> change(() -> doctors.add(Math.toIntExact(doctorId))));
+    }
+
+    // The doctor's visits go by cascade; its bits in the day bitmaps no longer count once it is gone
+    public void recordDoctorRemoved(Long doctorId) {
+        afterCommit(() -> change(() -> doctors.remove(Math.toIntExact(doctorId))));
+    }
+
+    public int countDoctors() {
+        lock.readLock().lock();
+        try {
+            return doctors.getCardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Doctors visited in any of the scopes between the dates, both inclusive
+    public RoaringBitmap visited(Collection<Scope> scopes, LocalDate from, LocalDate to) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap visited = new RoaringBitmap();
+            for (Scope scope : scopes) {
+                NavigableMap<Integer, RoaringBitmap> days = visitedByDay.get(scope);
+                if (days != null) {
+                    days.subMap(day(from), true, day(to), true).values().forEach(visited::or);
+                }
+            }
+            visited.and(doctors);
+            return visited;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Doctors with no visit in any of the scopes between the dates
+    public RoaringBitmap notVisited(Collection<Scope> scopes, LocalDate from, LocalDate to) {
+        RoaringBitmap visited = visited(scopes, from, to);
+        lock.readLock().lock();
+        try {
+            return RoaringBitmap.andNot(doctors, visited);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Last day before the given date each of the doctors was visited in any of the scopes.
+     * Walks back one day at a time, dropping doctors as they are found, so it stops as soon
+     * as every doctor has a date. Doctors not visited since the window start are left out.
+     */
+    public Map<Integer, LocalDate> lastVisitsBefore(Collection<Scope> scopes, RoaringBitmap doctorIds, LocalDate before) {
+        Map<Integer, LocalDate> lastVisits = new HashMap<>();
+        RoaringBitmap remaining = doctorIds.clone();
+        lock.readLock().lock();
+        try {
+            List<NavigableMap<Integer, RoaringBitmap>> scoped = scopes.stream()
+                .map(visitedByDay::get)
+                .filter(Objects::nonNull)
+                .map(days -> days.headMap(day(before), false))
+                .toList();
+            NavigableMap<Integer, RoaringBitmap> byDay = new TreeMap<>();
+            scoped.forEach(days -> days.forEach((day, bitmap) ->
+                byDay.merge(day, bitmap, (a, b) -> RoaringBitmap.or(a, b))));
+            for (Map.Entry<Integer, RoaringBitmap> day : byDay.descendingMap().entrySet()) {
+                if (remaining.isEmpty()) {
+                    break;
+                }
+                RoaringBitmap found = RoaringBitmap.and(remaining, day.getValue());
+                for (int doctorId : found.toArray()) {
+                    lastVisits.put(doctorId, LocalDate.ofEpochDay(day.getKey()));
+                }
+                remaining.andNot(found);
+            }
+            return lastVisits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(List<VisitKey> keys) {
+        int firstDay = day(windowStart());
+        change(() -> keys.stream()
+            .filter(key -> day(key.visitDate()) >= firstDay)
+            .forEach(key -> set(visitedByDay, key)));
+    }
+
+    // Clears the doctor's bit for the day in each of the key's scopes no remaining visit still covers
+    private void clearIfUnvisited(VisitKey key) {
+        if (day(key.visitDate()) < day(windowStart())) {
+            return;
+        }
+        List<Object[]> remaining = visitRepository.findRepAndLocationByDoctorIdAndVisitDate(key.doctorId(), key.visitDate());
+        List<Scope> stillVisited = new ArrayList<>();
+        for (Object[] visit : remaining) {
+            stillVisited.addAll(new VisitKey((Long) visit[0], (Long) visit[1], key.doctorId(), key.visitDate()).scopes());
+        }
+        change(() -> {
+            for (Scope scope : key.scopes()) {
+                NavigableMap<Integer, RoaringBitmap> days = visitedByDay.get(scope);
+                RoaringBitmap bitmap = days != null ? days.get(day(key.visitDate())) : null;
+                if (bitmap != null && !stillVisited.contains(scope)) {
+                    bitmap.remove(Math.toIntExact(key.doctorId()));
+                }
+            }
+        });
+    }
+
+    private static void set(Map<Scope, NavigableMap<Integer, RoaringBitmap>> index, VisitKey key) {
+        int doctorId = Math.toIntExact(key.doctorId());
+        for (Scope scope : key.scopes()) {
+            index.computeIfAbsent(scope, s -> new TreeMap<>())
+                .computeIfAbsent(day(key.visitDate()), d -> new RoaringBitmap())
+                .add(doctorId);
+        }
+    }
+
+    // Reads the index fields when it runs, so a replayed change lands in the rebuilt index
+    private void change(Runnable change) {
+        withWriteLock(() -> {
+            change.run();
+            if (replay != null) {
+                replay.add(change);
+            }
+        });
+    }
+
+    private void withWriteLock(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int day(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    // Outside a transaction the write has already committed
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.MedTrack.coverage;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.exceptions.ForbiddenException;
+import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationRepository;
+import com.example.MedTrack.users.User;
+import com.example.MedTrack.users.UserRepository;
+import com.example.MedTrack.users.UserRole;
+
+@Service
+public class CoverageService {
+    private final CoverageIndex coverageIndex;
+    private final UserRepository userRepository;
+    private final LocationRepository locationRepository;
+    private final DoctorRepository doctorRepository;
+
+    public CoverageService(CoverageIndex coverageIndex,
+                           UserRepository userRepository,
+                           LocationRepository locationRepository,
+                           DoctorRepository doctorRepository) {
+        this.coverageIndex = coverageIndex;
+        this.userRepository = userRepository;
+        this.locationRepository = locationRepository;
+        this.doctorRepository = doctorRepository;
+    }
+
+    // Doctors nobody in scope has visited since the given date; managers default to their own locations
+    @Transactional(readOnly = true)
+    public List<NotVisitedDoctorDto> getNotVisited(Long viewerId, LocalDate since, Long userId, Long locationId) {
+        checkRange(since, LocalDate.now());
+        User viewer = loadViewer(viewerId);
+        List<CoverageIndex.Scope> scopes = resolveScopes(viewer, userId, locationId);
+
+        RoaringBitmap notVisited = coverageIndex.notVisited(scopes, since, LocalDate.now());
+        Map<Integer, LocalDate> lastVisits = coverageIndex.lastVisitsBefore(scopes, notVisited, since);
+        List<Long> doctorIds = Arrays.stream(notVisited.toArray()).mapToObj(Long::valueOf).collect(Collectors.toList());
+
+        return doctorRepository.findAllById(doctorIds).stream()
+            .map(doctor -> toDto(doctor, lastVisits.get(Math.toIntExact(doctor.getId()))))
+            // Never visited first, then longest since the last visit
+            .sorted(Comparator.comparing(NotVisitedDoctorDto::getLastVisitDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(NotVisitedDoctorDto::getDoctorName))
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<RepCoverageDto> getCoverageByRep(Long viewerId, LocalDate startDate, LocalDate endDate) {
+        checkRange(startDate, endDate);
+        User viewer = loadViewer(viewerId);
+        List<User> reps = viewer.getRole() == UserRole.MANAGER
+            ? userRepository.findByRoleSharingLocationsWith(UserRole.REP, viewer.getId())
+            : userRepository.findByRole(UserRole.REP);
+        long totalDoctors = coverageIndex.countDoctors();
+
+        return reps.stream()
+            .map(rep -> {
+                long visited = coverageIndex.visited(List.of(CoverageIndex.Scope.rep(rep.getId())), startDate, endDate)
+                    .getLongCardinality();
+                return new RepCoverageDto(rep.getId(), rep.getName(), visited, totalDoctors, percent(visited, totalDoctors));
+            })
+            .sorted(Comparator.comparing(RepCoverageDto::getCoveragePercent).reversed()
+                .thenComparing(RepCoverageDto::getUserName))
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
+    public List<LocationCoverageDto> getCoverageByLocation(Long viewerId, LocalDate startDate, LocalDate endDate) {
+        checkRange(startDate, endDate);
+        User viewer = loadViewer(viewerId);
+        List<Location> locations = viewer.getRole() == UserRole.MANAGER
+            ? List.copyOf(viewer.getLocations())
+            : locationRepository.findByIsActiveTrue();
+        long totalDoctors = coverageIndex.countDoctors();
+
+        return locations.stream()
+            .map(location -> {
+                long visited = coverageIndex.visited(List.of(CoverageIndex.Scope.location(location.getId())), startDate, endDate)
+                    .getLongCardinality();
+                return new LocationCoverageDto(location.getId(), location.getName(), location.getCity(),
+                    visited, totalDoctors, percent(visited, totalDoctors));
+            })
+            .sorted(Comparator.comparing(LocationCoverageDto::getCoveragePercent).reversed()
+                .thenComparing(LocationCoverageDto::getLocationName))
+            .collect(Collectors.toList());
+    }
+
+    private void checkRange(LocalDate startDate, LocalDate endDate) {
+        if (!coverageIndex.isLoaded()) {
+            throw new IllegalStateException("Coverage index is still loading, try again shortly");
+        }
+        if (startDate.isAfter(endDate)) {
+            throw new BadRequestException("Start date cannot be after end date");
+        }
+        if (startDate.isBefore(coverageIndex.windowStart())) {
+            throw new BadRequestException("Coverage is kept from " + coverageIndex.windowStart() + " onwards");
+        }
+    }
+
+    private User loadViewer(Long viewerId) {
+        return userRepository.findByIdWithLocations(viewerId)
+            .orElseThrow(() -> new ResourceNotFoundException("User", "id", viewerId));
+    }
+
+    // A rep or location filter narrows the scope; managers are limited to reps and locations they share
+    private List<CoverageIndex.Scope> resolveScopes(User viewer, Long userId, Long locationId) {
+        boolean manager = viewer.getRole() == UserRole.MANAGER;
+        Set<Long> managerLocationIds = viewer.getLocations().stream().map(Location::getId).collect(Collectors.toSet());
+        if (userId != null && locationId != null) {
+            throw new BadRequestException("Filter by either a rep or a location, not both");
+        }
+        if (userId != null) {
+            if (manager && userRepository.findByRoleSharingLocationsWith(UserRole.REP, viewer.getId()).stream()
+                    .noneMatch(rep -> rep.getId().equals(userId))) {
+                throw new ForbiddenException("You can only view coverage of reps in your locations");
+            }
+            return List.of(CoverageIndex.Scope.rep(userId));
+        }
+        if (locationId != null) {
+            if (manager && !managerLocationIds.contains(locationId)) {
+                throw new ForbiddenException("You can only view coverage of your locations");
+            }
+            return List.of(CoverageIndex.Scope.location(locationId));
+        }
+        if (manager) {
+            return managerLocationIds.stream().map(CoverageIndex.Scope::location).collect(Collectors.toList());
+        }
+        return List.of(CoverageIndex.Scope.ALL);
+    }
+
+    private static NotVisitedDoctorDto toDto(Doctor doctor, LocalDate lastVisitDate) {
+        return new NotVisitedDoctorDto(doctor.getId(), doctor.getName(), doctor.getSpecialty(), doctor.getHospital(), lastVisitDate);
+    }
+
+    private static BigDecimal percent(long visited, long total) {
+        if (total == 0) {
+            return BigDecimal.ZERO.setScale(1);
+        }
+        return BigDecimal.valueOf(visited * 100).divide(BigDecimal.valueOf(total), 1, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.MedTrack.coverage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationCoverageDto {
+    private Long locationId;
+    private String locationName;
+    private String city;
+    private Long doctorsVisited;
+    private Long totalDoctors;
+    private BigDecimal coveragePercent;
+}
@@ -0,0 +1,19 @@
+package com.example.MedTrack.coverage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotVisitedDoctorDto {
+    private Long doctorId;
+    private String doctorName;
+    private String specialty;
+    private String hospital;
+    // Last visit in scope before the since date, null when there is none in the kept window
+    private LocalDate lastVisitDate;
+}
@@ -0,0 +1,18 @@
+package com.example.MedTrack.coverage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepCoverageDto {
+    private Long userId;
+    private String userName;
+    private Long doctorsVisited;
+    private Long totalDoctors;
+    private BigDecimal coveragePercent;
+}
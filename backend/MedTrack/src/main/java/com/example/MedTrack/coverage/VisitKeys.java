@@ -0,0 +1,62 @@
+package com.example.MedTrack.coverage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What each visit in the window set in the coverage index, by visit id, so that a visit
+ * changed or deleted on another instance can have its old bits cleared. Visits loaded with
+ * the index sit in sorted int columns, about 20 bytes each; visits changed since are kept
+ * in a map until the next load. Ids are stored as ints, 0 for no location.
+ */
+final class VisitKeys {
+    private int size;
+    private int[] ids = new int[1024];
+    private int[] users = new int[1024];
+    private int[] locations = new int[1024];
+    private int[] doctors = new int[1024];
+    private int[] days = new int[1024];
+    // A null value is a deleted visit
+    private final Map<Long, CoverageIndex.VisitKey> changed = new HashMap<>();
+
+    // Loading only, in increasing id order
+    void load(Long visitId, CoverageIndex.VisitKey key) {
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            users = Arrays.copyOf(users, capacity);
+            locations = Arrays.copyOf(locations, capacity);
+            doctors = Arrays.copyOf(doctors, capacity);
+            days = Arrays.copyOf(days, capacity);
+        }
+        ids[size] = Math.toIntExact(visitId);
+        users[size] = Math.toIntExact(key.userId());
+        locations[size] = key.locationId() != null ? Math.toIntExact(key.locationId()) : 0;
+        doctors[size] = Math.toIntExact(key.doctorId());
+        days[size] = Math.toIntExact(key.visitDate().toEpochDay());
+        size++;
+    }
+
+    // Null when the visit isn't known or was deleted
+    CoverageIndex.VisitKey get(Long visitId) {
+        if (changed.containsKey(visitId)) {
+            return changed.get(visitId);
+        }
+        int i = Arrays.binarySearch(ids, 0, size, Math.toIntExact(visitId));
+        if (i < 0) {
+            return null;
+        }
+        return new CoverageIndex.VisitKey((long) users[i], locations[i] != 0 ? (long) locations[i] : null,
+            (long) doctors[i], LocalDate.ofEpochDay(days[i]));
+    }
+
+    void put(Long visitId, CoverageIndex.VisitKey key) {
+        changed.put(visitId, key);
+    }
+
+    void remove(Long visitId) {
+        changed.put(visitId, null);
+    }
+}
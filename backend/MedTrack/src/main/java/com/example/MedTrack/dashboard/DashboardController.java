@@ -1,8 +1,13 @@
 package com.example.MedTrack.dashboard;
 
+import com.example.MedTrack.auth.AuthenticationHelper;
+import com.example.MedTrack.auth.UserPrincipal;
+import com.example.MedTrack.exceptions.ForbiddenException;
+import com.example.MedTrack.users.UserRole;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -11,9 +16,11 @@ import org.springframework.web.bind.annotation.RestController;
 public class DashboardController {
     
     private final DashboardService dashboardService;
+    private final AuthenticationHelper authenticationHelper;
     
-    public DashboardController(DashboardService dashboardService) {
+    public DashboardController(DashboardService dashboardService, AuthenticationHelper authenticationHelper) {
         this.dashboardService = dashboardService;
+        this.authenticationHelper = authenticationHelper;
     }
     
     @GetMapping("/admin/stats")
@@ -22,5 +29,37 @@ public class DashboardController {
         DashboardStatsDto stats = dashboardService.getAdminDashboardStats();
         return ResponseEntity.ok(stats);
     }
+    
+    @GetMapping("/rep/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER', 'REP')")
+    public ResponseEntity<RepDashboardStatsDto> getMyRepDashboardStats() {
+        RepDashboardStatsDto stats = dashboardService.getRepDashboardStats(authenticationHelper.getCurrentUserId());
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/rep/{userId}/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<RepDashboardStatsDto> getRepDashboardStats(@PathVariable Long userId) {
+        // Managers only see reps who share one of their locations
+        UserPrincipal currentUser = authenticationHelper.getCurrentPrincipal();
+        if (currentUser.getRole() == UserRole.MANAGER && !dashboardService.isRepManagedBy(userId, currentUser.getId())) {
+            throw new ForbiddenException("You can only view dashboards of reps in your locations");
+        }
+        RepDashboardStatsDto stats = dashboardService.getRepDashboardStats(userId);
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/manager/stats")
+    @PreAuthorize("hasAnyRole('ADMIN', 'MANAGER')")
+    public ResponseEntity<ManagerDashboardStatsDto> getManagerDashboardStats() {
+        ManagerDashboardStatsDto stats = dashboardService.getManagerDashboardStats(authenticationHelper.getCurrentUserId());
+        return ResponseEntity.ok(stats);
+    }
+    
+    @GetMapping("/manager/{managerId}/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ManagerDashboardStatsDto> getManagerDashboardStatsById(@PathVariable Long managerId) {
+        ManagerDashboardStatsDto stats = dashboardService.getManagerDashboardStats(managerId);
+        return ResponseEntity.ok(stats);
+    }
 }
-
@@ -0,0 +1,150 @@
+package com.example.MedTrack.dashboard;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs the independent queries behind a dashboard in parallel. Each query gets a virtual
+ * thread and its own read-only transaction; a semaphore caps how many hit the database at
+ * once so one dashboard can't drain the connection pool. All queries of a {@link Fanout}
+ * share one deadline, and a query that fails or misses it yields its fallback value and is
+ * reported as unavailable instead of failing the whole response.
+ */
+@Component
+public class DashboardQueryExecutor {
+    private static final Logger log = LoggerFactory.getLogger(DashboardQueryExecutor.class);
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore permits;
+    private final Duration queryTimeout;
+    private final TransactionTemplate readOnlyTransaction;
+    private final MeterRegistry meterRegistry;
+
+    public DashboardQueryExecutor(PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${medtrack.dashboard.parallel.max-concurrency:4}") int maxConcurrency,
+                                  @Value("${medtrack.dashboard.parallel.query-timeout:PT3S}") Duration queryTimeout) {
+        this.permits = new Semaphore(maxConcurrency);
+        this.queryTimeout = queryTimeout;
+        this.meterRegistry = meterRegistry;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Lets the JDBC driver cancel the statement instead of leaving it running after we give up
+        this.readOnlyTransaction.setTimeout((int) Math.max(1, queryTimeout.toSeconds()));
+    }
+
+    public Fanout fanout() {
+        return new Fanout(System.nanoTime() + queryTimeout.toNanos());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A group of queries started together. Closing it cancels whatever is still running.
+     */
+    public final class Fanout implements AutoCloseable {
+        private final long deadlineNanos;
+        private final List<Future<?>> futures = new ArrayList<>();
+        private final List<String> unavailable = Collections.synchronizedList(new ArrayList<>());
+
+        private Fanout(long deadlineNanos) {
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public <T> Query<T> submit(String name, Supplier<T> query, T fallback) {
+            Future<T> future = executor.submit(() -> {
+                permits.acquire();
+                try {
+                    return readOnlyTransaction.execute(status -> query.get());
+                } finally {
+                    permits.release();
+                }
+            });
+            futures.add(future);
+            return new Query<>(name, future, fallback, this);
+        }
+
+        // Names of the queries that fell back, in the order they were resolved
+        public List<String> getUnavailable() {
+            return List.copyOf(unavailable);
+        }
+
+        @Override
+        public void close() {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+    public final class Query<T> {
+        private final String name;
+        private final Future<T> future;
+        private final T fallback;
+        private final Fanout fanout;
+
+        private Query(String name, Future<T> future, T fallback, Fanout fanout) {
+            this.name = name;
+            this.future = future;
+            this.fallback = fallback;
+            this.fanout = fanout;
+        }
+
+        /**
+         * Waits for the result until the fan-out deadline and returns the fallback on timeout or failure.
+         */
+        public T get() {
+            try {
+                long remaining = Math.max(0L, fanout.deadlineNanos - System.nanoTime());
+                return future.get(remaining, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                log.warn("Dashboard query '{}' did not finish within {}", name, queryTimeout);
+                return fallBack("timeout");
+            } catch (ExecutionException e) {
+                log.warn("Dashboard query '{}' failed", name, e.getCause());
+                return fallBack("error");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                return fallBack("interrupted");
+            }
+        }
+
+        private T fallBack(String reason) {
+            fanout.unavailable.add(name);
+            Counter.builder("medtrack.dashboard.query.fallback")
+                .description("Dashboard queries answered with a fallback value")
+                .tag("query", name)
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+            return fallback;
+        }
+    }
+}
@@ -1,15 +1,29 @@
 package com.example.MedTrack.dashboard;
 
+import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.users.User;
 import com.example.MedTrack.users.UserRepository;
+import com.example.MedTrack.users.UserRole;
 import com.example.MedTrack.doctors.DoctorRepository;
 import com.example.MedTrack.products.ProductRepository;
 import com.example.MedTrack.visits.Visit;
 import com.example.MedTrack.visits.VisitRepository;
 import com.example.MedTrack.samples.SampleRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,37 +34,84 @@ public class DashboardService {
     private final ProductRepository productRepository;
     private final VisitRepository visitRepository;
     private final SampleRepository sampleRepository;
+    private final RepDailyStatsRepository repDailyStatsRepository;
+    private final RepDoctorCoverageRepository repDoctorCoverageRepository;
+    private final DashboardQueryExecutor queryExecutor;
     
     public DashboardService(
         UserRepository userRepository,
         DoctorRepository doctorRepository,
         ProductRepository productRepository,
         VisitRepository visitRepository,
-        SampleRepository sampleRepository
+        SampleRepository sampleRepository,
+        RepDailyStatsRepository repDailyStatsRepository,
+        RepDoctorCoverageRepository repDoctorCoverageRepository,
+        DashboardQueryExecutor queryExecutor
     ) {
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.productRepository = productRepository;
         this.visitRepository = visitRepository;
         this.sampleRepository = sampleRepository;
+        this.repDailyStatsRepository = repDailyStatsRepository;
+        this.repDoctorCoverageRepository = repDoctorCoverageRepository;
+        this.queryExecutor = queryExecutor;
     }
     
     public DashboardStatsDto getAdminDashboardStats() {
         DashboardStatsDto stats = new DashboardStatsDto();
-        
-        // Total counts
-        stats.setTotalUsers(userRepository.count());
-        stats.setTotalDoctors(doctorRepository.count());
-        stats.setTotalProducts(productRepository.count());
-        
-        // Recent visits (last 7 days)
         LocalDate today = LocalDate.now();
         LocalDate sevenDaysAgo = today.minusDays(7);
-        List<Visit> recentVisits = visitRepository.findByVisitDateBetween(sevenDaysAgo, today);
-        stats.setRecentVisitsCount((long) recentVisits.size());
+        LocalDate startOfMonth = today.withDayOfMonth(1);
         
-        // Convert recent visits to DTOs (limit to 10 most recent)
-        List<RecentVisitDto> recentVisitDtos = recentVisits.stream()
+        // The queries are independent, so they run in parallel and a slow one only blanks its own section
+        try (DashboardQueryExecutor.Fanout fanout = queryExecutor.fanout()) {
+            DashboardQueryExecutor.Query<Long> totalUsers = fanout.submit("totalUsers", userRepository::count, null);
+            DashboardQueryExecutor.Query<Long> totalDoctors = fanout.submit("totalDoctors", doctorRepository::count, null);
+            DashboardQueryExecutor.Query<Long> totalProducts = fanout.submit("totalProducts", productRepository::count, null);
+            // Recent visits (last 7 days), fetched with their user and doctor and mapped inside the query's transaction
+            DashboardQueryExecutor.Query<RecentVisits> recentVisits = fanout.submit("recentVisits",
+                () -> toRecentVisits(visitRepository.findByVisitDateBetween(sevenDaysAgo, today)), null);
+            // Active REPs this month
+            DashboardQueryExecutor.Query<Long> activeReps = fanout.submit("activeReps",
+                () -> {
+                    Long count = visitRepository.countDistinctUsersByDateRange(startOfMonth, today);
+                    return count != null ? count : 0L;
+                }, null);
+            // Top products by sample quantity (top 5)
+            DashboardQueryExecutor.Query<List<TopProductDto>> topProducts = fanout.submit("topProducts",
+                this::findTopProducts, List.of());
+            
+            stats.setTotalUsers(totalUsers.get());
+            stats.setTotalDoctors(totalDoctors.get());
+            stats.setTotalProducts(totalProducts.get());
+            
+            RecentVisits visits = recentVisits.get();
+            if (visits != null) {
+                stats.setRecentVisitsCount(visits.count());
+                stats.setRecentVisits(visits.latest());
+            } else {
+                stats.setRecentVisits(List.of());
+            }
+            
+            stats.setActiveRepsCount(activeReps.get());
+            stats.setTopProducts(topProducts.get());
+            stats.setUnavailable(fanout.getUnavailable());
+        }
+        
+        return stats;
+    }
+    
+    private record RecentVisits(long count, List<RecentVisitDto> latest) {
+    }
+    
+    private RecentVisits toRecentVisits(List<Visit> visits) {
+        return new RecentVisits(visits.size(), toRecentVisitDtos(visits));
+    }
+    
+    // Convert recent visits to DTOs (limit to 10 most recent)
+    private List<RecentVisitDto> toRecentVisitDtos(List<Visit> recentVisits) {
+        return recentVisits.stream()
             .sorted((v1, v2) -> v2.getVisitDate().compareTo(v1.getVisitDate()))
             .limit(10)
             .map(visit -> new RecentVisitDto(
@@ -58,21 +119,16 @@ public class DashboardService {
                 visit.getDoctor().getName(),
                 visit.getUser().getName(),
                 visit.getVisitDate(),
-                visit.getNotes() != null && !visit.getNotes().isEmpty() 
-                    ? visit.getNotes().substring(0, Math.min(50, visit.getNotes().length())) + "..." 
+                visit.getNotesPreview() != null && !visit.getNotesPreview().isEmpty() 
+                    ? visit.getNotesPreview().substring(0, Math.min(50, visit.getNotesPreview().length())) + "..." 
                     : "No notes"
             ))
             .collect(Collectors.toList());
-        stats.setRecentVisits(recentVisitDtos);
-        
-        // Active REPs this month
-        LocalDate startOfMonth = today.withDayOfMonth(1);
-        Long activeReps = visitRepository.countDistinctUsersByDateRange(startOfMonth, today);
-        stats.setActiveRepsCount(activeReps != null ? activeReps : 0L);
-        
-        // Top products by sample quantity (top 5)
+    }
+    
+    private List<TopProductDto> findTopProducts() {
         List<Object[]> topProductsData = sampleRepository.findTopProductsBySampleQuantity();
-        List<TopProductDto> topProducts = topProductsData.stream()
+        return topProductsData.stream()
             .limit(5)
             .map(row -> new TopProductDto(
                 (Long) row[0],      // productId
@@ -82,9 +138,139 @@ public class DashboardService {
                 ((Number) row[4]).longValue()  // totalSamples
             ))
             .collect(Collectors.toList());
-        stats.setTopProducts(topProducts);
+    }
+    
+    // Rep and manager KPIs, read from the precomputed rep_daily_stats and rep_doctor_coverage counters
+    
+    @Transactional(readOnly = true)
+    public RepDashboardStatsDto getRepDashboardStats(Long userId) {
+        User user = userRepository.findById(userId)
+            .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+        return buildRepStats(List.of(user)).get(0);
+    }
+    
+    @Transactional(readOnly = true)
+    public ManagerDashboardStatsDto getManagerDashboardStats(Long managerId) {
+        if (!userRepository.existsById(managerId)) {
+            throw new ResourceNotFoundException("User", "id", managerId);
+        }
+        List<User> reps = userRepository.findByRoleSharingLocationsWith(UserRole.REP, managerId);
+        List<Long> repIds = reps.stream().map(User::getId).collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        LocalDate weekStart = weekStart(today);
+        LocalDate monthStart = today.withDayOfMonth(1);
+        Map<Long, KpiTotals> week = loadKpis(repIds, weekStart, today);
+        Map<Long, KpiTotals> month = loadKpis(repIds, monthStart, today);
         
+        ManagerDashboardStatsDto stats = new ManagerDashboardStatsDto();
+        stats.setManagerId(managerId);
+        stats.setRepCount((long) reps.size());
+        stats.setReps(toRepStats(reps, week, month));
+        // Team totals add up the rep rows, except doctors which are counted once across the team
+        stats.setThisWeek(sumTotals(week.values(), countTeamDoctors(repIds, weekStart, today)).toDto());
+        stats.setThisMonth(sumTotals(month.values(), countTeamDoctors(repIds, monthStart, today)).toDto());
         return stats;
     }
+    
+    // Whether the rep shares at least one location with the manager
+    @Transactional(readOnly = true)
+    public boolean isRepManagedBy(Long repId, Long managerId) {
+        return userRepository.findByRoleSharingLocationsWith(UserRole.REP, managerId).stream()
+            .anyMatch(rep -> rep.getId().equals(repId));
+    }
+    
+    private List<RepDashboardStatsDto> buildRepStats(List<User> users) {
+        List<Long> userIds = users.stream().map(User::getId).collect(Collectors.toList());
+        LocalDate today = LocalDate.now();
+        return toRepStats(users,
+            loadKpis(userIds, weekStart(today), today),
+            loadKpis(userIds, today.withDayOfMonth(1), today));
+    }
+    
+    private List<RepDashboardStatsDto> toRepStats(List<User> users, Map<Long, KpiTotals> week, Map<Long, KpiTotals> month) {
+        List<RepDashboardStatsDto> result = new ArrayList<>();
+        for (User user : users) {
+            result.add(new RepDashboardStatsDto(
+                user.getId(),
+                user.getName(),
+                week.getOrDefault(user.getId(), new KpiTotals()).toDto(),
+                month.getOrDefault(user.getId(), new KpiTotals()).toDto()
+            ));
+        }
+        return result;
+    }
+    
+    // One grouped query for the counters and one for coverage, whatever the number of reps
+    private Map<Long, KpiTotals> loadKpis(Collection<Long> userIds, LocalDate startDate, LocalDate endDate) {
+        Map<Long, KpiTotals> kpis = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return kpis;
+        }
+        for (Object[] row : repDailyStatsRepository.sumByUserIdsAndDateRange(userIds, startDate, endDate)) {
+            KpiTotals totals = kpis.computeIfAbsent((Long) row[0], id -> new KpiTotals());
+            totals.visits = ((Number) row[1]).longValue();
+            totals.timedVisits = ((Number) row[2]).longValue();
+            totals.durationSeconds = ((Number) row[3]).longValue();
+            totals.samplesIssued = ((Number) row[4]).longValue();
+            totals.orders = ((Number) row[5]).longValue();
+            totals.revenue = (BigDecimal) row[6];
+        }
+        for (Object[] row : repDoctorCoverageRepository.countDoctorsByUserIds(userIds, monthsBetween(startDate, endDate), startDate)) {
+            kpis.computeIfAbsent((Long) row[0], id -> new KpiTotals()).doctorsCovered = ((Number) row[1]).longValue();
+        }
+        return kpis;
+    }
+    
+    private Long countTeamDoctors(List<Long> repIds, LocalDate startDate, LocalDate endDate) {
+        if (repIds.isEmpty()) {
+            return 0L;
+        }
+        Long count = repDoctorCoverageRepository.countDistinctDoctors(repIds, monthsBetween(startDate, endDate), startDate);
+        return count != null ? count : 0L;
+    }
+    
+    private static KpiTotals sumTotals(Collection<KpiTotals> rows, long doctorsCovered) {
+        KpiTotals total = new KpiTotals();
+        for (KpiTotals row : rows) {
+            total.visits += row.visits;
+            total.timedVisits += row.timedVisits;
+            total.durationSeconds += row.durationSeconds;
+            total.samplesIssued += row.samplesIssued;
+            total.orders += row.orders;
+            total.revenue = total.revenue.add(row.revenue);
+        }
+        total.doctorsCovered = doctorsCovered;
+        return total;
+    }
+    
+    private static LocalDate weekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+    
+    // Coverage rows are keyed by month, so a week spanning two months reads both
+    private static Set<LocalDate> monthsBetween(LocalDate startDate, LocalDate endDate) {
+        Set<LocalDate> months = new LinkedHashSet<>();
+        for (LocalDate month = startDate.withDayOfMonth(1); !month.isAfter(endDate); month = month.plusMonths(1)) {
+            months.add(month);
+        }
+        return months;
+    }
+    
+    // Raw sums behind a RepKpiDto, kept so team averages are weighted by timed visits
+    private static class KpiTotals {
+        long visits;
+        long timedVisits;
+        long durationSeconds;
+        long samplesIssued;
+        long orders;
+        BigDecimal revenue = BigDecimal.ZERO;
+        long doctorsCovered;
+        
+        RepKpiDto toDto() {
+            Double averageMinutes = timedVisits == 0 ? null : BigDecimal.valueOf(durationSeconds)
+                .divide(BigDecimal.valueOf(timedVisits * 60), 1, RoundingMode.HALF_UP)
+                .doubleValue();
+            return new RepKpiDto(visits, doctorsCovered, samplesIssued, orders, revenue, averageMinutes);
+        }
+    }
 }
-
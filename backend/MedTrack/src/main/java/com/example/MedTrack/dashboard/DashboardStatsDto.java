@@ -17,5 +17,7 @@ public class DashboardStatsDto {
     private Long activeRepsCount;
     private List<TopProductDto> topProducts;
     private List<RecentVisitDto> recentVisits;
+    // Sections that timed out or failed and hold their fallback value (null counts, empty lists)
+    private List<String> unavailable;
 }
 
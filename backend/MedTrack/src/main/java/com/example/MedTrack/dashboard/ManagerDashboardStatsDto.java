@@ -0,0 +1,18 @@
+package com.example.MedTrack.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManagerDashboardStatsDto {
+    private Long managerId;
+    private Long repCount;
+    private RepKpiDto thisWeek;
+    private RepKpiDto thisMonth;
+    private List<RepDashboardStatsDto> reps;
+}
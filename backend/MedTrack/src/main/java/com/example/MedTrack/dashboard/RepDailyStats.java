@@ -0,0 +1,64 @@
+package com.example.MedTrack.dashboard;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Entity
+@Table(name = "rep_daily_stats")
+@IdClass(RepDailyStatsId.class)
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepDailyStats {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate;
+    
+    @Column(name = "visits_count", nullable = false)
+    private Integer visitsCount;
+    
+    // Completed visits with both check-in and check-out, the base for average duration
+    @Column(name = "timed_visits_count", nullable = false)
+    private Integer timedVisitsCount;
+    
+    @Column(name = "visit_duration_seconds", nullable = false)
+    private Long visitDurationSeconds;
+    
+    @Column(name = "samples_issued", nullable = false)
+    private Integer samplesIssued;
+    
+    @Column(name = "orders_count", nullable = false)
+    private Integer ordersCount;
+    
+    @Column(name = "order_revenue", nullable = false, precision = 14, scale = 2)
+    private BigDecimal orderRevenue;
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof RepDailyStats other && userId != null && statDate != null
+            && userId.equals(other.getUserId()) && statDate.equals(other.getStatDate());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, statDate);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.MedTrack.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepDailyStatsId implements Serializable {
+    private Long userId;
+    private LocalDate statDate;
+}
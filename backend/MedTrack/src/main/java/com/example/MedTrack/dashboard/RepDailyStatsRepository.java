@@ -0,0 +1,81 @@
+package com.example.MedTrack.dashboard;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RepDailyStatsRepository extends JpaRepository<RepDailyStats, RepDailyStatsId> {
+    
+    // Adds the given deltas to a rep's row for the day, creating the row on first use
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_daily_stats (user_id, stat_date, visits_count, timed_visits_count, " +
+           "visit_duration_seconds, samples_issued, orders_count, order_revenue) " +
+           "VALUES (:userId, :statDate, :visits, :timedVisits, :durationSeconds, :samples, :orders, :revenue) " +
+           "ON DUPLICATE KEY UPDATE visits_count = visits_count + VALUES(visits_count), " +
+           "timed_visits_count = timed_visits_count + VALUES(timed_visits_count), " +
+           "visit_duration_seconds = visit_duration_seconds + VALUES(visit_duration_seconds), " +
+           "samples_issued = samples_issued + VALUES(samples_issued), " +
+           "orders_count = orders_count + VALUES(orders_count), " +
+           "order_revenue = order_revenue + VALUES(order_revenue)", nativeQuery = true)
+    int increment(@Param("userId") Long userId, @Param("statDate") LocalDate statDate,
+                  @Param("visits") int visits, @Param("timedVisits") int timedVisits,
+                  @Param("durationSeconds") long durationSeconds, @Param("samples") int samples,
+                  @Param("orders") int orders, @Param("revenue") BigDecimal revenue);
+    
+    // Totals per rep over a date range: userId, visits, timedVisits, durationSeconds, samples, orders, revenue
+    @Query("SELECT s.userId, SUM(s.visitsCount), SUM(s.timedVisitsCount), SUM(s.visitDurationSeconds), " +
+           "SUM(s.samplesIssued), SUM(s.ordersCount), SUM(s.orderRevenue) " +
+           "FROM RepDailyStats s WHERE s.userId IN :userIds AND s.statDate BETWEEN :startDate AND :endDate " +
+           "GROUP BY s.userId")
+    List<Object[]> sumByUserIdsAndDateRange(@Param("userIds") Collection<Long> userIds,
+                                            @Param("startDate") LocalDate startDate,
+                                            @Param("endDate") LocalDate endDate);
+    
+    // Reconciliation: drop counters from a date on, then rebuild them from the source tables
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_daily_stats"))
+    @Transactional
+    @Query(value = "DELETE FROM rep_daily_stats WHERE stat_date >= :since", nativeQuery = true)
+    int deleteFromDate(@Param("since") LocalDate since);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_daily_stats (user_id, stat_date, visits_count, timed_visits_count, visit_duration_seconds) " +
+           "SELECT user_id, visit_date, COUNT(*), " +
+           "SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL AND check_out_time > check_in_time THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL AND check_out_time > check_in_time " +
+           "THEN TIMESTAMPDIFF(SECOND, check_in_time, check_out_time) ELSE 0 END) " +
+           "FROM visit WHERE visit_date >= :since GROUP BY user_id, visit_date", nativeQuery = true)
+    int rebuildVisitsFromDate(@Param("since") LocalDate since);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_daily_stats (user_id, stat_date, samples_issued) " +
+           "SELECT v.user_id, s.date_issued, SUM(s.quantity) FROM sample s JOIN visit v ON v.id = s.visit_id " +
+           "WHERE s.date_issued >= :since GROUP BY v.user_id, s.date_issued " +
+           "ON DUPLICATE KEY UPDATE samples_issued = VALUES(samples_issued)", nativeQuery = true)
+    int rebuildSamplesFromDate(@Param("since") LocalDate since);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_daily_stats"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_daily_stats (user_id, stat_date, orders_count, order_revenue) " +
+           "SELECT v.user_id, o.order_date, COUNT(*), SUM(o.total_amount) FROM orders o JOIN visit v ON v.id = o.visit_id " +
+           "WHERE o.status <> 'CANCELLED' AND o.order_date >= :since GROUP BY v.user_id, o.order_date " +
+           "ON DUPLICATE KEY UPDATE orders_count = VALUES(orders_count), order_revenue = VALUES(order_revenue)", nativeQuery = true)
+    int rebuildOrdersFromDate(@Param("since") LocalDate since);
+}
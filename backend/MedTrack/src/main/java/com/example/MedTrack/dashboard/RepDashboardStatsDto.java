@@ -0,0 +1,15 @@
+package com.example.MedTrack.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepDashboardStatsDto {
+    private Long userId;
+    private String userName;
+    private RepKpiDto thisWeek;
+    private RepKpiDto thisMonth;
+}
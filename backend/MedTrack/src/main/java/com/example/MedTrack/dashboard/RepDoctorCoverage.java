@@ -0,0 +1,51 @@
+package com.example.MedTrack.dashboard;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Entity
+@Table(name = "rep_doctor_coverage")
+@IdClass(RepDoctorCoverageId.class)
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepDoctorCoverage {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "month_start")
+    private LocalDate monthStart;
+    
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+    
+    @Column(name = "last_visit_date", nullable = false)
+    private LocalDate lastVisitDate;
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof RepDoctorCoverage other && userId != null && monthStart != null && doctorId != null
+            && userId.equals(other.getUserId()) && monthStart.equals(other.getMonthStart()) && doctorId.equals(other.getDoctorId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, monthStart, doctorId);
+    }
+}
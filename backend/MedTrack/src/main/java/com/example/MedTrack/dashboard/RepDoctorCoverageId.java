@@ -0,0 +1,17 @@
+package com.example.MedTrack.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepDoctorCoverageId implements Serializable {
+    private Long userId;
+    private LocalDate monthStart;
+    private Long doctorId;
+}
@@ -0,0 +1,57 @@
+package com.example.MedTrack.dashboard;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface RepDoctorCoverageRepository extends JpaRepository<RepDoctorCoverage, RepDoctorCoverageId> {
+    
+    // Records a visit, keeping the latest visit date per rep, doctor and month
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_doctor_coverage"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_doctor_coverage (user_id, month_start, doctor_id, last_visit_date) " +
+           "VALUES (:userId, :monthStart, :doctorId, :visitDate) " +
+           "ON DUPLICATE KEY UPDATE last_visit_date = GREATEST(last_visit_date, VALUES(last_visit_date))", nativeQuery = true)
+    int recordVisit(@Param("userId") Long userId, @Param("monthStart") LocalDate monthStart,
+                    @Param("doctorId") Long doctorId, @Param("visitDate") LocalDate visitDate);
+    
+    // Distinct doctors per rep visited on or after a date, within the given months: userId, doctorCount
+    @Query("SELECT c.userId, COUNT(DISTINCT c.doctorId) FROM RepDoctorCoverage c " +
+           "WHERE c.userId IN :userIds AND c.monthStart IN :months AND c.lastVisitDate >= :since " +
+           "GROUP BY c.userId")
+    List<Object[]> countDoctorsByUserIds(@Param("userIds") Collection<Long> userIds,
+                                         @Param("months") Collection<LocalDate> months,
+                                         @Param("since") LocalDate since);
+    
+    // Distinct doctors across a group of reps, so a doctor seen by two reps counts once
+    @Query("SELECT COUNT(DISTINCT c.doctorId) FROM RepDoctorCoverage c " +
+           "WHERE c.userId IN :userIds AND c.monthStart IN :months AND c.lastVisitDate >= :since")
+    Long countDistinctDoctors(@Param("userIds") Collection<Long> userIds,
+                              @Param("months") Collection<LocalDate> months,
+                              @Param("since") LocalDate since);
+    
+    // Reconciliation: drop coverage from a month on, then rebuild it from visits
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_doctor_coverage"))
+    @Transactional
+    @Query(value = "DELETE FROM rep_doctor_coverage WHERE month_start >= :monthStart", nativeQuery = true)
+    int deleteFromMonth(@Param("monthStart") LocalDate monthStart);
+    
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "rep_doctor_coverage"))
+    @Transactional
+    @Query(value = "INSERT INTO rep_doctor_coverage (user_id, month_start, doctor_id, last_visit_date) " +
+           "SELECT user_id, DATE_FORMAT(visit_date, '%Y-%m-01'), doctor_id, MAX(visit_date) FROM visit " +
+           "WHERE visit_date >= :monthStart GROUP BY user_id, DATE_FORMAT(visit_date, '%Y-%m-01'), doctor_id", nativeQuery = true)
+    int rebuildFromMonth(@Param("monthStart") LocalDate monthStart);
+}
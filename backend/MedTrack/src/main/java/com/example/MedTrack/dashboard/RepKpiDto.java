@@ -0,0 +1,19 @@
+package com.example.MedTrack.dashboard;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RepKpiDto {
+    private Long visits;
+    private Long doctorsCovered;
+    private Long samplesIssued;
+    private Long orders;
+    private BigDecimal revenue;
+    private Double averageVisitDurationMinutes;
+}
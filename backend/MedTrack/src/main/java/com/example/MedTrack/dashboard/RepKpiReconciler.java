@@ -0,0 +1,58 @@
+package com.example.MedTrack.dashboard;
+
+import java.time.LocalDate;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Rebuilds the recent KPI counters from visits, samples and orders. The counters are
+ * maintained as deltas and a few changes (deleted visits, cascaded deletes, direct
+ * SQL) can't be tracked that way, so this pass bounds any drift to one night.
+ */
+@Component
+@ConditionalOnProperty(name = "medtrack.dashboard.kpi-reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class RepKpiReconciler {
+    private static final Logger log = LoggerFactory.getLogger(RepKpiReconciler.class);
+
+    private final RepDailyStatsRepository repDailyStatsRepository;
+    private final RepDoctorCoverageRepository repDoctorCoverageRepository;
+    private final int lookbackDays;
+
+    public RepKpiReconciler(RepDailyStatsRepository repDailyStatsRepository,
+                            RepDoctorCoverageRepository repDoctorCoverageRepository,
+                            @Value("${medtrack.dashboard.kpi-reconcile.lookback-days:40}") int lookbackDays) {
+        this.repDailyStatsRepository = repDailyStatsRepository;
+        this.repDoctorCoverageRepository = repDoctorCoverageRepository;
+        this.lookbackDays = lookbackDays;
+    }
+
+    @Scheduled(cron = "${medtrack.dashboard.kpi-reconcile.cron:0 30 2 * * *}")
+    @Transactional
+    public void reconcile() {
+        LocalDate since = LocalDate.now().minusDays(lookbackDays);
+        reconcileFrom(since);
+        log.info("Rebuilt rep KPI counters from {}", since);
+    }
+
+    /**
+     * Replaces daily counters from the given date and doctor coverage from the start of
+     * its month in one transaction, so readers never see a half-rebuilt range.
+     */
+    @Transactional
+    public void reconcileFrom(LocalDate since) {
+        repDailyStatsRepository.deleteFromDate(since);
+        repDailyStatsRepository.rebuildVisitsFromDate(since);
+        repDailyStatsRepository.rebuildSamplesFromDate(since);
+        repDailyStatsRepository.rebuildOrdersFromDate(since);
+
+        LocalDate monthStart = RepKpiService.monthStart(since);
+        repDoctorCoverageRepository.deleteFromMonth(monthStart);
+        repDoctorCoverageRepository.rebuildFromMonth(monthStart);
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.MedTrack.dashboard;
+
+import com.example.MedTrack.orders.Order;
+import com.example.MedTrack.orders.OrderStatus;
+import com.example.MedTrack.samples.IssuedSample;
+import com.example.MedTrack.samples.Sample;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitStatus;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Keeps the per-rep KPI counters in step with visit, sample and order writes.
+ * Each record counts towards one rep and day as a {@link Contribution}; creates add it,
+ * deletes subtract it, and updates subtract the contribution captured before the change
+ * and add the new one. Samples and orders count towards the rep of their visit.
+ */
+@Service
+public class RepKpiService {
+
+    /**
+     * What a single visit, sample or order adds to a rep's daily counters.
+     */
+    public record Contribution(Long userId, LocalDate date, int visits, int timedVisits, long durationSeconds,
+                               int samples, int orders, BigDecimal revenue) {
+
+        Contribution plus(Contribution other) {
+            return new Contribution(userId, date, visits + other.visits, timedVisits + other.timedVisits,
+                durationSeconds + other.durationSeconds, samples + other.samples, orders + other.orders,
+                revenue.add(other.revenue));
+        }
+    }
+
+    private record RepDay(Long userId, LocalDate date) {
+    }
+
+    private record RepDoctorMonth(Long userId, LocalDate monthStart, Long doctorId) {
+    }
+
+    private final RepDailyStatsRepository repDailyStatsRepository;
+    private final RepDoctorCoverageRepository repDoctorCoverageRepository;
+
+    public RepKpiService(RepDailyStatsRepository repDailyStatsRepository,
+                         RepDoctorCoverageRepository repDoctorCoverageRepository) {
+        this.repDailyStatsRepository = repDailyStatsRepository;
+        this.repDoctorCoverageRepository = repDoctorCoverageRepository;
+    }
+
+    public void recordVisitAdded(Visit visit) {
+        apply(contributionOf(visit), 1);
+        recordCoverage(visit);
+    }
+
+    public void recordVisitRemoved(Visit visit) {
+        apply(contributionOf(visit), -1);
+    }
+
+    public void recordVisitChanged(Contribution before, Visit visit) {
+        recordChanged(before, contributionOf(visit));
+        recordCoverage(visit);
+    }
+
+    public void recordSampleAdded(Sample sample) {
+        apply(contributionOf(sample), 1);
+    }
+
+    public void recordSampleRemoved(Sample sample) {
+        apply(contributionOf(sample), -1);
+    }
+
+    public void recordOrderAdded(Order order) {
+        apply(contributionOf(order), 1);
+    }
+
+    public void recordOrderRemoved(Order order) {
+        apply(contributionOf(order), -1);
+    }
+
+    public void recordAdded(Contribution contribution) {
+        apply(contribution, 1);
+    }
+
+    /**
+     * Bulk variant of {@link #recordVisitAdded} for many new visits: one counter update per
+     * rep and day and one coverage update per rep, doctor and month.
+     */
+    public void recordVisitsAdded(List<Visit> visits) {
+        recordAllAdded(visits.stream().map(RepKpiService::contributionOf).toList());
+        Map<RepDoctorMonth, LocalDate> lastVisitDates = new LinkedHashMap<>();
+        for (Visit visit : visits) {
+            RepDoctorMonth key = new RepDoctorMonth(visit.getUser().getId(), monthStart(visit.getVisitDate()),
+                visit.getDoctor().getId());
+            lastVisitDates.merge(key, visit.getVisitDate(), (a, b) -> a.isAfter(b) ? a : b);
+        }
+        lastVisitDates.forEach((key, lastVisitDate) ->
+            repDoctorCoverageRepository.recordVisit(key.userId(), key.monthStart(), key.doctorId(), lastVisitDate));
+    }
+
+    // Adds many contributions with one counter update per rep and day; nulls are skipped
+    public void recordAllAdded(Collection<Contribution> contributions) {
+        Map<RepDay, Contribution> merged = new LinkedHashMap<>();
+        for (Contribution contribution : contributions) {
+            if (contribution != null) {
+                merged.merge(new RepDay(contribution.userId(), contribution.date()), contribution, Contribution::plus);
+            }
+        }
+        merged.values().forEach(contribution -> apply(contribution, 1));
+    }
+
+    public void recordChanged(Contribution before, Contribution after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    public static Contribution contributionOf(Visit visit) {
+        // Same rule as the reconciliation SQL: completed, with a check-out after the check-in
+        boolean timed = visit.getStatus() == VisitStatus.COMPLETED
+            && visit.getCheckInTime() != null
+            && visit.getCheckOutTime() != null
+            && visit.getCheckOutTime().isAfter(visit.getCheckInTime());
+        long durationSeconds = timed ? Duration.between(visit.getCheckInTime(), visit.getCheckOutTime()).getSeconds() : 0L;
+        return new Contribution(visit.getUser().getId(), visit.getVisitDate(), 1, timed ? 1 : 0, durationSeconds,
+            0, 0, BigDecimal.ZERO);
+    }
+
+    // Null when the sample isn't linked to a visit and so to no rep
+    public static Contribution contributionOf(Sample sample) {
+        if (sample.getVisit() == null || sample.getQuantity() == null) {
+            return null;
+        }
+        return new Contribution(sample.getVisit().getUser().getId(), sample.getDateIssued(), 0, 0, 0L,
+            sample.getQuantity(), 0, BigDecimal.ZERO);
+    }
+
+    // Null for orders without a visit and for cancelled orders
+    public static Contribution contributionOf(Order order) {
+        if (order.getVisit() == null || order.getStatus() == OrderStatus.CANCELLED) {
+            return null;
+        }
+        BigDecimal amount = order.getTotalAmount() != null ? order.getTotalAmount() : BigDecimal.ZERO;
+        return new Contribution(order.getVisit().getUser().getId(), order.getOrderDate(), 0, 0, 0L,
+            0, 1, amount);
+    }
+
+    // An upserted issue counts for the rep and day of the row it was added to; null without a visit
+    public static Contribution contributionOf(IssuedSample issued) {
+        if (issued.userId() == null) {
+            return null;
+        }
+        return new Contribution(issued.userId(), issued.dateIssued(), 0, 0, 0L, issued.quantity(), 0, BigDecimal.ZERO);
+    }
+
+    static LocalDate monthStart(LocalDate date) {
+        return date.withDayOfMonth(1);
+    }
+
+    private void apply(Contribution contribution, int sign) {
+        if (contribution == null) {
+            return;
+        }
+        repDailyStatsRepository.increment(contribution.userId(), contribution.date(),
+            sign * contribution.visits(),
+            sign * contribution.timedVisits(),
+            sign * contribution.durationSeconds(),
+            sign * contribution.samples(),
+            sign * contribution.orders(),
+            sign > 0 ? contribution.revenue() : contribution.revenue().negate());
+    }
+
+    // Coverage only grows; rows left behind by removed visits are dropped by the nightly reconciliation
+    private void recordCoverage(Visit visit) {
+        repDoctorCoverageRepository.recordVisit(
+            visit.getUser().getId(),
+            monthStart(visit.getVisitDate()),
+            visit.getDoctor().getId(),
+            visit.getVisitDate());
+    }
+}
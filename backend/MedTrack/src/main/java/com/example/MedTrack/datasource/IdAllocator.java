@@ -0,0 +1,45 @@
+package com.example.MedTrack.datasource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves ids from id_generator for rows inserted over plain JDBC, from the same rows the
+ * entities' table generators use, so both kinds of insert draw from one sequence per table.
+ * A reservation commits in its own short transaction: the row lock isn't held for the rest
+ * of the caller's, and ids of a rolled back insert are skipped rather than reused.
+ */
+@Component
+public class IdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate allocationTransaction;
+
+    public IdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.allocationTransaction = new TransactionTemplate(transactionManager);
+        this.allocationTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserves count consecutive ids for the table and returns the first one.
+     */
+    public long allocate(String table, int count) {
+        if (count < 1) {
+            throw new IllegalArgumentException("Can't allocate " + count + " ids");
+        }
+        Long first = allocationTransaction.execute(status -> {
+            Long next = jdbcTemplate.query("SELECT next_val FROM id_generator WHERE name = ? FOR UPDATE",
+                rs -> rs.next() ? rs.getLong(1) : null, table);
+            if (next == null) {
+                throw new IllegalStateException("No id_generator row for " + table);
+            }
+            jdbcTemplate.update("UPDATE id_generator SET next_val = ? WHERE name = ?", next + count, table);
+            return next;
+        });
+        return first;
+    }
+}
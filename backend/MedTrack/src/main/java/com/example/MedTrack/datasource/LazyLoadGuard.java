@@ -0,0 +1,52 @@
+package com.example.MedTrack.datasource;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Fails any lazy proxy or collection load made while no transaction is active. With
+ * open-session-in-view off such a load usually finds its session closed anyway; this also
+ * catches the ones that would still succeed, each on a connection of its own, for example
+ * if a session is kept open by hand. Enabled for tests.
+ */
+@Component
+@ConditionalOnProperty(name = "medtrack.jpa.strict-transactions", havingValue = "true")
+public class LazyLoadGuard implements LoadEventListener, InitializeCollectionEventListener {
+
+    public LazyLoadGuard(EntityManagerFactory entityManagerFactory) {
+        EventListenerRegistry listeners = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+        listeners.prependListeners(EventType.LOAD, this);
+        listeners.prependListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    // Proxies are initialized through an immediate load; finds and queries are left alone
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        if (loadType == IMMEDIATE_LOAD) {
+            check(event.getEntityClassName() + "#" + event.getEntityId());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        check(event.getCollection().getRole() + "#" + event.getAffectedOwnerIdOrNull());
+    }
+
+    private static void check(String loaded) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Lazy load of " + loaded + " outside a transaction");
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.MedTrack.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.example.MedTrack.auth.AuthenticationHelper;
+
+/**
+ * Remembers which users committed a write in the last few seconds, so their reads stay on
+ * the primary until the replicas have caught up and they see their own changes. Kept per
+ * instance: a user whose next request lands on another instance can still read a stale
+ * replica for up to the replication lag.
+ */
+public class ReadYourWritesTracker {
+
+    private final long windowNanos;
+    private final Map<Long, Long> lastWriteNanos = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite() {
+        Long user = AuthenticationHelper.authenticatedUserId();
+        if (user != null && windowNanos > 0) {
+            lastWriteNanos.put(user, System.nanoTime());
+        }
+    }
+
+    public boolean hasRecentWrite() {
+        Long user = AuthenticationHelper.authenticatedUserId();
+        if (user == null) {
+            return false;
+        }
+        Long writtenAt = lastWriteNanos.get(user);
+        return writtenAt != null && System.nanoTime() - writtenAt < windowNanos;
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.datasource.read-your-writes-window:PT5S}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        lastWriteNanos.values().removeIf(writtenAt -> now - writtenAt >= windowNanos);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.MedTrack.datasource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Replaces the auto-configured DataSource when medtrack.datasource.replica-urls is set.
+ * The primary pool is built from spring.datasource as before; each replica gets its own
+ * read-only pool with the same credentials unless overridden. Without replica urls the
+ * application runs on the single auto-configured pool.
+ */
+@Configuration
+@EnableConfigurationProperties(DataSourceProperties.class)
+@ConditionalOnExpression("!'${medtrack.datasource.replica-urls:}'.isBlank()")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(
+            @Value("${medtrack.datasource.read-your-writes-window:PT5S}") Duration window) {
+        return new ReadYourWritesTracker(window);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties,
+                                 ReadYourWritesTracker readYourWritesTracker,
+                                 @Value("${medtrack.datasource.replica-urls}") String replicaUrls,
+                                 @Value("${medtrack.datasource.replica-username:}") String replicaUsername,
+                                 @Value("${medtrack.datasource.replica-password:}") String replicaPassword,
+                                 @Value("${medtrack.datasource.replica-pool-size:10}") int replicaPoolSize,
+                                 @Value("${medtrack.datasource.replica-retry-after:PT30S}") Duration retryAfter) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        List<String> urls = Arrays.stream(replicaUrls.split(",")).map(String::trim).filter(url -> !url.isEmpty()).toList();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + i);
+            replica.setJdbcUrl(urls.get(i));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setUsername(replicaUsername.isBlank() ? properties.determineUsername() : replicaUsername);
+            replica.setPassword(replicaPassword.isBlank() ? properties.determinePassword() : replicaPassword);
+            replica.setMaximumPoolSize(replicaPoolSize);
+            replica.setReadOnly(true);
+            // Don't fail startup on a replica that is down, routing falls back to the primary
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas, readYourWritesTracker, retryAfter);
+        routing.afterPropertiesSet();
+        return new ClosingLazyConnectionDataSourceProxy(routing, primary, replicas);
+    }
+
+    // Closes the pools on shutdown, which the proxy itself doesn't know about
+    static class ClosingLazyConnectionDataSourceProxy extends LazyConnectionDataSourceProxy implements AutoCloseable {
+        private final List<DataSource> pools = new ArrayList<>();
+
+        ClosingLazyConnectionDataSourceProxy(DataSource target, DataSource primary, List<DataSource> replicas) {
+            super(target);
+            pools.add(primary);
+            pools.addAll(replicas);
+        }
+
+        @Override
+        public void close() {
+            for (DataSource pool : pools) {
+                if (pool instanceof HikariDataSource hikari) {
+                    hikari.close();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.MedTrack.datasource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends connections for read-only transactions to the replicas, round robin, and
+ * everything else to the primary. Must sit behind a LazyConnectionDataSourceProxy: the
+ * transaction is only marked read-only after it has begun, so the physical connection has
+ * to be fetched on first use rather than at transaction start.
+ *
+ * A replica that fails to hand out a connection is skipped for a while and the read goes
+ * to the primary instead. Users who just committed a write read from the primary for the
+ * read-your-writes window.
+ *
+ * Reads that move a cursor forward (sync pages, the analytics change feed, the coverage and
+ * spatial index loads) must not go to a replica: they skip what is older than a safety lag
+ * of a few seconds, and a replica further behind than that would let the cursor pass rows
+ * it hasn't received yet, which are then never read. They run inside {@link #onPrimary}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> primaryOnly = ThreadLocal.withInitial(() -> false);
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final ReadYourWritesTracker readYourWritesTracker;
+    private final long retryAfterNanos;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    // System.nanoTime() until which each replica is skipped, 0 when healthy
+    private final AtomicLongArray downUntil;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                    ReadYourWritesTracker readYourWritesTracker, Duration retryAfter) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.readYourWritesTracker = readYourWritesTracker;
+        this.retryAfterNanos = retryAfter.toNanos();
+        this.downUntil = new AtomicLongArray(replicas.size());
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < this.replicas.size(); i++) {
+            targets.put(i, this.replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object key = determineCurrentLookupKey();
+        if (PRIMARY.equals(key)) {
+            return primaryConnection();
+        }
+        int replica = (Integer) key;
+        try {
+            return replicas.get(replica).getConnection();
+        } catch (SQLException e) {
+            downUntil.set(replica, System.nanoTime() + retryAfterNanos);
+            log.warn("Replica {} unavailable, reading from the primary for the next {} ms",
+                replica, retryAfterNanos / 1_000_000, e);
+            return primary.getConnection();
+        }
+    }
+
+    /**
+     * Runs the action with every connection it opens taken from the primary, read-only
+     * transaction or not. Without replicas it just runs the action.
+     */
+    public static <T> T onPrimary(Supplier<T> action) {
+        boolean outer = primaryOnly.get();
+        primaryOnly.set(true);
+        try {
+            return action.get();
+        } finally {
+            primaryOnly.set(outer);
+        }
+    }
+
+    public static void onPrimary(Runnable action) {
+        onPrimary(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (primaryOnly.get() || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || readYourWritesTracker.hasRecentWrite()) {
+            return PRIMARY;
+        }
+        Integer replica = nextHealthyReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+
+    private Integer nextHealthyReplica() {
+        int start = Math.floorMod(nextReplica.getAndIncrement(), replicas.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            if (downUntil.get(candidate) - now <= 0) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    // Writes in a transaction start the user's read-your-writes window once they commit
+    private Connection primaryConnection() throws SQLException {
+        Connection connection = primary.getConnection();
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite();
+                }
+            });
+        }
+        return connection;
+    }
+}
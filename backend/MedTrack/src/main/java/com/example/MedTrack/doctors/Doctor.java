@@ -3,21 +3,30 @@ package com.example.MedTrack.doctors;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "doctor")
-@Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctor")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Doctor {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "doctor_id")
+    @TableGenerator(name = "doctor_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "doctor", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Name is required")
@@ -33,7 +42,36 @@ public class Doctor {
     @Column(name = "phone", length = 20)
     private String phone;
     
+    @Column(name = "latitude")
+    private Double latitude;
+    
+    @Column(name = "longitude")
+    private Double longitude;
+    
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Doctor other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Doctor.class.hashCode();
+    }
 }
@@ -10,5 +10,8 @@ public class DoctorDto {
     private String specialty;
     private String hospital;
     private String phone;
+    private Double latitude;
+    private Double longitude;
     private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
 }
@@ -1,8 +1,10 @@
 package com.example.MedTrack.doctors;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,4 +18,22 @@ public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     List<Doctor> findByNameContaining(@Param("name") String name);
     
     Optional<Doctor> findByNameAndHospital(String name, String hospital);
+    
+    // Coverage: every doctor id, the universe "not visited" is measured against
+    @Query("SELECT d.id FROM Doctor d")
+    List<Long> findAllIds();
+    
+    // Spatial index: id, latitude and longitude of every doctor with coordinates
+    @Query("SELECT d.id, d.latitude, d.longitude FROM Doctor d WHERE d.latitude IS NOT NULL AND d.longitude IS NOT NULL")
+    List<Object[]> findAllCoordinates();
+    
+    // Sync: keyset page over idx_doctor_updated of rows changed after the (updatedAt, id) cursor
+    @Query("SELECT d FROM Doctor d WHERE d.updatedAt <= :upTo AND (d.updatedAt > :afterTime OR (d.updatedAt = :afterTime AND d.id > :afterId)) " +
+           "ORDER BY d.updatedAt, d.id")
+    List<Doctor> findChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
 }
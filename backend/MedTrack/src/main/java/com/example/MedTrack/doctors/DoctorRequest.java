@@ -8,4 +8,6 @@ public class DoctorRequest {
     private String specialty;
     private String hospital;
     private String phone;
+    private Double latitude;
+    private Double longitude;
 }
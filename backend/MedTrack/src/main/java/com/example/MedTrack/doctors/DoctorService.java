@@ -4,19 +4,38 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.coverage.CoverageIndex;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.geo.Coordinates;
+import com.example.MedTrack.geo.GeoIndex;
+import com.example.MedTrack.invalidation.CachedEntity;
+import com.example.MedTrack.invalidation.InvalidationBus;
 import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
 
 @Service
 public class DoctorService {
     private final DoctorRepository doctorRepository;
     private final DoctorMapper doctorMapper;
+    private final SyncTombstoneService syncTombstoneService;
+    private final CoverageIndex coverageIndex;
+    private final GeoIndex geoIndex;
+    private final InvalidationBus invalidationBus;
     
-    public DoctorService(DoctorRepository doctorRepository, DoctorMapper doctorMapper) {
+    public DoctorService(DoctorRepository doctorRepository, DoctorMapper doctorMapper,
+                         SyncTombstoneService syncTombstoneService, CoverageIndex coverageIndex,
+                         GeoIndex geoIndex, InvalidationBus invalidationBus) {
         this.doctorRepository = doctorRepository;
         this.doctorMapper = doctorMapper;
+        this.syncTombstoneService = syncTombstoneService;
+        this.coverageIndex = coverageIndex;
+        this.geoIndex = geoIndex;
+        this.invalidationBus = invalidationBus;
     }
 
+    @Transactional
     public DoctorDto createDoctor(DoctorRequest request) {
         // Check if doctor with same name and hospital already exists
         doctorRepository.findByNameAndHospital(request.getName(), request.getHospital())
@@ -26,18 +45,24 @@ public class DoctorService {
                     "' already exists at hospital '" + request.getHospital() + "'"
                 );
             });
+        Coordinates.check(request.getLatitude(), request.getLongitude());
         
         Doctor doctor = doctorMapper.toEntity(request);
         Doctor savedDoctor = doctorRepository.save(doctor);
+        coverageIndex.recordDoctorAdded(savedDoctor.getId());
+        geoIndex.recordDoctor(savedDoctor);
+        invalidationBus.publish(CachedEntity.DOCTOR, savedDoctor.getId());
         return doctorMapper.toDto(savedDoctor);
     }
 
+    @Transactional(readOnly = true)
     public DoctorDto getDoctorById(Long id) {
         Doctor doctor = doctorRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + id));
         return doctorMapper.toDto(doctor);
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> getAllDoctors() {
         List<Doctor> doctors = doctorRepository.findAll();
         return doctors.stream()
@@ -45,6 +70,7 @@ public class DoctorService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> getDoctorsBySpecialty(String specialty) {
         List<Doctor> doctors = doctorRepository.findBySpecialty(specialty);
         return doctors.stream()
@@ -52,6 +78,7 @@ public class DoctorService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> getDoctorsByHospital(String hospital) {
         List<Doctor> doctors = doctorRepository.findByHospital(hospital);
         return doctors.stream()
@@ -59,6 +86,7 @@ public class DoctorService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<DoctorDto> searchDoctorsByName(String name) {
         List<Doctor> doctors = doctorRepository.findByNameContaining(name);
         return doctors.stream()
@@ -66,23 +94,35 @@ public class DoctorService {
             .collect(Collectors.toList());
     }
 
+    @Transactional
     public DoctorDto updateDoctor(Long id, DoctorRequest request) {
         Doctor doctor = doctorRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + id));
+        Coordinates.check(request.getLatitude(), request.getLongitude());
         
         doctor.setName(request.getName());
         doctor.setSpecialty(request.getSpecialty());
         doctor.setHospital(request.getHospital());
         doctor.setPhone(request.getPhone());
+        doctor.setLatitude(request.getLatitude());
+        doctor.setLongitude(request.getLongitude());
         
         Doctor updatedDoctor = doctorRepository.save(doctor);
+        geoIndex.recordDoctor(updatedDoctor);
+        invalidationBus.publish(CachedEntity.DOCTOR, id);
         return doctorMapper.toDto(updatedDoctor);
     }
 
+    // The doctor's visits, samples and orders go with it by cascade; sync clients drop them with the doctor
+    @Transactional
     public void deleteDoctor(Long id) {
         if (!doctorRepository.existsById(id)) {
             throw new ResourceNotFoundException("Doctor not found with id: " + id);
         }
         doctorRepository.deleteById(id);
+        coverageIndex.recordDoctorRemoved(id);
+        geoIndex.recordDoctorRemoved(id);
+        invalidationBus.publish(CachedEntity.DOCTOR, id);
+        syncTombstoneService.recordDeleted(SyncEntityType.DOCTORS, id, null);
     }
 }
@@ -0,0 +1,28 @@
+package com.example.MedTrack.geo;
+
+import com.example.MedTrack.exceptions.BadRequestException;
+
+public final class Coordinates {
+
+    private Coordinates() {
+    }
+
+    // Coordinates are optional, but given together and within range
+    public static void check(Double latitude, Double longitude) {
+        if ((latitude == null) != (longitude == null)) {
+            throw new BadRequestException("Latitude and longitude must be given together");
+        }
+        if (latitude != null) {
+            checkPoint(latitude, longitude);
+        }
+    }
+
+    public static void checkPoint(double latitude, double longitude) {
+        if (latitude < -90 || latitude > 90) {
+            throw new BadRequestException("Latitude must be between -90 and 90");
+        }
+        if (longitude < -180 || longitude > 180) {
+            throw new BadRequestException("Longitude must be between -180 and 180");
+        }
+    }
+}
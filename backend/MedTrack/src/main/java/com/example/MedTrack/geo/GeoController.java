@@ -0,0 +1,66 @@
+package com.example.MedTrack.geo;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/geo")
+@Tag(name = "Geo", description = "API for finding doctors and locations near a point")
+public class GeoController {
+    private final GeoService geoService;
+
+    public GeoController(GeoService geoService) {
+        this.geoService = geoService;
+    }
+
+    @GetMapping("/doctors/nearest")
+    @Operation(summary = "Get nearest doctors", description = "Doctors nearest to a point, nearest first, with their distance in km")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('REP')")
+    public ResponseEntity<List<NearbyDoctorDto>> getNearestDoctors(
+            @Parameter(description = "Latitude in degrees") @RequestParam double latitude,
+            @Parameter(description = "Longitude in degrees") @RequestParam double longitude,
+            @Parameter(description = "Number of doctors to return") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(geoService.getNearestDoctors(latitude, longitude, limit));
+    }
+
+    @GetMapping("/doctors/within")
+    @Operation(summary = "Get doctors within a radius", description = "Doctors within a radius of a point, nearest first, with their distance in km")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('REP')")
+    public ResponseEntity<List<NearbyDoctorDto>> getDoctorsWithin(
+            @Parameter(description = "Latitude in degrees") @RequestParam double latitude,
+            @Parameter(description = "Longitude in degrees") @RequestParam double longitude,
+            @Parameter(description = "Radius in km") @RequestParam double radiusKm,
+            @Parameter(description = "Maximum number of doctors to return") @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(geoService.getDoctorsWithin(latitude, longitude, radiusKm, limit));
+    }
+
+    @GetMapping("/locations/nearest")
+    @Operation(summary = "Get nearest locations", description = "Active locations nearest to a point, nearest first, with their distance in km")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('REP')")
+    public ResponseEntity<List<NearbyLocationDto>> getNearestLocations(
+            @Parameter(description = "Latitude in degrees") @RequestParam double latitude,
+            @Parameter(description = "Longitude in degrees") @RequestParam double longitude,
+            @Parameter(description = "Number of locations to return") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(geoService.getNearestLocations(latitude, longitude, limit));
+    }
+
+    @GetMapping("/locations/within")
+    @Operation(summary = "Get locations within a radius", description = "Active locations within a radius of a point, nearest first, with their distance in km")
+    @PreAuthorize("hasRole('ADMIN') or hasRole('MANAGER') or hasRole('REP')")
+    public ResponseEntity<List<NearbyLocationDto>> getLocationsWithin(
+            @Parameter(description = "Latitude in degrees") @RequestParam double latitude,
+            @Parameter(description = "Longitude in degrees") @RequestParam double longitude,
+            @Parameter(description = "Radius in km") @RequestParam double radiusKm,
+            @Parameter(description = "Maximum number of locations to return") @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(geoService.getLocationsWithin(latitude, longitude, radiusKm, limit));
+    }
+}
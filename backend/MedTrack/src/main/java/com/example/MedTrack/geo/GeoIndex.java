@@ -0,0 +1,200 @@
+package com.example.MedTrack.geo;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.datasource.ReplicaRoutingDataSource;
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationRepository;
+
+/**
+ * Spatial grids of doctors and active locations that have coordinates, and the geofence of
+ * every location that has them, for check-in without a database read. Loaded once the
+ * application is ready and rebuilt nightly; DoctorService and LocationService keep them
+ * current after their transactions commit. Each instance keeps its own grids; writes made
+ * on another instance reach them through the InvalidationBus.
+ */
+@Component
+public class GeoIndex {
+    private static final Logger log = LoggerFactory.getLogger(GeoIndex.class);
+
+    private final DoctorRepository doctorRepository;
+    private final LocationRepository locationRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final double cellDegrees;
+    private final int defaultGeofenceRadiusMeters;
+    private final Object rebuildMonitor = new Object();
+    private volatile SpatialGrid doctors;
+    private volatile SpatialGrid locations;
+    private volatile Map<Long, Geofence> geofences = new ConcurrentHashMap<>();
+    // Changes made while a rebuild is reading, applied again to the rebuilt grids
+    private List<Runnable> replay;
+    private volatile boolean loaded;
+
+    public GeoIndex(DoctorRepository doctorRepository,
+                    LocationRepository locationRepository,
+                    PlatformTransactionManager transactionManager,
+                    @Value("${medtrack.geo.cell-degrees:0.05}") double cellDegrees,
+                    @Value("${medtrack.geofence.default-radius-meters:200}") int defaultGeofenceRadiusMeters) {
+        this.doctorRepository = doctorRepository;
+        this.locationRepository = locationRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.cellDegrees = cellDegrees;
+        this.defaultGeofenceRadiusMeters = defaultGeofenceRadiusMeters;
+        this.doctors = new SpatialGrid(cellDegrees);
+        this.locations = new SpatialGrid(cellDegrees);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public SpatialGrid doctors() {
+        return doctors;
+    }
+
+    public SpatialGrid locations() {
+        return locations;
+    }
+
+    // Empty when the location has no coordinates
+    public Optional<Geofence> geofence(Long locationId) {
+        return Optional.ofNullable(geofences.get(locationId));
+    }
+
+    public Geofence geofenceOf(Location location) {
+        if (location.getLatitude() == null || location.getLongitude() == null) {
+            return null;
+        }
+        return new Geofence(location.getLatitude(), location.getLongitude(),
+            location.getGeofenceRadiusMeters() != null ? location.getGeofenceRadiusMeters() : defaultGeofenceRadiusMeters);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${medtrack.geo.rebuild-cron:0 30 4 * * *}")
+    public void rebuild() {
+        // Only one rebuild at a time; changes keep going to the current grids meanwhile
+        synchronized (rebuildMonitor) {
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            SpatialGrid rebuiltDoctors = new SpatialGrid(cellDegrees);
+            SpatialGrid rebuiltLocations = new SpatialGrid(cellDegrees);
+            Map<Long, Geofence> rebuiltGeofences = new ConcurrentHashMap<>();
+            // From the primary: the invalidation bus only replays changes from when it started
+            ReplicaRoutingDataSource.onPrimary(() -> readOnlyTransaction.executeWithoutResult(status -> {
+                for (Object[] row : doctorRepository.findAllCoordinates()) {
+                    rebuiltDoctors.put((Long) row[0], ((Number) row[1]).doubleValue(), ((Number) row[2]).doubleValue());
+                }
+                for (Object[] row : locationRepository.findAllCoordinates()) {
+                    Long id = (Long) row[0];
+                    double latitude = ((Number) row[1]).doubleValue();
+                    double longitude = ((Number) row[2]).doubleValue();
+                    if (Boolean.TRUE.equals(row[3])) {
+                        rebuiltLocations.put(id, latitude, longitude);
+                    }
+                    rebuiltGeofences.put(id, new Geofence(latitude, longitude,
+                        row[4] != null ? (Integer) row[4] : defaultGeofenceRadiusMeters));
+                }
+            }));
+            synchronized (this) {
+                doctors = rebuiltDoctors;
+                locations = rebuiltLocations;
+                geofences = rebuiltGeofences;
+                replay.forEach(Runnable::run);
+                replay = null;
+            }
+            loaded = true;
+            log.info("Loaded {} doctors and {} locations into the spatial index", rebuiltDoctors.size(), rebuiltLocations.size());
+        }
+    }
+
+    public void recordDoctor(Doctor doctor) {
+        Long id = doctor.getId();
+        Double latitude = doctor.getLatitude();
+        Double longitude = doctor.getLongitude();
+        afterCommit(() -> change(() -> place(doctors, id, latitude, longitude)));
+    }
+
+    public void recordDoctorRemoved(Long doctorId) {
+        afterCommit(() -> change(() -> doctors.remove(doctorId)));
+    }
+
+    // Inactive locations are left out of the grid but keep their geofence
+    public void recordLocations(Collection<Location> changed) {
+        List<Runnable> placements = changed.stream()
+            .map(location -> {
+                Long id = location.getId();
+                boolean active = Boolean.TRUE.equals(location.getIsActive());
+                Double latitude = active ? location.getLatitude() : null;
+                Double longitude = active ? location.getLongitude() : null;
+                Geofence geofence = geofenceOf(location);
+                return (Runnable) () -> {
+                    place(locations, id, latitude, longitude);
+                    if (geofence != null) {
+                        geofences.put(id, geofence);
+                    } else {
+                        geofences.remove(id);
+                    }
+                };
+            })
+            .toList();
+        afterCommit(() -> change(() -> placements.forEach(Runnable::run)));
+    }
+
+    public void recordLocationRemoved(Long locationId) {
+        afterCommit(() -> change(() -> {
+            locations.remove(locationId);
+            geofences.remove(locationId);
+        }));
+    }
+
+    private static void place(SpatialGrid grid, Long id, Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            grid.put(id, latitude, longitude);
+        } else {
+            grid.remove(id);
+        }
+    }
+
+    // Reads the grid fields when it runs, so a replayed change lands in the rebuilt grids
+    private synchronized void change(Runnable change) {
+        change.run();
+        if (replay != null) {
+            replay.add(change);
+        }
+    }
+
+    // Outside a transaction the write has already committed
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.MedTrack.geo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorMapper;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationDto;
+import com.example.MedTrack.locations.LocationRepository;
+
+@Service
+public class GeoService {
+    private final GeoIndex geoIndex;
+    private final DoctorRepository doctorRepository;
+    private final LocationRepository locationRepository;
+    private final DoctorMapper doctorMapper;
+    private final double maxRadiusKm;
+    private final int maxResults;
+
+    public GeoService(GeoIndex geoIndex,
+                      DoctorRepository doctorRepository,
+                      LocationRepository locationRepository,
+                      DoctorMapper doctorMapper,
+                      @Value("${medtrack.geo.max-radius-km:200}") double maxRadiusKm,
+                      @Value("${medtrack.geo.max-results:100}") int maxResults) {
+        this.geoIndex = geoIndex;
+        this.doctorRepository = doctorRepository;
+        this.locationRepository = locationRepository;
+        this.doctorMapper = doctorMapper;
+        this.maxRadiusKm = maxRadiusKm;
+        this.maxResults = maxResults;
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyDoctorDto> getNearestDoctors(double latitude, double longitude, int limit) {
+        checkQuery(latitude, longitude, limit, maxRadiusKm);
+        return toDoctors(geoIndex.doctors().nearest(latitude, longitude, limit, maxRadiusKm));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyDoctorDto> getDoctorsWithin(double latitude, double longitude, double radiusKm, int limit) {
+        checkQuery(latitude, longitude, limit, radiusKm);
+        return toDoctors(geoIndex.doctors().within(latitude, longitude, radiusKm, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyLocationDto> getNearestLocations(double latitude, double longitude, int limit) {
+        checkQuery(latitude, longitude, limit, maxRadiusKm);
+        return toLocations(geoIndex.locations().nearest(latitude, longitude, limit, maxRadiusKm));
+    }
+
+    @Transactional(readOnly = true)
+    public List<NearbyLocationDto> getLocationsWithin(double latitude, double longitude, double radiusKm, int limit) {
+        checkQuery(latitude, longitude, limit, radiusKm);
+        return toLocations(geoIndex.locations().within(latitude, longitude, radiusKm, limit));
+    }
+
+    private void checkQuery(double latitude, double longitude, int limit, double radiusKm) {
+        if (!geoIndex.isLoaded()) {
+            throw new IllegalStateException("Spatial index is still loading, try again shortly");
+        }
+        Coordinates.checkPoint(latitude, longitude);
+        if (limit < 1 || limit > maxResults) {
+            throw new BadRequestException("Limit must be between 1 and " + maxResults);
+        }
+        if (radiusKm <= 0 || radiusKm > maxRadiusKm) {
+            throw new BadRequestException("Radius must be more than 0 and at most " + maxRadiusKm + " km");
+        }
+    }
+
+    private List<NearbyDoctorDto> toDoctors(List<SpatialGrid.Hit> hits) {
+        Map<Long, Doctor> doctors = doctorRepository.findAllById(ids(hits)).stream()
+            .collect(Collectors.toMap(Doctor::getId, Function.identity()));
+        return inHitOrder(hits, doctors, (doctor, distance) -> new NearbyDoctorDto(doctorMapper.toDto(doctor), distance));
+    }
+
+    private List<NearbyLocationDto> toLocations(List<SpatialGrid.Hit> hits) {
+        Map<Long, Location> locations = locationRepository.findAllById(ids(hits)).stream()
+            .collect(Collectors.toMap(Location::getId, Function.identity()));
+        return inHitOrder(hits, locations, (location, distance) -> new NearbyLocationDto(LocationDto.fromEntity(location), distance));
+    }
+
+    private static List<Long> ids(List<SpatialGrid.Hit> hits) {
+        return hits.stream().map(SpatialGrid.Hit::id).collect(Collectors.toList());
+    }
+
+    // Nearest first; a row deleted since the index saw it is skipped
+    private static <E, D> List<D> inHitOrder(List<SpatialGrid.Hit> hits, Map<Long, E> entities, BiFunction<E, Double, D> toDto) {
+        return hits.stream()
+            .filter(hit -> entities.containsKey(hit.id()))
+            .map(hit -> toDto.apply(entities.get(hit.id()), Math.round(hit.distanceKm() * 1000) / 1000.0))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.MedTrack.geo;
+
+// A location's check-in circle, with the default radius already applied
+public record Geofence(double latitude, double longitude, int radiusMeters) {
+
+    public double distanceMeters(double fromLatitude, double fromLongitude) {
+        return SpatialGrid.distanceKm(fromLatitude, fromLongitude, latitude, longitude) * 1000;
+    }
+}
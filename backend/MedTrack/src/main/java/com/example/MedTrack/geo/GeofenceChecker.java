@@ -0,0 +1,53 @@
+package com.example.MedTrack.geo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.locations.Location;
+
+/**
+ * Checks a rep's device position against a location's geofence before a visit starts. The
+ * geofence comes from GeoIndex, so the check reads no rows; a location without coordinates
+ * has no geofence and is not checked.
+ */
+@Component
+public class GeofenceChecker {
+    private final GeoIndex geoIndex;
+    private final boolean enabled;
+    private final double maxAccuracyMeters;
+
+    public GeofenceChecker(GeoIndex geoIndex,
+                           @Value("${medtrack.geofence.enabled:true}") boolean enabled,
+                           @Value("${medtrack.geofence.max-accuracy-meters:100}") double maxAccuracyMeters) {
+        this.geoIndex = geoIndex;
+        this.enabled = enabled;
+        this.maxAccuracyMeters = maxAccuracyMeters;
+    }
+
+    public void checkInside(Location location, Double latitude, Double longitude, Double accuracyMeters) {
+        if (!enabled) {
+            return;
+        }
+        // Until the index has loaded, the geofence is worked out from the location itself
+        Geofence geofence = geoIndex.isLoaded()
+            ? geoIndex.geofence(location.getId()).orElse(null)
+            : geoIndex.geofenceOf(location);
+        if (geofence == null) {
+            return;
+        }
+        if (latitude == null || longitude == null) {
+            throw new BadRequestException("Device coordinates are required to start a visit at this location");
+        }
+        Coordinates.checkPoint(latitude, longitude);
+
+        // A reported GPS error widens the fence, up to a limit so a vague fix can't check in from anywhere
+        double slack = accuracyMeters != null ? Math.min(Math.max(accuracyMeters, 0), maxAccuracyMeters) : 0;
+        double distance = geofence.distanceMeters(latitude, longitude);
+        if (distance > geofence.radiusMeters() + slack) {
+            throw new BadRequestException(String.format(
+                "You are %.0f m from the location; visits can only be started within %d m of it",
+                distance, geofence.radiusMeters()));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.MedTrack.geo;
+
+import com.example.MedTrack.doctors.DoctorDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyDoctorDto {
+    private DoctorDto doctor;
+    private Double distanceKm;
+}
@@ -0,0 +1,15 @@
+package com.example.MedTrack.geo;
+
+import com.example.MedTrack.locations.LocationDto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyLocationDto {
+    private LocationDto location;
+    private Double distanceKm;
+}
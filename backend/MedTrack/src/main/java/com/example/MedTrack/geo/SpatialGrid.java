@@ -0,0 +1,177 @@
+package com.example.MedTrack.geo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Points bucketed into a grid of fixed-size latitude/longitude cells. A radius lookup only
+ * reads the cells that overlap the circle's bounding box, and a nearest lookup widens the
+ * radius until it has enough points, so neither looks at points far from the query.
+ */
+public class SpatialGrid {
+    static final double EARTH_RADIUS_KM = 6371.0088;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180;
+
+    public record Hit(long id, double distanceKm) {
+    }
+
+    private record Point(long id, double latitude, double longitude) {
+    }
+
+    private final double cellDegrees;
+    private final int rows;
+    private final int columns;
+    private final Map<Long, List<Point>> cells = new HashMap<>();
+    private final Map<Long, Point> points = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SpatialGrid(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+        this.rows = (int) Math.ceil(180 / cellDegrees);
+        this.columns = (int) Math.ceil(360 / cellDegrees);
+    }
+
+    // Adds the point, or moves it if the id is already in the grid
+    public void put(long id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            removePoint(id);
+            Point point = new Point(id, latitude, longitude);
+            points.put(id, point);
+            cells.computeIfAbsent(cell(row(latitude), column(longitude)), c -> new ArrayList<>()).add(point);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removePoint(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return points.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Points within the radius, nearest first, at most limit of them
+    public List<Hit> within(double latitude, double longitude, double radiusKm, int limit) {
+        lock.readLock().lock();
+        try {
+            List<Hit> hits = new ArrayList<>();
+            double latitudeSpan = radiusKm / KM_PER_DEGREE;
+            int fromRow = row(Math.max(-90, latitude - latitudeSpan));
+            int toRow = row(Math.min(90, latitude + latitudeSpan));
+            // A degree of longitude shrinks towards the poles, so the box widens with the farthest latitude
+            double farthestLatitude = Math.min(90, Math.abs(latitude) + latitudeSpan);
+            double cos = Math.cos(Math.toRadians(farthestLatitude));
+            int fromColumn = 0;
+            int columnCount = columns;
+            if (cos > 1e-6) {
+                double longitudeSpan = latitudeSpan / cos;
+                int first = (int) Math.floor((longitude - longitudeSpan + 180) / cellDegrees);
+                int last = (int) Math.floor((longitude + longitudeSpan + 180) / cellDegrees);
+                if (last - first + 1 < columns) {
+                    fromColumn = Math.floorMod(first, columns);
+                    columnCount = last - first + 1;
+                }
+            }
+
+            // Wide boxes read the occupied cells rather than every cell in the box
+            if ((long) (toRow - fromRow + 1) * columnCount > cells.size()) {
+                for (Map.Entry<Long, List<Point>> cell : cells.entrySet()) {
+                    int row = (int) (cell.getKey() / columns);
+                    int column = (int) (cell.getKey() % columns);
+                    if (row >= fromRow && row <= toRow && Math.floorMod(column - fromColumn, columns) < columnCount) {
+                        collect(cell.getValue(), latitude, longitude, radiusKm, hits);
+                    }
+                }
+            } else {
+                for (int row = fromRow; row <= toRow; row++) {
+                    for (int i = 0; i < columnCount; i++) {
+                        List<Point> cell = cells.get(cell(row, (fromColumn + i) % columns));
+                        if (cell != null) {
+                            collect(cell, latitude, longitude, radiusKm, hits);
+                        }
+                    }
+                }
+            }
+            hits.sort(Comparator.comparingDouble(Hit::distanceKm));
+            return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The nearest points within maxRadiusKm, nearest first. Starts at one cell's radius and
+     * doubles it until enough points are in range; every point in the last radius was
+     * measured, so the ones returned are the nearest overall.
+     */
+    public List<Hit> nearest(double latitude, double longitude, int limit, double maxRadiusKm) {
+        double radiusKm = Math.min(cellDegrees * KM_PER_DEGREE, maxRadiusKm);
+        while (true) {
+            List<Hit> hits = within(latitude, longitude, radiusKm, limit);
+            if (hits.size() >= limit || radiusKm >= maxRadiusKm) {
+                return hits;
+            }
+            radiusKm = Math.min(radiusKm * 2, maxRadiusKm);
+        }
+    }
+
+    // Great-circle distance by the haversine formula
+    public static double distanceKm(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double latitudeDelta = Math.toRadians(toLatitude - fromLatitude);
+        double longitudeDelta = Math.toRadians(toLongitude - fromLongitude);
+        double a = Math.pow(Math.sin(latitudeDelta / 2), 2)
+            + Math.cos(Math.toRadians(fromLatitude)) * Math.cos(Math.toRadians(toLatitude))
+            * Math.pow(Math.sin(longitudeDelta / 2), 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static void collect(List<Point> cell, double latitude, double longitude, double radiusKm, List<Hit> hits) {
+        for (Point point : cell) {
+            double distance = distanceKm(latitude, longitude, point.latitude(), point.longitude());
+            if (distance <= radiusKm) {
+                hits.add(new Hit(point.id(), distance));
+            }
+        }
+    }
+
+    private void removePoint(long id) {
+        Point point = points.remove(id);
+        if (point == null) {
+            return;
+        }
+        long key = cell(row(point.latitude()), column(point.longitude()));
+        List<Point> cell = cells.get(key);
+        cell.remove(point);
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    private int row(double latitude) {
+        return Math.min(rows - 1, (int) Math.floor((latitude + 90) / cellDegrees));
+    }
+
+    private int column(double longitude) {
+        return Math.floorMod((int) Math.floor((longitude + 180) / cellDegrees), columns);
+    }
+
+    private long cell(int row, int column) {
+        return (long) row * columns + column;
+    }
+}
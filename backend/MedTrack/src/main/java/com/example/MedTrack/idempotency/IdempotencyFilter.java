@@ -0,0 +1,227 @@
+package com.example.MedTrack.idempotency;
+
+import com.example.MedTrack.auth.AuthenticationHelper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Makes POST requests carrying an Idempotency-Key header safe to retry. The first request
+ * with a key runs normally and its response is stored; a retry with the same key and body
+ * gets the stored response back without reaching the controller, a concurrent duplicate
+ * gets 409 and a key reused for a different request gets 422. Keys are scoped per user.
+ * Server errors are not stored, so the client can retry them with the same key.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyFilter.class);
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyStore idempotencyStore;
+
+    public IdempotencyFilter(IdempotencyStore idempotencyStore) {
+        this.idempotencyStore = idempotencyStore;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+            || request.getHeader(HEADER) == null
+            || request.getRequestURI().startsWith("/api/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        Long userId = AuthenticationHelper.authenticatedUserId();
+        if (userId == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = request.getHeader(HEADER).trim();
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpStatus.BAD_REQUEST, HEADER + " must be 1 to " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        byte[] body = request.getInputStream().readAllBytes();
+        String requestHash = hash(request, body);
+        IdempotencyStore.Result result = idempotencyStore.begin(userId, key, requestHash);
+
+        switch (result.outcome()) {
+            case REPLAY -> writeStored(response, result.entry());
+            case IN_PROGRESS -> writeError(response, HttpStatus.CONFLICT,
+                "A request with this " + HEADER + " is still being processed");
+            case MISMATCH -> writeError(response, HttpStatus.UNPROCESSABLE_ENTITY,
+                HEADER + " was already used for a different request");
+            case CLAIMED -> processAndStore(new CachedBodyRequest(request, body), response, filterChain,
+                userId, key, requestHash);
+        }
+    }
+
+    private void processAndStore(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain,
+                                 Long userId, String key, String requestHash) throws ServletException, IOException {
+        ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        try {
+            try {
+                filterChain.doFilter(request, responseWrapper);
+            } catch (ServletException | IOException | RuntimeException e) {
+                release(userId, key);
+                throw e;
+            }
+
+            if (responseWrapper.getStatus() >= 500) {
+                release(userId, key);
+            } else {
+                store(responseWrapper, userId, key, requestHash);
+            }
+        } finally {
+            // The request's work is committed by now, so the client gets its response whatever happened to the key
+            responseWrapper.copyBodyToResponse();
+        }
+    }
+
+    private void store(ContentCachingResponseWrapper responseWrapper, Long userId, String key, String requestHash) {
+        String responseBody = new String(responseWrapper.getContentAsByteArray(), StandardCharsets.UTF_8);
+        try {
+            idempotencyStore.complete(userId, key, requestHash, responseWrapper.getStatus(),
+                responseWrapper.getContentType(), responseBody);
+        } catch (RuntimeException e) {
+            // A retry will run the request again, but that beats refusing it until the key expires
+            log.warn("Could not store the response for {} {}, releasing it", HEADER, key, e);
+            release(userId, key);
+        }
+    }
+
+    // Left CLAIMED if this fails too, until the key expires
+    private void release(Long userId, String key) {
+        try {
+            idempotencyStore.release(userId, key);
+        } catch (RuntimeException e) {
+            log.warn("Could not release {} {}", HEADER, key, e);
+        }
+    }
+
+    private void writeStored(HttpServletResponse response, IdempotencyStore.Entry entry) throws IOException {
+        response.setStatus(entry.responseStatus());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (entry.contentType() != null) {
+            response.setContentType(entry.contentType());
+        }
+        if (entry.body() != null) {
+            byte[] bytes = entry.body().getBytes(StandardCharsets.UTF_8);
+            response.setContentLength(bytes.length);
+            response.getOutputStream().write(bytes);
+        }
+    }
+
+    // Same {"error": ...} shape as GlobalExceptionHandler
+    private void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write("{\"error\":\"" + message + "\"}");
+    }
+
+    private static String hash(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Lets the controller read the body the filter already consumed for hashing
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream input = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return input.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return input.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return input.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding() != null ? getCharacterEncoding() : StandardCharsets.UTF_8.name();
+            return new BufferedReader(new InputStreamReader(getInputStream(), Charset.forName(encoding)));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.MedTrack.idempotency;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+@Entity
+@Table(name = "idempotency_key")
+@IdClass(IdempotencyRecordId.class)
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Id
+    @Column(name = "idempotency_key", length = 100)
+    private String idempotencyKey;
+    
+    // SHA-256 of method, path and body, so a key reused for a different request is rejected
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private IdempotencyStatus status;
+    
+    @Column(name = "response_status")
+    private Integer responseStatus;
+    
+    @Column(name = "response_content_type", length = 100)
+    private String responseContentType;
+    
+    @Column(name = "response_body", columnDefinition = "MEDIUMTEXT")
+    @ToString.Exclude
+    private String responseBody;
+    
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof IdempotencyRecord other && userId != null && idempotencyKey != null
+            && userId.equals(other.getUserId()) && idempotencyKey.equals(other.getIdempotencyKey());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(userId, idempotencyKey);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.MedTrack.idempotency;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, IdempotencyRecordId> {
+    
+    // Claims a key; 0 rows means another request already holds it
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_key"))
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO idempotency_key (user_id, idempotency_key, request_hash, status, created_at, expires_at) " +
+           "VALUES (:userId, :key, :requestHash, 'IN_PROGRESS', :now, :expiresAt)", nativeQuery = true)
+    int tryClaim(@Param("userId") Long userId, @Param("key") String key, @Param("requestHash") String requestHash,
+                 @Param("now") LocalDateTime now, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE IdempotencyRecord r SET r.status = com.example.MedTrack.idempotency.IdempotencyStatus.COMPLETED, " +
+           "r.responseStatus = :responseStatus, r.responseContentType = :contentType, r.responseBody = :body, " +
+           "r.expiresAt = :expiresAt WHERE r.userId = :userId AND r.idempotencyKey = :key")
+    int complete(@Param("userId") Long userId, @Param("key") String key,
+                 @Param("responseStatus") int responseStatus, @Param("contentType") String contentType,
+                 @Param("body") String body, @Param("expiresAt") LocalDateTime expiresAt);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :key")
+    int release(@Param("userId") Long userId, @Param("key") String key);
+    
+    // Drops an expired claim or response for one key, so the key can be claimed again
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.userId = :userId AND r.idempotencyKey = :key AND r.expiresAt < :now")
+    int deleteIfExpired(@Param("userId") Long userId, @Param("key") String key, @Param("now") LocalDateTime now);
+    
+    // Purges in chunks over idx_idempotency_key_expires so one run never locks the whole table
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "idempotency_key"))
+    @Transactional
+    @Query(value = "DELETE FROM idempotency_key WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
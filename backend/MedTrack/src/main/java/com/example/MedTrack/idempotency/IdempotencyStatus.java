@@ -0,0 +1,6 @@
+package com.example.MedTrack.idempotency;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
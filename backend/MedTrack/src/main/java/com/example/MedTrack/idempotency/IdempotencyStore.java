@@ -0,0 +1,165 @@
+package com.example.MedTrack.idempotency;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers idempotency keys and the responses they produced. A bounded LRU map answers
+ * retries that land on this instance without touching the database; the idempotency_key
+ * table is the source of truth across instances and restarts. A key is first claimed as
+ * IN_PROGRESS with a short expiry, so a crashed request frees its key, and completed
+ * responses are kept for the configured TTL.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    public enum Outcome {
+        // The caller owns the key and must complete or release it
+        CLAIMED,
+        // A stored response for the same request is available
+        REPLAY,
+        // The same request is still being processed elsewhere
+        IN_PROGRESS,
+        // The key was used for a different request
+        MISMATCH
+    }
+
+    public record Entry(String requestHash, boolean completed, int responseStatus, String contentType,
+                        String body, LocalDateTime expiresAt) {
+    }
+
+    public record Result(Outcome outcome, Entry entry) {
+    }
+
+    private final IdempotencyRecordRepository repository;
+    private final Duration ttl;
+    private final Duration inProgressTimeout;
+    private final int purgeBatchSize;
+    private final Map<String, Entry> cache;
+
+    public IdempotencyStore(IdempotencyRecordRepository repository,
+                            @Value("${medtrack.idempotency.ttl:PT24H}") Duration ttl,
+                            @Value("${medtrack.idempotency.in-progress-timeout:PT2M}") Duration inProgressTimeout,
+                            @Value("${medtrack.idempotency.cache-size:10000}") int cacheSize,
+                            @Value("${medtrack.idempotency.purge-batch-size:1000}") int purgeBatchSize) {
+        this.repository = repository;
+        this.ttl = ttl;
+        this.inProgressTimeout = inProgressTimeout;
+        this.purgeBatchSize = purgeBatchSize;
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public Result begin(Long userId, String key, String requestHash) {
+        String cacheKey = cacheKey(userId, key);
+        LocalDateTime now = LocalDateTime.now();
+
+        // Hold a local claim first so concurrent retries on this instance never reach the database
+        synchronized (cache) {
+            Entry cached = cache.get(cacheKey);
+            if (cached != null && cached.expiresAt().isAfter(now)) {
+                return decide(cached, requestHash);
+            }
+            cache.put(cacheKey, new Entry(requestHash, false, 0, null, null, now.plus(inProgressTimeout)));
+        }
+
+        Entry stored;
+        try {
+            repository.deleteIfExpired(userId, key, now);
+            if (repository.tryClaim(userId, key, requestHash, now, now.plus(inProgressTimeout)) > 0) {
+                return new Result(Outcome.CLAIMED, null);
+            }
+            // Another instance holds or completed the key
+            stored = repository.findById(new IdempotencyRecordId(userId, key))
+                .map(this::toEntry)
+                .orElse(null);
+        } catch (RuntimeException e) {
+            synchronized (cache) {
+                cache.remove(cacheKey);
+            }
+            throw e;
+        }
+        synchronized (cache) {
+            if (stored != null && stored.completed()) {
+                cache.put(cacheKey, stored);
+            } else {
+                cache.remove(cacheKey);
+            }
+        }
+        if (stored == null) {
+            // Released between our insert and read; let the client retry
+            return new Result(Outcome.IN_PROGRESS, null);
+        }
+        return decide(stored, requestHash);
+    }
+
+    public void complete(Long userId, String key, String requestHash, int responseStatus, String contentType, String body) {
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        repository.complete(userId, key, responseStatus, contentType, body, expiresAt);
+        synchronized (cache) {
+            cache.put(cacheKey(userId, key), new Entry(requestHash, true, responseStatus, contentType, body, expiresAt));
+        }
+    }
+
+    // Frees the key after a failed request, so the client can retry it
+    public void release(Long userId, String key) {
+        synchronized (cache) {
+            cache.remove(cacheKey(userId, key));
+        }
+        repository.release(userId, key);
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.idempotency.purge-interval:PT1H}")
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        synchronized (cache) {
+            Iterator<Entry> entries = cache.values().iterator();
+            while (entries.hasNext()) {
+                if (!entries.next().expiresAt().isAfter(now)) {
+                    entries.remove();
+                }
+            }
+        }
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = repository.deleteExpired(now, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency keys", purged);
+        }
+    }
+
+    private Result decide(Entry entry, String requestHash) {
+        if (!entry.requestHash().equals(requestHash)) {
+            return new Result(Outcome.MISMATCH, entry);
+        }
+        return new Result(entry.completed() ? Outcome.REPLAY : Outcome.IN_PROGRESS, entry);
+    }
+
+    private Entry toEntry(IdempotencyRecord record) {
+        boolean completed = record.getStatus() == IdempotencyStatus.COMPLETED;
+        return new Entry(record.getRequestHash(), completed,
+            completed ? record.getResponseStatus() : 0,
+            record.getResponseContentType(), record.getResponseBody(), record.getExpiresAt());
+    }
+
+    private static String cacheKey(Long userId, String key) {
+        return userId + ":" + key;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.MedTrack.invalidation;
+
+// Entities other instances may hold in a cache, as recorded in cache_change_log
+public enum CachedEntity {
+    DOCTOR,
+    PRODUCT,
+    LOCATION,
+    USER
+}
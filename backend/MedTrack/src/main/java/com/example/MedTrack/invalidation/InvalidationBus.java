@@ -0,0 +1,304 @@
+package com.example.MedTrack.invalidation;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.auth.PrincipalCache;
+import com.example.MedTrack.coverage.CoverageIndex;
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.geo.GeoIndex;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationRepository;
+import com.example.MedTrack.products.Product;
+import com.example.MedTrack.users.User;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Carries changes to doctors, products, locations and users between instances, so each can
+ * drop what it has cached of them: second-level cache entries and query results, principals,
+ * and the doctors and locations in the spatial and coverage indexes. The services publish a
+ * change in the transaction that makes it; it is written to cache_change_log just before the
+ * commit, and every other instance polls the log from the highest id it has applied.
+ *
+ * A poll leaves out rows younger than the commit lag, so a row whose transaction is still
+ * committing can't be passed over by a higher id. An instance therefore applies a change at
+ * most about the poll interval plus the commit lag after it commits. If polling fails for
+ * longer than the allowed silence, the caches are dropped rather than served past that bound;
+ * once polling works again they are dropped once more and the spatial index is rebuilt.
+ */
+@Component
+public class InvalidationBus {
+    private static final Logger log = LoggerFactory.getLogger(InvalidationBus.class);
+
+    // Collection role of User.locations in the second-level cache
+    private static final String USER_LOCATIONS_ROLE = "com.example.MedTrack.users.User.locations";
+
+    private static final String INSERT_SQL =
+        "INSERT INTO cache_change_log (entity_type, entity_id, origin) VALUES (?, ?, ?)";
+
+    private static final String POLL_SQL =
+        "SELECT id, entity_type, entity_id, origin FROM cache_change_log " +
+        "WHERE id > ? AND created_at <= CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND ORDER BY id LIMIT ?";
+
+    private record Change(CachedEntity type, Long id) {
+    }
+
+    private record LogRow(long id, Change change, String origin) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reloadTransaction;
+    private final SessionFactory sessionFactory;
+    private final DoctorRepository doctorRepository;
+    private final LocationRepository locationRepository;
+    private final PrincipalCache principalCache;
+    private final GeoIndex geoIndex;
+    private final CoverageIndex coverageIndex;
+    private final boolean enabled;
+    private final long commitLagMicros;
+    private final long maxSilenceNanos;
+    private final long retentionNanos;
+    private final int batchSize;
+    // Tells this instance's own changes apart; it applied them when it made them
+    private final String origin = UUID.randomUUID().toString();
+    private long highWaterMark;
+    private volatile long lastPollNanos = System.nanoTime();
+    private boolean cachesDropped;
+
+    public InvalidationBus(JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           EntityManagerFactory entityManagerFactory,
+                           DoctorRepository doctorRepository,
+                           LocationRepository locationRepository,
+                           PrincipalCache principalCache,
+                           GeoIndex geoIndex,
+                           CoverageIndex coverageIndex,
+                           MeterRegistry meterRegistry,
+                           @Value("${medtrack.invalidation.enabled:true}") boolean enabled,
+                           @Value("${medtrack.invalidation.commit-lag:PT2S}") Duration commitLag,
+                           @Value("${medtrack.invalidation.max-silence:PT30S}") Duration maxSilence,
+                           @Value("${medtrack.invalidation.retention:PT1H}") Duration retention,
+                           @Value("${medtrack.invalidation.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Read-write, so reloads go to the primary and not to a replica that may lag behind the change
+        this.reloadTransaction = new TransactionTemplate(transactionManager);
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.doctorRepository = doctorRepository;
+        this.locationRepository = locationRepository;
+        this.principalCache = principalCache;
+        this.geoIndex = geoIndex;
+        this.coverageIndex = coverageIndex;
+        this.enabled = enabled;
+        this.commitLagMicros = commitLag.toNanos() / 1000;
+        this.maxSilenceNanos = maxSilence.toNanos();
+        this.retentionNanos = retention.toNanos();
+        this.batchSize = batchSize;
+        Gauge.builder("medtrack.invalidation.silence", this, bus -> (System.nanoTime() - bus.lastPollNanos) / 1e9)
+            .description("Seconds since changes from other instances were last read")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+    }
+
+    // Before the indexes load, so every change they could have missed is applied again
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            highWaterMark = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM cache_change_log WHERE created_at <= CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND",
+                Long.class, commitLagMicros);
+        }
+    }
+
+    /**
+     * Tells the other instances the entity changed, once the current transaction commits.
+     * Nothing is sent if it rolls back.
+     */
+    public void publish(CachedEntity type, Long id) {
+        if (!enabled) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(List.of(new Change(type, id)));
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Set<Change> pending = (Set<Change>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            Set<Change> changes = new LinkedHashSet<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                // Written last, so the row's time is as close as it can be to the commit
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    insert(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(InvalidationBus.this);
+                }
+            });
+            pending = changes;
+        }
+        pending.add(new Change(type, id));
+    }
+
+    public void publish(CachedEntity type, Collection<Long> ids) {
+        ids.forEach(id -> publish(type, id));
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.invalidation.poll-interval:PT1S}")
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        long started = System.nanoTime();
+        long silence = started - lastPollNanos;
+        List<Change> changes = new ArrayList<>();
+        try {
+            List<LogRow> rows;
+            long after = highWaterMark;
+            do {
+                rows = jdbcTemplate.query(POLL_SQL, (rs, rowNum) -> new LogRow(rs.getLong("id"),
+                    new Change(CachedEntity.valueOf(rs.getString("entity_type")), rs.getLong("entity_id")),
+                    rs.getString("origin")), after, commitLagMicros, batchSize);
+                rows.stream().filter(row -> !origin.equals(row.origin())).forEach(row -> changes.add(row.change()));
+                if (!rows.isEmpty()) {
+                    after = rows.get(rows.size() - 1).id();
+                }
+            } while (rows.size() == batchSize);
+
+            // After a long silence the rows to catch up on may already be purged
+            if (cachesDropped || silence > retentionNanos) {
+                dropCaches();
+                geoIndex.rebuild();
+                cachesDropped = false;
+                log.info("Change log readable again after {} s, caches dropped and spatial index rebuilt", silence / 1_000_000_000);
+            } else if (!changes.isEmpty()) {
+                apply(changes);
+            }
+            highWaterMark = after;
+            lastPollNanos = started;
+        } catch (RuntimeException e) {
+            if (silence > maxSilenceNanos) {
+                dropCaches();
+                if (!cachesDropped) {
+                    log.error("Change log unreadable for {} s, dropping caches until it is back", silence / 1_000_000_000, e);
+                }
+                cachesDropped = true;
+            } else {
+                log.warn("Reading the change log failed, retrying", e);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.invalidation.purge-interval:PT10M}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        long retentionMicros = retentionNanos / 1000;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(
+                "DELETE FROM cache_change_log WHERE created_at < CURRENT_TIMESTAMP(3) - INTERVAL ? MICROSECOND LIMIT ?",
+                retentionMicros, batchSize);
+        } while (deleted == batchSize);
+    }
+
+    private void insert(Collection<Change> changes) {
+        List<Object[]> rows = changes.stream()
+            .map(change -> new Object[] { change.type().name(), change.id(), origin })
+            .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private void apply(List<Change> changes) {
+        Map<CachedEntity, Set<Long>> ids = new EnumMap<>(CachedEntity.class);
+        for (Change change : changes) {
+            ids.computeIfAbsent(change.type(), type -> new LinkedHashSet<>()).add(change.id());
+        }
+        Set<Long> doctorIds = ids.getOrDefault(CachedEntity.DOCTOR, Set.of());
+        Set<Long> locationIds = ids.getOrDefault(CachedEntity.LOCATION, Set.of());
+
+        // Query results here never saw the other instance's writes to their tables
+        Cache cache = sessionFactory.getCache();
+        cache.evictQueryRegions();
+        doctorIds.forEach(id -> cache.evictEntityData(Doctor.class, id));
+        ids.getOrDefault(CachedEntity.PRODUCT, Set.of()).forEach(id -> cache.evictEntityData(Product.class, id));
+        locationIds.forEach(id -> cache.evictEntityData(Location.class, id));
+        for (Long userId : ids.getOrDefault(CachedEntity.USER, Set.of())) {
+            cache.evictEntityData(User.class, userId);
+            cache.evictCollectionData(USER_LOCATIONS_ROLE, userId);
+            principalCache.invalidate(userId);
+        }
+        if (doctorIds.isEmpty() && locationIds.isEmpty()) {
+            return;
+        }
+
+        // Reloaded to update the indexes, which also puts the current rows back in the cache
+        reloadTransaction.executeWithoutResult(status -> {
+            List<Doctor> doctors = doctorRepository.findAllById(doctorIds);
+            for (Doctor doctor : doctors) {
+                geoIndex.recordDoctor(doctor);
+                coverageIndex.recordDoctorAdded(doctor.getId());
+            }
+            for (Long removed : missing(doctorIds, doctors.stream().map(Doctor::getId).collect(Collectors.toSet()))) {
+                geoIndex.recordDoctorRemoved(removed);
+                coverageIndex.recordDoctorRemoved(removed);
+            }
+
+            List<Location> locations = locationRepository.findAllById(locationIds);
+            geoIndex.recordLocations(locations);
+            Set<Long> removedLocations = missing(locationIds, locations.stream().map(Location::getId).collect(Collectors.toSet()));
+            if (!removedLocations.isEmpty()) {
+                removedLocations.forEach(geoIndex::recordLocationRemoved);
+                // The delete cascaded to user_locations, as LocationService handles on its own instance
+                cache.evictCollectionData(USER_LOCATIONS_ROLE);
+                principalCache.invalidateAll();
+            }
+        });
+    }
+
+    // Everything a missed change could have left stale
+    private void dropCaches() {
+        Cache cache = sessionFactory.getCache();
+        cache.evictQueryRegions();
+        cache.evictEntityData(Doctor.class);
+        cache.evictEntityData(Product.class);
+        cache.evictEntityData(Location.class);
+        cache.evictEntityData(User.class);
+        cache.evictCollectionData(USER_LOCATIONS_ROLE);
+        principalCache.invalidateAll();
+    }
+
+    private static Set<Long> missing(Set<Long> ids, Set<Long> found) {
+        return ids.stream().filter(id -> !found.contains(id)).collect(Collectors.toSet());
+    }
+}
@@ -3,21 +3,32 @@ package com.example.MedTrack.locations;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "locations")
-@Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "location")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Location {
     
+    // Ids are reserved 50 at a time from id_generator, so a new entity has its id before its
+    // INSERT runs and Hibernate can batch the inserts, which it can't with IDENTITY
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "locations_id")
+    @TableGenerator(name = "locations_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "locations", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Location name is required")
@@ -37,6 +48,16 @@ public class Location {
     @Column(name = "address", columnDefinition = "TEXT")
     private String address;
     
+    @Column(name = "latitude")
+    private Double latitude;
+    
+    @Column(name = "longitude")
+    private Double longitude;
+    
+    // Null uses the default geofence radius
+    @Column(name = "geofence_radius_meters")
+    private Integer geofenceRadiusMeters;
+    
     @Column(name = "is_active", nullable = false)
     private Boolean isActive = true;
     
@@ -47,9 +68,27 @@ public class Location {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+    
+    // Entities are equal by id and never by field, so comparing one with a lazy proxy doesn't
+    // load it. The hash can't be the id: a location added to a set before it is saved would be
+    // lost once the id is assigned. One hash per class keeps lookups in the small per-user
+    // location sets to id comparisons.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Location other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Location.class.hashCode();
+    }
 }
-
@@ -16,6 +16,9 @@ public class LocationDto {
     private String state;
     private String country;
     private String address;
+    private Double latitude;
+    private Double longitude;
+    private Integer geofenceRadiusMeters;
     private Boolean isActive;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -28,6 +31,9 @@ public class LocationDto {
         dto.setState(location.getState());
         dto.setCountry(location.getCountry());
         dto.setAddress(location.getAddress());
+        dto.setLatitude(location.getLatitude());
+        dto.setLongitude(location.getLongitude());
+        dto.setGeofenceRadiusMeters(location.getGeofenceRadiusMeters());
         dto.setIsActive(location.getIsActive());
         dto.setCreatedAt(location.getCreatedAt());
         dto.setUpdatedAt(location.getUpdatedAt());
@@ -1,19 +1,33 @@
 package com.example.MedTrack.locations;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface LocationRepository extends JpaRepository<Location, Long> {
     
-    // Find all active locations
+    // Find all active locations; served from the query cache until a location changes
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.active-locations")
+    })
     List<Location> findByIsActiveTrue();
     
+    // Spatial index and geofences: id, latitude, longitude, active flag and geofence radius of every location with coordinates
+    @Query("SELECT l.id, l.latitude, l.longitude, l.isActive, l.geofenceRadiusMeters FROM Location l " +
+           "WHERE l.latitude IS NOT NULL AND l.longitude IS NOT NULL")
+    List<Object[]> findAllCoordinates();
+    
     // Find by city
     List<Location> findByCityIgnoreCase(String city);
     
@@ -34,5 +48,14 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
            "(LOWER(l.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(l.city) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     List<Location> searchActiveLocations(@Param("searchTerm") String searchTerm);
+    
+    // Sync: keyset page over idx_locations_updated of rows changed after the (updatedAt, id) cursor
+    @Query("SELECT l FROM Location l WHERE l.updatedAt <= :upTo AND (l.updatedAt > :afterTime OR (l.updatedAt = :afterTime AND l.id > :afterId)) " +
+           "ORDER BY l.updatedAt, l.id")
+    List<Location> findChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
 }
-
@@ -1,6 +1,7 @@
 package com.example.MedTrack.locations;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Positive;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -21,5 +22,12 @@ public class LocationRequest {
     private String country = "India";
     
     private String address;
+    
+    private Double latitude;
+    
+    private Double longitude;
+    
+    @Positive(message = "Geofence radius must be positive")
+    private Integer geofenceRadiusMeters;
 }
 
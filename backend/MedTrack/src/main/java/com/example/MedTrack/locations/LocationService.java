@@ -1,6 +1,15 @@
 package com.example.MedTrack.locations;
 
+import com.example.MedTrack.auth.PrincipalCache;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.geo.Coordinates;
+import com.example.MedTrack.geo.GeoIndex;
+import com.example.MedTrack.invalidation.CachedEntity;
+import com.example.MedTrack.invalidation.InvalidationBus;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -12,23 +21,44 @@ import java.util.stream.Collectors;
 @Transactional
 public class LocationService {
     
+    // Collection role of User.locations in the second-level cache
+    private static final String USER_LOCATIONS_ROLE = "com.example.MedTrack.users.User.locations";
+    
     private final LocationRepository locationRepository;
+    private final SyncTombstoneService syncTombstoneService;
+    private final EntityManagerFactory entityManagerFactory;
+    private final GeoIndex geoIndex;
+    private final PrincipalCache principalCache;
+    private final InvalidationBus invalidationBus;
     
-    public LocationService(LocationRepository locationRepository) {
+    public LocationService(LocationRepository locationRepository, SyncTombstoneService syncTombstoneService,
+                           EntityManagerFactory entityManagerFactory, GeoIndex geoIndex,
+                           PrincipalCache principalCache, InvalidationBus invalidationBus) {
         this.locationRepository = locationRepository;
+        this.syncTombstoneService = syncTombstoneService;
+        this.entityManagerFactory = entityManagerFactory;
+        this.geoIndex = geoIndex;
+        this.principalCache = principalCache;
+        this.invalidationBus = invalidationBus;
     }
     
     // Create a new location
     public LocationDto createLocation(LocationRequest request) {
+        Coordinates.check(request.getLatitude(), request.getLongitude());
         Location location = new Location();
         location.setName(request.getName());
         location.setCity(request.getCity());
         location.setState(request.getState());
         location.setCountry(request.getCountry() != null ? request.getCountry() : "India");
         location.setAddress(request.getAddress());
+        location.setLatitude(request.getLatitude());
+        location.setLongitude(request.getLongitude());
+        location.setGeofenceRadiusMeters(request.getGeofenceRadiusMeters());
         location.setIsActive(true);
         
         Location savedLocation = locationRepository.save(location);
+        geoIndex.recordLocations(List.of(savedLocation));
+        invalidationBus.publish(CachedEntity.LOCATION, savedLocation.getId());
         return LocationDto.fromEntity(savedLocation);
     }
     
@@ -36,18 +66,24 @@ public class LocationService {
     public List<LocationDto> createBulkLocations(List<LocationRequest> locationRequests) {
         List<Location> locations = locationRequests.stream()
             .map(request -> {
+                Coordinates.check(request.getLatitude(), request.getLongitude());
                 Location location = new Location();
                 location.setName(request.getName());
                 location.setCity(request.getCity());
                 location.setState(request.getState());
                 location.setCountry(request.getCountry() != null ? request.getCountry() : "India");
                 location.setAddress(request.getAddress());
+                location.setLatitude(request.getLatitude());
+                location.setLongitude(request.getLongitude());
+                location.setGeofenceRadiusMeters(request.getGeofenceRadiusMeters());
                 location.setIsActive(true);
                 return location;
             })
             .collect(Collectors.toList());
         
         List<Location> savedLocations = locationRepository.saveAll(locations);
+        geoIndex.recordLocations(savedLocations);
+        invalidationBus.publish(CachedEntity.LOCATION, savedLocations.stream().map(Location::getId).collect(Collectors.toList()));
         return savedLocations.stream()
             .map(LocationDto::fromEntity)
             .collect(Collectors.toList());
@@ -105,15 +141,21 @@ public class LocationService {
     public LocationDto updateLocation(Long id, LocationRequest request) {
         Location location = locationRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Location not found with id: " + id));
+        Coordinates.check(request.getLatitude(), request.getLongitude());
         
         location.setName(request.getName());
         location.setCity(request.getCity());
         location.setState(request.getState());
         location.setCountry(request.getCountry());
         location.setAddress(request.getAddress());
+        location.setLatitude(request.getLatitude());
+        location.setLongitude(request.getLongitude());
+        location.setGeofenceRadiusMeters(request.getGeofenceRadiusMeters());
         location.setUpdatedAt(LocalDateTime.now());
         
         Location updatedLocation = locationRepository.save(location);
+        geoIndex.recordLocations(List.of(updatedLocation));
+        invalidationBus.publish(CachedEntity.LOCATION, id);
         return LocationDto.fromEntity(updatedLocation);
     }
     
@@ -126,6 +168,8 @@ public class LocationService {
         location.setUpdatedAt(LocalDateTime.now());
         
         Location updatedLocation = locationRepository.save(location);
+        geoIndex.recordLocations(List.of(updatedLocation));
+        invalidationBus.publish(CachedEntity.LOCATION, id);
         return LocationDto.fromEntity(updatedLocation);
     }
     
@@ -138,6 +182,8 @@ public class LocationService {
         location.setUpdatedAt(LocalDateTime.now());
         
         Location updatedLocation = locationRepository.save(location);
+        geoIndex.recordLocations(List.of(updatedLocation));
+        invalidationBus.publish(CachedEntity.LOCATION, id);
         return LocationDto.fromEntity(updatedLocation);
     }
     
@@ -147,6 +193,13 @@ public class LocationService {
             throw new ResourceNotFoundException("Location not found with id: " + id);
         }
         locationRepository.deleteById(id);
+        geoIndex.recordLocationRemoved(id);
+        invalidationBus.publish(CachedEntity.LOCATION, id);
+        syncTombstoneService.recordDeleted(SyncEntityType.LOCATIONS, id, null);
+        // The database cascades the delete to user_locations behind Hibernate's back,
+        // so cached user location sets may still point at this location
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictCollectionData(USER_LOCATIONS_ROLE);
+        principalCache.invalidateAll();
     }
     
     // Get location entity by ID (for internal use)
@@ -6,8 +6,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
@@ -18,13 +20,17 @@ import java.util.List;
 
 @Entity
 @Table(name = "orders")
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id")
+    @TableGenerator(name = "orders_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "orders", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Order number is required")
@@ -34,6 +40,7 @@ public class Order {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     @NotNull(message = "Doctor is required")
+    @ToString.Exclude
     private Doctor doctor;
     
     @NotNull(message = "Order date is required")
@@ -58,9 +65,11 @@ public class Order {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "visit_id")
+    @ToString.Exclude
     private Visit visit;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @ToString.Exclude
     private List<OrderItem> orderItems = new ArrayList<>();
     
     @CreationTimestamp
@@ -70,6 +79,8 @@ public class Order {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
@@ -93,5 +104,17 @@ public class Order {
         orderItems.remove(orderItem);
         orderItem.setOrder(null);
     }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Order other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Order.class.hashCode();
+    }
 }
-
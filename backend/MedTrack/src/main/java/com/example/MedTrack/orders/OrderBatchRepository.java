@@ -0,0 +1,13 @@
+package com.example.MedTrack.orders;
+
+import java.util.List;
+
+public interface OrderBatchRepository {
+    
+    /**
+     * Inserts new orders and their items in two JDBC batches and sets the orders' generated
+     * ids. Orders need their number, doctor and totals set and items their subtotals.
+     * Bypasses the persistence context, so the orders stay detached.
+     */
+    void insertOrders(List<Order> orders);
+}
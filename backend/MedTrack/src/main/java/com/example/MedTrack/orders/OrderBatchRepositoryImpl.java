@@ -0,0 +1,86 @@
+package com.example.MedTrack.orders;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MedTrack.datasource.IdAllocator;
+
+// Picked up by Spring Data as the implementation of OrderRepository's OrderBatchRepository fragment
+public class OrderBatchRepositoryImpl implements OrderBatchRepository {
+    
+    private static final String INSERT_ORDER_SQL =
+        "INSERT INTO orders (id, order_number, doctor_id, visit_id, order_date, status, payment_status, total_amount, notes) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_ITEM_SQL =
+        "INSERT INTO order_item (id, order_id, product_id, quantity, unit_price, subtotal, discount_percent) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    
+    public OrderBatchRepositoryImpl(JdbcTemplate jdbcTemplate, IdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+    
+    @Override
+    public void insertOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        // Ids are reserved up front, so the rows go out as one rewritten multi-row insert
+        long nextId = idAllocator.allocate("orders", orders.size());
+        for (Order order : orders) {
+            order.setId(nextId++);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_ORDER_SQL)) {
+                for (Order order : orders) {
+                    statement.setLong(1, order.getId());
+                    statement.setString(2, order.getOrderNumber());
+                    statement.setLong(3, order.getDoctor().getId());
+                    statement.setObject(4, order.getVisit() != null ? order.getVisit().getId() : null, Types.BIGINT);
+                    statement.setDate(5, Date.valueOf(order.getOrderDate()));
+                    statement.setString(6, order.getStatus().name());
+                    statement.setString(7, order.getPaymentStatus().name());
+                    statement.setBigDecimal(8, order.getTotalAmount());
+                    statement.setString(9, order.getNotes());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+        
+        int itemCount = orders.stream().mapToInt(order -> order.getOrderItems().size()).sum();
+        if (itemCount == 0) {
+            return;
+        }
+        long itemId = idAllocator.allocate("order_item", itemCount);
+        List<Object[]> itemRows = new ArrayList<>(itemCount);
+        for (Order order : orders) {
+            for (OrderItem item : order.getOrderItems()) {
+                item.setId(itemId++);
+                itemRows.add(new Object[] {
+                    item.getId(),
+                    order.getId(),
+                    item.getProduct().getId(),
+                    item.getQuantity(),
+                    item.getUnitPrice(),
+                    item.getSubtotal(),
+                    item.getDiscountPercent() != null ? item.getDiscountPercent() : BigDecimal.ZERO
+                });
+            }
+        }
+        int[] types = { Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.INTEGER, Types.DECIMAL, Types.DECIMAL, Types.DECIMAL };
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, itemRows, types);
+    }
+}
@@ -5,8 +5,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
@@ -15,23 +17,29 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "order_item")
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class OrderItem {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id")
+    @TableGenerator(name = "order_item_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "order_item", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "order_id", nullable = false)
     @NotNull(message = "Order is required")
+    @ToString.Exclude
     private Order order;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     @NotNull(message = "Product is required")
+    @ToString.Exclude
     private Product product;
     
     @NotNull(message = "Quantity is required")
@@ -74,5 +82,17 @@ public class OrderItem {
         }
         calculateSubtotal();
     }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof OrderItem other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return OrderItem.class.hashCode();
+    }
 }
-
@@ -3,6 +3,7 @@ package com.example.MedTrack.orders;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.util.Collection;
 import java.util.List;
 
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
@@ -13,6 +14,11 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
            "WHERE oi.order.id = :orderId")
     List<OrderItem> findByOrderId(@Param("orderId") Long orderId);
     
+    // Find archived order items for archived orders
+    @Query(value = "SELECT i.* FROM order_item_archive i JOIN product p ON p.id = i.product_id " +
+           "WHERE i.order_id IN :orderIds", nativeQuery = true)
+    List<OrderItem> findArchivedByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+    
     // Find order items by product ID
     @Query("SELECT oi FROM OrderItem oi " +
            "LEFT JOIN FETCH oi.order o " +
@@ -14,5 +14,15 @@ public interface OrderMapper {
     @Mapping(source = "visit.visitDate", target = "visitDate")
     @Mapping(source = "orderItems", target = "orderItems")
     OrderDto toDto(Order order);
+    
+    // For archived orders, whose items live in order_item_archive rather than the orderItems collection
+    @Mapping(source = "doctor.id", target = "doctorId")
+    @Mapping(source = "doctor.name", target = "doctorName")
+    @Mapping(source = "doctor.specialty", target = "doctorSpecialty")
+    @Mapping(source = "doctor.hospital", target = "doctorHospital")
+    @Mapping(source = "visit.id", target = "visitId")
+    @Mapping(source = "visit.visitDate", target = "visitDate")
+    @Mapping(target = "orderItems", ignore = true)
+    OrderDto toDtoWithoutItems(Order order);
 }
 
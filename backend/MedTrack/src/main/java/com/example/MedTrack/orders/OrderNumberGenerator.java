@@ -0,0 +1,41 @@
+package com.example.MedTrack.orders;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.example.MedTrack.datasource.IdAllocator;
+
+/**
+ * Issues order numbers, today's date followed by a sequence reserved from id_generator. The
+ * sequence never repeats, whichever instance takes it and however many orders have since
+ * been archived; numbers of rolled back orders are skipped.
+ */
+@Component
+public class OrderNumberGenerator {
+    private static final String SEQUENCE = "order_number";
+    private static final DateTimeFormatter DATE_PART = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final IdAllocator idAllocator;
+
+    public OrderNumberGenerator(IdAllocator idAllocator) {
+        this.idAllocator = idAllocator;
+    }
+
+    public String next() {
+        return next(1).get(0);
+    }
+
+    public List<String> next(int count) {
+        long sequence = idAllocator.allocate(SEQUENCE, count);
+        String datePart = LocalDate.now().format(DATE_PART);
+        List<String> numbers = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(String.format("ORD-%s-%05d", datePart, sequence + i));
+        }
+        return numbers;
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.MedTrack.orders;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderBatchRepository {
+    
+    // Archived orders as Order entities, with joins mirroring the hot table's foreign keys. The visit
+    // may be hot or archived; an archived visit whose user or doctor is gone reads as none
+    String ARCHIVED_ORDER_SELECT = "SELECT a.id, a.order_number, a.doctor_id, a.order_date, a.status, a.total_amount, " +
+        "a.payment_status, a.notes, COALESCE(v.id, va.id) AS visit_id, a.created_at, a.updated_at FROM orders_archive a " +
+        "JOIN doctor d ON d.id = a.doctor_id LEFT JOIN visit v ON v.id = a.visit_id " +
+        "LEFT JOIN (visit_archive va JOIN users vu ON vu.id = va.user_id JOIN doctor vd ON vd.id = va.doctor_id) ON va.id = a.visit_id ";
     
     // Find order by ID with all associations eagerly loaded
     @Query("SELECT o FROM Order o " +
@@ -84,6 +94,21 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         @Param("endDate") LocalDate endDate
     );
     
+    // Archive counterparts of the date-range finders, pruned to the partitions of the range.
+    // Items are loaded separately through OrderItemRepository.findArchivedByOrderIdIn
+    @Query(value = ARCHIVED_ORDER_SELECT + "WHERE a.order_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Order> findArchivedByOrderDateBetween(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_ORDER_SELECT + "WHERE a.doctor_id = :doctorId AND a.order_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Order> findArchivedByDoctorIdAndOrderDateBetween(
+        @Param("doctorId") Long doctorId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
     // Find by order number
     @Query("SELECT o FROM Order o " +
            "LEFT JOIN FETCH o.doctor " +
@@ -108,6 +133,14 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         @Param("endDate") LocalDate endDate
     );
     
+    // Get archived revenue by date range
+    @Query(value = "SELECT COALESCE(SUM(a.total_amount), 0) FROM orders_archive a JOIN doctor d ON d.id = a.doctor_id " +
+           "WHERE a.order_date BETWEEN :startDate AND :endDate AND a.status <> 'CANCELLED'", nativeQuery = true)
+    BigDecimal getArchivedRevenueByDateRange(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
     // Count orders by status
     @Query("SELECT COUNT(o) FROM Order o WHERE o.status = :status")
     Long countByStatus(@Param("status") OrderStatus status);
@@ -128,5 +161,35 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
            "LEFT JOIN FETCH o.orderItems " +
            "ORDER BY o.orderDate DESC, o.createdAt DESC")
     List<Order> findRecentOrders();
+    
+    // Sync: keyset page over idx_orders_updated of order ids changed after the (updatedAt, id) cursor.
+    // Ids only, so the page limit applies to orders rather than to order item rows.
+    @Query("SELECT o.id FROM Order o WHERE o.updatedAt <= :upTo AND (o.updatedAt > :afterTime OR (o.updatedAt = :afterTime AND o.id > :afterId)) " +
+           "ORDER BY o.updatedAt, o.id")
+    List<Long> findIdsChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Sync: same page limited to orders taken on one rep's visits
+    @Query("SELECT o.id FROM Order o WHERE o.visit.user.id = :userId AND o.updatedAt <= :upTo AND (o.updatedAt > :afterTime OR (o.updatedAt = :afterTime AND o.id > :afterId)) " +
+           "ORDER BY o.updatedAt, o.id")
+    List<Long> findIdsChangedSinceForUser(
+        @Param("userId") Long userId,
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Find orders by IDs with all associations eagerly loaded
+    @Query("SELECT DISTINCT o FROM Order o " +
+           "LEFT JOIN FETCH o.doctor " +
+           "LEFT JOIN FETCH o.visit " +
+           "LEFT JOIN FETCH o.orderItems oi " +
+           "LEFT JOIN FETCH oi.product " +
+           "WHERE o.id IN :ids")
+    List<Order> findAllWithAssociationsByIdIn(@Param("ids") Collection<Long> ids);
 }
-
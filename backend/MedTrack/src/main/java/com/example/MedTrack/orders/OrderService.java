@@ -2,18 +2,26 @@ package com.example.MedTrack.orders;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.archive.ArchiveService;
+import com.example.MedTrack.archive.ArchiveTable;
+import com.example.MedTrack.dashboard.RepKpiService;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
 import com.example.MedTrack.exceptions.BadRequestException;
 import com.example.MedTrack.doctors.Doctor;
 import com.example.MedTrack.doctors.DoctorRepository;
 import com.example.MedTrack.products.Product;
 import com.example.MedTrack.products.ProductRepository;
+import com.example.MedTrack.products.StockService;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
 import com.example.MedTrack.visits.Visit;
 import com.example.MedTrack.visits.VisitRepository;
 
@@ -24,17 +32,38 @@ public class OrderService {
     private final DoctorRepository doctorRepository;
     private final ProductRepository productRepository;
     private final VisitRepository visitRepository;
+    private final RepKpiService repKpiService;
+    private final StockService stockService;
+    private final SyncTombstoneService syncTombstoneService;
+    private final ArchiveService archiveService;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderItemMapper orderItemMapper;
+    private final OrderNumberGenerator orderNumberGenerator;
     
     public OrderService(OrderRepository orderRepository, 
                        OrderMapper orderMapper,
                        DoctorRepository doctorRepository, 
                        ProductRepository productRepository,
-                       VisitRepository visitRepository) {
+                       VisitRepository visitRepository,
+                       RepKpiService repKpiService,
+                       StockService stockService,
+                       SyncTombstoneService syncTombstoneService,
+                       ArchiveService archiveService,
+                       OrderItemRepository orderItemRepository,
+                       OrderItemMapper orderItemMapper,
+                       OrderNumberGenerator orderNumberGenerator) {
         this.orderRepository = orderRepository;
         this.orderMapper = orderMapper;
         this.doctorRepository = doctorRepository;
         this.productRepository = productRepository;
         this.visitRepository = visitRepository;
+        this.repKpiService = repKpiService;
+        this.stockService = stockService;
+        this.syncTombstoneService = syncTombstoneService;
+        this.archiveService = archiveService;
+        this.orderItemRepository = orderItemRepository;
+        this.orderItemMapper = orderItemMapper;
+        this.orderNumberGenerator = orderNumberGenerator;
     }
 
     @Transactional
@@ -67,7 +96,7 @@ public class OrderService {
         
         // Create order
         Order order = new Order();
-        order.setOrderNumber(generateOrderNumber());
+        order.setOrderNumber(orderNumberGenerator.next());
         order.setDoctor(doctor);
         order.setOrderDate(request.getOrderDate());
         order.setStatus(request.getStatus());
@@ -95,8 +124,14 @@ public class OrderService {
         // Calculate total amount
         order.calculateTotalAmount();
         
+        // Reserve stock for all items, the whole order fails if any product is short
+        if (order.getStatus() != OrderStatus.CANCELLED) {
+            stockService.reserve(quantitiesByProductId(order));
+        }
+        
         // Save order (cascade will save order items)
         Order savedOrder = orderRepository.save(order);
+        repKpiService.recordOrderAdded(savedOrder);
         
         // Fetch the saved order with associations
         Order orderWithAssociations = orderRepository.findByIdWithAssociations(savedOrder.getId())
@@ -105,12 +140,14 @@ public class OrderService {
         return orderMapper.toDto(orderWithAssociations);
     }
 
+    @Transactional(readOnly = true)
     public OrderDto getOrderById(Long id) {
         Order order = orderRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
         return orderMapper.toDto(order);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getAllOrders() {
         List<Order> orders = orderRepository.findAllWithAssociations();
         return orders.stream()
@@ -118,6 +155,7 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByDoctorId(Long doctorId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -130,6 +168,7 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByVisitId(Long visitId) {
         // Validate visit exists
         if (!visitRepository.existsById(visitId)) {
@@ -142,6 +181,7 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByStatus(OrderStatus status) {
         List<Order> orders = orderRepository.findByStatus(status);
         return orders.stream()
@@ -149,6 +189,7 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByPaymentStatus(PaymentStatus paymentStatus) {
         List<Order> orders = orderRepository.findByPaymentStatus(paymentStatus);
         return orders.stream()
@@ -156,6 +197,7 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByDateRange(LocalDate startDate, LocalDate endDate) {
         // Validate date range
         if (startDate.isAfter(endDate)) {
@@ -163,11 +205,14 @@ public class OrderService {
         }
         
         List<Order> orders = orderRepository.findByOrderDateBetween(startDate, endDate);
-        return orders.stream()
+        List<OrderDto> dtos = orders.stream()
             .map(orderMapper::toDto)
             .collect(Collectors.toList());
+        return archiveService.withArchived(ArchiveTable.ORDERS, startDate, dtos,
+            () -> toArchivedDtos(orderRepository.findArchivedByOrderDateBetween(startDate, endDate)));
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getOrdersByDoctorIdAndDateRange(Long doctorId, LocalDate startDate, LocalDate endDate) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -180,11 +225,14 @@ public class OrderService {
         }
         
         List<Order> orders = orderRepository.findByDoctorIdAndOrderDateBetween(doctorId, startDate, endDate);
-        return orders.stream()
+        List<OrderDto> dtos = orders.stream()
             .map(orderMapper::toDto)
             .collect(Collectors.toList());
+        return archiveService.withArchived(ArchiveTable.ORDERS, startDate, dtos,
+            () -> toArchivedDtos(orderRepository.findArchivedByDoctorIdAndOrderDateBetween(doctorId, startDate, endDate)));
     }
 
+    @Transactional(readOnly = true)
     public OrderDto getOrderByOrderNumber(String orderNumber) {
         Order order = orderRepository.findByOrderNumber(orderNumber)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with number: " + orderNumber));
@@ -195,8 +243,17 @@ public class OrderService {
     public OrderDto updateOrderStatus(Long id, OrderUpdateRequest request) {
         Order order = orderRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+        RepKpiService.Contribution kpisBefore = RepKpiService.contributionOf(order);
         
         if (request.getStatus() != null) {
+            // Cancelling gives the stock back, reopening a cancelled order takes it again
+            boolean wasCancelled = order.getStatus() == OrderStatus.CANCELLED;
+            boolean isCancelled = request.getStatus() == OrderStatus.CANCELLED;
+            if (!wasCancelled && isCancelled) {
+                stockService.release(quantitiesByProductId(order));
+            } else if (wasCancelled && !isCancelled) {
+                stockService.reserve(quantitiesByProductId(order));
+            }
             order.setStatus(request.getStatus());
         }
         
@@ -209,6 +266,7 @@ public class OrderService {
         }
         
         Order updatedOrder = orderRepository.save(order);
+        repKpiService.recordChanged(kpisBefore, RepKpiService.contributionOf(updatedOrder));
         Order orderWithAssociations = orderRepository.findByIdWithAssociations(updatedOrder.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Order not found after update"));
         
@@ -217,16 +275,23 @@ public class OrderService {
 
     @Transactional
     public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Order not found with id: " + id);
+        Order order = orderRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+        repKpiService.recordOrderRemoved(order);
+        if (order.getStatus() != OrderStatus.CANCELLED) {
+            stockService.release(quantitiesByProductId(order));
         }
-        orderRepository.deleteById(id);
+        orderRepository.delete(order);
+        syncTombstoneService.recordDeleted(SyncEntityType.ORDERS, id,
+            order.getVisit() != null ? order.getVisit().getUser().getId() : null);
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalRevenue() {
         return orderRepository.getTotalRevenue();
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalRevenueByDoctorId(Long doctorId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -235,18 +300,25 @@ public class OrderService {
         return orderRepository.getTotalRevenueByDoctorId(doctorId);
     }
 
+    @Transactional(readOnly = true)
     public BigDecimal getTotalRevenueByDateRange(LocalDate startDate, LocalDate endDate) {
         // Validate date range
         if (startDate.isAfter(endDate)) {
             throw new BadRequestException("Start date cannot be after end date");
         }
-        return orderRepository.getTotalRevenueByDateRange(startDate, endDate);
+        BigDecimal revenue = orderRepository.getTotalRevenueByDateRange(startDate, endDate);
+        if (archiveService.reachesArchive(ArchiveTable.ORDERS, startDate)) {
+            revenue = revenue.add(orderRepository.getArchivedRevenueByDateRange(startDate, endDate));
+        }
+        return revenue;
     }
 
+    @Transactional(readOnly = true)
     public Long countOrdersByStatus(OrderStatus status) {
         return orderRepository.countByStatus(status);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDto> getRecentOrders(int limit) {
         List<Order> orders = orderRepository.findRecentOrders();
         return orders.stream()
@@ -255,11 +327,40 @@ public class OrderService {
             .collect(Collectors.toList());
     }
 
-    // Helper method to generate unique order number
-    private String generateOrderNumber() {
-        String datePart = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyyMMdd"));
-        long count = orderRepository.count() + 1;
-        return String.format("ORD-%s-%05d", datePart, count);
+    // Total quantity per product across the order's items
+    private Map<Long, Integer> quantitiesByProductId(Order order) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    // Archived orders carry their items in order_item_archive. Archived visits are loaded up front
+    // so the orders' visit references resolve from the persistence context instead of the hot table
+    private List<OrderDto> toArchivedDtos(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).collect(Collectors.toList());
+        Map<Long, List<OrderItemDto>> itemsByOrderId = orderItemRepository.findArchivedByOrderIdIn(orderIds).stream()
+            .map(orderItemMapper::toDto)
+            .collect(Collectors.groupingBy(OrderItemDto::getOrderId));
+        List<Long> visitIds = orders.stream()
+            .map(Order::getVisit)
+            .filter(Objects::nonNull)
+            .map(Visit::getId)
+            .distinct()
+            .collect(Collectors.toList());
+        if (!visitIds.isEmpty()) {
+            visitRepository.findArchivedByIdIn(visitIds);
+        }
+        return orders.stream()
+            .map(order -> {
+                OrderDto dto = orderMapper.toDtoWithoutItems(order);
+                dto.setOrderItems(itemsByOrderId.getOrDefault(order.getId(), List.of()));
+                return dto;
+            })
+            .collect(Collectors.toList());
     }
 }
-
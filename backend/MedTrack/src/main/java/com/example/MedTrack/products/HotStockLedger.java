@@ -0,0 +1,248 @@
+package com.example.MedTrack.products;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory stock for a few configured hot products. Instead of every order locking the
+ * product row, the ledger leases a block of stock from the database in one conditional
+ * update and hands it out from striped counters with CAS. Leases and returns run in their
+ * own short transactions, so the row lock is held per block rather than per order.
+ *
+ * Orders never wait for a lease. When the stripes run low a single background thread tops
+ * them up, so at most one extra connection is used for leasing however busy the product
+ * is; an order the stripes can't cover meanwhile reserves from the row in its own
+ * transaction, as a product that isn't hot would.
+ *
+ * Leased units are already subtracted from product.stock_quantity, so the column reads
+ * low by at most the unused lease. Surplus from cancellations is flushed back on a
+ * schedule and everything is returned on shutdown; a crash loses at most one lease
+ * per product until the next stock count.
+ */
+@Component
+public class HotStockLedger {
+    private static final Logger log = LoggerFactory.getLogger(HotStockLedger.class);
+
+    // Ints per stripe slot, so neighbouring stripes don't share a cache line
+    private static final int PADDING = 16;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate leaseTransaction;
+    private final ProductStockChanges productStockChanges;
+    private final Set<Long> hotProductIds;
+    private final int stripeCount;
+    private final int leaseSize;
+    private final int refillBelow;
+    private final Map<Long, StripedStock> stocks = new ConcurrentHashMap<>();
+    private final ExecutorService refills = Executors.newSingleThreadExecutor();
+
+    public HotStockLedger(ProductRepository productRepository,
+                          PlatformTransactionManager transactionManager,
+                          ProductStockChanges productStockChanges,
+                          @Value("${medtrack.stock.hot-products:}") Set<Long> hotProductIds,
+                          @Value("${medtrack.stock.hot.stripes:8}") int stripeCount,
+                          @Value("${medtrack.stock.hot.lease-size:50}") int leaseSize,
+                          @Value("${medtrack.stock.hot.refill-below:20}") int refillBelow) {
+        this.productRepository = productRepository;
+        this.hotProductIds = Set.copyOf(hotProductIds);
+        this.stripeCount = stripeCount;
+        this.leaseSize = leaseSize;
+        this.refillBelow = refillBelow;
+        this.leaseTransaction = new TransactionTemplate(transactionManager);
+        this.leaseTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.productStockChanges = productStockChanges;
+    }
+
+    public boolean isHot(Long productId) {
+        return hotProductIds.contains(productId);
+    }
+
+    /**
+     * Takes the quantity from the in-memory stock without touching the database. Returns
+     * false when the stripes can't cover it, in which case the caller reserves from the row.
+     * Either way a background top-up is started once the stripes run low.
+     */
+    public boolean take(Long productId, int quantity) {
+        StripedStock stock = stockOf(productId);
+        boolean taken = stock.tryTakeFast(quantity) || stock.tryTakePooled(quantity);
+        if (stock.sum() < refillBelow) {
+            refill(productId, stock);
+        }
+        return taken;
+    }
+
+    // Returns units to the in-memory stock, e.g. after a cancellation or a rolled back order
+    public void give(Long productId, int quantity) {
+        stockOf(productId).add(quantity);
+    }
+
+    // Units currently held in memory for the product
+    public int available(Long productId) {
+        StripedStock stock = stocks.get(productId);
+        return stock != null ? stock.sum() : 0;
+    }
+
+    /**
+     * Returns surplus beyond two leases to the database, so stock freed by cancellations
+     * becomes visible to the other instances and to stock reports.
+     */
+    @Scheduled(fixedDelayString = "${medtrack.stock.hot.flush-interval:PT30S}")
+    public void flushSurplus() {
+        stocks.forEach((productId, stock) -> {
+            synchronized (stock) {
+                int held = stock.drain();
+                int surplus = Math.max(0, held - 2 * leaseSize);
+                stock.add(held - surplus);
+                returnToDatabase(productId, surplus);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void returnAll() throws InterruptedException {
+        // Let a running lease land in the stripes so it is returned with the rest
+        refills.shutdown();
+        refills.awaitTermination(10, TimeUnit.SECONDS);
+        stocks.forEach((productId, stock) -> {
+            synchronized (stock) {
+                returnToDatabase(productId, stock.drain());
+            }
+        });
+    }
+
+    // Starts a lease on the refill thread unless one is already pending for the product
+    private void refill(Long productId, StripedStock stock) {
+        if (!stock.refilling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refills.execute(() -> {
+                try {
+                    if (lease(productId, leaseSize)) {
+                        stock.add(leaseSize);
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Could not lease {} units of product {}", leaseSize, productId, e);
+                } finally {
+                    stock.refilling.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the stock is being returned anyway
+            stock.refilling.set(false);
+        }
+    }
+
+    private boolean lease(Long productId, int amount) {
+        Boolean leased = leaseTransaction.execute(status -> {
+            if (productRepository.reserveStock(productId, amount) == 0) {
+                return false;
+            }
+            productStockChanges.changed(productId);
+            return true;
+        });
+        return Boolean.TRUE.equals(leased);
+    }
+
+    private void returnToDatabase(Long productId, int amount) {
+        if (amount <= 0) {
+            return;
+        }
+        try {
+            leaseTransaction.executeWithoutResult(status -> {
+                productRepository.releaseStock(productId, amount);
+                productStockChanges.changed(productId);
+            });
+        } catch (RuntimeException e) {
+            // Keep the units in memory rather than losing them, the next flush retries
+            log.warn("Could not return {} units of product {} to the database", amount, productId, e);
+            stockOf(productId).add(amount);
+        }
+    }
+
+    private StripedStock stockOf(Long productId) {
+        return stocks.computeIfAbsent(productId, id -> new StripedStock(stripeCount));
+    }
+
+    private static final class StripedStock {
+        private final AtomicIntegerArray cells;
+        private final int stripes;
+        private final AtomicBoolean refilling = new AtomicBoolean();
+
+        StripedStock(int stripes) {
+            this.stripes = stripes;
+            this.cells = new AtomicIntegerArray(stripes * PADDING);
+        }
+
+        // Tries each stripe once, starting from one picked by the calling thread
+        boolean tryTakeFast(int quantity) {
+            int start = home();
+            for (int i = 0; i < stripes; i++) {
+                int index = ((start + i) % stripes) * PADDING;
+                int current = cells.get(index);
+                while (current >= quantity) {
+                    if (cells.compareAndSet(index, current, current - quantity)) {
+                        return true;
+                    }
+                    current = cells.get(index);
+                }
+            }
+            return false;
+        }
+
+        // Pools what is spread over the stripes; a concurrent take may briefly see them empty
+        boolean tryTakePooled(int quantity) {
+            int pooled = drain();
+            if (pooled >= quantity) {
+                add(pooled - quantity);
+                return true;
+            }
+            add(pooled);
+            return false;
+        }
+
+        void add(int quantity) {
+            if (quantity > 0) {
+                cells.addAndGet(home() * PADDING, quantity);
+            }
+        }
+
+        int drain() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.getAndSet(i * PADDING, 0);
+            }
+            return total;
+        }
+
+        int sum() {
+            int total = 0;
+            for (int i = 0; i < stripes; i++) {
+                total += cells.get(i * PADDING);
+            }
+            return total;
+        }
+
+        private int home() {
+            return (int) (Thread.currentThread().threadId() % stripes);
+        }
+    }
+}
@@ -3,8 +3,12 @@ package com.example.MedTrack.products;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.math.BigDecimal;
@@ -12,13 +16,18 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "product")
-@Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "product")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Product {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "product_id")
+    @TableGenerator(name = "product_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "product", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Name is required")
@@ -37,10 +46,35 @@ public class Product {
     @Column(name = "price", precision = 10, scale = 2)
     private BigDecimal price;
     
-    @Column(name = "stock_quantity")
+    // Null means stock isn't tracked. Only changed through StockService's conditional updates,
+    // so saving a product loaded earlier can't overwrite concurrent reservations
+    @Column(name = "stock_quantity", updatable = false)
     private Integer stockQuantity;
     
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Product other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Product.class.hashCode();
+    }
 }
@@ -8,15 +8,18 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 
 @RestController
 @RequestMapping("/api/products")
 @Tag(name = "Products", description = "API for managing medical products and samples")
 public class ProductController {
     private final ProductService productService;
+    private final StockService stockService;
 
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, StockService stockService) {
         this.productService = productService;
+        this.stockService = stockService;
     }
 
     @PostMapping
@@ -58,6 +61,16 @@ public class ProductController {
         return ResponseEntity.ok(productService.updateProduct(id, productRequest));
     }
 
+    @PostMapping("/{id}/stock")
+    @Operation(summary = "Adjust product stock", description = "Adds stock, or writes it off with a negative quantity; starts tracking stock for products without a stock level (ADMIN only)")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductDto> adjustStock(
+            @Parameter(description = "ID of the product to adjust") @PathVariable Long id,
+            @Valid @RequestBody StockAdjustmentRequest request) {
+        stockService.adjust(id, request.getQuantity());
+        return ResponseEntity.ok(productService.getProductById(id));
+    }
+
     @DeleteMapping("/{id}")
     @Operation(summary = "Delete product", description = "Deletes a product by its ID (ADMIN only)")
     @PreAuthorize("hasRole('ADMIN')")
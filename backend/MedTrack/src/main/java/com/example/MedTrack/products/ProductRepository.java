@@ -1,8 +1,15 @@
 package com.example.MedTrack.products;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -10,5 +17,44 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findByName(String name);
     @Query("SELECT p FROM Product p WHERE p.name LIKE %:name%")
     List<Product> findByNameContaining(@Param("name") String name);
-
+    
+    // Stock updates are native with a query space nothing cached reads, so Hibernate doesn't
+    // evict the whole product region on every order; ProductStockChanges evicts just the product
+    
+    // Takes stock only if enough is left; 0 rows means insufficient, untracked (NULL) or missing
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Transactional
+    @Query(value = "UPDATE product SET stock_quantity = stock_quantity - :quantity " +
+           "WHERE id = :id AND stock_quantity >= :quantity", nativeQuery = true)
+    int reserveStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // Puts stock back; untracked products are left untracked
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Transactional
+    @Query(value = "UPDATE product SET stock_quantity = stock_quantity + :quantity " +
+           "WHERE id = :id AND stock_quantity IS NOT NULL", nativeQuery = true)
+    int releaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // Restocking starts tracking a product that had no stock level
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "product_stock"))
+    @Transactional
+    @Query(value = "UPDATE product SET stock_quantity = COALESCE(stock_quantity, 0) + :quantity WHERE id = :id",
+           nativeQuery = true)
+    int addStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Query("SELECT COUNT(p) > 0 FROM Product p WHERE p.id = :id AND p.stockQuantity IS NULL")
+    boolean isStockUntracked(@Param("id") Long id);
+    
+    // Sync: keyset page over idx_product_updated of rows changed after the (updatedAt, id) cursor
+    @Query("SELECT p FROM Product p WHERE p.updatedAt <= :upTo AND (p.updatedAt > :afterTime OR (p.updatedAt = :afterTime AND p.id > :afterId)) " +
+           "ORDER BY p.updatedAt, p.id")
+    List<Product> findChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
 }
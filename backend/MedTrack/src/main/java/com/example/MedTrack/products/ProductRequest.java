@@ -8,4 +8,5 @@ public class ProductRequest {
     private String category;
     private String manufacturer;
     private String description;
+    private Integer stockQuantity; // Optional initial stock, leave empty to not track stock
 }
@@ -4,36 +4,54 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import com.example.MedTrack.exceptions.BadRequestException;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.invalidation.CachedEntity;
+import com.example.MedTrack.invalidation.InvalidationBus;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
 
 @Service
 public class ProductService {
     private final ProductRepository productRepository;
     private final ProductMapper productMapper;
+    private final SyncTombstoneService syncTombstoneService;
+    private final InvalidationBus invalidationBus;
     
-    public ProductService(ProductRepository productRepository, ProductMapper productMapper) {
+    public ProductService(ProductRepository productRepository, ProductMapper productMapper,
+                          SyncTombstoneService syncTombstoneService, InvalidationBus invalidationBus) {
         this.productRepository = productRepository;
         this.productMapper = productMapper;
+        this.syncTombstoneService = syncTombstoneService;
+        this.invalidationBus = invalidationBus;
     }
 
+    @Transactional
     public ProductDto createProduct(ProductRequest request) {
         // Check if product with same name already exists
         if (productRepository.findByName(request.getName()).isPresent()) {
             throw new BadRequestException("Product with name '" + request.getName() + "' already exists");
         }
         
+        if (request.getStockQuantity() != null && request.getStockQuantity() < 0) {
+            throw new BadRequestException("Stock quantity cannot be negative");
+        }
+        
         Product product = productMapper.toEntity(request);
         Product savedProduct = productRepository.save(product);
+        invalidationBus.publish(CachedEntity.PRODUCT, savedProduct.getId());
         return productMapper.toDto(savedProduct);
     }
 
+    @Transactional(readOnly = true)
     public ProductDto getProductById(Long id) {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         return productMapper.toDto(product);
     }
 
+    @Transactional(readOnly = true)
     public List<ProductDto> getAllProducts() {
         List<Product> products = productRepository.findAll();
         return products.stream()
@@ -41,6 +59,7 @@ public class ProductService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<ProductDto> searchProductsByName(String name) {
         List<Product> products = productRepository.findByNameContaining(name);
         return products.stream()
@@ -48,6 +67,7 @@ public class ProductService {
             .collect(Collectors.toList());
     }
 
+    @Transactional
     public ProductDto updateProduct(Long id, ProductRequest request) {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
@@ -56,13 +76,17 @@ public class ProductService {
         product.setDescription(request.getDescription());
         
         Product updatedProduct = productRepository.save(product);
+        invalidationBus.publish(CachedEntity.PRODUCT, id);
         return productMapper.toDto(updatedProduct);
     }
 
+    @Transactional
     public void deleteProduct(Long id) {
         if (!productRepository.existsById(id)) {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        syncTombstoneService.recordDeleted(SyncEntityType.PRODUCTS, id, null);
+        invalidationBus.publish(CachedEntity.PRODUCT, id);
     }
 }
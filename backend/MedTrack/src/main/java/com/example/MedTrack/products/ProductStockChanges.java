@@ -0,0 +1,46 @@
+package com.example.MedTrack.products;
+
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.MedTrack.invalidation.CachedEntity;
+import com.example.MedTrack.invalidation.InvalidationBus;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Keeps cached products in step with the native stock updates, which Hibernate doesn't see:
+ * the changed product alone is evicted from this instance's second-level cache once the
+ * update commits, and the change is published for the other instances. Evicting before the
+ * commit would let a concurrent read cache the old stock level again.
+ */
+@Component
+class ProductStockChanges {
+    private final SessionFactory sessionFactory;
+    private final InvalidationBus invalidationBus;
+
+    ProductStockChanges(EntityManagerFactory entityManagerFactory, InvalidationBus invalidationBus) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.invalidationBus = invalidationBus;
+    }
+
+    void changed(Long productId) {
+        invalidationBus.publish(CachedEntity.PRODUCT, productId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(productId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(productId);
+            }
+        });
+    }
+
+    private void evict(Long productId) {
+        sessionFactory.getCache().evictEntityData(Product.class, productId);
+    }
+}
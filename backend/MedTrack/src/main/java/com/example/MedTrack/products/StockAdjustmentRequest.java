@@ -0,0 +1,12 @@
+package com.example.MedTrack.products;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotNull;
+
+@Data
+public class StockAdjustmentRequest {
+    
+    // Units to add, negative to write stock off
+    @NotNull(message = "Quantity is required")
+    private Integer quantity;
+}
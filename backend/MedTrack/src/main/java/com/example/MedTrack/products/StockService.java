@@ -0,0 +1,125 @@
+package com.example.MedTrack.products;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.exceptions.ResourceNotFoundException;
+
+/**
+ * Reserves and releases product stock for orders and samples. Reservations are conditional
+ * updates in the caller's transaction, so a failed order puts its stock back on rollback.
+ * Hot products go through {@link HotStockLedger} first and reserve from the row only when
+ * its stripes can't cover the order; in-memory changes are undone or applied through
+ * transaction callbacks to match. Products with no stock level are not tracked and always
+ * succeed.
+ *
+ * The updates bypass the entity, so each one goes through {@link ProductStockChanges}, which
+ * evicts the product from this instance's cache after the commit and publishes it to the
+ * others, which would otherwise serve the cached stock level until the product region expires.
+ */
+@Service
+public class StockService {
+    private final ProductRepository productRepository;
+    private final HotStockLedger hotStockLedger;
+    private final ProductStockChanges productStockChanges;
+
+    public StockService(ProductRepository productRepository, HotStockLedger hotStockLedger,
+                        ProductStockChanges productStockChanges) {
+        this.productRepository = productRepository;
+        this.hotStockLedger = hotStockLedger;
+        this.productStockChanges = productStockChanges;
+    }
+
+    /**
+     * Reserves every line or none. Products are locked in id order so two orders for the
+     * same products can't deadlock on each other's rows.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Map<Long, Integer> quantitiesByProductId) {
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByProductId).entrySet()) {
+            reserve(line.getKey(), line.getValue());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(Long productId, int quantity) {
+        if (hotStockLedger.isHot(productId) && hotStockLedger.take(productId, quantity)) {
+            afterRollback(() -> hotStockLedger.give(productId, quantity));
+            return;
+        }
+        // Also the fallback for a hot product whose stripes are waiting on a top-up
+        if (productRepository.reserveStock(productId, quantity) > 0) {
+            productStockChanges.changed(productId);
+            return;
+        }
+
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        if (!productRepository.isStockUntracked(productId)) {
+            throw new BadRequestException("Insufficient stock for product with id: " + productId);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Map<Long, Integer> quantitiesByProductId) {
+        for (Map.Entry<Long, Integer> line : new TreeMap<>(quantitiesByProductId).entrySet()) {
+            release(line.getKey(), line.getValue());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(Long productId, int quantity) {
+        if (hotStockLedger.isHot(productId)) {
+            // Only hand the units out again once the cancellation is committed
+            afterCommit(() -> hotStockLedger.give(productId, quantity));
+        } else if (productRepository.releaseStock(productId, quantity) > 0) {
+            productStockChanges.changed(productId);
+        }
+    }
+
+    // Hot products hold part of their stock in memory, so their row understates what is available
+    public boolean isHeldInMemory(Long productId) {
+        return hotStockLedger.isHot(productId);
+    }
+
+    // Restock (positive) or write-off (negative) by an admin
+    @Transactional
+    public void adjust(Long productId, int quantity) {
+        if (!productRepository.existsById(productId)) {
+            throw new ResourceNotFoundException("Product not found with id: " + productId);
+        }
+        if (quantity >= 0) {
+            productRepository.addStock(productId, quantity);
+        } else if (productRepository.reserveStock(productId, -quantity) == 0) {
+            throw new BadRequestException("Cannot remove " + (-quantity) + " units, not enough stock for product with id: " + productId);
+        }
+        productStockChanges.changed(productId);
+    }
+
+    private static void afterRollback(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.MedTrack.ratelimit;
+
+/**
+ * Budgets requests are counted against. Each user has a separate bucket per class, so a
+ * client polling a heavy list can't use up the budget for its writes.
+ */
+public enum RateLimitClass {
+    // Single-record and other cheap GETs
+    READ,
+    // GETs returning whole tables or aggregates (lists, dashboards, sync)
+    HEAVY_READ,
+    // POST, PUT, PATCH and DELETE
+    WRITE,
+    // Login attempts, counted per client address since there is no user yet
+    LOGIN
+}
@@ -0,0 +1,110 @@
+package com.example.MedTrack.ratelimit;
+
+import com.example.MedTrack.auth.AuthenticationHelper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Rate limits API calls per user and budget class, answering 429 with Retry-After once a
+ * bucket is empty. Runs right after JwtFilter so requests are counted against the user in
+ * the token; login and unauthenticated calls are counted per client address.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final List<String> heavyReadPaths;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    public RateLimitFilter(RateLimiter rateLimiter,
+                           MeterRegistry meterRegistry,
+                           @Value("${medtrack.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${medtrack.rate-limit.heavy-read-paths:/api/orders,/api/visits,/api/samples,/api/doctors,/api/products,/api/locations,/api/users,/api/dashboard/**,/api/sync/**}")
+                           List<String> heavyReadPaths) {
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.heavyReadPaths = List.copyOf(heavyReadPaths);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled
+            || "OPTIONS".equals(request.getMethod())
+            || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        RateLimitClass limitClass = classify(request);
+        String client = limitClass == RateLimitClass.LOGIN ? addressOf(request) : clientOf(request);
+
+        Duration wait = rateLimiter.tryAcquire(limitClass, client);
+        if (wait == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Counter.builder("medtrack.ratelimit.rejected")
+            .description("Requests refused by the per-user rate limiter")
+            .tag("class", limitClass.name())
+            .register(meterRegistry)
+            .increment();
+        long retryAfterSeconds = Math.max(1, (wait.toMillis() + 999) / 1000);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // Same {"error": ...} shape as GlobalExceptionHandler
+        response.getWriter().write("{\"error\":\"Too many requests, retry in " + retryAfterSeconds + " seconds\"}");
+    }
+
+    RateLimitClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/auth/")) {
+            return RateLimitClass.LOGIN;
+        }
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) {
+            return RateLimitClass.WRITE;
+        }
+        for (String pattern : heavyReadPaths) {
+            if (pathMatcher.match(pattern, path)) {
+                return RateLimitClass.HEAVY_READ;
+            }
+        }
+        return RateLimitClass.READ;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        Long userId = AuthenticationHelper.authenticatedUserId();
+        if (userId != null) {
+            return "user:" + userId;
+        }
+        return addressOf(request);
+    }
+
+    // The real client's address: Tomcat resolves X-Forwarded-For from trusted proxies (server.forward-headers-strategy)
+    private static String addressOf(HttpServletRequest request) {
+        return "ip:" + request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.MedTrack.ratelimit;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds one {@link TokenBucket} per client and budget class. Buckets that have refilled
+ * completely are evicted on a schedule, and straight away when the map grows past its
+ * limit, so memory follows the number of recently active clients rather than all users.
+ */
+@Component
+public class RateLimiter {
+    private static final Logger log = LoggerFactory.getLogger(RateLimiter.class);
+
+    public record Budget(int capacity, Duration refillInterval) {
+    }
+
+    private record BucketKey(RateLimitClass limitClass, String client) {
+    }
+
+    private final Map<RateLimitClass, Budget> budgets = new EnumMap<>(RateLimitClass.class);
+    private final ConcurrentHashMap<BucketKey, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+
+    public RateLimiter(@Value("${medtrack.rate-limit.read.capacity:120}") int readCapacity,
+                       @Value("${medtrack.rate-limit.read.per-minute:600}") int readPerMinute,
+                       @Value("${medtrack.rate-limit.heavy-read.capacity:10}") int heavyReadCapacity,
+                       @Value("${medtrack.rate-limit.heavy-read.per-minute:30}") int heavyReadPerMinute,
+                       @Value("${medtrack.rate-limit.write.capacity:30}") int writeCapacity,
+                       @Value("${medtrack.rate-limit.write.per-minute:120}") int writePerMinute,
+                       @Value("${medtrack.rate-limit.login.capacity:5}") int loginCapacity,
+                       @Value("${medtrack.rate-limit.login.per-minute:10}") int loginPerMinute,
+                       @Value("${medtrack.rate-limit.max-buckets:100000}") int maxBuckets) {
+        budgets.put(RateLimitClass.READ, budget(readCapacity, readPerMinute));
+        budgets.put(RateLimitClass.HEAVY_READ, budget(heavyReadCapacity, heavyReadPerMinute));
+        budgets.put(RateLimitClass.WRITE, budget(writeCapacity, writePerMinute));
+        budgets.put(RateLimitClass.LOGIN, budget(loginCapacity, loginPerMinute));
+        this.maxBuckets = maxBuckets;
+    }
+
+    /**
+     * Takes a token from the client's bucket for the class. Returns null when granted,
+     * otherwise how long the client should wait.
+     */
+    public Duration tryAcquire(RateLimitClass limitClass, String client) {
+        long now = System.nanoTime();
+        BucketKey key = new BucketKey(limitClass, client);
+        TokenBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                evictFull(now);
+            }
+            Budget budget = budgets.get(limitClass);
+            bucket = buckets.computeIfAbsent(key,
+                k -> new TokenBucket(budget.capacity(), budget.refillInterval().toNanos(), now));
+        }
+        long waitNanos = bucket.tryTake(now);
+        return waitNanos == 0 ? null : Duration.ofNanos(waitNanos);
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.rate-limit.evict-interval:PT1M}")
+    public void evictIdle() {
+        int before = buckets.size();
+        evictFull(System.nanoTime());
+        log.debug("Evicted {} idle rate limit buckets, {} left", before - buckets.size(), buckets.size());
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    // A token taken from a bucket in the middle of its removal is forgotten, which only errs on the lenient side
+    private void evictFull(long now) {
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+    }
+
+    private static Budget budget(int capacity, int perMinute) {
+        if (capacity < 1 || perMinute < 1) {
+            throw new IllegalArgumentException("Rate limit capacity and per-minute must be at least 1");
+        }
+        return new Budget(capacity, Duration.ofMinutes(1).dividedBy(perMinute));
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.MedTrack.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket kept as a single timestamp, so taking a token is one compare-and-set and
+ * needs no lock. The state is the time at which the bucket will be full again (the
+ * "theoretical arrival time" of GCRA): every token taken pushes it one refill interval
+ * further, and a request is refused when that would put it more than a full bucket's
+ * worth of intervals ahead of now.
+ */
+final class TokenBucket {
+
+    private final long refillIntervalNanos;
+    private final long burstNanos;
+    private final AtomicLong fullAt;
+
+    TokenBucket(int capacity, long refillIntervalNanos, long nowNanos) {
+        this.refillIntervalNanos = refillIntervalNanos;
+        this.burstNanos = refillIntervalNanos * capacity;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes one token. Returns 0 when granted, otherwise how many nanoseconds until a token
+     * is available.
+     */
+    long tryTake(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, nowNanos) + refillIntervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // A full bucket behaves exactly like a new one, so it can be dropped without losing anything
+    boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
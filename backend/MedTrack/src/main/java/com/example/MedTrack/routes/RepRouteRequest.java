@@ -0,0 +1,22 @@
+package com.example.MedTrack.routes;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+
+@Data
+public class RepRouteRequest {
+    
+    @NotNull(message = "User ID is required")
+    private Long userId;
+    
+    // Optional starting point, such as the rep's home; without it the route starts at whichever stop is best
+    private Double startLatitude;
+    
+    private Double startLongitude;
+    
+    // Candidate stops; with neither, the rep's active assigned locations
+    private List<Long> doctorIds;
+    
+    private List<Long> locationIds;
+}
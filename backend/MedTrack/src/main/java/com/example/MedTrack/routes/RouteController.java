@@ -0,0 +1,36 @@
+package com.example.MedTrack.routes;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import com.example.MedTrack.auth.AuthenticationHelper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/routes")
+@Tag(name = "Routes", description = "API for planning reps' daily visit routes")
+public class RouteController {
+    private final RouteService routeService;
+    private final AuthenticationHelper authenticationHelper;
+
+    public RouteController(RouteService routeService, AuthenticationHelper authenticationHelper) {
+        this.routeService = routeService;
+        this.authenticationHelper = authenticationHelper;
+    }
+
+    @PostMapping("/plan")
+    @Operation(summary = "Plan daily visit routes",
+        description = "Orders each rep's candidate doctors and locations into a short route for the date, leaving out doctors " +
+            "already visited that day. Reps plan their own route, managers those of reps in their locations (REP, MANAGER, ADMIN)")
+    @PreAuthorize("hasRole('REP') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<List<RoutePlanDto>> planRoutes(@Valid @RequestBody RoutePlanRequest request) {
+        return ResponseEntity.ok(routeService.planRoutes(authenticationHelper.getCurrentUserId(), request));
+    }
+}
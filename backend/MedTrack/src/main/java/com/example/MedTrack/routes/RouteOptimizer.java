@@ -0,0 +1,158 @@
+package com.example.MedTrack.routes;
+
+/**
+ * Orders the stops of an open route, one that ends at its last stop instead of returning.
+ * A nearest-neighbour tour is improved by 2-opt (reversing a stretch of the route) and
+ * Or-opt (moving a run of one to three stops elsewhere, either way round) until neither
+ * finds an improvement or the deadline passes; the best route so far is kept either way.
+ * With a fixed start, node 0 stays first.
+ */
+final class RouteOptimizer {
+    private static final double EPSILON = 1e-9;
+    private static final int MAX_SEGMENT = 3;
+
+    record Result(int[] order, double length, boolean converged) {
+    }
+
+    private RouteOptimizer() {
+    }
+
+    static Result optimize(double[][] distances, boolean fixedStart, long deadlineNanos) {
+        int[] order = nearestNeighbour(distances);
+        boolean converged = false;
+        while (System.nanoTime() < deadlineNanos) {
+            boolean improved = twoOpt(order, distances, fixedStart, deadlineNanos);
+            int[] moved = orOpt(order, distances, fixedStart, deadlineNanos);
+            if (moved != null) {
+                order = moved;
+                improved = true;
+            }
+            if (!improved) {
+                converged = true;
+                break;
+            }
+        }
+        return new Result(order, length(order, distances), converged);
+    }
+
+    // Starts at node 0 and always goes to the nearest node not yet visited
+    static int[] nearestNeighbour(double[][] distances) {
+        int n = distances.length;
+        int[] order = new int[n];
+        boolean[] visited = new boolean[n];
+        if (n == 0) {
+            return order;
+        }
+        visited[0] = true;
+        for (int i = 1; i < n; i++) {
+            int from = order[i - 1];
+            int nearest = -1;
+            for (int to = 0; to < n; to++) {
+                if (!visited[to] && (nearest < 0 || distances[from][to] < distances[from][nearest])) {
+                    nearest = to;
+                }
+            }
+            order[i] = nearest;
+            visited[nearest] = true;
+        }
+        return order;
+    }
+
+    static double length(int[] order, double[][] distances) {
+        double length = 0;
+        for (int i = 1; i < order.length; i++) {
+            length += distances[order[i - 1]][order[i]];
+        }
+        return length;
+    }
+
+    // One pass of first-improvement 2-opt, reversing order[i..j] in place
+    private static boolean twoOpt(int[] order, double[][] distances, boolean fixedStart, long deadlineNanos) {
+        int n = order.length;
+        boolean improved = false;
+        for (int i = fixedStart ? 1 : 0; i < n - 1; i++) {
+            if (System.nanoTime() >= deadlineNanos) {
+                return improved;
+            }
+            for (int j = i + 1; j < n; j++) {
+                double delta = 0;
+                if (i > 0) {
+                    delta += distances[order[i - 1]][order[j]] - distances[order[i - 1]][order[i]];
+                }
+                if (j < n - 1) {
+                    delta += distances[order[i]][order[j + 1]] - distances[order[j]][order[j + 1]];
+                }
+                if (delta < -EPSILON) {
+                    reverse(order, i, j);
+                    improved = true;
+                }
+            }
+        }
+        return improved;
+    }
+
+    /**
+     * One pass of Or-opt. Returns the route after the first move that shortens it, or null
+     * when no move of a run of up to three stops does.
+     */
+    private static int[] orOpt(int[] order, double[][] distances, boolean fixedStart, long deadlineNanos) {
+        int n = order.length;
+        for (int segment = 1; segment <= MAX_SEGMENT && segment < n; segment++) {
+            for (int s = fixedStart ? 1 : 0; s + segment <= n; s++) {
+                if (System.nanoTime() >= deadlineNanos) {
+                    return null;
+                }
+                int first = order[s];
+                int last = order[s + segment - 1];
+                int before = s > 0 ? order[s - 1] : -1;
+                int after = s + segment < n ? order[s + segment] : -1;
+                double removed = edge(distances, before, first) + edge(distances, last, after) - edge(distances, before, after);
+
+                // Gap k lies between order[k] and order[k + 1]; -1 is the front, n - 1 the end
+                for (int k = fixedStart ? 0 : -1; k < n; k++) {
+                    if (k >= s - 1 && k <= s + segment - 1) {
+                        continue;
+                    }
+                    int a = k >= 0 ? order[k] : -1;
+                    int b = k + 1 < n ? order[k + 1] : -1;
+                    double bridged = edge(distances, a, b);
+                    double forward = edge(distances, a, first) + edge(distances, last, b) - bridged;
+                    double reversed = edge(distances, a, last) + edge(distances, first, b) - bridged;
+                    if (Math.min(forward, reversed) < removed - EPSILON) {
+                        return move(order, s, segment, k, reversed < forward);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int[] move(int[] order, int s, int segment, int gap, boolean reversed) {
+        int n = order.length;
+        int[] rest = new int[n - segment];
+        System.arraycopy(order, 0, rest, 0, s);
+        System.arraycopy(order, s + segment, rest, s, n - s - segment);
+        // Position in rest the run goes in front of
+        int insertAt = gap < s ? gap + 1 : gap + 1 - segment;
+        int[] moved = new int[n];
+        System.arraycopy(rest, 0, moved, 0, insertAt);
+        for (int i = 0; i < segment; i++) {
+            moved[insertAt + i] = order[reversed ? s + segment - 1 - i : s + i];
+        }
+        System.arraycopy(rest, insertAt, moved, insertAt + segment, rest.length - insertAt);
+        return moved;
+    }
+
+    // Zero when either end is missing, at the front or the end of the route
+    private static double edge(double[][] distances, int from, int to) {
+        return from < 0 || to < 0 ? 0 : distances[from][to];
+    }
+
+    private static void reverse(int[] order, int from, int to) {
+        while (from < to) {
+            int swap = order[from];
+            order[from++] = order[to];
+            order[to--] = swap;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.MedTrack.routes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RoutePlanDto {
+    private Long userId;
+    private String userName;
+    private LocalDate date;
+    private List<RouteStopDto> stops;
+    private Double totalKm;
+    // False when the time budget ran out before the route stopped improving
+    private Boolean optimized;
+    // Doctors the rep already visited on the date, left out of the route
+    private List<Long> visitedDoctorIds;
+    // Stops without coordinates, which can't be placed
+    private List<RouteStopDto> unplacedStops;
+}
@@ -0,0 +1,21 @@
+package com.example.MedTrack.routes;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class RoutePlanRequest {
+    
+    @NotNull(message = "Date is required")
+    private LocalDate date;
+    
+    @NotEmpty(message = "At least one rep is required")
+    @Size(max = 50, message = "Cannot plan routes for more than 50 reps at once")
+    @Valid
+    private List<RepRouteRequest> reps;
+}
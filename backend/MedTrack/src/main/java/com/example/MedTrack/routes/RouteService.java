@@ -0,0 +1,259 @@
+package com.example.MedTrack.routes;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.exceptions.ForbiddenException;
+import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.geo.Coordinates;
+import com.example.MedTrack.geo.SpatialGrid;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationRepository;
+import com.example.MedTrack.users.User;
+import com.example.MedTrack.users.UserRepository;
+import com.example.MedTrack.users.UserRole;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitRepository;
+import com.example.MedTrack.visits.VisitStatus;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Plans each rep's visit order for a day. Stops are loaded up front in a read-only
+ * transaction, which ends before the routes are optimized, so no connection is held for
+ * the time budget; the routes are optimized in parallel on a fork-join pool of their own,
+ * all against one deadline, so a request takes about the time budget however many reps it
+ * covers. A route the budget cut short is still returned, marked as not optimized.
+ */
+@Service
+public class RouteService {
+    private final UserRepository userRepository;
+    private final DoctorRepository doctorRepository;
+    private final LocationRepository locationRepository;
+    private final VisitRepository visitRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final Duration timeBudget;
+    private final int maxStops;
+
+    private record Stop(RouteStopType type, Long id, String name, Double latitude, Double longitude) {
+
+        boolean hasCoordinates() {
+            return latitude != null && longitude != null;
+        }
+
+        RouteStopDto toDto(Integer sequence, Double distanceKm) {
+            return new RouteStopDto(sequence, type, id, name, latitude, longitude, distanceKm);
+        }
+    }
+
+    // A rep's route before optimizing: the stops to place, after the starting point if there is one
+    private record Plan(User rep, double[] start, List<Stop> stops, List<Long> visitedDoctorIds, List<Stop> unplaced) {
+    }
+
+    public RouteService(UserRepository userRepository,
+                        DoctorRepository doctorRepository,
+                        LocationRepository locationRepository,
+                        VisitRepository visitRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${medtrack.routes.parallelism:0}") int parallelism,
+                        @Value("${medtrack.routes.time-budget:PT2S}") Duration timeBudget,
+                        @Value("${medtrack.routes.max-stops:300}") int maxStops) {
+        this.userRepository = userRepository;
+        this.doctorRepository = doctorRepository;
+        this.locationRepository = locationRepository;
+        this.visitRepository = visitRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 0 uses one thread per core
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.timeBudget = timeBudget;
+        this.maxStops = maxStops;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public List<RoutePlanDto> planRoutes(Long viewerId, RoutePlanRequest request) {
+        List<Plan> plans = readOnlyTransaction.execute(status -> loadPlans(viewerId, request));
+
+        long deadlineNanos = System.nanoTime() + timeBudget.toNanos();
+        List<ForkJoinTask<RoutePlanDto>> routes = plans.stream()
+            .map(plan -> pool.submit(() -> optimize(plan, request.getDate(), deadlineNanos)))
+            .collect(Collectors.toList());
+        return routes.stream().map(ForkJoinTask::join).collect(Collectors.toList());
+    }
+
+    private List<Plan> loadPlans(Long viewerId, RoutePlanRequest request) {
+        User viewer = userRepository.findById(viewerId)
+            .orElseThrow(() -> new ResourceNotFoundException("User", "id", viewerId));
+        List<Long> repIds = request.getReps().stream().map(RepRouteRequest::getUserId).collect(Collectors.toList());
+        if (new HashSet<>(repIds).size() != repIds.size()) {
+            throw new BadRequestException("Each rep can only appear once");
+        }
+        checkCanPlan(viewer, repIds);
+
+        Map<Long, User> reps = byId(userRepository.findAllWithLocationsByIdIn(repIds), User::getId);
+        Map<Long, Doctor> doctors = byId(doctorRepository.findAllById(allIds(request, RepRouteRequest::getDoctorIds)), Doctor::getId);
+        Map<Long, Location> locations = byId(locationRepository.findAllById(allIds(request, RepRouteRequest::getLocationIds)), Location::getId);
+
+        List<Plan> plans = new ArrayList<>();
+        for (RepRouteRequest repRequest : request.getReps()) {
+            User rep = reps.get(repRequest.getUserId());
+            if (rep == null) {
+                throw new ResourceNotFoundException("User", "id", repRequest.getUserId());
+            }
+            plans.add(toPlan(rep, repRequest, request.getDate(), doctors, locations));
+        }
+        return plans;
+    }
+
+    // Reps plan their own route, managers those of reps in their locations, admins anyone's
+    private void checkCanPlan(User viewer, List<Long> repIds) {
+        if (viewer.getRole() == UserRole.ADMIN) {
+            return;
+        }
+        Set<Long> allowed = new HashSet<>();
+        allowed.add(viewer.getId());
+        if (viewer.getRole() == UserRole.MANAGER) {
+            userRepository.findByRoleSharingLocationsWith(UserRole.REP, viewer.getId())
+                .forEach(rep -> allowed.add(rep.getId()));
+        }
+        if (!allowed.containsAll(repIds)) {
+            throw new ForbiddenException(viewer.getRole() == UserRole.MANAGER
+                ? "You can only plan routes for reps in your locations"
+                : "You can only plan your own route");
+        }
+    }
+
+    private Plan toPlan(User rep, RepRouteRequest request, LocalDate date, Map<Long, Doctor> doctors, Map<Long, Location> locations) {
+        double[] start = null;
+        if (request.getStartLatitude() != null || request.getStartLongitude() != null) {
+            Coordinates.check(request.getStartLatitude(), request.getStartLongitude());
+            start = new double[] {request.getStartLatitude(), request.getStartLongitude()};
+        }
+
+        List<Stop> candidates = new ArrayList<>();
+        List<Long> doctorIds = distinct(request.getDoctorIds());
+        List<Long> locationIds = distinct(request.getLocationIds());
+        Set<Long> assigned = rep.getLocations().stream().map(Location::getId).collect(Collectors.toSet());
+        if (doctorIds.isEmpty() && locationIds.isEmpty()) {
+            rep.getLocations().stream()
+                .filter(location -> Boolean.TRUE.equals(location.getIsActive()))
+                .forEach(location -> candidates.add(toStop(location)));
+        }
+        for (Long locationId : locationIds) {
+            Location location = locations.get(locationId);
+            if (location == null) {
+                throw new ResourceNotFoundException("Location not found with id: " + locationId);
+            }
+            if (!assigned.contains(locationId)) {
+                throw new BadRequestException("User " + rep.getId() + " does not have access to location with id: " + locationId);
+            }
+            candidates.add(toStop(location));
+        }
+
+        // Doctors the rep has already seen that day don't need another stop
+        Set<Long> visited = visitRepository.findByUserIdAndDateRange(rep.getId(), date, date).stream()
+            .filter(visit -> visit.getStatus() != VisitStatus.CANCELLED)
+            .map(Visit::getDoctor)
+            .filter(Objects::nonNull)
+            .map(Doctor::getId)
+            .collect(Collectors.toSet());
+        List<Long> visitedDoctorIds = new ArrayList<>();
+        for (Long doctorId : doctorIds) {
+            Doctor doctor = doctors.get(doctorId);
+            if (doctor == null) {
+                throw new ResourceNotFoundException("Doctor not found with id: " + doctorId);
+            }
+            if (visited.contains(doctorId)) {
+                visitedDoctorIds.add(doctorId);
+            } else {
+                candidates.add(new Stop(RouteStopType.DOCTOR, doctor.getId(), doctor.getName(), doctor.getLatitude(), doctor.getLongitude()));
+            }
+        }
+        if (candidates.size() > maxStops) {
+            throw new BadRequestException("A route can have at most " + maxStops + " stops");
+        }
+
+        List<Stop> stops = candidates.stream().filter(Stop::hasCoordinates).collect(Collectors.toList());
+        List<Stop> unplaced = candidates.stream().filter(stop -> !stop.hasCoordinates()).collect(Collectors.toList());
+        return new Plan(rep, start, stops, visitedDoctorIds, unplaced);
+    }
+
+    private RoutePlanDto optimize(Plan plan, LocalDate date, long deadlineNanos) {
+        // Node 0 is the starting point when there is one, the stops follow
+        int offset = plan.start() != null ? 1 : 0;
+        int n = plan.stops().size() + offset;
+        double[][] points = new double[n][];
+        if (plan.start() != null) {
+            points[0] = plan.start();
+        }
+        for (int i = 0; i < plan.stops().size(); i++) {
+            Stop stop = plan.stops().get(i);
+            points[i + offset] = new double[] {stop.latitude(), stop.longitude()};
+        }
+        double[][] distances = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                distances[i][j] = distances[j][i] = SpatialGrid.distanceKm(points[i][0], points[i][1], points[j][0], points[j][1]);
+            }
+        }
+
+        RouteOptimizer.Result result = RouteOptimizer.optimize(distances, plan.start() != null, deadlineNanos);
+        List<RouteStopDto> route = new ArrayList<>();
+        int[] order = result.order();
+        for (int i = offset; i < order.length; i++) {
+            Double distanceKm = i > 0 ? round(distances[order[i - 1]][order[i]]) : null;
+            route.add(plan.stops().get(order[i] - offset).toDto(route.size() + 1, distanceKm));
+        }
+        List<RouteStopDto> unplaced = plan.unplaced().stream().map(stop -> stop.toDto(null, null)).collect(Collectors.toList());
+        return new RoutePlanDto(plan.rep().getId(), plan.rep().getName(), date, route, round(result.length()),
+            result.converged(), plan.visitedDoctorIds(), unplaced);
+    }
+
+    private static Stop toStop(Location location) {
+        return new Stop(RouteStopType.LOCATION, location.getId(), location.getName(), location.getLatitude(), location.getLongitude());
+    }
+
+    private static Set<Long> allIds(RoutePlanRequest request, Function<RepRouteRequest, List<Long>> ids) {
+        return request.getReps().stream()
+            .map(ids)
+            .filter(Objects::nonNull)
+            .flatMap(Collection::stream)
+            .collect(Collectors.toSet());
+    }
+
+    private static List<Long> distinct(List<Long> ids) {
+        return ids == null ? List.of() : ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+    }
+
+    private static <T> Map<Long, T> byId(Collection<T> entities, Function<T, Long> id) {
+        return entities.stream().collect(Collectors.toMap(id, Function.identity()));
+    }
+
+    private static double round(double km) {
+        return Math.round(km * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.MedTrack.routes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteStopDto {
+    // Position in the route from 1, null for stops left out of it
+    private Integer sequence;
+    private RouteStopType type;
+    private Long id;
+    private String name;
+    private Double latitude;
+    private Double longitude;
+    // From the previous stop, or from the starting point for the first one
+    private Double distanceKm;
+}
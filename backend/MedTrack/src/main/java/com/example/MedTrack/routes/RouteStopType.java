@@ -0,0 +1,6 @@
+package com.example.MedTrack.routes;
+
+public enum RouteStopType {
+    DOCTOR,
+    LOCATION
+}
@@ -0,0 +1,16 @@
+package com.example.MedTrack.samples;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Min;
+
+@Data
+public class BatchSampleItemRequest {
+    
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+    
+    @NotNull(message = "Quantity is required")
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+}
@@ -0,0 +1,26 @@
+package com.example.MedTrack.samples;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchSampleRequest {
+    
+    @NotNull(message = "Doctor ID is required")
+    private Long doctorId;
+    
+    @NotNull(message = "Date issued is required")
+    private LocalDate dateIssued;
+    
+    private Long visitId; // Optional
+    
+    @NotEmpty(message = "At least one product is required")
+    @Size(max = 50, message = "Cannot issue more than 50 products at once")
+    @Valid
+    private List<BatchSampleItemRequest> items;
+}
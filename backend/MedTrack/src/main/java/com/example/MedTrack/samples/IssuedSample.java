@@ -0,0 +1,11 @@
+package com.example.MedTrack.samples;
+
+import java.time.LocalDate;
+
+/**
+ * One issue of a product to a doctor after the upsert: the sample row it landed on, with the
+ * rep (through the row's visit, null without one) and date the row keeps, and the quantity
+ * this issue added to it.
+ */
+public record IssuedSample(Long id, Long doctorId, Long productId, Long userId, LocalDate dateIssued, int quantity) {
+}
@@ -7,8 +7,10 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDate;
@@ -16,23 +18,29 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "sample")
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Sample {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sample_id")
+    @TableGenerator(name = "sample_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "sample", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     @NotNull(message = "Doctor is required")
+    @ToString.Exclude
     private Doctor doctor;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     @NotNull(message = "Product is required")
+    @ToString.Exclude
     private Product product;
     
     @NotNull(message = "Quantity is required")
@@ -46,6 +54,7 @@ public class Sample {
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "visit_id")
+    @ToString.Exclude
     private Visit visit;
     
     @CreationTimestamp
@@ -55,9 +64,23 @@ public class Sample {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Sample other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Sample.class.hashCode();
+    }
 }
-
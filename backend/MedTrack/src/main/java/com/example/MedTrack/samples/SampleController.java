@@ -29,6 +29,13 @@ public class SampleController {
         return ResponseEntity.ok(sampleService.issueSample(sampleRequest));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Issue samples of several products", description = "Issues samples of many products to one doctor in a single call; products the doctor already holds have the quantity added (REP, MANAGER, ADMIN)")
+    @PreAuthorize("hasRole('REP') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<List<SampleDto>> issueSamples(@Valid @RequestBody BatchSampleRequest batchRequest) {
+        return ResponseEntity.ok(sampleService.issueSamples(batchRequest));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get sample by ID", description = "Retrieves a specific sample by its ID")
     @PreAuthorize("hasRole('REP') or hasRole('MANAGER') or hasRole('ADMIN')")
@@ -1,13 +1,22 @@
 package com.example.MedTrack.samples;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface SampleRepository extends JpaRepository<Sample, Long> {
+public interface SampleRepository extends JpaRepository<Sample, Long>, SampleUpsertRepository {
+    
+    // Archived samples as Sample entities, with joins mirroring the hot table's foreign keys
+    String ARCHIVED_SAMPLE_SELECT = "SELECT a.id, a.doctor_id, a.product_id, a.quantity, a.date_issued, " +
+        "COALESCE(v.id, va.id) AS visit_id, a.created_at, a.updated_at FROM sample_archive a " +
+        "JOIN doctor d ON d.id = a.doctor_id JOIN product p ON p.id = a.product_id " +
+        "LEFT JOIN visit v ON v.id = a.visit_id LEFT JOIN visit_archive va ON va.id = a.visit_id ";
     
     // Find sample by ID with doctor and product eagerly loaded
     @Query("SELECT s FROM Sample s LEFT JOIN FETCH s.doctor LEFT JOIN FETCH s.product WHERE s.id = :id")
@@ -56,6 +65,30 @@ public interface SampleRepository extends JpaRepository<Sample, Long> {
     @Query("SELECT s FROM Sample s LEFT JOIN FETCH s.doctor LEFT JOIN FETCH s.product WHERE s.dateIssued = :dateIssued")
     List<Sample> findByDateIssued(@Param("dateIssued") LocalDate dateIssued);
     
+    // Archive counterparts of the date-range finders, pruned to the partitions of the range
+    @Query(value = ARCHIVED_SAMPLE_SELECT + "WHERE a.doctor_id = :doctorId AND a.date_issued BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Sample> findArchivedByDoctorIdAndDateRange(
+        @Param("doctorId") Long doctorId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_SAMPLE_SELECT + "WHERE a.product_id = :productId AND a.date_issued BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Sample> findArchivedByProductIdAndDateRange(
+        @Param("productId") Long productId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_SAMPLE_SELECT + "WHERE a.date_issued BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Sample> findArchivedByDateIssuedBetween(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_SAMPLE_SELECT + "WHERE a.date_issued = :dateIssued", nativeQuery = true)
+    List<Sample> findArchivedByDateIssued(@Param("dateIssued") LocalDate dateIssued);
+    
     // Get total quantity of samples issued for a product
     @Query("SELECT COALESCE(SUM(s.quantity), 0) FROM Sample s WHERE s.product.id = :productId")
     Long getTotalQuantityByProductId(@Param("productId") Long productId);
@@ -71,6 +104,13 @@ public interface SampleRepository extends JpaRepository<Sample, Long> {
         @Param("productId") Long productId
     );
     
+    // Get a doctor's samples for several products at once
+    @Query("SELECT s FROM Sample s LEFT JOIN FETCH s.doctor LEFT JOIN FETCH s.product WHERE s.doctor.id = :doctorId AND s.product.id IN :productIds")
+    List<Sample> findByDoctorIdAndProductIdIn(
+        @Param("doctorId") Long doctorId,
+        @Param("productIds") Collection<Long> productIds
+    );
+    
     // Get top products by sample quantity
     @Query("SELECT s.product.id as productId, s.product.name as productName, " +
            "s.product.category as category, s.product.manufacturer as manufacturer, " +
@@ -79,5 +119,27 @@ public interface SampleRepository extends JpaRepository<Sample, Long> {
            "GROUP BY s.product.id, s.product.name, s.product.category, s.product.manufacturer " +
            "ORDER BY totalSamples DESC")
     List<Object[]> findTopProductsBySampleQuantity();
+    
+    // Sync: keyset page over idx_sample_updated of samples changed after the (updatedAt, id) cursor
+    @Query("SELECT s FROM Sample s LEFT JOIN FETCH s.doctor LEFT JOIN FETCH s.product LEFT JOIN FETCH s.visit " +
+           "WHERE s.updatedAt <= :upTo AND (s.updatedAt > :afterTime OR (s.updatedAt = :afterTime AND s.id > :afterId)) " +
+           "ORDER BY s.updatedAt, s.id")
+    List<Sample> findChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Sync: same page limited to samples issued on one rep's visits
+    @Query("SELECT s FROM Sample s LEFT JOIN FETCH s.doctor LEFT JOIN FETCH s.product LEFT JOIN FETCH s.visit " +
+           "WHERE s.visit.user.id = :userId AND s.updatedAt <= :upTo AND (s.updatedAt > :afterTime OR (s.updatedAt = :afterTime AND s.id > :afterId)) " +
+           "ORDER BY s.updatedAt, s.id")
+    List<Sample> findChangedSinceForUser(
+        @Param("userId") Long userId,
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
 }
-
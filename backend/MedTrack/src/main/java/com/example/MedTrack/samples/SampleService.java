@@ -1,17 +1,27 @@
 package com.example.MedTrack.samples;
 
 import java.time.LocalDate;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.archive.ArchiveService;
+import com.example.MedTrack.archive.ArchiveTable;
+import com.example.MedTrack.dashboard.RepKpiService;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
 import com.example.MedTrack.exceptions.BadRequestException;
 import com.example.MedTrack.doctors.Doctor;
 import com.example.MedTrack.doctors.DoctorRepository;
 import com.example.MedTrack.products.Product;
 import com.example.MedTrack.products.ProductRepository;
+import com.example.MedTrack.products.StockService;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
 import com.example.MedTrack.visits.Visit;
 import com.example.MedTrack.visits.VisitRepository;
 
@@ -22,24 +32,29 @@ public class SampleService {
     private final DoctorRepository doctorRepository;
     private final ProductRepository productRepository;
     private final VisitRepository visitRepository;
+    private final RepKpiService repKpiService;
+    private final StockService stockService;
+    private final SyncTombstoneService syncTombstoneService;
+    private final ArchiveService archiveService;
     
     public SampleService(SampleRepository sampleRepository, SampleMapper sampleMapper,
                         DoctorRepository doctorRepository, ProductRepository productRepository,
-                        VisitRepository visitRepository) {
+                        VisitRepository visitRepository, RepKpiService repKpiService,
+                        StockService stockService, SyncTombstoneService syncTombstoneService,
+                        ArchiveService archiveService) {
         this.sampleRepository = sampleRepository;
         this.sampleMapper = sampleMapper;
         this.doctorRepository = doctorRepository;
         this.productRepository = productRepository;
         this.visitRepository = visitRepository;
+        this.repKpiService = repKpiService;
+        this.stockService = stockService;
+        this.syncTombstoneService = syncTombstoneService;
+        this.archiveService = archiveService;
     }
 
+    @Transactional
     public SampleDto issueSample(SampleRequest request) {
-        // Check if sample with same doctor and product already exists
-        if (sampleRepository.findByDoctorIdAndProductId(request.getDoctorId(), request.getProductId()).isPresent()) {
-            throw new BadRequestException("Sample with doctor id '" + request.getDoctorId() + 
-                "' and product id '" + request.getProductId() + "' already exists");
-        }
-        
         // Validate doctor exists
         Doctor doctor = doctorRepository.findById(request.getDoctorId())
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + request.getDoctorId()));
@@ -65,26 +80,78 @@ public class SampleService {
             throw new BadRequestException("Date issued cannot be in the future");
         }
         
-        Sample sample = new Sample();
-        sample.setDoctor(doctor);
-        sample.setProduct(product);
-        sample.setQuantity(request.getQuantity());
-        sample.setDateIssued(request.getDateIssued());
-        sample.setVisit(visit);
+        // Rolled back with the transaction if the upsert fails below
+        stockService.reserve(request.getProductId(), request.getQuantity());
         
-        Sample savedSample = sampleRepository.save(sample);
+        // Same upsert as the batch: a product the doctor already holds adds to the existing row
+        IssuedSample issued = sampleRepository.upsertSamples(doctor.getId(), visit != null ? visit.getId() : null,
+            request.getDateIssued(), Map.of(product.getId(), request.getQuantity())).get(0);
+        repKpiService.recordAdded(RepKpiService.contributionOf(issued));
         // Fetch the saved sample with associations to ensure all data is loaded for the DTO
-        Sample sampleWithAssociations = sampleRepository.findByIdWithAssociations(savedSample.getId())
+        Sample sampleWithAssociations = sampleRepository.findByIdWithAssociations(issued.id())
             .orElseThrow(() -> new ResourceNotFoundException("Sample not found after save"));
         return sampleMapper.toDto(sampleWithAssociations);
     }
 
+    @Transactional
+    public List<SampleDto> issueSamples(BatchSampleRequest request) {
+        // Validate date issued is not in the future
+        if (request.getDateIssued().isAfter(LocalDate.now())) {
+            throw new BadRequestException("Date issued cannot be in the future");
+        }
+        
+        // Validate doctor exists
+        if (!doctorRepository.existsById(request.getDoctorId())) {
+            throw new ResourceNotFoundException("Doctor not found with id: " + request.getDoctorId());
+        }
+        
+        // Validate visit exists if provided
+        Visit visit = null;
+        if (request.getVisitId() != null) {
+            visit = visitRepository.findById(request.getVisitId())
+                .orElseThrow(() -> new ResourceNotFoundException("Visit not found with id: " + request.getVisitId()));
+            
+            // Validate that the visit is for the same doctor
+            if (!visit.getDoctor().getId().equals(request.getDoctorId())) {
+                throw new BadRequestException("Visit does not belong to the specified doctor");
+            }
+        }
+        
+        // Merge repeated products into one line each
+        Map<Long, Integer> quantitiesByProductId = new LinkedHashMap<>();
+        for (BatchSampleItemRequest item : request.getItems()) {
+            quantitiesByProductId.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        
+        // Validate all products exist in one query
+        Set<Long> foundProductIds = productRepository.findAllById(quantitiesByProductId.keySet()).stream()
+            .map(Product::getId)
+            .collect(Collectors.toSet());
+        List<Long> missingProductIds = quantitiesByProductId.keySet().stream()
+            .filter(productId -> !foundProductIds.contains(productId))
+            .collect(Collectors.toList());
+        if (!missingProductIds.isEmpty()) {
+            throw new ResourceNotFoundException("Products not found with ids: " + missingProductIds);
+        }
+        
+        stockService.reserve(quantitiesByProductId);
+        List<IssuedSample> issued = sampleRepository.upsertSamples(request.getDoctorId(), request.getVisitId(),
+            request.getDateIssued(), quantitiesByProductId);
+        repKpiService.recordAllAdded(issued.stream().map(RepKpiService::contributionOf).toList());
+        
+        return sampleRepository.findByDoctorIdAndProductIdIn(request.getDoctorId(), quantitiesByProductId.keySet()).stream()
+            .map(sampleMapper::toDto)
+            .collect(Collectors.toList());
+    }
+
+    @Transactional(readOnly = true)
     public SampleDto getSampleById(Long id) {
         Sample sample = sampleRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Sample not found with id: " + id));
         return sampleMapper.toDto(sample);
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getAllSamples() {
         List<Sample> samples = sampleRepository.findAllWithAssociations();
         return samples.stream()
@@ -93,6 +160,7 @@ public class SampleService {
     }
     
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByDoctorId(Long doctorId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -105,6 +173,7 @@ public class SampleService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByProductId(Long productId) {
         // Validate product exists
         if (!productRepository.existsById(productId)) {
@@ -117,6 +186,7 @@ public class SampleService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByVisitId(Long visitId) {
         // Validate visit exists
         if (!visitRepository.existsById(visitId)) {
@@ -129,6 +199,7 @@ public class SampleService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByDoctorIdAndDateRange(Long doctorId, LocalDate startDate, LocalDate endDate) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -140,12 +211,15 @@ public class SampleService {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Sample> samples = sampleRepository.findByDoctorIdAndDateRange(doctorId, startDate, endDate);
+        List<Sample> samples = archiveService.withArchived(ArchiveTable.SAMPLES, startDate,
+            sampleRepository.findByDoctorIdAndDateRange(doctorId, startDate, endDate),
+            () -> sampleRepository.findArchivedByDoctorIdAndDateRange(doctorId, startDate, endDate));
         return samples.stream()
             .map(sampleMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByProductIdAndDateRange(Long productId, LocalDate startDate, LocalDate endDate) {
         // Validate product exists
         if (!productRepository.existsById(productId)) {
@@ -157,31 +231,40 @@ public class SampleService {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Sample> samples = sampleRepository.findByProductIdAndDateRange(productId, startDate, endDate);
+        List<Sample> samples = archiveService.withArchived(ArchiveTable.SAMPLES, startDate,
+            sampleRepository.findByProductIdAndDateRange(productId, startDate, endDate),
+            () -> sampleRepository.findArchivedByProductIdAndDateRange(productId, startDate, endDate));
         return samples.stream()
             .map(sampleMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByDateRange(LocalDate startDate, LocalDate endDate) {
         // Validate date range
         if (startDate.isAfter(endDate)) {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Sample> samples = sampleRepository.findByDateIssuedBetween(startDate, endDate);
+        List<Sample> samples = archiveService.withArchived(ArchiveTable.SAMPLES, startDate,
+            sampleRepository.findByDateIssuedBetween(startDate, endDate),
+            () -> sampleRepository.findArchivedByDateIssuedBetween(startDate, endDate));
         return samples.stream()
             .map(sampleMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByDate(LocalDate dateIssued) {
-        List<Sample> samples = sampleRepository.findByDateIssued(dateIssued);
+        List<Sample> samples = archiveService.withArchived(ArchiveTable.SAMPLES, dateIssued,
+            sampleRepository.findByDateIssued(dateIssued),
+            () -> sampleRepository.findArchivedByDateIssued(dateIssued));
         return samples.stream()
             .map(sampleMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<SampleDto> getSamplesByDoctorIdAndProductId(Long doctorId, Long productId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -199,6 +282,7 @@ public class SampleService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Long getTotalQuantityByProductId(Long productId) {
         // Validate product exists
         if (!productRepository.existsById(productId)) {
@@ -208,6 +292,7 @@ public class SampleService {
         return sampleRepository.getTotalQuantityByProductId(productId);
     }
 
+    @Transactional(readOnly = true)
     public Long getTotalQuantityByDoctorId(Long doctorId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -217,9 +302,13 @@ public class SampleService {
         return sampleRepository.getTotalQuantityByDoctorId(doctorId);
     }
 
+    @Transactional
     public SampleDto updateSample(Long id, SampleRequest request) {
         Sample sample = sampleRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Sample not found with id: " + id));
+        RepKpiService.Contribution kpisBefore = RepKpiService.contributionOf(sample);
+        Long productIdBefore = sample.getProduct().getId();
+        int quantityBefore = sample.getQuantity();
         
         // Validate doctor exists if doctor is being updated
         if (request.getDoctorId() != null && !request.getDoctorId().equals(sample.getDoctor().getId())) {
@@ -260,18 +349,36 @@ public class SampleService {
             sample.setDateIssued(request.getDateIssued());
         }
         
+        // Moving to another product takes its stock and gives the old product's back,
+        // otherwise only the change in quantity is reserved or released
+        Long productIdAfter = sample.getProduct().getId();
+        int quantityAfter = sample.getQuantity();
+        if (!productIdAfter.equals(productIdBefore)) {
+            stockService.reserve(productIdAfter, quantityAfter);
+            stockService.release(productIdBefore, quantityBefore);
+        } else if (quantityAfter > quantityBefore) {
+            stockService.reserve(productIdAfter, quantityAfter - quantityBefore);
+        } else if (quantityAfter < quantityBefore) {
+            stockService.release(productIdAfter, quantityBefore - quantityAfter);
+        }
+        
         Sample updatedSample = sampleRepository.save(sample);
+        repKpiService.recordChanged(kpisBefore, RepKpiService.contributionOf(updatedSample));
         // Fetch the updated sample with associations to ensure all data is loaded for the DTO
         Sample sampleWithAssociations = sampleRepository.findByIdWithAssociations(updatedSample.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Sample not found after update"));
         return sampleMapper.toDto(sampleWithAssociations);
     }
 
+    @Transactional
     public void deleteSample(Long id) {
-        if (!sampleRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Sample not found with id: " + id);
-        }
-        sampleRepository.deleteById(id);
+        Sample sample = sampleRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Sample not found with id: " + id));
+        repKpiService.recordSampleRemoved(sample);
+        stockService.release(sample.getProduct().getId(), sample.getQuantity());
+        sampleRepository.delete(sample);
+        syncTombstoneService.recordDeleted(SyncEntityType.SAMPLES, id,
+            sample.getVisit() != null ? sample.getVisit().getUser().getId() : null);
     }
 }
 
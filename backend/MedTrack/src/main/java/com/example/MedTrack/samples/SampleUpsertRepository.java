@@ -0,0 +1,22 @@
+package com.example.MedTrack.samples;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public interface SampleUpsertRepository {
+    
+    /**
+     * Issues the given product quantities to a doctor in one JDBC batch. A product the doctor
+     * already holds has the quantity added to its row, which keeps its own date and visit, so
+     * the returned issues carry the rep and day the quantity counts towards.
+     */
+    List<IssuedSample> upsertSamples(Long doctorId, Long visitId, LocalDate dateIssued, Map<Long, Integer> quantitiesByProductId);
+    
+    /**
+     * Same upsert for samples of any doctors, e.g. from an offline upload. Each sample needs
+     * its doctor, product, quantity and issue date set; the visit is optional. The issues are
+     * returned in the order of the samples.
+     */
+    List<IssuedSample> upsertSamples(List<Sample> samples);
+}
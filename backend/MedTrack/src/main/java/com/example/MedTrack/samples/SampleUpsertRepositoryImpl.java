@@ -0,0 +1,109 @@
+package com.example.MedTrack.samples;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MedTrack.datasource.IdAllocator;
+
+// Picked up by Spring Data as the implementation of SampleRepository's SampleUpsertRepository fragment
+public class SampleUpsertRepositoryImpl implements SampleUpsertRepository {
+    
+    // An existing row keeps its date and visit, so the earlier issues stay with their rep and day
+    private static final String UPSERT_SQL =
+        "INSERT INTO sample (id, doctor_id, product_id, quantity, date_issued, visit_id) VALUES (?, ?, ?, ?, ?, ?) " +
+        "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), " +
+        "updated_at = CURRENT_TIMESTAMP(3)";
+    
+    private static final int[] UPSERT_TYPES = { Types.BIGINT, Types.BIGINT, Types.BIGINT, Types.INTEGER, Types.DATE, Types.BIGINT };
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    
+    public SampleUpsertRepositoryImpl(JdbcTemplate jdbcTemplate, IdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+    
+    @Override
+    public List<IssuedSample> upsertSamples(Long doctorId, Long visitId, LocalDate dateIssued, Map<Long, Integer> quantitiesByProductId) {
+        List<Object[]> rows = new ArrayList<>(quantitiesByProductId.size());
+        quantitiesByProductId.forEach((productId, quantity) ->
+            rows.add(new Object[] { null, doctorId, productId, quantity, Date.valueOf(dateIssued), visitId }));
+        return upsert(rows);
+    }
+    
+    @Override
+    public List<IssuedSample> upsertSamples(List<Sample> samples) {
+        List<Object[]> rows = new ArrayList<>(samples.size());
+        for (Sample sample : samples) {
+            rows.add(new Object[] {
+                null,
+                sample.getDoctor().getId(),
+                sample.getProduct().getId(),
+                sample.getQuantity(),
+                Date.valueOf(sample.getDateIssued()),
+                sample.getVisit() != null ? sample.getVisit().getId() : null
+            });
+        }
+        return upsert(rows);
+    }
+    
+    // Every row gets a reserved id; rows that update an existing sample leave theirs unused
+    private List<IssuedSample> upsert(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        long nextId = idAllocator.allocate("sample", rows.size());
+        for (Object[] row : rows) {
+            row[0] = nextId++;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_SQL, rows, UPSERT_TYPES);
+        return issued(rows);
+    }
+    
+    // Reads back the row each issue landed on, with the rep of the visit it keeps
+    private List<IssuedSample> issued(List<Object[]> rows) {
+        Set<Object> doctorIds = new LinkedHashSet<>();
+        Set<Object> productIds = new LinkedHashSet<>();
+        for (Object[] row : rows) {
+            doctorIds.add(row[1]);
+            productIds.add(row[2]);
+        }
+        String sql = "SELECT s.id, s.doctor_id, s.product_id, v.user_id, s.date_issued FROM sample s " +
+            "LEFT JOIN visit v ON v.id = s.visit_id " +
+            "WHERE s.doctor_id IN (" + placeholders(doctorIds.size()) + ") AND s.product_id IN (" + placeholders(productIds.size()) + ")";
+        List<Object> parameters = new ArrayList<>(doctorIds);
+        parameters.addAll(productIds);
+        
+        Map<String, IssuedSample> byDoctorAndProduct = new HashMap<>();
+        jdbcTemplate.query(sql, resultSet -> {
+            Long doctorId = resultSet.getLong(2);
+            Long productId = resultSet.getLong(3);
+            Long userId = resultSet.getObject(4, Long.class);
+            byDoctorAndProduct.put(doctorId + ":" + productId, new IssuedSample(resultSet.getLong(1), doctorId, productId,
+                userId, resultSet.getObject(5, LocalDate.class), 0));
+        }, parameters.toArray());
+        
+        List<IssuedSample> issued = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            IssuedSample sample = byDoctorAndProduct.get(row[1] + ":" + row[2]);
+            issued.add(new IssuedSample(sample.id(), sample.doctorId(), sample.productId(), sample.userId(),
+                sample.dateIssued(), (Integer) row[3]));
+        }
+        return issued;
+    }
+    
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
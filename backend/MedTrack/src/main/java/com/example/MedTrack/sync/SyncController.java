@@ -0,0 +1,59 @@
+package com.example.MedTrack.sync;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+
+@RestController
+@RequestMapping("/api/sync")
+@Tag(name = "Sync", description = "API for offline clients to pull changes since their last sync")
+public class SyncController {
+    private final SyncService syncService;
+    private final SyncUploadService syncUploadService;
+
+    public SyncController(SyncService syncService, SyncUploadService syncUploadService) {
+        this.syncService = syncService;
+        this.syncUploadService = syncUploadService;
+    }
+
+    @GetMapping("/{entity}")
+    @Operation(summary = "Get changes since a cursor",
+               description = "Returns rows created or updated and ids deleted since the cursor, one page at a time. " +
+                             "Omit the cursor for a full sync, then keep calling with nextCursor while hasMore is true. " +
+                             "Entities: doctors, products, locations, visits, samples, orders. " +
+                             "REPs only receive their own visits, samples and orders.")
+    @PreAuthorize("hasRole('REP') or hasRole('MANAGER') or hasRole('ADMIN')")
+    public ResponseEntity<SyncPageDto<?>> getChanges(
+            @Parameter(description = "Entity to sync") @PathVariable String entity,
+            @Parameter(description = "nextCursor from the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size") @RequestParam(required = false) Integer limit,
+            Authentication authentication) {
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+        Long userId = Long.parseLong(authentication.getName());
+
+        // REP → only their own rows, MANAGER/ADMIN → everything
+        Long ownerUserId = role.equals("ROLE_REP") ? userId : null;
+        return ResponseEntity.ok(syncService.getChanges(SyncEntityType.fromPath(entity), cursor, limit, ownerUserId));
+    }
+
+    @PostMapping("/upload")
+    @Operation(summary = "Upload offline changes",
+               description = "Creates visits, samples and orders recorded offline, in request order and in one transaction. " +
+                             "Samples and orders can point at a visit from the same upload with visitClientId. " +
+                             "Returns a result per operation with its server id or the reason it failed (REP, ADMIN)")
+    @PreAuthorize("hasRole('REP') or hasRole('ADMIN')")
+    public ResponseEntity<SyncUploadResponseDto> upload(@Valid @RequestBody SyncUploadRequest request,
+                                                        Authentication authentication) {
+        String role = authentication.getAuthorities().iterator().next().getAuthority();
+        Long userId = Long.parseLong(authentication.getName());
+
+        // REP → only visits of their own
+        return ResponseEntity.ok(syncUploadService.upload(request, userId, role.equals("ROLE_REP")));
+    }
+}
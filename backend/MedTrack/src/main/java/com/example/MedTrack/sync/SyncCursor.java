@@ -0,0 +1,42 @@
+package com.example.MedTrack.sync;
+
+import com.example.MedTrack.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Where a client stopped syncing one entity type: the (updated_at, id) of the last changed
+ * row it received, the id of the last tombstone, and the server time the page was read up
+ * to. Handed to clients as an opaque URL-safe string.
+ */
+public record SyncCursor(LocalDateTime syncedAt, LocalDateTime changedAt, long changedId, long deletedId) {
+
+    // Before any row's updated_at, so a full sync starts from the beginning
+    private static final LocalDateTime START = LocalDateTime.of(1970, 1, 2, 0, 0);
+
+    public static SyncCursor initial(LocalDateTime syncedAt, long deletedId) {
+        return new SyncCursor(syncedAt, START, 0L, deletedId);
+    }
+
+    public String encode() {
+        String value = syncedAt + "|" + changedAt + "|" + changedId + "|" + deletedId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SyncCursor decode(String cursor) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = value.split("\\|");
+            if (parts.length != 4) {
+                throw new BadRequestException("Invalid sync cursor");
+            }
+            return new SyncCursor(LocalDateTime.parse(parts[0]), LocalDateTime.parse(parts[1]),
+                Long.parseLong(parts[2]), Long.parseLong(parts[3]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid sync cursor");
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.MedTrack.sync;
+
+import com.example.MedTrack.exceptions.BadRequestException;
+
+public enum SyncEntityType {
+    DOCTORS("doctors", false),
+    PRODUCTS("products", false),
+    LOCATIONS("locations", false),
+    VISITS("visits", true),
+    SAMPLES("samples", true),
+    ORDERS("orders", true);
+
+    private final String path;
+    // Reps only sync their own rows of these; the rest is shared reference data
+    private final boolean ownedByRep;
+
+    SyncEntityType(String path, boolean ownedByRep) {
+        this.path = path;
+        this.ownedByRep = ownedByRep;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public boolean isOwnedByRep() {
+        return ownedByRep;
+    }
+
+    public static SyncEntityType fromPath(String path) {
+        for (SyncEntityType type : values()) {
+            if (type.path.equalsIgnoreCase(path)) {
+                return type;
+            }
+        }
+        throw new BadRequestException("Unknown sync entity: " + path);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.MedTrack.sync;
+
+import com.example.MedTrack.orders.OrderRequest;
+import com.example.MedTrack.samples.SampleRequest;
+import com.example.MedTrack.visits.VisitRequest;
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+@Data
+public class SyncOperationRequest {
+    
+    // Id the client gave the record offline, echoed back with the server id
+    @NotBlank(message = "Client ID is required")
+    @Size(max = 64, message = "Client ID cannot be longer than 64 characters")
+    private String clientId;
+    
+    @NotNull(message = "Operation type is required")
+    private SyncOperationType type;
+    
+    // Only the payload matching the type is read
+    @Valid
+    private VisitRequest visit;
+    
+    @Valid
+    private SampleRequest sample;
+    
+    @Valid
+    private OrderRequest order;
+    
+    private String visitClientId; // Optional, a visit created earlier in the same upload; replaces visitId
+}
@@ -0,0 +1,12 @@
+package com.example.MedTrack.sync;
+
+import lombok.Data;
+
+@Data
+public class SyncOperationResultDto {
+    private String clientId;
+    private SyncOperationType type;
+    private SyncOperationStatus status;
+    private Long serverId;
+    private String error;
+}
@@ -0,0 +1,6 @@
+package com.example.MedTrack.sync;
+
+public enum SyncOperationStatus {
+    APPLIED,
+    FAILED
+}
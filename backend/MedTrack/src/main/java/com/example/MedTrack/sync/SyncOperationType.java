@@ -0,0 +1,7 @@
+package com.example.MedTrack.sync;
+
+public enum SyncOperationType {
+    VISIT,
+    SAMPLE,
+    ORDER
+}
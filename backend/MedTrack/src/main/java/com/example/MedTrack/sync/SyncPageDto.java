@@ -0,0 +1,16 @@
+package com.example.MedTrack.sync;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SyncPageDto<T> {
+    // Rows created or updated since the cursor, oldest change first
+    private List<T> items;
+    // Ids deleted since the cursor
+    private List<Long> deletedIds;
+    // Pass back as ?cursor= on the next call, also when hasMore is false
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -0,0 +1,203 @@
+package com.example.MedTrack.sync;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.datasource.ReplicaRoutingDataSource;
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorMapper;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationDto;
+import com.example.MedTrack.locations.LocationRepository;
+import com.example.MedTrack.orders.Order;
+import com.example.MedTrack.orders.OrderMapper;
+import com.example.MedTrack.orders.OrderRepository;
+import com.example.MedTrack.products.Product;
+import com.example.MedTrack.products.ProductMapper;
+import com.example.MedTrack.products.ProductRepository;
+import com.example.MedTrack.samples.Sample;
+import com.example.MedTrack.samples.SampleMapper;
+import com.example.MedTrack.samples.SampleRepository;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitMapper;
+import com.example.MedTrack.visits.VisitRepository;
+
+/**
+ * Serves one page of changes per call for offline clients. Changed rows are read with a
+ * keyset cursor on (updated_at, id) and deletions with a cursor on the tombstone id, so
+ * each page is an index range scan however far behind the client is.
+ *
+ * Pages stop short of now by a safety lag: a row is only handed out once transactions that
+ * could still commit an older updated_at have had time to finish. The lag also has to
+ * cover clock skew between the app servers and the database.
+ */
+@Service
+public class SyncService {
+    private final DoctorRepository doctorRepository;
+    private final ProductRepository productRepository;
+    private final LocationRepository locationRepository;
+    private final VisitRepository visitRepository;
+    private final SampleRepository sampleRepository;
+    private final OrderRepository orderRepository;
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final SyncTombstoneService syncTombstoneService;
+    private final DoctorMapper doctorMapper;
+    private final ProductMapper productMapper;
+    private final VisitMapper visitMapper;
+    private final SampleMapper sampleMapper;
+    private final OrderMapper orderMapper;
+    private final Duration safetyLag;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public SyncService(DoctorRepository doctorRepository, ProductRepository productRepository,
+                       LocationRepository locationRepository, VisitRepository visitRepository,
+                       SampleRepository sampleRepository, OrderRepository orderRepository,
+                       SyncTombstoneRepository syncTombstoneRepository, SyncTombstoneService syncTombstoneService,
+                       DoctorMapper doctorMapper, ProductMapper productMapper, VisitMapper visitMapper,
+                       SampleMapper sampleMapper, OrderMapper orderMapper,
+                       @Value("${medtrack.sync.safety-lag:PT10S}") Duration safetyLag,
+                       @Value("${medtrack.sync.default-page-size:200}") int defaultPageSize,
+                       @Value("${medtrack.sync.max-page-size:1000}") int maxPageSize) {
+        this.doctorRepository = doctorRepository;
+        this.productRepository = productRepository;
+        this.locationRepository = locationRepository;
+        this.visitRepository = visitRepository;
+        this.sampleRepository = sampleRepository;
+        this.orderRepository = orderRepository;
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.syncTombstoneService = syncTombstoneService;
+        this.doctorMapper = doctorMapper;
+        this.productMapper = productMapper;
+        this.visitMapper = visitMapper;
+        this.sampleMapper = sampleMapper;
+        this.orderMapper = orderMapper;
+        this.safetyLag = safetyLag;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Returns the next page of changes for an entity type. Without a cursor the client gets
+     * every row (a full sync) and no deletions from before it started. ownerUserId limits
+     * visits, samples and orders to one rep; null returns everyone's.
+     */
+    @Transactional(readOnly = true)
+    public SyncPageDto<?> getChanges(SyncEntityType type, String cursorValue, Integer limit, Long ownerUserId) {
+        // From the primary: a lagging replica would let the cursor pass rows it hasn't received
+        return ReplicaRoutingDataSource.onPrimary(() -> changes(type, cursorValue, limit, ownerUserId));
+    }
+
+    private SyncPageDto<?> changes(SyncEntityType type, String cursorValue, Integer limit, Long ownerUserId) {
+        int pageSize = pageSize(limit);
+        LocalDateTime upTo = LocalDateTime.now().minus(safetyLag);
+        SyncCursor cursor = cursorValue == null || cursorValue.isBlank()
+            ? SyncCursor.initial(upTo, syncTombstoneRepository.findMaxId())
+            : SyncCursor.decode(cursorValue);
+        if (cursor.syncedAt().isBefore(LocalDateTime.now().minus(syncTombstoneService.getRetention()))) {
+            throw new BadRequestException("Sync cursor has expired, start a full sync without a cursor");
+        }
+
+        Long owner = type.isOwnedByRep() ? ownerUserId : null;
+        // One row past the page tells whether there is more
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        LocalDateTime afterTime = cursor.changedAt();
+        long afterId = cursor.changedId();
+
+        return switch (type) {
+            case DOCTORS -> toPage(type, cursor, upTo, pageSize, owner,
+                doctorRepository.findChangedSince(afterTime, afterId, upTo, page),
+                Doctor::getUpdatedAt, Doctor::getId, doctorMapper::toDto);
+            case PRODUCTS -> toPage(type, cursor, upTo, pageSize, owner,
+                productRepository.findChangedSince(afterTime, afterId, upTo, page),
+                Product::getUpdatedAt, Product::getId, productMapper::toDto);
+            case LOCATIONS -> toPage(type, cursor, upTo, pageSize, owner,
+                locationRepository.findChangedSince(afterTime, afterId, upTo, page),
+                Location::getUpdatedAt, Location::getId, LocationDto::fromEntity);
+            case VISITS -> toPage(type, cursor, upTo, pageSize, owner,
+                owner != null
+                    ? visitRepository.findChangedSinceForUser(owner, afterTime, afterId, upTo, page)
+                    : visitRepository.findChangedSince(afterTime, afterId, upTo, page),
+                Visit::getUpdatedAt, Visit::getId, visitMapper::toDto);
+            case SAMPLES -> toPage(type, cursor, upTo, pageSize, owner,
+                owner != null
+                    ? sampleRepository.findChangedSinceForUser(owner, afterTime, afterId, upTo, page)
+                    : sampleRepository.findChangedSince(afterTime, afterId, upTo, page),
+                Sample::getUpdatedAt, Sample::getId, sampleMapper::toDto);
+            case ORDERS -> toPage(type, cursor, upTo, pageSize, owner,
+                findOrdersChangedSince(owner, afterTime, afterId, upTo, page),
+                Order::getUpdatedAt, Order::getId, orderMapper::toDto);
+        };
+    }
+
+    private <E, D> SyncPageDto<D> toPage(SyncEntityType type, SyncCursor cursor, LocalDateTime upTo, int pageSize,
+                                         Long owner, List<E> changed, Function<E, LocalDateTime> updatedAtOf,
+                                         Function<E, Long> idOf, Function<E, D> toDto) {
+        boolean moreChanges = changed.size() > pageSize;
+        List<E> rows = moreChanges ? changed.subList(0, pageSize) : changed;
+
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        List<SyncTombstone> tombstones = owner != null
+            ? syncTombstoneRepository.findAfterForOwner(type, owner, cursor.deletedId(), upTo, page)
+            : syncTombstoneRepository.findAfter(type, cursor.deletedId(), upTo, page);
+        boolean moreDeletes = tombstones.size() > pageSize;
+        if (moreDeletes) {
+            tombstones = tombstones.subList(0, pageSize);
+        }
+
+        LocalDateTime changedAt = cursor.changedAt();
+        long changedId = cursor.changedId();
+        if (!rows.isEmpty()) {
+            E last = rows.get(rows.size() - 1);
+            changedAt = updatedAtOf.apply(last);
+            changedId = idOf.apply(last);
+        }
+        long deletedId = tombstones.isEmpty() ? cursor.deletedId() : tombstones.get(tombstones.size() - 1).getId();
+
+        SyncPageDto<D> dto = new SyncPageDto<>();
+        dto.setItems(rows.stream().map(toDto).collect(Collectors.toList()));
+        dto.setDeletedIds(tombstones.stream().map(SyncTombstone::getEntityId).collect(Collectors.toList()));
+        dto.setNextCursor(new SyncCursor(upTo, changedAt, changedId, deletedId).encode());
+        dto.setHasMore(moreChanges || moreDeletes);
+        return dto;
+    }
+
+    // Pages order ids first, then loads those orders with their items in cursor order
+    private List<Order> findOrdersChangedSince(Long owner, LocalDateTime afterTime, long afterId,
+                                               LocalDateTime upTo, Pageable page) {
+        List<Long> ids = owner != null
+            ? orderRepository.findIdsChangedSinceForUser(owner, afterTime, afterId, upTo, page)
+            : orderRepository.findIdsChangedSince(afterTime, afterId, upTo, page);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> ordersById = orderRepository.findAllWithAssociationsByIdIn(ids).stream()
+            .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+            .map(ordersById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1 || limit > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        return limit;
+    }
+}
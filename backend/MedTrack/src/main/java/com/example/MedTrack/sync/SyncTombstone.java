@@ -0,0 +1,60 @@
+package com.example.MedTrack.sync;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "sync_tombstone")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class SyncTombstone {
+    
+    // The id is the sync cursor, so it has to grow in commit order; ids reserved in blocks
+    // per instance, as the other entities' are, would let a later delete take a lower one
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 20)
+    private SyncEntityType entityType;
+    
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+    
+    // Rep the deleted visit, sample or order belonged to; null for reference data
+    @Column(name = "owner_user_id")
+    private Long ownerUserId;
+    
+    @Column(name = "deleted_at", nullable = false, updatable = false)
+    private LocalDateTime deletedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        if (deletedAt == null) {
+            deletedAt = LocalDateTime.now();
+        }
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof SyncTombstone other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return SyncTombstone.class.hashCode();
+    }
+}
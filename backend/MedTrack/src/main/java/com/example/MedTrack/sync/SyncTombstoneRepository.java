@@ -0,0 +1,49 @@
+package com.example.MedTrack.sync;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface SyncTombstoneRepository extends JpaRepository<SyncTombstone, Long> {
+    
+    // Keyset page over idx_tombstone_type: deletions of a type after the cursor id
+    @Query("SELECT t FROM SyncTombstone t WHERE t.entityType = :type AND t.id > :afterId " +
+           "AND t.deletedAt <= :upTo ORDER BY t.id")
+    List<SyncTombstone> findAfter(
+        @Param("type") SyncEntityType type,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Keyset page over idx_tombstone_type_owner: one rep's deletions of a type after the cursor id
+    @Query("SELECT t FROM SyncTombstone t WHERE t.entityType = :type AND t.ownerUserId = :ownerUserId " +
+           "AND t.id > :afterId AND t.deletedAt <= :upTo ORDER BY t.id")
+    List<SyncTombstone> findAfterForOwner(
+        @Param("type") SyncEntityType type,
+        @Param("ownerUserId") Long ownerUserId,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Where a full sync starts reading deletions from
+    @Query("SELECT COALESCE(MAX(t.id), 0) FROM SyncTombstone t")
+    Long findMaxId();
+    
+    // Purges in chunks over idx_tombstone_deleted so one run never locks the whole table
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "sync_tombstone"))
+    @Transactional
+    @Query(value = "DELETE FROM sync_tombstone WHERE deleted_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff, @Param("limit") int limit);
+}
@@ -0,0 +1,63 @@
+package com.example.MedTrack.sync;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records deleted rows for the sync API. Services call {@link #recordDeleted} in the same
+ * transaction as the delete, so a tombstone exists exactly when the row is gone.
+ *
+ * Rows removed or detached by a database cascade (a doctor's visits, samples and orders,
+ * the samples and orders of a deleted visit) get no tombstone of their own; clients drop
+ * them along with their parent.
+ * Tombstones are kept for the configured retention, and cursors older than that are
+ * refused so the client falls back to a full sync.
+ */
+@Service
+public class SyncTombstoneService {
+    private static final Logger log = LoggerFactory.getLogger(SyncTombstoneService.class);
+
+    private final SyncTombstoneRepository syncTombstoneRepository;
+    private final Duration retention;
+    private final int purgeBatchSize;
+
+    public SyncTombstoneService(SyncTombstoneRepository syncTombstoneRepository,
+                                @Value("${medtrack.sync.tombstone-retention:P30D}") Duration retention,
+                                @Value("${medtrack.sync.purge-batch-size:1000}") int purgeBatchSize) {
+        this.syncTombstoneRepository = syncTombstoneRepository;
+        this.retention = retention;
+        this.purgeBatchSize = purgeBatchSize;
+    }
+
+    public void recordDeleted(SyncEntityType type, Long entityId, Long ownerUserId) {
+        SyncTombstone tombstone = new SyncTombstone();
+        tombstone.setEntityType(type);
+        tombstone.setEntityId(entityId);
+        tombstone.setOwnerUserId(ownerUserId);
+        syncTombstoneRepository.save(tombstone);
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.sync.purge-interval:PT6H}")
+    public void purgeExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = syncTombstoneRepository.deleteOlderThan(cutoff, purgeBatchSize);
+            purged += deleted;
+        } while (deleted == purgeBatchSize);
+        if (purged > 0) {
+            log.info("Purged {} sync tombstones older than {}", purged, cutoff);
+        }
+    }
+}
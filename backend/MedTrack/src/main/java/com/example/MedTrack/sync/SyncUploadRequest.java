@@ -0,0 +1,17 @@
+package com.example.MedTrack.sync;
+
+import lombok.Data;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class SyncUploadRequest {
+    
+    // Applied in this order, so samples and orders can follow the visit they belong to
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 500, message = "Cannot upload more than 500 operations at once")
+    @Valid
+    private List<SyncOperationRequest> operations;
+}
@@ -0,0 +1,13 @@
+package com.example.MedTrack.sync;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class SyncUploadResponseDto {
+    private int applied;
+    private int failed;
+    // One per operation, in request order
+    private List<SyncOperationResultDto> results;
+}
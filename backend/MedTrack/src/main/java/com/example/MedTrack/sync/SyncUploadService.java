@@ -0,0 +1,460 @@
+package com.example.MedTrack.sync;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.coverage.CoverageIndex;
+import com.example.MedTrack.dashboard.RepKpiService;
+import com.example.MedTrack.doctors.Doctor;
+import com.example.MedTrack.doctors.DoctorRepository;
+import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.exceptions.ForbiddenException;
+import com.example.MedTrack.exceptions.ResourceNotFoundException;
+import com.example.MedTrack.geo.GeofenceChecker;
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.locations.LocationRepository;
+import com.example.MedTrack.orders.Order;
+import com.example.MedTrack.orders.OrderItem;
+import com.example.MedTrack.orders.OrderItemRequest;
+import com.example.MedTrack.orders.OrderRepository;
+import com.example.MedTrack.orders.OrderRequest;
+import com.example.MedTrack.orders.OrderNumberGenerator;
+import com.example.MedTrack.orders.OrderStatus;
+import com.example.MedTrack.products.Product;
+import com.example.MedTrack.products.ProductRepository;
+import com.example.MedTrack.products.StockService;
+import com.example.MedTrack.samples.IssuedSample;
+import com.example.MedTrack.samples.Sample;
+import com.example.MedTrack.samples.SampleRepository;
+import com.example.MedTrack.samples.SampleRequest;
+import com.example.MedTrack.users.User;
+import com.example.MedTrack.users.UserRepository;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitRepository;
+import com.example.MedTrack.visits.VisitRequest;
+import com.example.MedTrack.visits.VisitService;
+import com.example.MedTrack.visits.VisitStatus;
+
+/**
+ * Applies visits, samples and orders recorded offline. Every user, doctor, location,
+ * product and existing visit the upload refers to is loaded up front with one query per
+ * type, each operation is checked against those, and the operations that pass are written
+ * with JDBC batches in one transaction. An operation that fails a check is reported in its
+ * result and skipped, as are samples and orders pointing at a visit that failed.
+ *
+ * A visit with a check-in time at a location must carry the device position recorded at
+ * check-in, which is held to the location's geofence as a live start would be.
+ *
+ * Stock is checked per operation against the loaded product rows and then reserved for
+ * the whole upload at once; if a concurrent order takes the stock in between, the upload
+ * fails as a whole and can be retried. Like any POST, a resent upload creates its records
+ * again unless it carries an Idempotency-Key.
+ */
+@Service
+public class SyncUploadService {
+    private final UserRepository userRepository;
+    private final DoctorRepository doctorRepository;
+    private final LocationRepository locationRepository;
+    private final ProductRepository productRepository;
+    private final VisitRepository visitRepository;
+    private final SampleRepository sampleRepository;
+    private final OrderRepository orderRepository;
+    private final StockService stockService;
+    private final RepKpiService repKpiService;
+    private final CoverageIndex coverageIndex;
+    private final OrderNumberGenerator orderNumberGenerator;
+    private final GeofenceChecker geofenceChecker;
+
+    public SyncUploadService(UserRepository userRepository, DoctorRepository doctorRepository,
+                             LocationRepository locationRepository, ProductRepository productRepository,
+                             VisitRepository visitRepository, SampleRepository sampleRepository,
+                             OrderRepository orderRepository, StockService stockService,
+                             RepKpiService repKpiService, CoverageIndex coverageIndex,
+                             OrderNumberGenerator orderNumberGenerator, GeofenceChecker geofenceChecker) {
+        this.userRepository = userRepository;
+        this.doctorRepository = doctorRepository;
+        this.locationRepository = locationRepository;
+        this.productRepository = productRepository;
+        this.visitRepository = visitRepository;
+        this.sampleRepository = sampleRepository;
+        this.orderRepository = orderRepository;
+        this.stockService = stockService;
+        this.repKpiService = repKpiService;
+        this.coverageIndex = coverageIndex;
+        this.orderNumberGenerator = orderNumberGenerator;
+        this.geofenceChecker = geofenceChecker;
+    }
+
+    /**
+     * Applies the operations in order. With ownVisitsOnly set (reps), visits can only be
+     * uploaded for callerUserId, and samples and orders only attached to callerUserId's visits.
+     */
+    @Transactional
+    public SyncUploadResponseDto upload(SyncUploadRequest request, Long callerUserId, boolean ownVisitsOnly) {
+        List<SyncOperationRequest> operations = request.getOperations();
+        References references = loadReferences(operations);
+        PendingWrites pending = new PendingWrites();
+
+        List<SyncOperationResultDto> results = new ArrayList<>(operations.size());
+        Set<String> clientIds = new HashSet<>();
+        for (SyncOperationRequest operation : operations) {
+            SyncOperationResultDto result = new SyncOperationResultDto();
+            result.setClientId(operation.getClientId());
+            result.setType(operation.getType());
+            results.add(result);
+            try {
+                if (!clientIds.add(operation.getClientId())) {
+                    throw new BadRequestException("Duplicate client id '" + operation.getClientId() + "' in this upload");
+                }
+                switch (operation.getType()) {
+                    case VISIT -> {
+                        Visit visit = prepareVisit(operation, references, callerUserId, ownVisitsOnly);
+                        pending.visits.add(visit);
+                        pending.visitNotes.add(operation.getVisit().getNotes());
+                        pending.visitResults.add(result);
+                        pending.visitsByClientId.put(operation.getClientId(), visit);
+                    }
+                    case SAMPLE -> {
+                        pending.samples.add(prepareSample(operation, references, pending, callerUserId, ownVisitsOnly));
+                        pending.sampleResults.add(result);
+                    }
+                    case ORDER -> {
+                        pending.orders.add(prepareOrder(operation, references, pending, callerUserId, ownVisitsOnly));
+                        pending.orderResults.add(result);
+                    }
+                }
+                result.setStatus(SyncOperationStatus.APPLIED);
+            } catch (BadRequestException | ResourceNotFoundException | ForbiddenException e) {
+                result.setStatus(SyncOperationStatus.FAILED);
+                result.setError(e.getMessage());
+            }
+        }
+
+        write(pending);
+
+        SyncUploadResponseDto response = new SyncUploadResponseDto();
+        response.setResults(results);
+        response.setApplied((int) results.stream().filter(r -> r.getStatus() == SyncOperationStatus.APPLIED).count());
+        response.setFailed(results.size() - response.getApplied());
+        return response;
+    }
+
+    private Visit prepareVisit(SyncOperationRequest operation, References references,
+                               Long callerUserId, boolean ownVisitsOnly) {
+        VisitRequest request = require(operation.getVisit(), operation);
+        if (ownVisitsOnly && !request.getUserId().equals(callerUserId)) {
+            throw new ForbiddenException("Reps can only upload their own visits");
+        }
+        User user = references.user(request.getUserId());
+        Doctor doctor = references.doctor(request.getDoctorId());
+
+        Location location = null;
+        if (request.getLocationId() != null) {
+            location = references.location(request.getLocationId());
+            // Validate user has access to this location
+            boolean assigned = user.getLocations().stream()
+                .anyMatch(userLocation -> userLocation.getId().equals(request.getLocationId()));
+            if (!assigned) {
+                throw new BadRequestException("User does not have access to location with id: " + request.getLocationId());
+            }
+            // The device records its position at check-in, so offline check-ins meet the same geofence
+            if (request.getCheckInTime() != null) {
+                geofenceChecker.checkInside(location, request.getLatitude(), request.getLongitude(), request.getAccuracyMeters());
+            }
+        }
+
+        if (request.getVisitDate().isAfter(LocalDate.now())) {
+            throw new BadRequestException("Visit date cannot be in the future");
+        }
+
+        Visit visit = new Visit();
+        visit.setUser(user);
+        visit.setDoctor(doctor);
+        visit.setLocation(location);
+        visit.setVisitDate(request.getVisitDate());
+        visit.setCheckInTime(request.getCheckInTime());
+        visit.setCheckOutTime(request.getCheckOutTime());
+        visit.setStatus(request.getStatus() != null ? request.getStatus() : VisitStatus.COMPLETED);
+        String notes = request.getNotes();
+        if (notes != null && !notes.isEmpty()) {
+            visit.setNotesPreview(notes.substring(0, Math.min(VisitService.NOTES_PREVIEW_LENGTH, notes.length())));
+        }
+        return visit;
+    }
+
+    private Sample prepareSample(SyncOperationRequest operation, References references, PendingWrites pending,
+                                 Long callerUserId, boolean ownVisitsOnly) {
+        SampleRequest request = require(operation.getSample(), operation);
+        Visit visit = resolveVisit(operation, request.getVisitId(), request.getDoctorId(), references, pending,
+            callerUserId, ownVisitsOnly);
+        Doctor doctor = references.doctor(request.getDoctorId());
+        Product product = references.product(request.getProductId());
+
+        if (request.getDateIssued().isAfter(LocalDate.now())) {
+            throw new BadRequestException("Date issued cannot be in the future");
+        }
+        checkStock(Map.of(product.getId(), request.getQuantity()), references, pending);
+
+        Sample sample = new Sample();
+        sample.setDoctor(doctor);
+        sample.setProduct(product);
+        sample.setQuantity(request.getQuantity());
+        sample.setDateIssued(request.getDateIssued());
+        sample.setVisit(visit);
+        return sample;
+    }
+
+    private Order prepareOrder(SyncOperationRequest operation, References references, PendingWrites pending,
+                               Long callerUserId, boolean ownVisitsOnly) {
+        OrderRequest request = require(operation.getOrder(), operation);
+        Visit visit = resolveVisit(operation, request.getVisitId(), request.getDoctorId(), references, pending,
+            callerUserId, ownVisitsOnly);
+        Doctor doctor = references.doctor(request.getDoctorId());
+
+        if (request.getOrderDate().isAfter(LocalDate.now())) {
+            throw new BadRequestException("Order date cannot be in the future");
+        }
+        if (request.getOrderItems() == null || request.getOrderItems().isEmpty()) {
+            throw new BadRequestException("Order must have at least one item");
+        }
+
+        Order order = new Order();
+        order.setDoctor(doctor);
+        order.setOrderDate(request.getOrderDate());
+        order.setStatus(request.getStatus());
+        order.setPaymentStatus(request.getPaymentStatus());
+        order.setNotes(request.getNotes());
+        order.setVisit(visit);
+        for (OrderItemRequest itemRequest : request.getOrderItems()) {
+            OrderItem orderItem = new OrderItem();
+            orderItem.setProduct(references.product(itemRequest.getProductId()));
+            orderItem.setQuantity(itemRequest.getQuantity());
+            orderItem.setUnitPrice(itemRequest.getUnitPrice());
+            orderItem.setDiscountPercent(itemRequest.getDiscountPercent() != null ?
+                itemRequest.getDiscountPercent() : BigDecimal.ZERO);
+            orderItem.calculateSubtotal();
+            order.addOrderItem(orderItem);
+        }
+        order.calculateTotalAmount();
+
+        if (order.getStatus() != OrderStatus.CANCELLED) {
+            checkStock(quantitiesByProductId(order), references, pending);
+        }
+        return order;
+    }
+
+    // A visit created earlier in this upload, or an existing one; reps can only attach to their own
+    private Visit resolveVisit(SyncOperationRequest operation, Long visitId, Long doctorId,
+                               References references, PendingWrites pending,
+                               Long callerUserId, boolean ownVisitsOnly) {
+        Visit visit = null;
+        if (operation.getVisitClientId() != null) {
+            visit = pending.visitsByClientId.get(operation.getVisitClientId());
+            if (visit == null) {
+                throw new BadRequestException("Visit with client id '" + operation.getVisitClientId() +
+                    "' was not created earlier in this upload");
+            }
+        } else if (visitId != null) {
+            visit = references.visit(visitId);
+            // Visits from this upload were already held to prepareVisit's check
+            if (ownVisitsOnly && !visit.getUser().getId().equals(callerUserId)) {
+                throw new ForbiddenException("Reps can only attach samples and orders to their own visits");
+            }
+        }
+        // Validate that the visit is for the same doctor
+        if (visit != null && !visit.getDoctor().getId().equals(doctorId)) {
+            throw new BadRequestException("Visit does not belong to the specified doctor");
+        }
+        return visit;
+    }
+
+    /**
+     * Fails the operation if the product rows can't cover it on top of what earlier
+     * operations in this upload already claimed. Untracked and hot products are left to
+     * the reservation.
+     */
+    private void checkStock(Map<Long, Integer> quantitiesByProductId, References references, PendingWrites pending) {
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            Integer stock = references.product(productId).getStockQuantity();
+            if (stock == null || stockService.isHeldInMemory(productId)) {
+                return;
+            }
+            int claimed = pending.claimedStock.getOrDefault(productId, 0);
+            if (stock - claimed < quantity) {
+                throw new BadRequestException("Insufficient stock for product with id: " + productId);
+            }
+        });
+        quantitiesByProductId.forEach((productId, quantity) -> pending.claimedStock.merge(productId, quantity, Integer::sum));
+    }
+
+    private void write(PendingWrites pending) {
+        // Reserve everything first; if anything ran out since the check the whole upload rolls back
+        Map<Long, Integer> reserved = new HashMap<>();
+        for (Sample sample : pending.samples) {
+            reserved.merge(sample.getProduct().getId(), sample.getQuantity(), Integer::sum);
+        }
+        for (Order order : pending.orders) {
+            if (order.getStatus() != OrderStatus.CANCELLED) {
+                quantitiesByProductId(order).forEach((productId, quantity) -> reserved.merge(productId, quantity, Integer::sum));
+            }
+        }
+        if (!reserved.isEmpty()) {
+            stockService.reserve(reserved);
+        }
+
+        // Visits first, so samples and orders on new visits have their ids
+        visitRepository.insertVisits(pending.visits, pending.visitNotes);
+        for (int i = 0; i < pending.visits.size(); i++) {
+            pending.visitResults.get(i).setServerId(pending.visits.get(i).getId());
+        }
+
+        // Samples are upserted on (doctor, product), so the ids come from the rows they landed on
+        List<IssuedSample> issuedSamples = sampleRepository.upsertSamples(pending.samples);
+        for (int i = 0; i < issuedSamples.size(); i++) {
+            pending.sampleResults.get(i).setServerId(issuedSamples.get(i).id());
+        }
+
+        if (!pending.orders.isEmpty()) {
+            List<String> orderNumbers = orderNumberGenerator.next(pending.orders.size());
+            for (int i = 0; i < pending.orders.size(); i++) {
+                pending.orders.get(i).setOrderNumber(orderNumbers.get(i));
+            }
+            orderRepository.insertOrders(pending.orders);
+            for (int i = 0; i < pending.orders.size(); i++) {
+                pending.orderResults.get(i).setServerId(pending.orders.get(i).getId());
+            }
+        }
+
+        repKpiService.recordVisitsAdded(pending.visits);
+        coverageIndex.recordVisitsAdded(pending.visits);
+        List<RepKpiService.Contribution> contributions = new ArrayList<>();
+        issuedSamples.forEach(issued -> contributions.add(RepKpiService.contributionOf(issued)));
+        pending.orders.forEach(order -> contributions.add(RepKpiService.contributionOf(order)));
+        repKpiService.recordAllAdded(contributions);
+    }
+
+    // One query per referenced type, however many operations there are
+    private References loadReferences(List<SyncOperationRequest> operations) {
+        Set<Long> userIds = new HashSet<>();
+        Set<Long> doctorIds = new HashSet<>();
+        Set<Long> locationIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        Set<Long> visitIds = new HashSet<>();
+        for (SyncOperationRequest operation : operations) {
+            if (operation.getType() == SyncOperationType.VISIT && operation.getVisit() != null) {
+                VisitRequest visit = operation.getVisit();
+                userIds.add(visit.getUserId());
+                doctorIds.add(visit.getDoctorId());
+                if (visit.getLocationId() != null) {
+                    locationIds.add(visit.getLocationId());
+                }
+            } else if (operation.getType() == SyncOperationType.SAMPLE && operation.getSample() != null) {
+                SampleRequest sample = operation.getSample();
+                doctorIds.add(sample.getDoctorId());
+                productIds.add(sample.getProductId());
+                if (operation.getVisitClientId() == null && sample.getVisitId() != null) {
+                    visitIds.add(sample.getVisitId());
+                }
+            } else if (operation.getType() == SyncOperationType.ORDER && operation.getOrder() != null) {
+                OrderRequest order = operation.getOrder();
+                doctorIds.add(order.getDoctorId());
+                if (order.getOrderItems() != null) {
+                    order.getOrderItems().forEach(item -> productIds.add(item.getProductId()));
+                }
+                if (operation.getVisitClientId() == null && order.getVisitId() != null) {
+                    visitIds.add(order.getVisitId());
+                }
+            }
+        }
+
+        References references = new References();
+        if (!userIds.isEmpty()) {
+            references.users = byId(userRepository.findAllWithLocationsByIdIn(userIds), User::getId);
+        }
+        references.doctors = byId(doctorRepository.findAllById(doctorIds), Doctor::getId);
+        references.locations = byId(locationRepository.findAllById(locationIds), Location::getId);
+        references.products = byId(productRepository.findAllById(productIds), Product::getId);
+        references.visits = byId(visitRepository.findAllById(visitIds), Visit::getId);
+        return references;
+    }
+
+    private static <T> T require(T payload, SyncOperationRequest operation) {
+        if (payload == null) {
+            throw new BadRequestException(operation.getType().name().toLowerCase() +
+                " is required for a " + operation.getType() + " operation");
+        }
+        return payload;
+    }
+
+    private static Map<Long, Integer> quantitiesByProductId(Order order) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItem item : order.getOrderItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private static <T> Map<Long, T> byId(List<T> entities, Function<T, Long> idOf) {
+        return entities.stream().collect(Collectors.toMap(idOf, Function.identity()));
+    }
+
+    private static class References {
+        Map<Long, User> users = Map.of();
+        Map<Long, Doctor> doctors = Map.of();
+        Map<Long, Location> locations = Map.of();
+        Map<Long, Product> products = Map.of();
+        Map<Long, Visit> visits = Map.of();
+
+        User user(Long id) {
+            return find(users, id, "User");
+        }
+
+        Doctor doctor(Long id) {
+            return find(doctors, id, "Doctor");
+        }
+
+        Location location(Long id) {
+            return find(locations, id, "Location");
+        }
+
+        Product product(Long id) {
+            return find(products, id, "Product");
+        }
+
+        Visit visit(Long id) {
+            return find(visits, id, "Visit");
+        }
+
+        private static <T> T find(Map<Long, T> byId, Long id, String name) {
+            T entity = byId.get(id);
+            if (entity == null) {
+                throw new ResourceNotFoundException(name + " not found with id: " + id);
+            }
+            return entity;
+        }
+    }
+
+    // Operations that passed their checks, written together at the end
+    private static class PendingWrites {
+        final List<Visit> visits = new ArrayList<>();
+        final List<String> visitNotes = new ArrayList<>();
+        final List<SyncOperationResultDto> visitResults = new ArrayList<>();
+        final Map<String, Visit> visitsByClientId = new HashMap<>();
+        final List<Sample> samples = new ArrayList<>();
+        final List<SyncOperationResultDto> sampleResults = new ArrayList<>();
+        final List<Order> orders = new ArrayList<>();
+        final List<SyncOperationResultDto> orderResults = new ArrayList<>();
+        // Stock taken by the operations above, per product
+        final Map<Long, Integer> claimedStock = new HashMap<>();
+    }
+}
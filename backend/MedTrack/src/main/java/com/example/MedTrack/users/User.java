@@ -5,8 +5,12 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDateTime;
@@ -15,13 +19,18 @@ import java.util.Set;
 
 @Entity
 @Table(name = "users")
-@Data
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class User {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "users_id")
+    @TableGenerator(name = "users_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "users", allocationSize = 50)
     private Long id;
     
     @NotBlank(message = "Name is required")
@@ -33,10 +42,6 @@ public class User {
     @Column(name = "email", nullable = false, unique = true, length = 150)
     private String email;
     
-    @NotBlank(message = "Password is required")
-    @Column(name = "password_hash", nullable = false, length = 255)
-    private String passwordHash;
-    
     @Enumerated(EnumType.STRING)
     @Column(name = "role", nullable = false, length = 20)
     private UserRole role;
@@ -55,15 +60,30 @@ public class User {
     private LocalDateTime updatedAt;
     
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user.locations")
     @JoinTable(
         name = "user_locations",
         joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "location_id")
     )
+    @ToString.Exclude
     private Set<Location> locations = new HashSet<>();
     
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
-}
\ No newline at end of file
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof User other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return User.class.hashCode();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.MedTrack.users;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+// Kept apart from User so the password hash never ends up in the second-level cache
+@Entity
+@Table(name = "user_credentials")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserCredentials {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "password_hash", nullable = false, length = 255)
+    @ToString.Exclude
+    private String passwordHash;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof UserCredentials other && userId != null && userId.equals(other.getUserId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(userId);
+    }
+}
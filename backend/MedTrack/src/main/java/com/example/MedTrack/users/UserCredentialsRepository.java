@@ -0,0 +1,6 @@
+package com.example.MedTrack.users;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface UserCredentialsRepository extends JpaRepository<UserCredentials, Long> {
+}
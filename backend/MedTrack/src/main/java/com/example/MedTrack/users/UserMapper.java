@@ -9,7 +9,6 @@ public interface UserMapper {
     UserDto toDto(User user);
     
     @Mapping(target = "id", ignore = true)
-    @Mapping(target = "passwordHash", ignore = true)
     @Mapping(target = "isActive", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
@@ -17,7 +16,6 @@ public interface UserMapper {
     User toEntity(RegisterRequest request);
     
     @Mapping(target = "id", ignore = true)
-    @Mapping(target = "passwordHash", ignore = true)
     @Mapping(target = "isActive", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     @Mapping(target = "updatedAt", ignore = true)
@@ -1,16 +1,39 @@
 package com.example.MedTrack.users;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
+    
+    // Served from the query cache until a user changes
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "query.users-by-role")
+    })
     List<User> findByRole(UserRole role);
+    
     List<User> findByIsActive(Boolean isActive);
     List<User> findByRoleAndIsActive(UserRole role, Boolean isActive);
     
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.locations WHERE u.id = :id")
     Optional<User> findByIdWithLocations(@Param("id") Long id);
+    
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.locations WHERE u.id IN :ids")
+    List<User> findAllWithLocationsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Principal cache: role, active flag and one location id per row (null without locations)
+    @Query("SELECT u.role, u.isActive, l.id FROM User u LEFT JOIN u.locations l WHERE u.id = :id")
+    List<Object[]> findPrincipalRows(@Param("id") Long id);
+    
+    // Users with the given role assigned to at least one of the manager's locations
+    @Query("SELECT DISTINCT u FROM User u JOIN u.locations l WHERE u.role = :role AND l.id IN " +
+           "(SELECT ml.id FROM User m JOIN m.locations ml WHERE m.id = :managerId)")
+    List<User> findByRoleSharingLocationsWith(@Param("role") UserRole role, @Param("managerId") Long managerId);
 }
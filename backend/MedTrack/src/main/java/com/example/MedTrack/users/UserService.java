@@ -7,8 +7,12 @@ import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.auth.PrincipalCache;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
 import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.invalidation.CachedEntity;
+import com.example.MedTrack.invalidation.InvalidationBus;
 import com.example.MedTrack.locations.Location;
 import com.example.MedTrack.locations.LocationDto;
 import com.example.MedTrack.locations.LocationService;
@@ -16,17 +20,26 @@ import com.example.MedTrack.locations.LocationService;
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final UserCredentialsRepository userCredentialsRepository;
     private final UserMapper userMapper;
     private final PasswordEncoder passwordEncoder;
     private final LocationService locationService;
+    private final PrincipalCache principalCache;
+    private final InvalidationBus invalidationBus;
     
-    public UserService(UserRepository userRepository, UserMapper userMapper, PasswordEncoder passwordEncoder, LocationService locationService) {
+    public UserService(UserRepository userRepository, UserCredentialsRepository userCredentialsRepository,
+                       UserMapper userMapper, PasswordEncoder passwordEncoder, LocationService locationService,
+                       PrincipalCache principalCache, InvalidationBus invalidationBus) {
         this.userRepository = userRepository;
+        this.userCredentialsRepository = userCredentialsRepository;
         this.userMapper = userMapper;
         this.passwordEncoder = passwordEncoder;
         this.locationService = locationService;
+        this.principalCache = principalCache;
+        this.invalidationBus = invalidationBus;
     }
 
+    @Transactional
     public UserDto createUser(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.findByEmail(request.getEmail()).isPresent()) {
@@ -34,7 +47,6 @@ public class UserService {
         }
         
         User user = userMapper.toEntity(request);
-        user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
         
         // Ensure role is set (default to REP if not specified)
         if (user.getRole() == null) {
@@ -57,15 +69,19 @@ public class UserService {
         }
         
         User savedUser = userRepository.save(user);
+        setPassword(savedUser.getId(), request.getPassword());
+        invalidationBus.publish(CachedEntity.USER, savedUser.getId());
         return mapToDto(savedUser);
     }
 
+    @Transactional(readOnly = true)
     public UserDto getUserById(Long id) {
         User user = userRepository.findByIdWithLocations(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         return mapToDto(user);
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getAllUsers() {
         List<User> users = userRepository.findAll();
         return users.stream()
@@ -73,6 +89,7 @@ public class UserService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<UserDto> getUsersByRole(UserRole role) {
         List<User> users = userRepository.findByRole(role);
         return users.stream()
@@ -80,6 +97,7 @@ public class UserService {
             .collect(Collectors.toList());
     }
 
+    @Transactional
     public UserDto updateUser(Long id, UserDto userDto) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
@@ -88,7 +106,7 @@ public class UserService {
         
         // Handle password update if provided
         if (userDto.getPassword() != null && !userDto.getPassword().trim().isEmpty()) {
-            user.setPasswordHash(passwordEncoder.encode(userDto.getPassword()));
+            setPassword(user.getId(), userDto.getPassword());
         }
         
         // Handle location updates if provided
@@ -105,36 +123,48 @@ public class UserService {
         user.setUpdatedAt(java.time.LocalDateTime.now());
         
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(id);
+        invalidationBus.publish(CachedEntity.USER, id);
         return mapToDto(updatedUser);
     }
 
+    @Transactional
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new ResourceNotFoundException("User not found with id: " + id);
         }
         userRepository.deleteById(id);
+        principalCache.invalidate(id);
+        invalidationBus.publish(CachedEntity.USER, id);
     }
 
+    @Transactional
     public UserDto deactivateUser(Long id) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
         user.setIsActive(false);
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(id);
+        invalidationBus.publish(CachedEntity.USER, id);
         return mapToDto(updatedUser);
     }
 
+    @Transactional
     public UserDto activateUser(Long id) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
         user.setIsActive(true);
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(id);
+        invalidationBus.publish(CachedEntity.USER, id);
         return mapToDto(updatedUser);
     }
     
     // Location-related methods
     
+    @Transactional
     public UserDto assignLocationsToUser(Long userId, List<Long> locationIds) {
         User user = userRepository.findByIdWithLocations(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -147,9 +177,12 @@ public class UserService {
         user.setLocations(locations);
         
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
+        invalidationBus.publish(CachedEntity.USER, userId);
         return mapToDto(updatedUser);
     }
     
+    @Transactional
     public UserDto addLocationToUser(Long userId, Long locationId) {
         User user = userRepository.findByIdWithLocations(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -158,9 +191,12 @@ public class UserService {
         user.getLocations().add(location);
         
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
+        invalidationBus.publish(CachedEntity.USER, userId);
         return mapToDto(updatedUser);
     }
     
+    @Transactional
     public UserDto removeLocationFromUser(Long userId, Long locationId) {
         User user = userRepository.findByIdWithLocations(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -169,9 +205,12 @@ public class UserService {
         user.getLocations().remove(location);
         
         User updatedUser = userRepository.save(user);
+        principalCache.invalidate(userId);
+        invalidationBus.publish(CachedEntity.USER, userId);
         return mapToDto(updatedUser);
     }
     
+    @Transactional(readOnly = true)
     public List<LocationDto> getUserLocations(Long userId) {
         User user = userRepository.findByIdWithLocations(userId)
             .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
@@ -181,6 +220,7 @@ public class UserService {
             .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<UserDto> getUsersByLocation(Long locationId) {
         Location location = locationService.getLocationEntityById(locationId);
         
@@ -193,6 +233,17 @@ public class UserService {
             .collect(Collectors.toList());
     }
     
+    private void setPassword(Long userId, String password) {
+        UserCredentials credentials = userCredentialsRepository.findById(userId)
+            .orElseGet(() -> {
+                UserCredentials created = new UserCredentials();
+                created.setUserId(userId);
+                return created;
+            });
+        credentials.setPasswordHash(passwordEncoder.encode(password));
+        userCredentialsRepository.save(credentials);
+    }
+    
     // Helper method to map User to UserDto with locations
     private UserDto mapToDto(User user) {
         UserDto dto = userMapper.toDto(user);
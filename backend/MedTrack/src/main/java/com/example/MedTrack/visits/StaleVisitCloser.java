@@ -0,0 +1,91 @@
+package com.example.MedTrack.visits;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Closes visits that were started but never ended. Stale ids are found with a keyset
+ * scan over idx_visit_status and closed in chunked bulk UPDATE statements, so a run
+ * never loads visit entities or holds one long transaction over the visit table.
+ */
+@Component
+@ConditionalOnProperty(name = "medtrack.visits.auto-close.enabled", havingValue = "true", matchIfMissing = true)
+public class StaleVisitCloser {
+    private static final Logger log = LoggerFactory.getLogger(StaleVisitCloser.class);
+
+    private final VisitRepository visitRepository;
+    private final Duration maxOpenDuration;
+    private final int batchSize;
+    private final Counter closedCounter;
+    private final Timer runTimer;
+
+    public StaleVisitCloser(VisitRepository visitRepository,
+                            MeterRegistry meterRegistry,
+                            @Value("${medtrack.visits.auto-close.max-open-duration:PT12H}") Duration maxOpenDuration,
+                            @Value("${medtrack.visits.auto-close.batch-size:500}") int batchSize) {
+        this.visitRepository = visitRepository;
+        this.maxOpenDuration = maxOpenDuration;
+        this.batchSize = batchSize;
+        this.closedCounter = Counter.builder("medtrack.visits.auto_closed")
+            .description("Visits closed automatically after exceeding the maximum open duration")
+            .register(meterRegistry);
+        this.runTimer = Timer.builder("medtrack.visits.auto_close.run")
+            .description("Duration of a stale visit auto-close run")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${medtrack.visits.auto-close.interval:PT15M}",
+               initialDelayString = "${medtrack.visits.auto-close.initial-delay:PT1M}")
+    public void closeStaleVisits() {
+        long startedAt = System.nanoTime();
+        int closed = closeStaleVisitsNow();
+        runTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        if (closed > 0) {
+            log.info("Auto-closed {} visits in progress for longer than {}", closed, maxOpenDuration);
+        }
+    }
+
+    /**
+     * Runs one pass over all IN_PROGRESS visits opened before now minus the threshold.
+     * Returns the number of visits closed.
+     */
+    public int closeStaleVisitsNow() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(maxOpenDuration);
+        PageRequest chunk = PageRequest.of(0, batchSize);
+
+        int totalClosed = 0;
+        long afterId = 0L;
+        while (true) {
+            List<Long> ids = visitRepository.findIdsByStatusOpenedBefore(
+                VisitStatus.IN_PROGRESS, cutoff, afterId, chunk);
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            int closed = visitRepository.closeVisits(ids, VisitStatus.IN_PROGRESS, VisitStatus.AUTO_CLOSED, now);
+            closedCounter.increment(closed);
+            totalClosed += closed;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+        }
+        return totalClosed;
+    }
+}
@@ -16,5 +16,13 @@ public class StartVisitRequest {
     private Long doctorId;
     
     private String notes;
+    
+    // Device position, checked against the location's geofence
+    private Double latitude;
+    
+    private Double longitude;
+    
+    // Reported GPS accuracy in meters
+    private Double accuracyMeters;
 }
 
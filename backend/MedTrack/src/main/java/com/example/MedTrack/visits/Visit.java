@@ -6,36 +6,47 @@ import com.example.MedTrack.locations.Location;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "visit")
-@Data
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Visit {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "visit_id")
+    @TableGenerator(name = "visit_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "visit", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     @NotNull(message = "User is required")
+    @ToString.Exclude
     private User user;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "doctor_id", nullable = false)
     @NotNull(message = "Doctor is required")
+    @ToString.Exclude
     private Doctor doctor;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "location_id")
+    @ToString.Exclude
     private Location location;
     
     @NotNull(message = "Visit date is required")
@@ -52,8 +63,14 @@ public class Visit {
     @Column(name = "status", length = 20)
     private VisitStatus status = VisitStatus.COMPLETED;
     
-    @Column(name = "notes", columnDefinition = "TEXT")
-    private String notes;
+    // Head of the visit's notes, kept on the row so list queries never touch visit_note
+    @Column(name = "notes_preview", length = 255)
+    private String notesPreview;
+    
+    @OneToMany(mappedBy = "visit", fetch = FetchType.LAZY)
+    @OrderBy("id")
+    @ToString.Exclude
+    private List<VisitNote> notes = new ArrayList<>();
     
     @CreationTimestamp
     @Column(name = "created_at", updatable = false)
@@ -62,9 +79,23 @@ public class Visit {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Set on insert too: the sync cursor needs a non-null updated_at on every row
+    @PrePersist
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
     }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Visit other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return Visit.class.hashCode();
+    }
 }
-
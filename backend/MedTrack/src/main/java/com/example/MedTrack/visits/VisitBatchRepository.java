@@ -0,0 +1,13 @@
+package com.example.MedTrack.visits;
+
+import java.util.List;
+
+public interface VisitBatchRepository {
+    
+    /**
+     * Inserts new visits in one JDBC batch and sets their generated ids. Visits need their
+     * user and doctor set; notes are written as each visit's first note in a second batch.
+     * Bypasses the persistence context, so the visits stay detached.
+     */
+    void insertVisits(List<Visit> visits, List<String> notes);
+}
@@ -0,0 +1,76 @@
+package com.example.MedTrack.visits;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MedTrack.datasource.IdAllocator;
+
+// Picked up by Spring Data as the implementation of VisitRepository's VisitBatchRepository fragment
+public class VisitBatchRepositoryImpl implements VisitBatchRepository {
+    
+    private static final String INSERT_VISIT_SQL =
+        "INSERT INTO visit (id, user_id, doctor_id, location_id, visit_date, check_in_time, check_out_time, status, notes_preview) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    private static final String INSERT_NOTE_SQL = "INSERT INTO visit_note (id, visit_id, body) VALUES (?, ?, ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final IdAllocator idAllocator;
+    
+    public VisitBatchRepositoryImpl(JdbcTemplate jdbcTemplate, IdAllocator idAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = idAllocator;
+    }
+    
+    @Override
+    public void insertVisits(List<Visit> visits, List<String> notes) {
+        if (visits.isEmpty()) {
+            return;
+        }
+        // Ids are reserved up front, so the rows go out as one rewritten multi-row insert
+        long nextId = idAllocator.allocate("visit", visits.size());
+        for (Visit visit : visits) {
+            visit.setId(nextId++);
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_VISIT_SQL)) {
+                for (Visit visit : visits) {
+                    statement.setLong(1, visit.getId());
+                    statement.setLong(2, visit.getUser().getId());
+                    statement.setLong(3, visit.getDoctor().getId());
+                    statement.setObject(4, visit.getLocation() != null ? visit.getLocation().getId() : null, Types.BIGINT);
+                    statement.setDate(5, Date.valueOf(visit.getVisitDate()));
+                    statement.setTimestamp(6, visit.getCheckInTime() != null ? Timestamp.valueOf(visit.getCheckInTime()) : null);
+                    statement.setTimestamp(7, visit.getCheckOutTime() != null ? Timestamp.valueOf(visit.getCheckOutTime()) : null);
+                    statement.setString(8, visit.getStatus().name());
+                    statement.setString(9, visit.getNotesPreview());
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+            return null;
+        });
+        
+        List<Object[]> noteRows = new ArrayList<>();
+        for (int i = 0; i < visits.size(); i++) {
+            String note = notes.get(i);
+            if (note != null && !note.isEmpty()) {
+                noteRows.add(new Object[] { null, visits.get(i).getId(), note });
+            }
+        }
+        if (!noteRows.isEmpty()) {
+            long noteId = idAllocator.allocate("visit_note", noteRows.size());
+            for (Object[] row : noteRows) {
+                row[0] = noteId++;
+            }
+            jdbcTemplate.batchUpdate(INSERT_NOTE_SQL, noteRows, new int[] { Types.BIGINT, Types.BIGINT, Types.LONGVARCHAR });
+        }
+    }
+}
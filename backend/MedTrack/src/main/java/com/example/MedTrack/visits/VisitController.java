@@ -127,15 +127,10 @@ public class VisitController {
     }
     
     @PostMapping("/start")
-    @Operation(summary = "Start a new visit", description = "Starts a new visit with check-in time (REP, MANAGER, ADMIN)")
+    @Operation(summary = "Start a new visit", description = "Starts a new visit with check-in time; the device coordinates must be inside the location's geofence when it has one (REP, MANAGER, ADMIN)")
     @PreAuthorize("hasRole('REP') or hasRole('MANAGER') or hasRole('ADMIN')")
     public ResponseEntity<VisitDto> startVisit(@Valid @RequestBody StartVisitRequest request) {
-        return ResponseEntity.ok(visitService.startVisit(
-            request.getUserId(), 
-            request.getLocationId(), 
-            request.getDoctorId(), 
-            request.getNotes()
-        ));
+        return ResponseEntity.ok(visitService.startVisit(request));
     }
     
     @PutMapping("/{id}/end")
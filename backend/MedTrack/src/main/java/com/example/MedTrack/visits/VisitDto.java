@@ -20,7 +20,8 @@ public class VisitDto {
     private LocalDateTime checkInTime;
     private LocalDateTime checkOutTime;
     private VisitStatus status;
-    private String notes;
+    private String notesPreview;
+    private String notes; // Full notes, only populated for single-visit responses
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     
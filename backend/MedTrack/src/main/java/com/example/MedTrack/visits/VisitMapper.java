@@ -17,6 +17,7 @@ public interface VisitMapper {
     @Mapping(source = "user", target = "user")
     @Mapping(source = "doctor", target = "doctor")
     @Mapping(source = "location", target = "location")
+    @Mapping(target = "notes", ignore = true)
     VisitDto toDto(Visit visit);
 }
 
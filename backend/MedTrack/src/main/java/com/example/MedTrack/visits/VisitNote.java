@@ -0,0 +1,55 @@
+package com.example.MedTrack.visits;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "visit_note")
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class VisitNote {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "visit_note_id")
+    @TableGenerator(name = "visit_note_id", table = "id_generator", pkColumnName = "name", valueColumnName = "next_val",
+        pkColumnValue = "visit_note", allocationSize = 50)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "visit_id", nullable = false, updatable = false)
+    @ToString.Exclude
+    private Visit visit;
+    
+    @NotBlank(message = "Note body is required")
+    @Column(name = "body", columnDefinition = "TEXT", nullable = false, updatable = false)
+    @ToString.Exclude
+    private String body;
+    
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof VisitNote other && id != null && id.equals(other.getId());
+    }
+    
+    @Override
+    public int hashCode() {
+        return VisitNote.class.hashCode();
+    }
+}
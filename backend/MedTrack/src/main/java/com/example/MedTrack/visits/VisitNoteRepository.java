@@ -0,0 +1,10 @@
+package com.example.MedTrack.visits;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.List;
+
+public interface VisitNoteRepository extends JpaRepository<VisitNote, Long> {
+    
+    // Notes of a visit in the order they were appended
+    List<VisitNote> findByVisitIdOrderByIdAsc(Long visitId);
+}
@@ -1,13 +1,30 @@
 package com.example.MedTrack.visits;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface VisitRepository extends JpaRepository<Visit, Long> {
+public interface VisitRepository extends JpaRepository<Visit, Long>, VisitBatchRepository {
+    
+    // Archived visits as Visit entities. Joins mirror the hot table's foreign keys: visits of deleted
+    // users or doctors are left out (ON DELETE CASCADE), deleted locations read as none (SET NULL)
+    String ARCHIVED_VISIT_COLUMNS = "SELECT a.id, a.user_id, a.doctor_id, l.id AS location_id, a.visit_date, a.check_in_time, " +
+        "a.check_out_time, a.status, a.notes_preview, a.created_at, a.updated_at FROM visit_archive a " +
+        "LEFT JOIN locations l ON l.id = a.location_id ";
+    String ARCHIVED_VISIT_SELECT = ARCHIVED_VISIT_COLUMNS +
+        "JOIN users u ON u.id = a.user_id JOIN doctor d ON d.id = a.doctor_id ";
     
     // Find visit by ID with user, doctor, and location eagerly loaded
     @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.user LEFT JOIN FETCH v.doctor LEFT JOIN FETCH v.location WHERE v.id = :id")
@@ -59,6 +76,60 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
         @Param("endDate") LocalDate endDate
     );
     
+    // Archive counterparts of the date-range finders, pruned to the partitions of the range
+    @Query(value = ARCHIVED_VISIT_SELECT + "WHERE a.user_id = :userId AND a.visit_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Visit> findArchivedByUserIdAndDateRange(
+        @Param("userId") Long userId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_VISIT_SELECT + "WHERE a.doctor_id = :doctorId AND a.visit_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Visit> findArchivedByDoctorIdAndDateRange(
+        @Param("doctorId") Long doctorId,
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_VISIT_SELECT + "WHERE a.visit_date BETWEEN :startDate AND :endDate", nativeQuery = true)
+    List<Visit> findArchivedByVisitDateBetween(
+        @Param("startDate") LocalDate startDate,
+        @Param("endDate") LocalDate endDate
+    );
+    
+    @Query(value = ARCHIVED_VISIT_SELECT + "WHERE a.visit_date = :visitDate", nativeQuery = true)
+    List<Visit> findArchivedByVisitDate(@Param("visitDate") LocalDate visitDate);
+    
+    // Archived visits by id, for archived orders and samples that point at them
+    @Query(value = ARCHIVED_VISIT_COLUMNS + "WHERE a.id IN :ids", nativeQuery = true)
+    List<Visit> findArchivedByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Coverage index load: id, rep, location, doctor and date of every visit since the window start,
+    // in id order. Streamed row by row (MySQL needs the MIN_VALUE fetch size for that); call it in a transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "-2147483648"))
+    @Query("SELECT v.id, v.user.id, l.id, v.doctor.id, v.visitDate FROM Visit v LEFT JOIN v.location l " +
+           "WHERE v.visitDate >= :fromDate ORDER BY v.id")
+    Stream<Object[]> streamCoverageSince(@Param("fromDate") LocalDate fromDate);
+    
+    // Coverage refresh: keyset page over idx_visit_updated of visits changed after the (updatedAt, id)
+    // cursor, with the same columns as the load plus updatedAt second
+    @Query("SELECT v.id, v.updatedAt, v.user.id, l.id, v.doctor.id, v.visitDate FROM Visit v LEFT JOIN v.location l " +
+           "WHERE v.updatedAt <= :upTo AND (v.updatedAt > :afterTime OR (v.updatedAt = :afterTime AND v.id > :afterId)) " +
+           "ORDER BY v.updatedAt, v.id")
+    List<Object[]> findCoverageChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Rep and location of the visits left for a doctor on a day, over idx_visit_doctor_date
+    @Query("SELECT v.user.id, l.id FROM Visit v LEFT JOIN v.location l WHERE v.doctor.id = :doctorId AND v.visitDate = :visitDate")
+    List<Object[]> findRepAndLocationByDoctorIdAndVisitDate(
+        @Param("doctorId") Long doctorId,
+        @Param("visitDate") LocalDate visitDate
+    );
+    
     // Find visits by location ID
     @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.user LEFT JOIN FETCH v.doctor LEFT JOIN FETCH v.location WHERE v.location.id = :locationId")
     List<Visit> findByLocationId(@Param("locationId") Long locationId);
@@ -70,5 +141,50 @@ public interface VisitRepository extends JpaRepository<Visit, Long> {
     // Find visits by status
     @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.user LEFT JOIN FETCH v.doctor LEFT JOIN FETCH v.location WHERE v.status = :status")
     List<Visit> findByStatus(@Param("status") VisitStatus status);
+    
+    // Keyset scan over idx_visit_status: ids of visits in a status that were opened before the cutoff
+    @Query("SELECT v.id FROM Visit v WHERE v.status = :status AND v.id > :afterId " +
+           "AND COALESCE(v.checkInTime, v.createdAt) < :cutoff ORDER BY v.id")
+    List<Long> findIdsByStatusOpenedBefore(
+        @Param("status") VisitStatus status,
+        @Param("cutoff") LocalDateTime cutoff,
+        @Param("afterId") Long afterId,
+        Pageable pageable
+    );
+    
+    // Bulk close a chunk of visits, skipping any that left the expected status in the meantime.
+    // updated_at is left to ON UPDATE so each chunk is stamped at its own write, ahead of the sync cursors
+    @Modifying
+    @Transactional
+    @Query("UPDATE Visit v SET v.status = :newStatus, v.checkOutTime = :closedAt " +
+           "WHERE v.id IN :ids AND v.status = :expectedStatus")
+    int closeVisits(
+        @Param("ids") List<Long> ids,
+        @Param("expectedStatus") VisitStatus expectedStatus,
+        @Param("newStatus") VisitStatus newStatus,
+        @Param("closedAt") LocalDateTime closedAt
+    );
+    
+    // Sync: keyset page over idx_visit_updated of visits changed after the (updatedAt, id) cursor
+    @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.user LEFT JOIN FETCH v.doctor LEFT JOIN FETCH v.location " +
+           "WHERE v.updatedAt <= :upTo AND (v.updatedAt > :afterTime OR (v.updatedAt = :afterTime AND v.id > :afterId)) " +
+           "ORDER BY v.updatedAt, v.id")
+    List<Visit> findChangedSince(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
+    
+    // Sync: same page for one rep, over idx_visit_user_updated
+    @Query("SELECT v FROM Visit v LEFT JOIN FETCH v.user LEFT JOIN FETCH v.doctor LEFT JOIN FETCH v.location " +
+           "WHERE v.user.id = :userId AND v.updatedAt <= :upTo AND (v.updatedAt > :afterTime OR (v.updatedAt = :afterTime AND v.id > :afterId)) " +
+           "ORDER BY v.updatedAt, v.id")
+    List<Visit> findChangedSinceForUser(
+        @Param("userId") Long userId,
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("upTo") LocalDateTime upTo,
+        Pageable pageable
+    );
 }
-
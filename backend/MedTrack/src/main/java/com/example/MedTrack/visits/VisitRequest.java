@@ -26,5 +26,16 @@ public class VisitRequest {
     private VisitStatus status;
     
     private String notes;
+    
+    // On update, appended after the existing notes; notes is only used on create
+    private String newNote;
+    
+    // Device position at check-in, checked against the location's geofence when checkInTime is set
+    private Double latitude;
+    
+    private Double longitude;
+    
+    // Reported GPS accuracy in meters
+    private Double accuracyMeters;
 }
 
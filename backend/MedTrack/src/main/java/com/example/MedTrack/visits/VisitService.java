@@ -6,14 +6,24 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import com.example.MedTrack.archive.ArchiveService;
+import com.example.MedTrack.archive.ArchiveTable;
+import com.example.MedTrack.auth.PrincipalCache;
+import com.example.MedTrack.auth.UserPrincipal;
+import com.example.MedTrack.coverage.CoverageIndex;
+import com.example.MedTrack.dashboard.RepKpiService;
 import com.example.MedTrack.exceptions.ResourceNotFoundException;
 import com.example.MedTrack.exceptions.BadRequestException;
+import com.example.MedTrack.geo.GeofenceChecker;
 import com.example.MedTrack.users.User;
 import com.example.MedTrack.users.UserRepository;
 import com.example.MedTrack.doctors.Doctor;
 import com.example.MedTrack.doctors.DoctorRepository;
 import com.example.MedTrack.locations.Location;
 import com.example.MedTrack.locations.LocationService;
+import com.example.MedTrack.sync.SyncEntityType;
+import com.example.MedTrack.sync.SyncTombstoneService;
 
 @Service
 public class VisitService {
@@ -22,21 +32,43 @@ public class VisitService {
     private final UserRepository userRepository;
     private final DoctorRepository doctorRepository;
     private final LocationService locationService;
+    private final VisitNoteRepository visitNoteRepository;
+    private final RepKpiService repKpiService;
+    private final SyncTombstoneService syncTombstoneService;
+    private final ArchiveService archiveService;
+    private final CoverageIndex coverageIndex;
+    private final GeofenceChecker geofenceChecker;
+    private final PrincipalCache principalCache;
+    
+    public static final int NOTES_PREVIEW_LENGTH = 255;
     
     public VisitService(VisitRepository visitRepository, VisitMapper visitMapper,
                        UserRepository userRepository, DoctorRepository doctorRepository,
-                       LocationService locationService) {
+                       LocationService locationService, VisitNoteRepository visitNoteRepository,
+                       RepKpiService repKpiService, SyncTombstoneService syncTombstoneService,
+                       ArchiveService archiveService, CoverageIndex coverageIndex,
+                       GeofenceChecker geofenceChecker, PrincipalCache principalCache) {
         this.visitRepository = visitRepository;
         this.visitMapper = visitMapper;
         this.userRepository = userRepository;
         this.doctorRepository = doctorRepository;
         this.locationService = locationService;
+        this.visitNoteRepository = visitNoteRepository;
+        this.repKpiService = repKpiService;
+        this.syncTombstoneService = syncTombstoneService;
+        this.archiveService = archiveService;
+        this.coverageIndex = coverageIndex;
+        this.geofenceChecker = geofenceChecker;
+        this.principalCache = principalCache;
     }
 
+    @Transactional
     public VisitDto createVisit(VisitRequest request) {
         // Validate user exists
-        User user = userRepository.findById(request.getUserId())
-            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + request.getUserId()));
+        UserPrincipal principal = principalCache.get(request.getUserId());
+        if (principal == null) {
+            throw new ResourceNotFoundException("User not found with id: " + request.getUserId());
+        }
         
         // Validate doctor exists
         Doctor doctor = doctorRepository.findById(request.getDoctorId())
@@ -48,9 +80,14 @@ public class VisitService {
             location = locationService.getLocationEntityById(request.getLocationId());
             
             // Validate user has access to this location
-            if (!user.getLocations().contains(location)) {
+            if (!principal.hasLocation(location.getId())) {
                 throw new BadRequestException("User does not have access to location with id: " + request.getLocationId());
             }
+            
+            // A check-in is held to the geofence, as when the visit is started at the location
+            if (request.getCheckInTime() != null) {
+                geofenceChecker.checkInside(location, request.getLatitude(), request.getLongitude(), request.getAccuracyMeters());
+            }
         }
         
         // Validate visit date is not in the future
@@ -59,28 +96,33 @@ public class VisitService {
         }
         
         Visit visit = new Visit();
-        visit.setUser(user);
+        visit.setUser(userRepository.getReferenceById(principal.getId()));
         visit.setDoctor(doctor);
         visit.setLocation(location);
         visit.setVisitDate(request.getVisitDate());
         visit.setCheckInTime(request.getCheckInTime());
         visit.setCheckOutTime(request.getCheckOutTime());
         visit.setStatus(request.getStatus() != null ? request.getStatus() : VisitStatus.COMPLETED);
-        visit.setNotes(request.getNotes());
+        updateNotesPreview(visit, request.getNotes());
         
         Visit savedVisit = visitRepository.save(visit);
+        appendNote(savedVisit, request.getNotes());
+        repKpiService.recordVisitAdded(savedVisit);
+        coverageIndex.recordVisitAdded(savedVisit);
         // Fetch the saved visit with associations to ensure all data is loaded for the DTO
         Visit visitWithAssociations = visitRepository.findByIdWithAssociations(savedVisit.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found after save"));
-        return visitMapper.toDto(visitWithAssociations);
+        return toDetailDto(visitWithAssociations);
     }
 
+    @Transactional(readOnly = true)
     public VisitDto getVisitById(Long id) {
         Visit visit = visitRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found with id: " + id));
-        return visitMapper.toDto(visit);
+        return toDetailDto(visit);
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getAllVisits() {
         List<Visit> visits = visitRepository.findAllWithAssociations();
         return visits.stream()
@@ -88,6 +130,7 @@ public class VisitService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByUserId(Long userId) {
         // Validate user exists
         if (!userRepository.existsById(userId)) {
@@ -100,6 +143,7 @@ public class VisitService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByDoctorId(Long doctorId) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -112,6 +156,7 @@ public class VisitService {
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByUserIdAndDateRange(Long userId, LocalDate startDate, LocalDate endDate) {
         // Validate user exists
         if (!userRepository.existsById(userId)) {
@@ -123,12 +168,15 @@ public class VisitService {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Visit> visits = visitRepository.findByUserIdAndDateRange(userId, startDate, endDate);
+        List<Visit> visits = archiveService.withArchived(ArchiveTable.VISITS, startDate,
+            visitRepository.findByUserIdAndDateRange(userId, startDate, endDate),
+            () -> visitRepository.findArchivedByUserIdAndDateRange(userId, startDate, endDate));
         return visits.stream()
             .map(visitMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByDoctorIdAndDateRange(Long doctorId, LocalDate startDate, LocalDate endDate) {
         // Validate doctor exists
         if (!doctorRepository.existsById(doctorId)) {
@@ -140,34 +188,45 @@ public class VisitService {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Visit> visits = visitRepository.findByDoctorIdAndDateRange(doctorId, startDate, endDate);
+        List<Visit> visits = archiveService.withArchived(ArchiveTable.VISITS, startDate,
+            visitRepository.findByDoctorIdAndDateRange(doctorId, startDate, endDate),
+            () -> visitRepository.findArchivedByDoctorIdAndDateRange(doctorId, startDate, endDate));
         return visits.stream()
             .map(visitMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByDateRange(LocalDate startDate, LocalDate endDate) {
         // Validate date range
         if (startDate.isAfter(endDate)) {
             throw new BadRequestException("Start date cannot be after end date");
         }
         
-        List<Visit> visits = visitRepository.findByVisitDateBetween(startDate, endDate);
+        List<Visit> visits = archiveService.withArchived(ArchiveTable.VISITS, startDate,
+            visitRepository.findByVisitDateBetween(startDate, endDate),
+            () -> visitRepository.findArchivedByVisitDateBetween(startDate, endDate));
         return visits.stream()
             .map(visitMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByDate(LocalDate visitDate) {
-        List<Visit> visits = visitRepository.findByVisitDate(visitDate);
+        List<Visit> visits = archiveService.withArchived(ArchiveTable.VISITS, visitDate,
+            visitRepository.findByVisitDate(visitDate),
+            () -> visitRepository.findArchivedByVisitDate(visitDate));
         return visits.stream()
             .map(visitMapper::toDto)
             .collect(Collectors.toList());
     }
 
+    @Transactional
     public VisitDto updateVisit(Long id, VisitRequest request) {
         Visit visit = visitRepository.findByIdWithAssociations(id)
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found with id: " + id));
+        RepKpiService.Contribution kpisBefore = RepKpiService.contributionOf(visit);
+        CoverageIndex.VisitKey coverageBefore = CoverageIndex.VisitKey.of(visit);
         
         // Validate user exists if user is being updated
         if (request.getUserId() != null && !request.getUserId().equals(visit.getUser().getId())) {
@@ -206,39 +265,54 @@ public class VisitService {
         if (request.getStatus() != null) {
             visit.setStatus(request.getStatus());
         }
-        if (request.getNotes() != null) {
-            visit.setNotes(request.getNotes());
-        }
+        // Notes are append-only: the earlier ones stay as they are and newNote goes after them
+        updateNotesPreview(visit, request.getNewNote());
         
         Visit updatedVisit = visitRepository.save(visit);
+        appendNote(updatedVisit, request.getNewNote());
+        repKpiService.recordVisitChanged(kpisBefore, updatedVisit);
+        coverageIndex.recordVisitChanged(coverageBefore, updatedVisit);
         // Fetch the updated visit with associations to ensure all data is loaded for the DTO
         Visit visitWithAssociations = visitRepository.findByIdWithAssociations(updatedVisit.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found after update"));
-        return visitMapper.toDto(visitWithAssociations);
+        return toDetailDto(visitWithAssociations);
     }
 
+    @Transactional
     public void deleteVisit(Long id) {
-        if (!visitRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Visit not found with id: " + id);
-        }
-        visitRepository.deleteById(id);
+        Visit visit = visitRepository.findById(id)
+            .orElseThrow(() -> new ResourceNotFoundException("Visit not found with id: " + id));
+        visitRepository.delete(visit);
+        repKpiService.recordVisitRemoved(visit);
+        coverageIndex.recordVisitRemoved(visit);
+        syncTombstoneService.recordDeleted(SyncEntityType.VISITS, id, visit.getUser().getId());
     }
     
     // Location-based visit methods
     
-    public VisitDto startVisit(Long userId, Long locationId, Long doctorId, String notes) {
+    @Transactional
+    public VisitDto startVisit(StartVisitRequest request) {
+        Long userId = request.getUserId();
+        Long locationId = request.getLocationId();
+        Long doctorId = request.getDoctorId();
+        String notes = request.getNotes();
         // Validate user exists
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
+        UserPrincipal principal = principalCache.get(userId);
+        if (principal == null) {
+            throw new ResourceNotFoundException("User not found with id: " + userId);
+        }
         
         // Validate location exists
         Location location = locationService.getLocationEntityById(locationId);
         
         // Validate user has access to this location
-        if (!user.getLocations().contains(location)) {
+        if (!principal.hasLocation(location.getId())) {
             throw new BadRequestException("User does not have access to location with id: " + locationId);
         }
         
+        // Validate user is at the location
+        geofenceChecker.checkInside(location, request.getLatitude(), request.getLongitude(), request.getAccuracyMeters());
+        
         // Validate doctor exists
         Doctor doctor = doctorRepository.findById(doctorId)
             .orElseThrow(() -> new ResourceNotFoundException("Doctor not found with id: " + doctorId));
@@ -250,20 +324,24 @@ public class VisitService {
         }
         
         Visit visit = new Visit();
-        visit.setUser(user);
+        visit.setUser(userRepository.getReferenceById(userId));
         visit.setDoctor(doctor);
         visit.setLocation(location);
         visit.setVisitDate(LocalDate.now());
         visit.setCheckInTime(LocalDateTime.now());
         visit.setStatus(VisitStatus.IN_PROGRESS);
-        visit.setNotes(notes);
+        updateNotesPreview(visit, notes);
         
         Visit savedVisit = visitRepository.save(visit);
+        appendNote(savedVisit, notes);
+        repKpiService.recordVisitAdded(savedVisit);
+        coverageIndex.recordVisitAdded(savedVisit);
         Visit visitWithAssociations = visitRepository.findByIdWithAssociations(savedVisit.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found after save"));
-        return visitMapper.toDto(visitWithAssociations);
+        return toDetailDto(visitWithAssociations);
     }
     
+    @Transactional
     public VisitDto endVisit(Long visitId, String notes) {
         Visit visit = visitRepository.findByIdWithAssociations(visitId)
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found with id: " + visitId));
@@ -271,25 +349,21 @@ public class VisitService {
         if (visit.getStatus() != VisitStatus.IN_PROGRESS) {
             throw new BadRequestException("Visit is not in progress. Current status: " + visit.getStatus());
         }
+        RepKpiService.Contribution kpisBefore = RepKpiService.contributionOf(visit);
         
         visit.setCheckOutTime(LocalDateTime.now());
         visit.setStatus(VisitStatus.COMPLETED);
-        
-        if (notes != null && !notes.isEmpty()) {
-            String existingNotes = visit.getNotes();
-            if (existingNotes != null && !existingNotes.isEmpty()) {
-                visit.setNotes(existingNotes + "\n" + notes);
-            } else {
-                visit.setNotes(notes);
-            }
-        }
+        updateNotesPreview(visit, notes);
         
         Visit updatedVisit = visitRepository.save(visit);
+        appendNote(updatedVisit, notes);
+        repKpiService.recordVisitChanged(kpisBefore, updatedVisit);
         Visit visitWithAssociations = visitRepository.findByIdWithAssociations(updatedVisit.getId())
             .orElseThrow(() -> new ResourceNotFoundException("Visit not found after update"));
-        return visitMapper.toDto(visitWithAssociations);
+        return toDetailDto(visitWithAssociations);
     }
     
+    @Transactional(readOnly = true)
     public List<VisitDto> getVisitsByLocation(Long locationId) {
         // Validate location exists
         locationService.getLocationEntityById(locationId);
@@ -300,6 +374,7 @@ public class VisitService {
             .collect(Collectors.toList());
     }
     
+    @Transactional(readOnly = true)
     public List<VisitDto> getActiveVisitsByUser(Long userId) {
         // Validate user exists
         if (!userRepository.existsById(userId)) {
@@ -311,5 +386,47 @@ public class VisitService {
             .map(visitMapper::toDto)
             .collect(Collectors.toList());
     }
+    
+    // Notes helpers
+    
+    // Maps a single visit including its full notes, which list endpoints leave out
+    private VisitDto toDetailDto(Visit visit) {
+        VisitDto dto = visitMapper.toDto(visit);
+        dto.setNotes(getFullNotes(visit.getId()));
+        return dto;
+    }
+    
+    private String getFullNotes(Long visitId) {
+        List<VisitNote> notes = visitNoteRepository.findByVisitIdOrderByIdAsc(visitId);
+        if (notes.isEmpty()) {
+            return null;
+        }
+        return notes.stream()
+            .map(VisitNote::getBody)
+            .collect(Collectors.joining("\n"));
+    }
+    
+    // Extends the preview on the visit row while it still has room for the appended text
+    private void updateNotesPreview(Visit visit, String notes) {
+        if (notes == null || notes.isEmpty()) {
+            return;
+        }
+        String preview = visit.getNotesPreview();
+        if (preview == null || preview.isEmpty()) {
+            preview = notes;
+        } else if (preview.length() < NOTES_PREVIEW_LENGTH) {
+            preview = preview + "\n" + notes;
+        }
+        visit.setNotesPreview(preview.substring(0, Math.min(NOTES_PREVIEW_LENGTH, preview.length())));
+    }
+    
+    private void appendNote(Visit visit, String notes) {
+        if (notes == null || notes.isEmpty()) {
+            return;
+        }
+        VisitNote note = new VisitNote();
+        note.setVisit(visit);
+        note.setBody(notes);
+        visitNoteRepository.save(note);
+    }
 }
-
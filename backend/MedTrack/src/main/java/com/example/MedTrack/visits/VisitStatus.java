@@ -3,7 +3,8 @@ package com.example.MedTrack.visits;
 public enum VisitStatus {
     IN_PROGRESS("Visit is currently in progress"),
     COMPLETED("Visit has been completed"),
-    CANCELLED("Visit was cancelled");
+    CANCELLED("Visit was cancelled"),
+    AUTO_CLOSED("Visit was closed automatically after staying in progress too long");
     
     private final String description;
     
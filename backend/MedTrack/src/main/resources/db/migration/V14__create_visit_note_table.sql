@@ -0,0 +1,24 @@
+CREATE TABLE visit_note (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    visit_id BIGINT NOT NULL,
+    body TEXT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (visit_id) REFERENCES visit(id) ON DELETE CASCADE,
+    INDEX idx_visit_note_visit(visit_id)
+);
+
+-- Move existing notes out of the visit row, keeping a short preview behind
+INSERT INTO visit_note (visit_id, body, created_at)
+SELECT id, notes, COALESCE(updated_at, created_at)
+FROM visit
+WHERE notes IS NOT NULL AND notes <> '';
+
+ALTER TABLE visit
+ADD COLUMN notes_preview VARCHAR(255);
+
+UPDATE visit
+SET notes_preview = LEFT(notes, 255)
+WHERE notes IS NOT NULL AND notes <> '';
+
+ALTER TABLE visit
+DROP COLUMN notes;
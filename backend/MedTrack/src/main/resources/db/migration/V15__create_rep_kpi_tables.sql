@@ -0,0 +1,55 @@
+-- Per-rep daily counters, maintained incrementally by the services that write visits, samples and orders
+CREATE TABLE rep_daily_stats (
+    user_id BIGINT NOT NULL,
+    stat_date DATE NOT NULL,
+    visits_count INT NOT NULL DEFAULT 0,
+    timed_visits_count INT NOT NULL DEFAULT 0,
+    visit_duration_seconds BIGINT NOT NULL DEFAULT 0,
+    samples_issued INT NOT NULL DEFAULT 0,
+    orders_count INT NOT NULL DEFAULT 0,
+    order_revenue DECIMAL(14,2) NOT NULL DEFAULT 0.00,
+    PRIMARY KEY (user_id, stat_date),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- One row per rep, doctor and month with the latest visit date, so distinct-doctor counts stay small
+CREATE TABLE rep_doctor_coverage (
+    user_id BIGINT NOT NULL,
+    month_start DATE NOT NULL,
+    doctor_id BIGINT NOT NULL,
+    last_visit_date DATE NOT NULL,
+    PRIMARY KEY (user_id, month_start, doctor_id),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (doctor_id) REFERENCES doctor(id) ON DELETE CASCADE
+);
+
+-- Backfill from existing history
+INSERT INTO rep_daily_stats (user_id, stat_date, visits_count, timed_visits_count, visit_duration_seconds)
+SELECT user_id,
+       visit_date,
+       COUNT(*),
+       SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL AND check_out_time > check_in_time THEN 1 ELSE 0 END),
+       SUM(CASE WHEN status = 'COMPLETED' AND check_in_time IS NOT NULL AND check_out_time > check_in_time
+                THEN TIMESTAMPDIFF(SECOND, check_in_time, check_out_time) ELSE 0 END)
+FROM visit
+GROUP BY user_id, visit_date;
+
+INSERT INTO rep_daily_stats (user_id, stat_date, samples_issued)
+SELECT v.user_id, s.date_issued, SUM(s.quantity)
+FROM sample s
+JOIN visit v ON v.id = s.visit_id
+GROUP BY v.user_id, s.date_issued
+ON DUPLICATE KEY UPDATE samples_issued = VALUES(samples_issued);
+
+INSERT INTO rep_daily_stats (user_id, stat_date, orders_count, order_revenue)
+SELECT v.user_id, o.order_date, COUNT(*), SUM(o.total_amount)
+FROM orders o
+JOIN visit v ON v.id = o.visit_id
+WHERE o.status <> 'CANCELLED'
+GROUP BY v.user_id, o.order_date
+ON DUPLICATE KEY UPDATE orders_count = VALUES(orders_count), order_revenue = VALUES(order_revenue);
+
+INSERT INTO rep_doctor_coverage (user_id, month_start, doctor_id, last_visit_date)
+SELECT user_id, DATE_FORMAT(visit_date, '%Y-%m-01'), doctor_id, MAX(visit_date)
+FROM visit
+GROUP BY user_id, DATE_FORMAT(visit_date, '%Y-%m-01'), doctor_id;
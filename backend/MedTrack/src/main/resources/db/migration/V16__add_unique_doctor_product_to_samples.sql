@@ -0,0 +1,18 @@
+-- Fold duplicate (doctor, product) rows into the oldest one: total quantity, latest issue date
+UPDATE sample s
+JOIN (
+    SELECT doctor_id, product_id, MIN(id) AS keep_id, SUM(quantity) AS total_quantity, MAX(date_issued) AS last_issued
+    FROM sample
+    GROUP BY doctor_id, product_id
+    HAVING COUNT(*) > 1
+) d ON s.id = d.keep_id
+SET s.quantity = d.total_quantity,
+    s.date_issued = d.last_issued;
+
+DELETE s FROM sample s
+JOIN sample k ON k.doctor_id = s.doctor_id AND k.product_id = s.product_id AND k.id < s.id;
+
+-- The unique key leads with doctor_id, so it also serves the doctor foreign key
+ALTER TABLE sample
+ADD UNIQUE KEY uk_sample_doctor_product (doctor_id, product_id),
+DROP INDEX idx_sample_doctor;
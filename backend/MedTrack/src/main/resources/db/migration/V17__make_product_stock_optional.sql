@@ -0,0 +1,5 @@
+-- Stock is now enforced on orders and samples. Products that never had a stock level set
+-- (the old default 0) become untracked instead of out of stock, until they are restocked.
+ALTER TABLE product MODIFY stock_quantity INT NULL DEFAULT NULL;
+
+UPDATE product SET stock_quantity = NULL WHERE stock_quantity = 0;
@@ -0,0 +1,15 @@
+-- Responses of POST requests sent with an Idempotency-Key header, replayed to retries
+CREATE TABLE idempotency_key (
+    user_id BIGINT NOT NULL,
+    idempotency_key VARCHAR(100) NOT NULL,
+    request_hash CHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INT,
+    response_content_type VARCHAR(100),
+    response_body MEDIUMTEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (user_id, idempotency_key),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    INDEX idx_idempotency_key_expires(expires_at)
+);
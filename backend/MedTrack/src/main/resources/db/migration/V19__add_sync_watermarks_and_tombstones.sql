@@ -0,0 +1,51 @@
+-- Delta sync: every synced table gets a millisecond updated_at that is set on insert and on
+-- every update, including bulk SQL updates that bypass the entities, plus an (updated_at, id)
+-- index for the keyset cursor.
+ALTER TABLE doctor ADD COLUMN updated_at TIMESTAMP(3) NULL;
+ALTER TABLE product ADD COLUMN updated_at TIMESTAMP(3) NULL;
+
+UPDATE doctor SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+UPDATE product SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+UPDATE locations SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+UPDATE visit SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+UPDATE sample SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+UPDATE orders SET updated_at = COALESCE(created_at, CURRENT_TIMESTAMP(3)) WHERE updated_at IS NULL;
+
+ALTER TABLE doctor
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_doctor_updated (updated_at, id);
+
+ALTER TABLE product
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_product_updated (updated_at, id);
+
+ALTER TABLE locations
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_locations_updated (updated_at, id);
+
+-- Reps sync only their own visits
+ALTER TABLE visit
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_visit_updated (updated_at, id),
+ADD INDEX idx_visit_user_updated (user_id, updated_at, id);
+
+ALTER TABLE sample
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_sample_updated (updated_at, id);
+
+ALTER TABLE orders
+MODIFY updated_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) ON UPDATE CURRENT_TIMESTAMP(3),
+ADD INDEX idx_orders_updated (updated_at, id);
+
+-- Deleted rows, so clients can drop them locally. owner_user_id is the rep a visit, sample or
+-- order belonged to and is NULL for shared reference data.
+CREATE TABLE sync_tombstone (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    owner_user_id BIGINT,
+    deleted_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_tombstone_type (entity_type, id),
+    INDEX idx_tombstone_type_owner (entity_type, owner_user_id, id),
+    INDEX idx_tombstone_deleted (deleted_at)
+);
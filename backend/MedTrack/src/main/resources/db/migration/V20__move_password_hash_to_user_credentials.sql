@@ -0,0 +1,12 @@
+-- Password hashes move out of users so User rows can sit in the second-level cache
+CREATE TABLE user_credentials (
+    user_id BIGINT PRIMARY KEY,
+    password_hash VARCHAR(255) NOT NULL,
+    updated_at TIMESTAMP NULL,
+    CONSTRAINT fk_user_credentials_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+INSERT INTO user_credentials (user_id, password_hash, updated_at)
+SELECT id, password_hash, CURRENT_TIMESTAMP FROM users;
+
+ALTER TABLE users DROP COLUMN password_hash;
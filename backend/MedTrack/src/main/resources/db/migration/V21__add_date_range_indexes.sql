@@ -0,0 +1,25 @@
+-- Composite indexes for the date-range finders. The (x_id, date) indexes lead with the
+-- foreign key column, so they also serve the foreign keys and replace the single-column ones.
+
+-- findByUserIdAndDateRange, findByDoctorIdAndDateRange, and findByVisitDateBetween /
+-- countDistinctUsersByDateRange / KPI rebuilds, the last one answered from the index alone
+ALTER TABLE visit
+ADD INDEX idx_visit_user_date (user_id, visit_date),
+ADD INDEX idx_visit_doctor_date (doctor_id, visit_date),
+ADD INDEX idx_visit_date_user (visit_date, user_id),
+DROP INDEX idx_visit_user,
+DROP INDEX idx_visit_doctor;
+
+-- findByDateIssuedBetween and the KPI rebuild join to visit; findByProductIdAndDateRange.
+-- Doctor lookups already go through uk_sample_doctor_product, one row per product.
+ALTER TABLE sample
+ADD INDEX idx_sample_date_visit (date_issued, visit_id),
+ADD INDEX idx_sample_product_date (product_id, date_issued),
+DROP INDEX idx_sample_product;
+
+-- findByDoctorIdAndOrderDateBetween; revenue by date range answered from the index alone
+ALTER TABLE orders
+ADD INDEX idx_orders_doctor_date (doctor_id, order_date),
+ADD INDEX idx_orders_date_status (order_date, status, total_amount),
+DROP INDEX idx_orders_doctor,
+DROP INDEX idx_orders_date;
@@ -0,0 +1,61 @@
+-- Cold storage for visits, samples and orders past the retention window. The hot tables keep
+-- their foreign keys, which MySQL does not allow on partitioned tables, so only the archives
+-- are partitioned: by month on the date the services filter on. Each starts with a single
+-- p_future partition that the archiver splits month by month as it moves rows in.
+--
+-- Archives are created LIKE their hot table and rows are copied with SELECT *, so a column
+-- added to a hot table must be added to its archive in the same migration.
+
+CREATE TABLE visit_archive LIKE visit;
+ALTER TABLE visit_archive
+MODIFY id BIGINT NOT NULL,
+DROP PRIMARY KEY,
+ADD PRIMARY KEY (id, visit_date),
+DROP INDEX idx_visit_updated,
+DROP INDEX idx_visit_user_updated,
+DROP INDEX idx_visit_status,
+ROW_FORMAT=COMPRESSED;
+ALTER TABLE visit_archive
+PARTITION BY RANGE COLUMNS (visit_date) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+
+CREATE TABLE visit_note_archive LIKE visit_note;
+ALTER TABLE visit_note_archive
+MODIFY id BIGINT NOT NULL,
+ROW_FORMAT=COMPRESSED;
+
+-- Unique keys would have to include the partition column; archives only need lookups
+CREATE TABLE sample_archive LIKE sample;
+ALTER TABLE sample_archive
+MODIFY id BIGINT NOT NULL,
+DROP PRIMARY KEY,
+ADD PRIMARY KEY (id, date_issued),
+DROP INDEX uk_sample_doctor_product,
+ADD INDEX idx_sample_doctor_product (doctor_id, product_id),
+DROP INDEX idx_sample_updated,
+ROW_FORMAT=COMPRESSED;
+ALTER TABLE sample_archive
+PARTITION BY RANGE COLUMNS (date_issued) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+
+CREATE TABLE orders_archive LIKE orders;
+ALTER TABLE orders_archive
+MODIFY id BIGINT NOT NULL,
+DROP PRIMARY KEY,
+ADD PRIMARY KEY (id, order_date),
+DROP INDEX order_number,
+DROP INDEX idx_orders_updated,
+DROP INDEX idx_orders_status,
+ROW_FORMAT=COMPRESSED;
+ALTER TABLE orders_archive
+PARTITION BY RANGE COLUMNS (order_date) (PARTITION p_future VALUES LESS THAN (MAXVALUE));
+
+CREATE TABLE order_item_archive LIKE order_item;
+ALTER TABLE order_item_archive
+MODIFY id BIGINT NOT NULL,
+ROW_FORMAT=COMPRESSED;
+
+-- Per hot table: rows dated before archived_before may have been moved to the archive
+CREATE TABLE archive_watermark (
+    table_name VARCHAR(20) PRIMARY KEY,
+    archived_before DATE NOT NULL,
+    updated_at TIMESTAMP NULL
+);
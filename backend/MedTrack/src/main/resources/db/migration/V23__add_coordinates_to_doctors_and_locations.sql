@@ -0,0 +1,9 @@
+-- Coordinates for nearby lookups, in WGS84 degrees; six decimals is about 0.1 m.
+-- Both are null until set, and are set or cleared together.
+ALTER TABLE doctor
+ADD COLUMN latitude DECIMAL(9,6) NULL,
+ADD COLUMN longitude DECIMAL(9,6) NULL;
+
+ALTER TABLE locations
+ADD COLUMN latitude DECIMAL(9,6) NULL,
+ADD COLUMN longitude DECIMAL(9,6) NULL;
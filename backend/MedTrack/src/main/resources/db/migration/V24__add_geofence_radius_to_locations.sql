@@ -0,0 +1,3 @@
+-- Radius around a location's coordinates a rep must be within to start a visit there.
+-- Null uses medtrack.geofence.default-radius-meters.
+ALTER TABLE locations ADD COLUMN geofence_radius_meters INT NULL;
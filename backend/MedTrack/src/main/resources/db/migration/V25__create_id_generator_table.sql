@@ -0,0 +1,71 @@
+-- Ids for the entity tables come from blocks reserved in this table rather than from
+-- AUTO_INCREMENT, so Hibernate knows an id before the INSERT and can batch inserts. A row
+-- holds the next id not yet handed out for its table; the application reserves a block by
+-- moving it forward.
+--
+-- Seeded past every id already used: in the table, in its archive, and in tombstones that
+-- sync clients may still apply, so a deleted row's id is never given to a new one.
+
+CREATE TABLE id_generator (
+    name VARCHAR(64) PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'users', COALESCE(MAX(id), 0) + 1 FROM users;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'doctor', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM doctor),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'DOCTORS')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'product', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM product),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'PRODUCTS')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'locations', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM locations),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'LOCATIONS')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'visit', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM visit),
+    (SELECT COALESCE(MAX(id), 0) FROM visit_archive),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'VISITS')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'visit_note', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM visit_note),
+    (SELECT COALESCE(MAX(id), 0) FROM visit_note_archive)) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'sample', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM sample),
+    (SELECT COALESCE(MAX(id), 0) FROM sample_archive),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'SAMPLES')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'orders', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM orders),
+    (SELECT COALESCE(MAX(id), 0) FROM orders_archive),
+    (SELECT COALESCE(MAX(entity_id), 0) FROM sync_tombstone WHERE entity_type = 'ORDERS')) + 1;
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'order_item', GREATEST(
+    (SELECT COALESCE(MAX(id), 0) FROM order_item),
+    (SELECT COALESCE(MAX(id), 0) FROM order_item_archive)) + 1;
+
+-- AUTO_INCREMENT stays for rows inserted by hand, but starts them at 1.5 billion so they
+-- can't take an id inside a block an instance has reserved and not used up yet. Still below
+-- 2^31: the coverage, analytics and permission indexes keep ids as ints.
+ALTER TABLE users AUTO_INCREMENT = 1500000000;
+ALTER TABLE doctor AUTO_INCREMENT = 1500000000;
+ALTER TABLE product AUTO_INCREMENT = 1500000000;
+ALTER TABLE locations AUTO_INCREMENT = 1500000000;
+ALTER TABLE visit AUTO_INCREMENT = 1500000000;
+ALTER TABLE visit_note AUTO_INCREMENT = 1500000000;
+ALTER TABLE sample AUTO_INCREMENT = 1500000000;
+ALTER TABLE orders AUTO_INCREMENT = 1500000000;
+ALTER TABLE order_item AUTO_INCREMENT = 1500000000;
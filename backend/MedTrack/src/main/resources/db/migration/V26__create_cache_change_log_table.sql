@@ -0,0 +1,14 @@
+-- Changes to cached entities, one row per changed id, for the other instances to drop from
+-- their caches. Each instance reads forward from the highest id it has seen, leaving out
+-- rows too recent to be sure every lower id has committed. Rows are only needed for a few
+-- polls and are purged after a short retention.
+
+CREATE TABLE cache_change_log (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    entity_type VARCHAR(20) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    -- Instance that made the change; it has already applied it
+    origin VARCHAR(36) NOT NULL,
+    created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    INDEX idx_cache_change_created (created_at)
+);
@@ -0,0 +1,12 @@
+-- Order numbers end in a sequence that used to be the hot table's row count plus one. Once
+-- the archiver moves old orders out, that count drops and numbers already issued come round
+-- again. The sequence now comes from its own id_generator row, seeded past every number in
+-- the hot and archive tables.
+
+INSERT INTO id_generator (name, next_val)
+SELECT 'order_number', GREATEST(
+    (SELECT COALESCE(MAX(CAST(SUBSTRING_INDEX(order_number, '-', -1) AS UNSIGNED)), 0)
+     FROM orders WHERE order_number REGEXP '^ORD-[0-9]{8}-[0-9]+$'),
+    (SELECT COALESCE(MAX(CAST(SUBSTRING_INDEX(order_number, '-', -1) AS UNSIGNED)), 0)
+     FROM orders_archive WHERE order_number REGEXP '^ORD-[0-9]{8}-[0-9]+$'),
+    (SELECT COUNT(*) FROM orders) + (SELECT COUNT(*) FROM orders_archive)) + 1;
@@ -0,0 +1,140 @@
+package com.example.MedTrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.locations.LocationDto;
+import com.example.MedTrack.locations.LocationRequest;
+import com.example.MedTrack.locations.LocationService;
+
+/**
+ * Inserts a batch of locations the way IDENTITY forces Hibernate to, one statement per row
+ * with its generated key read back, and then through LocationService with ids reserved from
+ * id_generator, and compares rows per second. With the ids known up front Hibernate sends
+ * the inserts as JDBC batches, which the driver rewrites into multi-row statements. The
+ * batch count is checked on every build; the timing comparison only runs with -Pbenchmark.
+ */
+@SpringBootTest
+@Import(StatementRecordingConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class BulkInsertBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkInsertBenchmarkTest.class);
+
+    private static final String MARKER = "bulk-insert-benchmark-test";
+    private static final int ROWS = 2_000;
+    private static final int BATCH_SIZE = 50;
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private LocationService locationService;
+
+    // Each test inserts thousands of locations, so they go after every test rather than at the end
+    @AfterEach
+    void cleanUp() {
+        data.cleanUp();
+    }
+
+    @Test
+    void pooledIdsBatchTheInserts() {
+        List<String> sql = recordStatements(() -> locationService.createBulkLocations(requests(ROWS)));
+
+        long inserts = sql.stream().filter(statement -> statement.startsWith("insert into locations")).count();
+        long reservations = sql.stream().filter(statement -> statement.contains("id_generator")
+            && statement.startsWith("select")).count();
+        assertThat(inserts).isEqualTo(ROWS / BATCH_SIZE);
+        // One more when the block left over from an earlier insert runs out first
+        assertThat(reservations).isBetween((long) ROWS / BATCH_SIZE, (long) ROWS / BATCH_SIZE + 1);
+    }
+
+    @Test
+    @Tag("benchmark")
+    void pooledIdsInsertFasterThanIdentity() {
+        // Warm up both paths so class loading and JIT don't count against the first one measured
+        insertOneByOne(requests(BATCH_SIZE));
+        locationService.createBulkLocations(requests(BATCH_SIZE));
+        cleanUp();
+
+        long identityNanos = time(() -> insertOneByOne(requests(ROWS)));
+        cleanUp();
+        long pooledNanos = time(() -> {
+            List<LocationDto> saved = locationService.createBulkLocations(requests(ROWS));
+            assertThat(saved).hasSize(ROWS).allSatisfy(location -> assertThat(location.getId()).isNotNull());
+        });
+        log.info("{} locations: IDENTITY-style {} rows/s, pooled ids {} rows/s",
+            ROWS, Math.round(ROWS / (identityNanos / 1e9)), Math.round(ROWS / (pooledNanos / 1e9)));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM locations WHERE name = ?", Integer.class, MARKER))
+            .isEqualTo(ROWS);
+        assertThat(pooledNanos).isLessThan(identityNanos);
+    }
+
+    // What Hibernate does for IDENTITY: each row is its own round trip so its key can be read
+    private void insertOneByOne(List<LocationRequest> requests) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (LocationRequest request : requests) {
+                KeyHolder key = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO locations (name, city, country, is_active, created_at, updated_at) " +
+                        "VALUES (?, ?, ?, true, NOW(), NOW())", Statement.RETURN_GENERATED_KEYS);
+                    statement.setString(1, request.getName());
+                    statement.setString(2, request.getCity());
+                    statement.setString(3, request.getCountry());
+                    return statement;
+                }, key);
+                assertThat(key.getKey()).isNotNull();
+            }
+        });
+    }
+
+    private static List<LocationRequest> requests(int count) {
+        List<LocationRequest> requests = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            LocationRequest request = new LocationRequest();
+            request.setName(MARKER);
+            request.setCity(MARKER + i);
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static long time(Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        return System.nanoTime() - start;
+    }
+
+    // SQL prepared on this thread while the action runs, lower-cased
+    private static List<String> recordStatements(Runnable action) {
+        return StatementRecorder.record(action).stream()
+            .map(recorded -> recorded.sql().trim().toLowerCase())
+            .toList();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.MedTrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.locations.Location;
+import com.example.MedTrack.orders.Order;
+import com.example.MedTrack.samples.Sample;
+import com.example.MedTrack.users.User;
+import com.example.MedTrack.visits.Visit;
+import com.example.MedTrack.visits.VisitNote;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Entities compare by id and print only their own columns, so putting them in sets,
+ * comparing them with lazy proxies and logging them must not send any SQL or initialize
+ * an association.
+ */
+@SpringBootTest
+@Import(StatementRecordingConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EntityIdentityTest {
+
+    private static final String MARKER = "entity-identity-test";
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long userId;
+    private Long visitId;
+    private Long orderId;
+    private Long sampleId;
+    private List<Long> locationIds;
+
+    @BeforeAll
+    void seed() {
+        userId = data.user();
+        Long doctorId = data.doctor();
+        Long productId = data.product();
+        locationIds = data.locations(2);
+        for (Long locationId : locationIds) {
+            data.assignLocation(userId, locationId);
+        }
+
+        jdbcTemplate.update("INSERT INTO visit (user_id, doctor_id, location_id, visit_date, status) VALUES (?, ?, ?, ?, 'COMPLETED')",
+            userId, doctorId, locationIds.get(0), LocalDate.now());
+        visitId = jdbcTemplate.queryForObject("SELECT id FROM visit WHERE user_id = ?", Long.class, userId);
+        jdbcTemplate.update("INSERT INTO visit_note (visit_id, body) VALUES (?, ?)", visitId, MARKER);
+        jdbcTemplate.update("INSERT INTO orders (order_number, doctor_id, visit_id, order_date, status, payment_status, total_amount) " +
+            "VALUES (?, ?, ?, ?, 'PENDING', 'PENDING', 10.00)", MARKER, doctorId, visitId, LocalDate.now());
+        orderId = jdbcTemplate.queryForObject("SELECT id FROM orders WHERE order_number = ?", Long.class, MARKER);
+        jdbcTemplate.update("INSERT INTO order_item (order_id, product_id, quantity, unit_price, subtotal) VALUES (?, ?, 1, 10.00, 10.00)",
+            orderId, productId);
+        jdbcTemplate.update("INSERT INTO sample (doctor_id, product_id, visit_id, quantity, date_issued) VALUES (?, ?, ?, 1, ?)",
+            doctorId, productId, visitId, LocalDate.now());
+        sampleId = jdbcTemplate.queryForObject("SELECT id FROM sample WHERE visit_id = ?", Long.class, visitId);
+    }
+
+    @Test
+    void comparingAndLoggingLeavesAssociationsUnloaded() {
+        inTransaction(em -> {
+            Visit visit = em.find(Visit.class, visitId);
+            Order order = em.find(Order.class, orderId);
+            Sample sample = em.find(Sample.class, sampleId);
+
+            List<String> sql = recordStatements(() -> {
+                Set<Object> entities = new HashSet<>(List.of(visit, order, sample));
+                assertThat(entities).contains(visit, order, sample);
+                assertThat(visit).isNotEqualTo(order);
+                assertThat(sample.getVisit().getId()).isEqualTo(visitId);
+                assertThat(visit.toString() + order + sample).contains(MARKER);
+            });
+
+            assertThat(sql).isEmpty();
+            assertThat(Hibernate.isInitialized(visit.getUser())).isFalse();
+            assertThat(Hibernate.isInitialized(visit.getDoctor())).isFalse();
+            assertThat(Hibernate.isInitialized(visit.getLocation())).isFalse();
+            assertThat(Hibernate.isInitialized(visit.getNotes())).isFalse();
+            assertThat(Hibernate.isInitialized(order.getOrderItems())).isFalse();
+            assertThat(Hibernate.isInitialized(sample.getProduct())).isFalse();
+        });
+    }
+
+    @Test
+    void userInSetKeepsLocationsUnloaded() {
+        inTransaction(em -> {
+            User user = em.find(User.class, userId);
+
+            List<String> sql = recordStatements(() -> {
+                Set<User> users = new HashSet<>();
+                users.add(user);
+                assertThat(users).contains(user);
+                assertThat(user.toString()).contains(MARKER);
+            });
+
+            assertThat(sql).isEmpty();
+            assertThat(Hibernate.isInitialized(user.getLocations())).isFalse();
+        });
+    }
+
+    @Test
+    void entityEqualsItsProxyWithoutLoadingIt() {
+        inTransaction(em -> {
+            VisitNote note = em.createQuery("SELECT n FROM VisitNote n WHERE n.visit.id = :id", VisitNote.class)
+                .setParameter("id", visitId)
+                .getSingleResult();
+
+            List<String> sql = recordStatements(() -> {
+                Location proxy = em.getReference(Location.class, locationIds.get(0));
+                Location detached = new Location();
+                detached.setId(locationIds.get(0));
+                assertThat(detached).isEqualTo(proxy);
+                assertThat(detached.hashCode()).isEqualTo(new Location().hashCode());
+                assertThat(note.toString()).doesNotContain(MARKER);
+            });
+
+            assertThat(sql).isEmpty();
+            assertThat(Hibernate.isInitialized(em.getReference(Location.class, locationIds.get(0)))).isFalse();
+        });
+    }
+
+    @Test
+    void unsavedEntitiesAreOnlyEqualToThemselves() {
+        Location first = new Location();
+        Location second = new Location();
+        first.setName(MARKER);
+        second.setName(MARKER);
+
+        assertThat(first).isNotEqualTo(second).isEqualTo(first);
+
+        first.setId(1L);
+        second.setId(1L);
+        second.setName(MARKER + "-renamed");
+        assertThat(first).isEqualTo(second);
+    }
+
+    @Test
+    void setKeepsEntityAfterItIsSaved() {
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        rollback.executeWithoutResult(status -> {
+            Location location = new Location();
+            location.setName(MARKER);
+            location.setCity(MARKER);
+            location.setIsActive(true);
+            Set<Location> locations = new HashSet<>(Set.of(location));
+
+            entityManager.persist(location);
+            entityManager.flush();
+
+            assertThat(location.getId()).isNotNull();
+            assertThat(locations).contains(location);
+            status.setRollbackOnly();
+        });
+    }
+
+    private void inTransaction(Consumer<EntityManager> work) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readOnly.executeWithoutResult(status -> work.accept(entityManager));
+    }
+
+    // SQL prepared on this thread while the action runs
+    private static List<String> recordStatements(Runnable action) {
+        return StatementRecorder.record(action).stream()
+            .map(StatementRecorder.Recorded::sql)
+            .toList();
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.MedTrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.MedTrack.dashboard.RepDailyStatsRepository;
+import com.example.MedTrack.orders.OrderRepository;
+import com.example.MedTrack.samples.SampleRepository;
+import com.example.MedTrack.visits.VisitRepository;
+
+/**
+ * Runs the date-range finders against the real schema and EXPLAINs every statement they
+ * send, with the parameters they bound, failing on a full table or full index scan. Rows
+ * are seeded first so the optimizer sees realistic statistics instead of empty tables.
+ */
+@SpringBootTest
+@Import(StatementRecordingConfig.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryPlanTest {
+
+    private static final String MARKER = "query-plan-test";
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final LocalDate WEEK_AGO = TODAY.minusDays(7);
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private VisitRepository visitRepository;
+    @Autowired
+    private SampleRepository sampleRepository;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private RepDailyStatsRepository repDailyStatsRepository;
+
+    private Long userId;
+    private Long doctorId;
+    private Long productId;
+
+    @BeforeAll
+    void seed() {
+        List<Long> userIds = data.users(20);
+        List<Long> doctorIds = data.doctors(50);
+        List<Long> productIds = data.products(20);
+        userId = userIds.get(0);
+        doctorId = doctorIds.get(0);
+        productId = productIds.get(0);
+
+        List<Object[]> visits = new ArrayList<>();
+        List<Object[]> orders = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            LocalDate date = TODAY.minusDays(i % 365);
+            visits.add(new Object[] {userIds.get(i % userIds.size()), doctorIds.get(i % doctorIds.size()), date});
+            if (i % 2 == 0) {
+                orders.add(new Object[] {MARKER + "-" + i, doctorIds.get(i % doctorIds.size()), date});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO visit (user_id, doctor_id, visit_date, status) VALUES (?, ?, ?, 'COMPLETED')", visits);
+        jdbcTemplate.batchUpdate("INSERT INTO orders (order_number, doctor_id, order_date, status, payment_status, total_amount) " +
+            "VALUES (?, ?, ?, 'PENDING', 'PENDING', 10.00)", orders);
+
+        List<Object[]> samples = new ArrayList<>();
+        for (int d = 0; d < doctorIds.size(); d++) {
+            for (int p = 0; p < productIds.size(); p++) {
+                samples.add(new Object[] {doctorIds.get(d), productIds.get(p), TODAY.minusDays((d * 20L + p) % 365)});
+            }
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO sample (doctor_id, product_id, quantity, date_issued) VALUES (?, ?, 1, ?)", samples);
+
+        jdbcTemplate.execute("ANALYZE TABLE visit, sample, orders, rep_daily_stats");
+    }
+
+    @Test
+    void visitFindersUseIndexes() throws SQLException {
+        assertNoFullScan(() -> visitRepository.findByUserIdAndDateRange(userId, WEEK_AGO, TODAY));
+        assertNoFullScan(() -> visitRepository.findByDoctorIdAndDateRange(doctorId, WEEK_AGO, TODAY));
+        assertNoFullScan(() -> visitRepository.findByVisitDateBetween(WEEK_AGO, TODAY));
+        assertNoFullScan(() -> visitRepository.findByVisitDate(TODAY));
+        assertNoFullScan(() -> visitRepository.countDistinctUsersByDateRange(TODAY.withDayOfMonth(1), TODAY));
+    }
+
+    @Test
+    void sampleFindersUseIndexes() throws SQLException {
+        assertNoFullScan(() -> sampleRepository.findByDoctorIdAndDateRange(doctorId, WEEK_AGO, TODAY));
+        assertNoFullScan(() -> sampleRepository.findByProductIdAndDateRange(productId, WEEK_AGO, TODAY));
+        assertNoFullScan(() -> sampleRepository.findByDateIssuedBetween(WEEK_AGO, TODAY));
+        assertNoFullScan(() -> sampleRepository.findByDateIssued(TODAY));
+    }
+
+    @Test
+    void orderFindersUseIndexes() throws SQLException {
+        assertNoFullScan(() -> orderRepository.findByOrderDateBetween(WEEK_AGO, TODAY));
+        assertNoFullScan(() -> orderRepository.findByDoctorIdAndOrderDateBetween(doctorId, WEEK_AGO, TODAY));
+        assertNoFullScan(() -> orderRepository.findByOrderDate(TODAY));
+        assertNoFullScan(() -> orderRepository.getTotalRevenueByDateRange(WEEK_AGO, TODAY));
+    }
+
+    @Test
+    void dashboardQueriesUseIndexes() throws SQLException {
+        assertNoFullScan(() -> repDailyStatsRepository.sumByUserIdsAndDateRange(List.of(userId), WEEK_AGO, TODAY));
+    }
+
+    private void assertNoFullScan(Supplier<?> query) throws SQLException {
+        List<StatementRecorder.Recorded> statements = StatementRecorder.record(query::get);
+        assertThat(statements).as("statements recorded").isNotEmpty();
+
+        for (StatementRecorder.Recorded statement : statements) {
+            for (String plan : explain(statement)) {
+                assertThat(plan).as("plan for %s", statement.sql())
+                    .doesNotContain("type=ALL")
+                    .doesNotContain("type=index ");
+            }
+        }
+    }
+
+    private List<String> explain(StatementRecorder.Recorded statement) throws SQLException {
+        List<String> plans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql())) {
+            for (Map.Entry<Integer, Object> parameter : statement.parameters().entrySet()) {
+                explain.setObject(parameter.getKey(), parameter.getValue());
+            }
+            try (ResultSet rows = explain.executeQuery()) {
+                while (rows.next()) {
+                    plans.add("table=" + rows.getString("table") + " type=" + rows.getString("type") + " key=" + rows.getString("key"));
+                }
+            }
+        }
+        return plans;
+    }
+}
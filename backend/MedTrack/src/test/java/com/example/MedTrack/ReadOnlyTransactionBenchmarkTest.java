@@ -0,0 +1,135 @@
+package com.example.MedTrack;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.visits.VisitDto;
+import com.example.MedTrack.visits.VisitService;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Loads a large visit list through VisitService in its own read-only transaction and again
+ * joined to a read-write one, and compares the bytes allocated and CPU time spent on the
+ * calling thread. Read-only sessions keep no snapshots for dirty checking and skip the
+ * flush on commit. The comparison only runs with -Pbenchmark; the session and connection
+ * settings are checked on every build.
+ */
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ReadOnlyTransactionBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadOnlyTransactionBenchmarkTest.class);
+
+    private static final String MARKER = "read-only-benchmark-test";
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final int VISITS = 20_000;
+    private static final int RUNS = 5;
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private VisitService visitService;
+
+    // Only for the benchmark, so the regular build doesn't write 20,000 visits
+    private void seed() {
+        List<Long> userIds = data.users(20);
+        List<Long> doctorIds = data.doctors(50);
+
+        List<Object[]> visits = new ArrayList<>();
+        for (int i = 0; i < VISITS; i++) {
+            visits.add(new Object[] {userIds.get(i % userIds.size()), doctorIds.get(i % doctorIds.size()), TODAY.minusDays(i % 30)});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO visit (user_id, doctor_id, visit_date, status) VALUES (?, ?, ?, 'COMPLETED')", visits);
+    }
+
+    @Test
+    void readOnlyTransactionsUseReadOnlySessionsAndConnections() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.executeWithoutResult(status -> {
+            Session session = entityManager.unwrap(Session.class);
+            assertThat(session.isDefaultReadOnly()).isTrue();
+            assertThat(session.getHibernateFlushMode()).isEqualTo(FlushMode.MANUAL);
+            assertThat(session.doReturningWork(Connection::isReadOnly)).isTrue();
+        });
+    }
+
+    @Test
+    @Tag("benchmark")
+    void readOnlyListingAllocatesLessThanReadWrite() {
+        seed();
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        Supplier<List<VisitDto>> readOnlyListing = () -> visitService.getVisitsByDateRange(TODAY.minusDays(29), TODAY);
+        // The service's read-only transaction joins the outer read-write one and doesn't change it
+        Supplier<List<VisitDto>> readWriteListing = () -> readWrite.execute(status -> readOnlyListing.get());
+
+        // Warm up both paths so class loading and JIT don't count against the first one measured
+        for (int i = 0; i < 2; i++) {
+            assertThat(readOnlyListing.get().size()).isGreaterThanOrEqualTo(VISITS);
+            assertThat(readWriteListing.get().size()).isGreaterThanOrEqualTo(VISITS);
+        }
+
+        Measurement readOnlyCost = measure(readOnlyListing);
+        Measurement readWriteCost = measure(readWriteListing);
+        log.info("{} visits: read-only {} MB, {} ms CPU; read-write {} MB, {} ms CPU per listing",
+            VISITS, Math.round(readOnlyCost.megabytes()), Math.round(readOnlyCost.cpuMillis()),
+            Math.round(readWriteCost.megabytes()), Math.round(readWriteCost.cpuMillis()));
+
+        assertThat(readOnlyCost.bytes()).isLessThan(readWriteCost.bytes());
+    }
+
+    private record Measurement(long bytes, long cpuNanos) {
+
+        double megabytes() {
+            return bytes / (1024.0 * 1024.0);
+        }
+
+        double cpuMillis() {
+            return cpuNanos / 1e6;
+        }
+    }
+
+    // Average over the runs of what the listing costs on this thread
+    private static Measurement measure(Supplier<List<VisitDto>> listing) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long bytes = 0;
+        long cpuNanos = 0;
+        for (int i = 0; i < RUNS; i++) {
+            long bytesBefore = threads.getCurrentThreadAllocatedBytes();
+            long cpuBefore = threads.getCurrentThreadCpuTime();
+            listing.get();
+            bytes += threads.getCurrentThreadAllocatedBytes() - bytesBefore;
+            cpuNanos += threads.getCurrentThreadCpuTime() - cpuBefore;
+        }
+        return new Measurement(bytes / RUNS, cpuNanos / RUNS);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.MedTrack;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.sql.DataSource;
+
+/**
+ * Records the SQL and bound parameters of statements prepared on the current thread. Only
+ * sees statements from a DataSource it has wrapped, which {@link StatementRecordingConfig}
+ * does for the test's application context.
+ */
+final class StatementRecorder {
+    record Recorded(String sql, Map<Integer, Object> parameters) {
+    }
+
+    private static final ThreadLocal<List<Recorded>> RECORDING = new ThreadLocal<>();
+
+    private StatementRecorder() {
+    }
+
+    // Statements prepared on this thread while the action runs
+    static List<Recorded> record(Runnable action) {
+        List<Recorded> recorded = new ArrayList<>();
+        RECORDING.set(recorded);
+        try {
+            action.run();
+        } finally {
+            RECORDING.remove();
+        }
+        return recorded;
+    }
+
+    static DataSource wrap(DataSource target) {
+        return proxy(DataSource.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            return result instanceof Connection connection ? wrap(connection) : result;
+        });
+    }
+
+    private static Connection wrap(Connection target) {
+        return proxy(Connection.class, target, (method, args) -> {
+            Object result = method.invoke(target, args);
+            List<Recorded> recording = RECORDING.get();
+            if (recording != null && result instanceof PreparedStatement statement
+                    && method.getName().equals("prepareStatement")) {
+                Recorded recorded = new Recorded((String) args[0], new TreeMap<>());
+                recording.add(recorded);
+                return wrap(statement, recorded);
+            }
+            return result;
+        });
+    }
+
+    private static PreparedStatement wrap(PreparedStatement target, Recorded recorded) {
+        return proxy(PreparedStatement.class, target, (method, args) -> {
+            if (method.getName().startsWith("set") && args != null && args.length >= 2
+                    && args[0] instanceof Integer index) {
+                recorded.parameters().put(index, method.getName().equals("setNull") ? null : args[1]);
+            }
+            return method.invoke(target, args);
+        });
+    }
+
+    private interface Call {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Call call) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            try {
+                return call.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.MedTrack;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+// Wraps the application's DataSource so tests can record statements with StatementRecorder
+@TestConfiguration
+class StatementRecordingConfig {
+    @Bean
+    static BeanPostProcessor statementRecordingPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource target ? StatementRecorder.wrap(target) : bean;
+            }
+        };
+    }
+}
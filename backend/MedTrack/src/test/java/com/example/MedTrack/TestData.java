@@ -0,0 +1,118 @@
+package com.example.MedTrack;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+/**
+ * Rows a test suite seeds into the shared database, all named after the suite's marker so
+ * they can be told apart from real data and from other suites. Registered as a static
+ * extension, it deletes them before the suite runs, in case an earlier run was cut short,
+ * and again after it. Visits, notes, samples and orders go with their users, doctors and
+ * products through ON DELETE CASCADE, so only those and locations are deleted.
+ */
+public final class TestData implements BeforeAllCallback, AfterAllCallback {
+
+    private final String marker;
+    private JdbcTemplate jdbcTemplate;
+    private int emails;
+
+    public TestData(String marker) {
+        this.marker = marker;
+    }
+
+    public String marker() {
+        return marker;
+    }
+
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        jdbcTemplate = SpringExtension.getApplicationContext(context).getBean(JdbcTemplate.class);
+        cleanUp();
+    }
+
+    @Override
+    public void afterAll(ExtensionContext context) {
+        cleanUp();
+    }
+
+    // Prefix match, so rows a test renamed from the marker go too
+    public void cleanUp() {
+        String prefix = marker + "%";
+        jdbcTemplate.update("DELETE FROM users WHERE name LIKE ?", prefix);
+        jdbcTemplate.update("DELETE FROM doctor WHERE name LIKE ?", prefix);
+        jdbcTemplate.update("DELETE FROM product WHERE name LIKE ?", prefix);
+        jdbcTemplate.update("DELETE FROM locations WHERE name LIKE ?", prefix);
+    }
+
+    public Long user() {
+        return users(1).get(0);
+    }
+
+    // Active reps, each with its own email
+    public List<Long> users(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(insert("INSERT INTO users (name, email, role, is_active) VALUES (?, ?, 'REP', true)",
+                marker, marker + "-" + emails++ + "@example.com"));
+        }
+        return ids;
+    }
+
+    public Long doctor() {
+        return doctors(1).get(0);
+    }
+
+    public List<Long> doctors(int count) {
+        return insert(count, "INSERT INTO doctor (name) VALUES (?)", marker);
+    }
+
+    public Long product() {
+        return products(1).get(0);
+    }
+
+    public List<Long> products(int count) {
+        return insert(count, "INSERT INTO product (name) VALUES (?)", marker);
+    }
+
+    public Long location() {
+        return locations(1).get(0);
+    }
+
+    public List<Long> locations(int count) {
+        return insert(count, "INSERT INTO locations (name, city) VALUES (?, ?)", marker, marker);
+    }
+
+    public void assignLocation(Long userId, Long locationId) {
+        jdbcTemplate.update("INSERT INTO user_locations (user_id, location_id) VALUES (?, ?)", userId, locationId);
+    }
+
+    private List<Long> insert(int count, String sql, Object... values) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(insert(sql, values));
+        }
+        return ids;
+    }
+
+    private Long insert(String sql, Object... values) {
+        KeyHolder key = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            return statement;
+        }, key);
+        return key.getKey().longValue();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.MedTrack.analytics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class FactTableTest {
+
+    private static final LocalDate JAN = LocalDate.of(2025, 1, 15);
+    private static final LocalDate FEB = LocalDate.of(2025, 2, 15);
+
+    @Test
+    void groupsAndSumsAcrossChunks() {
+        FactColumns facts = new FactColumns();
+        // Spans several scan chunks, so the parallel merge is exercised
+        for (int i = 0; i < 50_000; i++) {
+            add(facts, i, i % 2 == 0 ? JAN : FEB, 1 + i % 3, 2, 150);
+        }
+        FactTable table = new FactTable(facts);
+
+        Map<FactTable.GroupKey, FactTable.Totals> byProduct = table.aggregate(query(List.of(Dimension.PRODUCT), Map.of()));
+
+        assertThat(byProduct).hasSize(3);
+        FactTable.Totals product1 = byProduct.get(new FactTable.GroupKey(1, 0, 0));
+        assertThat(product1.facts).isEqualTo(16_667);
+        assertThat(product1.quantity).isEqualTo(2 * 16_667L);
+        assertThat(product1.cents).isEqualTo(150 * 16_667L);
+    }
+
+    @Test
+    void filtersByDateRangeAndValues() {
+        FactColumns facts = new FactColumns();
+        add(facts, 1, JAN, 1, 1, 100);
+        add(facts, 2, FEB, 1, 1, 200);
+        add(facts, 3, FEB, 2, 1, 400);
+        FactTable table = new FactTable(facts);
+
+        int feb = Math.toIntExact(FEB.withDayOfMonth(1).toEpochDay());
+        FactTable.Query query = new FactTable.Query(List.of(), feb, Integer.MAX_VALUE,
+            Map.of(Dimension.PRODUCT, new int[] {1}));
+
+        FactTable.Totals total = table.aggregate(query).get(new FactTable.GroupKey(0, 0, 0));
+        assertThat(total.facts).isEqualTo(1);
+        assertThat(total.cents).isEqualTo(200);
+    }
+
+    @Test
+    void replaceDropsTheEntitysOldFacts() {
+        FactColumns facts = new FactColumns();
+        add(facts, 1, JAN, 1, 1, 100);
+        add(facts, 1, JAN, 2, 1, 100);
+        add(facts, 2, JAN, 1, 1, 100);
+        FactTable table = new FactTable(facts);
+
+        FactColumns changed = new FactColumns();
+        add(changed, 1, JAN, 3, 5, 500);
+        table.replace(List.of(1), changed);
+        table.remove(List.of(2));
+
+        Map<FactTable.GroupKey, FactTable.Totals> byProduct = table.aggregate(query(List.of(Dimension.PRODUCT), Map.of()));
+        assertThat(byProduct).containsOnlyKeys(new FactTable.GroupKey(3, 0, 0));
+        assertThat(byProduct.get(new FactTable.GroupKey(3, 0, 0)).quantity).isEqualTo(5);
+        assertThat(table.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactionKeepsLiveFacts() {
+        FactColumns facts = new FactColumns();
+        for (int i = 0; i < 4000; i++) {
+            add(facts, i, JAN, 1, 1, 100);
+        }
+        FactTable table = new FactTable(facts);
+
+        // Deleting more than a quarter triggers compaction
+        table.remove(IntStream.range(0, 2000).boxed().toList());
+        FactColumns changed = new FactColumns();
+        add(changed, 3999, FEB, 2, 1, 100);
+        table.replace(List.of(3999), changed);
+
+        Map<FactTable.GroupKey, FactTable.Totals> byProduct = table.aggregate(query(List.of(Dimension.PRODUCT), Map.of()));
+        assertThat(byProduct.get(new FactTable.GroupKey(1, 0, 0)).facts).isEqualTo(1999);
+        assertThat(byProduct.get(new FactTable.GroupKey(2, 0, 0)).facts).isEqualTo(1);
+        assertThat(table.size()).isEqualTo(2000);
+    }
+
+    private static FactTable.Query query(List<Dimension> groupBy, Map<Dimension, int[]> filters) {
+        return new FactTable.Query(groupBy, Integer.MIN_VALUE, Integer.MAX_VALUE, filters);
+    }
+
+    private static void add(FactColumns facts, int entityId, LocalDate date, int productId, int quantity, long cents) {
+        facts.add(entityId, Math.toIntExact(date.toEpochDay()), FactLoader.monthIndex(date), productId, 0, 1, 0, 0, 0, 0,
+            quantity, cents);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.MedTrack.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.TestData;
+import com.example.MedTrack.visits.Visit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LazyLoadGuardTest {
+
+    private static final String MARKER = "lazy-load-guard-test";
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private ApplicationContext context;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Long visitId;
+
+    @BeforeAll
+    void seed() {
+        Long userId = data.user();
+        Long doctorId = data.doctor();
+        jdbcTemplate.update("INSERT INTO visit (user_id, doctor_id, visit_date, status) VALUES (?, ?, ?, 'COMPLETED')",
+            userId, doctorId, LocalDate.now());
+        visitId = jdbcTemplate.queryForObject("SELECT id FROM visit WHERE user_id = ?", Long.class, userId);
+    }
+
+    @Test
+    void openSessionInViewIsOff() {
+        assertThat(context.getBeanNamesForType(OpenEntityManagerInViewInterceptor.class)).isEmpty();
+    }
+
+    @Test
+    void lazyLoadWithoutTransactionFails() {
+        // A session kept open by hand, as open-session-in-view would
+        EntityManager session = entityManagerFactory.createEntityManager();
+        try {
+            Visit visit = session.find(Visit.class, visitId);
+
+            assertThatThrownBy(() -> visit.getUser().getName())
+                .hasStackTraceContaining("outside a transaction");
+        } finally {
+            session.close();
+        }
+    }
+
+    @Test
+    void lazyLoadInsideTransactionPasses() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        String userName = readOnly.execute(status -> entityManager.find(Visit.class, visitId).getUser().getName());
+
+        assertThat(userName).isEqualTo(MARKER);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.MedTrack.datasource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private ReplicaRoutingDataSource routing;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        routing = new ReplicaRoutingDataSource(primary, List.of(replica),
+            new ReadYourWritesTracker(Duration.ofSeconds(5)), Duration.ofSeconds(30));
+        routing.afterPropertiesSet();
+        SecurityContextHolder.getContext().setAuthentication(
+            new UsernamePasswordAuthenticationToken("7", null, List.of()));
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyTransactionUsesReplica() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void readWriteTransactionUsesPrimary() throws SQLException {
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    @Test
+    void readOnlyTransactionOnPrimaryUsesPrimary() throws SQLException {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(ReplicaRoutingDataSource.onPrimary(this::connection)).isSameAs(primaryConnection);
+        // Only for the duration of the call
+        assertThat(routing.getConnection()).isSameAs(replicaConnection);
+    }
+
+    @Test
+    void replicaFailureFallsBackToPrimaryAndIsSkipped() throws SQLException {
+        doThrow(new SQLException("Connection refused")).when(replica).getConnection();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        // Marked down after the first failure, so it is not tried again
+        verify(replica).getConnection();
+    }
+
+    @Test
+    void readAfterCommittedWriteStaysOnPrimary() throws SQLException {
+        routing.getConnection();
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(routing.getConnection()).isSameAs(primaryConnection);
+        verify(replica, never()).getConnection();
+    }
+
+    private Connection connection() {
+        try {
+            return routing.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.MedTrack.geo;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+class SpatialGridTest {
+
+    @Test
+    void nearestMatchesAFullScan() {
+        SpatialGrid grid = new SpatialGrid(0.05);
+        Random random = new Random(42);
+        double[][] points = new double[5000][];
+        for (int i = 0; i < points.length; i++) {
+            // Around Mumbai, about 100 km across
+            points[i] = new double[] {18.5 + random.nextDouble(), 72.5 + random.nextDouble()};
+            grid.put(i, points[i][0], points[i][1]);
+        }
+
+        List<Long> expected = IntStream.range(0, points.length).boxed()
+            .sorted(Comparator.comparingDouble(i -> SpatialGrid.distanceKm(19.07, 72.87, points[i][0], points[i][1])))
+            .limit(20)
+            .map(Long::valueOf)
+            .collect(Collectors.toList());
+
+        assertThat(grid.nearest(19.07, 72.87, 20, 500)).extracting(SpatialGrid.Hit::id).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void withinKeepsOnlyPointsInTheRadius() {
+        SpatialGrid grid = new SpatialGrid(0.05);
+        grid.put(1, 19.0760, 72.8777);  // Mumbai
+        grid.put(2, 18.5204, 73.8567);  // Pune, about 120 km away
+        grid.put(3, 28.7041, 77.1025);  // Delhi
+
+        assertThat(grid.within(19.0760, 72.8777, 150, 10)).extracting(SpatialGrid.Hit::id).containsExactly(1L, 2L);
+        assertThat(grid.within(19.0760, 72.8777, 50, 10)).extracting(SpatialGrid.Hit::id).containsExactly(1L);
+    }
+
+    @Test
+    void movedAndRemovedPointsLeaveTheirOldCell() {
+        SpatialGrid grid = new SpatialGrid(0.05);
+        grid.put(1, 19.0760, 72.8777);
+        grid.put(2, 19.0800, 72.8800);
+        grid.put(1, 28.7041, 77.1025);
+        grid.remove(2);
+
+        assertThat(grid.within(19.0760, 72.8777, 10, 10)).isEmpty();
+        assertThat(grid.within(28.7041, 77.1025, 10, 10)).extracting(SpatialGrid.Hit::id).containsExactly(1L);
+        assertThat(grid.size()).isEqualTo(1);
+    }
+
+    @Test
+    void searchesAcrossTheAntimeridian() {
+        SpatialGrid grid = new SpatialGrid(0.05);
+        grid.put(1, -17.0, 179.99);
+        grid.put(2, -17.0, -179.99);
+
+        assertThat(grid.within(-17.0, 179.999, 5, 10)).extracting(SpatialGrid.Hit::id).containsExactlyInAnyOrder(1L, 2L);
+    }
+}
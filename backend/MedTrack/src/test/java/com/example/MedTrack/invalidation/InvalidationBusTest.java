@@ -0,0 +1,190 @@
+package com.example.MedTrack.invalidation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.MedTrack.MedTrackApplication;
+import com.example.MedTrack.TestData;
+import com.example.MedTrack.auth.PrincipalCache;
+import com.example.MedTrack.doctors.DoctorRequest;
+import com.example.MedTrack.doctors.DoctorService;
+import com.example.MedTrack.geo.Geofence;
+import com.example.MedTrack.geo.GeoIndex;
+import com.example.MedTrack.locations.LocationRequest;
+import com.example.MedTrack.locations.LocationService;
+import com.example.MedTrack.products.ProductService;
+import com.example.MedTrack.products.StockService;
+import com.example.MedTrack.users.UserService;
+
+/**
+ * Two instances against one database: this test's context makes the writes, a second one
+ * started next to it has cached the rows beforehand and must drop them within the staleness
+ * bound, well before any expiry would.
+ */
+@SpringBootTest(properties = {
+    "medtrack.invalidation.poll-interval=PT0.1S",
+    "medtrack.invalidation.commit-lag=PT0.2S"
+})
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class InvalidationBusTest {
+
+    private static final String MARKER = "invalidation-bus-test";
+    // Poll interval and commit lag, plus room for a slow poll
+    private static final Duration BOUND = Duration.ofSeconds(3);
+
+    @RegisterExtension
+    static final TestData data = new TestData(MARKER);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private DoctorService doctorService;
+    @Autowired
+    private LocationService locationService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private StockService stockService;
+
+    private ConfigurableApplicationContext other;
+    private Long doctorId;
+    private Long locationId;
+    private Long userId;
+    private Long productId;
+
+    @BeforeAll
+    void start() {
+        doctorId = data.doctor();
+        locationId = data.location();
+        userId = data.user();
+        productId = data.product();
+        jdbcTemplate.update("UPDATE doctor SET latitude = 12.97, longitude = 77.59 WHERE id = ?", doctorId);
+        jdbcTemplate.update("UPDATE locations SET latitude = 12.97, longitude = 77.59, geofence_radius_meters = 150 WHERE id = ?",
+            locationId);
+        jdbcTemplate.update("UPDATE product SET stock_quantity = 10 WHERE id = ?", productId);
+        data.assignLocation(userId, locationId);
+
+        other = new SpringApplicationBuilder(MedTrackApplication.class)
+            .properties("server.port=0",
+                "medtrack.invalidation.poll-interval=PT0.1S",
+                "medtrack.invalidation.commit-lag=PT0.2S")
+            .run();
+    }
+
+    @AfterAll
+    void stop() {
+        if (other != null) {
+            other.close();
+        }
+    }
+
+    @Test
+    void doctorChangeReachesOtherInstance() {
+        DoctorService otherDoctors = other.getBean(DoctorService.class);
+        GeoIndex otherIndex = other.getBean(GeoIndex.class);
+        assertThat(otherDoctors.getDoctorById(doctorId).getName()).isEqualTo(MARKER);
+
+        DoctorRequest request = new DoctorRequest();
+        request.setName(MARKER + "-moved");
+        request.setLatitude(13.08);
+        request.setLongitude(80.27);
+        doctorService.updateDoctor(doctorId, request);
+
+        assertWithinBound(() -> (MARKER + "-moved").equals(otherDoctors.getDoctorById(doctorId).getName()));
+        assertWithinBound(() -> otherIndex.doctors().within(13.08, 80.27, 0.1, 10).stream()
+            .anyMatch(hit -> hit.id() == doctorId));
+        assertThat(otherIndex.doctors().within(12.97, 77.59, 0.1, 10)).noneMatch(hit -> hit.id() == doctorId);
+    }
+
+    @Test
+    void locationChangeReachesOtherInstance() {
+        GeoIndex otherIndex = other.getBean(GeoIndex.class);
+        assertThat(otherIndex.geofence(locationId)).map(Geofence::radiusMeters).contains(150);
+
+        LocationRequest request = new LocationRequest();
+        request.setName(MARKER);
+        request.setCity(MARKER);
+        request.setLatitude(12.97);
+        request.setLongitude(77.59);
+        request.setGeofenceRadiusMeters(400);
+        locationService.updateLocation(locationId, request);
+
+        assertWithinBound(() -> otherIndex.geofence(locationId).map(Geofence::radiusMeters).orElse(0) == 400);
+    }
+
+    @Test
+    void deactivatedUserReachesOtherInstance() {
+        PrincipalCache otherPrincipals = other.getBean(PrincipalCache.class);
+        assertThat(otherPrincipals.get(userId).isActive()).isTrue();
+        assertThat(otherPrincipals.get(userId).hasLocation(locationId)).isTrue();
+
+        userService.deactivateUser(userId);
+        try {
+            // Well inside the principal expiry, so only the bus can have dropped it
+            assertWithinBound(() -> !otherPrincipals.get(userId).isActive());
+        } finally {
+            userService.activateUser(userId);
+        }
+    }
+
+    @Test
+    void stockChangeReachesOtherInstance() {
+        ProductService otherProducts = other.getBean(ProductService.class);
+        assertThat(otherProducts.getProductById(productId).getStockQuantity()).isEqualTo(10);
+
+        // A bulk update, which the other instance's product cache can't see for itself
+        stockService.adjust(productId, 5);
+
+        assertWithinBound(() -> otherProducts.getProductById(productId).getStockQuantity() == 15);
+    }
+
+    @Test
+    void rolledBackChangeIsNotPublished() {
+        Integer before = logRows();
+
+        TransactionTemplate rollback = new TransactionTemplate(transactionManager);
+        rollback.executeWithoutResult(status -> {
+            DoctorRequest request = new DoctorRequest();
+            request.setName(MARKER);
+            doctorService.updateDoctor(doctorId, request);
+            status.setRollbackOnly();
+        });
+
+        assertThat(logRows()).isEqualTo(before);
+    }
+
+    private Integer logRows() {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM cache_change_log WHERE entity_type = 'DOCTOR' AND entity_id = ?", Integer.class, doctorId);
+    }
+
+    private static void assertWithinBound(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + BOUND.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(deadline - System.nanoTime()).as("change applied within %s", BOUND).isPositive();
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
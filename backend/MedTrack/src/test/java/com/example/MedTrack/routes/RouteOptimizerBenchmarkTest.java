@@ -0,0 +1,107 @@
+package com.example.MedTrack.routes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.MedTrack.geo.SpatialGrid;
+
+/**
+ * Runs the optimizer on random stops spread over a city, at the sizes reps plan, and checks
+ * it returns a valid tour shorter than the nearest-neighbour one it starts from. Whether it
+ * converges well inside the budget depends on the machine, so that is only timed with
+ * -Pbenchmark.
+ */
+class RouteOptimizerBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteOptimizerBenchmarkTest.class);
+
+    private static final long BUDGET_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final long UNHURRIED_NANOS = TimeUnit.MINUTES.toNanos(1);
+    private static final int RUNS = 10;
+
+    @Test
+    void optimizedRoutesAreValidAndBeatNearestNeighbour() {
+        for (int stops : new int[] {50, 100, 200}) {
+            double nearestNeighbourKm = 0;
+            double optimizedKm = 0;
+            for (int seed = 0; seed < RUNS; seed++) {
+                double[][] distances = distances(randomStops(stops, seed));
+                nearestNeighbourKm += RouteOptimizer.length(RouteOptimizer.nearestNeighbour(distances), distances);
+
+                // No time pressure, so the result doesn't depend on how busy the machine is
+                RouteOptimizer.Result result = RouteOptimizer.optimize(distances, true, System.nanoTime() + UNHURRIED_NANOS);
+                optimizedKm += result.length();
+
+                assertThat(result.converged()).isTrue();
+                assertThat(result.order()[0]).isZero();
+                assertThat(Arrays.stream(result.order()).sorted().toArray()).isEqualTo(IntStream.range(0, stops + 1).toArray());
+            }
+            assertThat(optimizedKm).isLessThan(nearestNeighbourKm * 0.95);
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    void optimizesFiftyToTwoHundredStopsWellInsideTheBudget() {
+        for (int stops : new int[] {50, 100, 200}) {
+            double nearestNeighbourKm = 0;
+            double optimizedKm = 0;
+            long elapsedNanos = 0;
+            for (int seed = 0; seed < RUNS; seed++) {
+                double[][] distances = distances(randomStops(stops, seed));
+                nearestNeighbourKm += RouteOptimizer.length(RouteOptimizer.nearestNeighbour(distances), distances);
+
+                long started = System.nanoTime();
+                RouteOptimizer.Result result = RouteOptimizer.optimize(distances, true, started + BUDGET_NANOS);
+                elapsedNanos += System.nanoTime() - started;
+                optimizedKm += result.length();
+
+                assertThat(result.converged()).isTrue();
+            }
+            log.info("{} stops: nearest neighbour {} km, optimized {} km ({}% shorter), {} ms per route",
+                stops, Math.round(nearestNeighbourKm / RUNS), Math.round(optimizedKm / RUNS),
+                Math.round(100 * (1 - optimizedKm / nearestNeighbourKm)), elapsedNanos / RUNS / 1_000_000);
+
+            assertThat(elapsedNanos / RUNS).isLessThan(BUDGET_NANOS / 4);
+        }
+    }
+
+    @Test
+    void returnsTheBestRouteSoFarWhenTheBudgetRunsOut() {
+        double[][] distances = distances(randomStops(200, 1));
+
+        RouteOptimizer.Result result = RouteOptimizer.optimize(distances, false, System.nanoTime());
+
+        assertThat(result.converged()).isFalse();
+        assertThat(result.order()).isEqualTo(RouteOptimizer.nearestNeighbour(distances));
+    }
+
+    // A starting point and the stops, within about 30 km of central Mumbai
+    private static double[][] randomStops(int stops, long seed) {
+        Random random = new Random(seed);
+        double[][] points = new double[stops + 1][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = new double[] {18.9 + random.nextDouble() * 0.3, 72.8 + random.nextDouble() * 0.3};
+        }
+        return points;
+    }
+
+    private static double[][] distances(double[][] points) {
+        double[][] distances = new double[points.length][points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < points.length; j++) {
+                distances[i][j] = SpatialGrid.distanceKm(points[i][0], points[i][1], points[j][0], points[j][1]);
+            }
+        }
+        return distances;
+    }
+}
@@ -5,3 +5,18 @@ export const getAdminDashboardStats = async () => {
   return response.data;
 };
 
+
+export const getMyRepDashboardStats = async () => {
+  const response = await api.get('/dashboard/rep/stats');
+  return response.data;
+};
+
+export const getRepDashboardStats = async (userId) => {
+  const response = await api.get(`/dashboard/rep/${userId}/stats`);
+  return response.data;
+};
+
+export const getManagerDashboardStats = async () => {
+  const response = await api.get('/dashboard/manager/stats');
+  return response.data;
+};
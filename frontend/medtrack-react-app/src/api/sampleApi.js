@@ -97,3 +97,8 @@ export const deleteSample = async (id) => {
   return response.data;
 };
 
+// Issue samples of several products to one doctor
+export const issueSamplesBatch = async (batchData) => {
+  const response = await api.post(`${API_ENDPOINTS.SAMPLES}/batch`, batchData);
+  return response.data;
+};
@@ -0,0 +1,14 @@
+import api from './axiosConfig';
+
+// entity: doctors, products, locations, visits, samples or orders.
+// Omit the cursor for a full sync; keep passing nextCursor back while hasMore is true.
+export const getSyncChanges = async (entity, cursor, limit) => {
+  const response = await api.get(`/sync/${entity}`, { params: { cursor, limit } });
+  return response.data;
+};
+
+// operations: [{ clientId, type: 'VISIT' | 'SAMPLE' | 'ORDER', visit | sample | order, visitClientId }]
+export const uploadOfflineChanges = async (operations) => {
+  const response = await api.post('/sync/upload', { operations });
+  return response.data;
+};
@@ -159,10 +159,10 @@ const DoctorDetail = () => {
                     render: (userName) => userName || 'N/A'
                   },
                   { 
-                    key: 'notes', 
+                    key: 'notesPreview', 
                     label: 'Notes', 
                     width: '55%',
-                    render: (notes) => notes || 'No notes'
+                    render: (notesPreview) => notesPreview || 'No notes'
                   },
                 ]}
                 data={visits}
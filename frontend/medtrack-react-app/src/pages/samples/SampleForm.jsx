@@ -139,9 +139,6 @@ const SampleForm = () => {
     const apiMessage = error?.response?.data?.error;
   
     if (!apiMessage) return 'Failed to save sample';
-    if (apiMessage.includes("Sample with doctor id") && apiMessage.includes("already exists")) {
-      return "This doctor already has a sample for this product.";
-    }
   
     return apiMessage;
   };
@@ -20,7 +20,8 @@ const VisitForm = () => {
     userId: '',
     doctorId: '',
     visitDate: new Date().toISOString().split('T')[0],
-    notes: ''
+    notes: '',
+    newNote: ''
   });
 
   // Set userId from auth on mount
@@ -53,7 +54,8 @@ const VisitForm = () => {
         userId: visit.user?.id || getUserId(),
         doctorId: visit.doctor?.id || '',
         visitDate: visit.visitDate || '',
-        notes: visit.notes || ''
+        notes: visit.notes || '',
+        newNote: ''
       });
     }
   }, [visit]);
@@ -90,7 +92,10 @@ const VisitForm = () => {
       userId: parseInt(formData.userId),
       doctorId: parseInt(formData.doctorId),
       visitDate: formData.visitDate,
-      notes: formData.notes || null
+      // Notes are append-only: an edit adds a new note after the existing ones
+      ...(isEditMode
+        ? { newNote: formData.newNote || null }
+        : { notes: formData.notes || null })
     });
   };
 
@@ -163,21 +168,57 @@ const VisitForm = () => {
             </div>
           </div>
 
-          <div className="form-group">
-            <label htmlFor="notes" className="form-label">
-              Visit Notes
-            </label>
-            <textarea
-              id="notes"
-              name="notes"
-              className="form-textarea"
-              placeholder="Enter visit details, discussion points, outcomes..."
-              value={formData.notes}
-              onChange={handleChange}
-              rows="6"
-              disabled={mutation.isPending}
-            />
-          </div>
+          {isEditMode ? (
+            <>
+              {formData.notes && (
+                <div className="form-group">
+                  <label htmlFor="notes" className="form-label">
+                    Visit Notes
+                  </label>
+                  <textarea
+                    id="notes"
+                    name="notes"
+                    className="form-textarea"
+                    value={formData.notes}
+                    rows="6"
+                    readOnly
+                  />
+                </div>
+              )}
+
+              <div className="form-group">
+                <label htmlFor="newNote" className="form-label">
+                  Add a Note
+                </label>
+                <textarea
+                  id="newNote"
+                  name="newNote"
+                  className="form-textarea"
+                  placeholder="Added after the existing notes..."
+                  value={formData.newNote}
+                  onChange={handleChange}
+                  rows="4"
+                  disabled={mutation.isPending}
+                />
+              </div>
+            </>
+          ) : (
+            <div className="form-group">
+              <label htmlFor="notes" className="form-label">
+                Visit Notes
+              </label>
+              <textarea
+                id="notes"
+                name="notes"
+                className="form-textarea"
+                placeholder="Enter visit details, discussion points, outcomes..."
+                value={formData.notes}
+                onChange={handleChange}
+                rows="6"
+                disabled={mutation.isPending}
+              />
+            </div>
+          )}
 
           <div className="form-actions">
             <button
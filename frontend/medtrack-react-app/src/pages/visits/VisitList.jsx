@@ -129,7 +129,8 @@ const VisitList = () => {
     const statusConfig = {
       'IN_PROGRESS': { label: 'In Progress', class: 'status-in-progress' },
       'COMPLETED': { label: 'Completed', class: 'status-completed' },
-      'CANCELLED': { label: 'Cancelled', class: 'status-cancelled' }
+      'CANCELLED': { label: 'Cancelled', class: 'status-cancelled' },
+      'AUTO_CLOSED': { label: 'Auto-closed', class: 'status-cancelled' }
     };
     const config = statusConfig[status] || statusConfig['COMPLETED'];
     return <span className={`status-badge ${config.class}`}>{config.label}</span>;
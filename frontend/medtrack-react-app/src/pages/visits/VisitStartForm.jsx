@@ -67,10 +67,29 @@ const VisitStartForm = () => {
     }));
   };
 
-  const handleSubmit = (e) => {
+  // Device position for the location's geofence; left out when unavailable or denied
+  const getDevicePosition = () => new Promise((resolve) => {
+    if (!navigator.geolocation) {
+      resolve({});
+      return;
+    }
+    navigator.geolocation.getCurrentPosition(
+      (position) => resolve({
+        latitude: position.coords.latitude,
+        longitude: position.coords.longitude,
+        accuracyMeters: position.coords.accuracy
+      }),
+      () => resolve({}),
+      { enableHighAccuracy: true, timeout: 10000, maximumAge: 60000 }
+    );
+  });
+
+  const handleSubmit = async (e) => {
     e.preventDefault();
+    const position = await getDevicePosition();
     mutation.mutate({
       ...formData,
+      ...position,
       locationId: Number(formData.locationId),
       doctorId: Number(formData.doctorId),
       userId: Number(formData.userId)
@@ -43,6 +43,7 @@ export const API_ENDPOINTS = {
 export const VISIT_STATUS = {
   IN_PROGRESS: 'IN_PROGRESS',
   COMPLETED: 'COMPLETED',
-  CANCELLED: 'CANCELLED'
+  CANCELLED: 'CANCELLED',
+  AUTO_CLOSED: 'AUTO_CLOSED'
 };
 